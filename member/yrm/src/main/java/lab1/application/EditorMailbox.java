@@ -0,0 +1,84 @@
+package lab1.application;
+
+import java.util.concurrent.*;
+
+/**
+ * 每个打开的编辑器一个邮箱：提交的任务按顺序串行执行，不同编辑器之间并行。
+ * 自己不占线程，任务挂在上一个任务的 future 后面，轮到时交给共享线程池跑。
+ * 未完成的任务数超过上限时 submit 会阻塞调用方 (背压)。
+ */
+class EditorMailbox {
+    private static volatile ExecutorService sharedPool;
+
+    private final String filePath;
+    private final Semaphore permits;
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+    EditorMailbox(String filePath, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("邮箱容量必须大于 0");
+        }
+        this.filePath = filePath;
+        this.permits = new Semaphore(capacity);
+    }
+
+    CompletableFuture<Void> submit(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            // 前一个任务失败不影响后面的任务，只要保证顺序
+            next = tail.handle((ignored, error) -> null)
+                    .thenRunAsync(task, pool());
+            tail = next;
+        }
+        next.whenComplete((ignored, error) -> permits.release());
+        return next;
+    }
+
+    /**
+     * 目前为止提交的所有任务都结束 (无论成败) 后完成
+     */
+    synchronized CompletableFuture<Void> idle() {
+        return tail.handle((ignored, error) -> null);
+    }
+
+    String getFilePath() {
+        return filePath;
+    }
+
+    static ExecutorService pool() {
+        ExecutorService pool = sharedPool;
+        if (pool == null) {
+            synchronized (EditorMailbox.class) {
+                if (sharedPool == null) {
+                    sharedPool = createPool();
+                }
+                pool = sharedPool;
+            }
+        }
+        return pool;
+    }
+
+    // 运行在 21 及以上的 JVM 时用虚拟线程，否则退回到守护线程的缓存线程池
+    private static ExecutorService createPool() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "editor-mailbox");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
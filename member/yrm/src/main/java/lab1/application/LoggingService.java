@@ -3,28 +3,52 @@ package lab1.application;
 // LoggingService.java
 
 import lab1.application.event.*;
+import lab1.infrastructure.BinaryLog;
+import lab1.infrastructure.CommandOpcode;
+import lab1.infrastructure.LogQuery;
+import lab1.infrastructure.LogRecord;
 import lab1.infrastructure.Logger;
 
 import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import lab1.application.event.EventListener;
 import java.time.format.DateTimeFormatter;
 
 public class LoggingService implements EventListener<CommandExecutedEvent> {
-    private Set<String> enabledFiles;
+    private volatile Set<String> enabledFiles; // 异步分发时在事件线程读取
     private final Logger logger; // 依赖注入的 Logger 实例
+    private final BinaryLog binaryLog;
+    private volatile boolean binaryFormat = false; // 默认仍写文本日志
 
     private static final DateTimeFormatter formatter =
             DateTimeFormatter.ofPattern("yyyyMMdd HH:mm:ss");
 
     // 构造函数现在接收 Logger
     public LoggingService(Logger logger) {
-        this.enabledFiles = new HashSet<>();
+        this(logger, new BinaryLog());
+    }
+
+    public LoggingService(Logger logger, BinaryLog binaryLog) {
+        this.enabledFiles = ConcurrentHashMap.newKeySet();
         this.logger = logger; //  保存实例
+        this.binaryLog = binaryLog;
         EventBus.getInstance().subscribe(CommandExecutedEvent.class, this);
     }
 
+    public boolean isBinaryFormat() {
+        return binaryFormat;
+    }
+
+    public void setBinaryFormat(boolean binaryFormat) {
+        this.binaryFormat = binaryFormat;
+    }
+
     public void enableLogging(String filePath) {
         enabledFiles.add(filePath);
     }
@@ -44,8 +68,18 @@ public class LoggingService implements EventListener<CommandExecutedEvent> {
     @Override
     public void onEvent(CommandExecutedEvent event) {
         if (enabledFiles.contains(event.getFilePath())) {
+            if (binaryFormat) {
+                try {
+                    binaryLog.append(getBinaryLogFilePath(event.getFilePath()),
+                            event.getTimestamp(), event.getCommand());
+                } catch (IOException e) {
+                    System.err.println("日志写入失败: " + e.getMessage());
+                }
+                return;
+            }
             String logFile = getLogFilePath(event.getFilePath());
-            String timestamp = this.formatTimestamp(LocalDateTime.now()); // 调用本地方法
+            // 用命令发布时的时间：异步分发时监听器可能晚很久才执行
+            String timestamp = this.formatTimestamp(event.getTimestamp());
             String logEntry = timestamp + " " + event.getCommand();
             logger.writeLog(logFile, logEntry); // 调用非静态方法
         }
@@ -61,7 +95,16 @@ public class LoggingService implements EventListener<CommandExecutedEvent> {
         return (dir == null) ? logFilename : dir + File.separator + logFilename;
     }
 
+    // 二进制日志与文本日志同目录，扩展名为 ".blog"，索引为 ".blog.idx"
+    public String getBinaryLogFilePath(String filePath) {
+        String logPath = getLogFilePath(filePath);
+        return logPath.substring(0, logPath.length() - ".log".length()) + ".blog";
+    }
+
     public String getLogContent(String filePath) {
+        if (binaryFormat) {
+            return exportTextLog(filePath);
+        }
         try {
             return logger.readLog(getLogFilePath(filePath));
         } catch (Exception e) {
@@ -70,18 +113,66 @@ public class LoggingService implements EventListener<CommandExecutedEvent> {
     }
 
     public void setEnabledFiles(Set<String> files) {
-        this.enabledFiles = new HashSet<>(files);
+        Set<String> copy = ConcurrentHashMap.newKeySet();
+        copy.addAll(files);
+        this.enabledFiles = copy;
     }
     // 供 Workspace 调用
     public void logSessionStart(String filePath) {
+        long now = System.currentTimeMillis();
+        // 会话开始记录不经过事件总线：先等这个文件还在排队的命令写完，
+        // 否则上一会话的记录会排到新会话之后 (二进制日志查询依赖记录按时间和会话顺序追加)
+        if (!EventBus.getInstance().flush(filePath, 5, TimeUnit.SECONDS)) {
+            System.err.println("等待事件处理超时, 日志记录顺序可能错乱");
+        }
+        if (binaryFormat) {
+            try {
+                binaryLog.appendSessionStart(getBinaryLogFilePath(filePath), now);
+            } catch (IOException e) {
+                System.err.println("日志写入失败: " + e.getMessage());
+            }
+            return;
+        }
         String logFile = getLogFilePath(filePath);
-        String timestamp = this.formatTimestamp(LocalDateTime.now());
+        String timestamp = this.formatTimestamp(now);
         String logEntry = "session start at " + timestamp;
         logger.writeLog(logFile, logEntry);
     }
 
-    // 格式化时间戳
-    private String formatTimestamp(LocalDateTime time) {
-        return time.format(formatter);
+    /**
+     * 按条件查询二进制日志，结果转换为与文本日志相同格式的行
+     */
+    public List<String> queryLog(String filePath, LogQuery query) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (LogRecord record : binaryLog.query(getBinaryLogFilePath(filePath), query)) {
+            lines.add(toTextLine(record));
+        }
+        return lines;
+    }
+
+    // 二进制日志 -> 现有文本格式
+    public String exportTextLog(String filePath) {
+        try {
+            List<String> lines = queryLog(filePath, LogQuery.all());
+            if (lines.isEmpty()) {
+                return "日志文件不存在";
+            }
+            return String.join(System.lineSeparator(), lines);
+        } catch (IOException e) {
+            return "读取日志失败: " + e.getMessage();
+        }
+    }
+
+    private String toTextLine(LogRecord record) {
+        String timestamp = formatTimestamp(record.getTimestamp());
+        if (record.getOpcode() == CommandOpcode.SESSION_START) {
+            return "session start at " + timestamp;
+        }
+        return timestamp + " " + record.getCommand();
+    }
+
+    // 格式化时间戳 (毫秒)
+    private String formatTimestamp(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).format(formatter);
     }
 }
\ No newline at end of file
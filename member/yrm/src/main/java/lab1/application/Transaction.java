@@ -0,0 +1,49 @@
+package lab1.application;
+
+import lab1.domain.command.ICommand;
+
+import java.util.*;
+
+// begin 之后、commit/rollback 之前收集到的编辑，按文件分组 (邮箱线程里写入，所以加锁)
+class Transaction {
+    private final Map<String, List<ICommand>> edits = new LinkedHashMap<>();
+    // 每个文件第一次被事务修改前的 modified 标记，回滚时恢复
+    private final Map<String, Boolean> modifiedBefore = new HashMap<>();
+    // 事务进行中保存过的文件：磁盘上已经有事务的编辑，回滚后缓冲区和磁盘不一致
+    private final Set<String> savedDuring = new HashSet<>();
+
+    synchronized void record(String filePath, ICommand command, boolean wasModified) {
+        modifiedBefore.putIfAbsent(filePath, wasModified);
+        edits.computeIfAbsent(filePath, k -> new ArrayList<>()).add(command);
+    }
+
+    synchronized Map<String, List<ICommand>> getEdits() {
+        return new LinkedHashMap<>(edits);
+    }
+
+    synchronized boolean wasModified(String filePath) {
+        return modifiedBefore.getOrDefault(filePath, false);
+    }
+
+    synchronized void markSaved(String filePath) {
+        if (edits.containsKey(filePath)) {
+            savedDuring.add(filePath);
+        }
+    }
+
+    synchronized boolean wasSaved(String filePath) {
+        return savedDuring.contains(filePath);
+    }
+
+    synchronized boolean touches(String filePath) {
+        return edits.containsKey(filePath);
+    }
+
+    synchronized int size() {
+        int total = 0;
+        for (List<ICommand> commands : edits.values()) {
+            total += commands.size();
+        }
+        return total;
+    }
+}
@@ -10,20 +10,34 @@ import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lab1.infrastructure.IFileSystem;
 
 public class Workspace {
     private static Workspace instance;
-    private Map<String, IEditor> editors;
+    private final Map<String, IEditor> editors; // 邮箱线程和自动化线程也会读，遍历时先复制
     private IEditor activeEditor;
     private LoggingService loggingService;
     private List<String> accessOrder; // 用于 close 后切换到 "最近使用"
     private IFileSystem fileSystem;// 不再使用 static
 
+    // 每个打开的文件一个串行邮箱，编辑命令在共享线程池上执行
+    public static final int DEFAULT_MAILBOX_CAPACITY = 256;
+    private final Map<String, EditorMailbox> mailboxes = new ConcurrentHashMap<>();
+    private volatile int mailboxCapacity = DEFAULT_MAILBOX_CAPACITY;
+
+    private volatile Transaction transaction; // begin 之后不为 null
+
     private Workspace(IFileSystem fileSystem, LoggingService loggingService) {
         // 使用 LinkedHashMap 保持插入顺序，便于 editor-list 显示
-        this.editors = new LinkedHashMap<>();
+        this.editors = Collections.synchronizedMap(new LinkedHashMap<>());
         this.fileSystem = fileSystem; // 注入
         this.loggingService = loggingService; // 注入
         this.accessOrder = new ArrayList<>();
@@ -92,14 +106,22 @@ public class Workspace {
             throw new IllegalArgumentException("文件未打开: " + filePath);
         }
 
-        fileSystem.writeFile(filePath, editor.getContent());
-        editor.setModified(false);
+        // 写盘期间不挡住编辑，写出去的是同一个版本的完整内容
+        try (DocumentSnapshot snapshot = editor.snapshot()) {
+            fileSystem.writeFile(filePath, snapshot.getContent());
+            editor.markSaved(snapshot.getVersion());
+        }
+        Transaction txn = transaction;
+        if (txn != null) {
+            txn.markSaved(filePath); // 回滚时据此把文件标回已修改
+        }
 
         EventBus.getInstance().publish(new CommandExecutedEvent(filePath, "save " + filePath));
     }
 
     public void saveAll() throws IOException {
-        for (Map.Entry<String, IEditor> entry : editors.entrySet()) {
+        awaitAll(); // 排队中的编辑都落地之后再保存
+        for (Map.Entry<String, IEditor> entry : copyEditors().entrySet()) {
             if (entry.getValue().isModified()) {
                 saveFile(entry.getKey());
             }
@@ -142,7 +164,12 @@ public class Workspace {
     }
 
     public void closeFileForce(String filePath) {
+        Transaction txn = transaction;
+        if (txn != null && txn.touches(filePath)) {
+            throw new IllegalStateException("文件有未提交的事务编辑: " + filePath);
+        }
         editors.remove(filePath);
+        mailboxes.remove(filePath); // 已经提交的任务仍会执行完
         accessOrder.remove(filePath);
 
         if (activeEditor != null && activeEditor.getFilePath().equals(filePath)) {
@@ -176,33 +203,255 @@ public class Workspace {
         if (activeEditor == null) {
             throw new IllegalStateException("没有活动文件");
         }
-        activeEditor.executeCommand(command);
-        EventBus.getInstance().publish(
-                new CommandExecutedEvent(activeEditor.getFilePath(), command.getDescription()));
+        // 同样走邮箱，保证和之前异步提交到这个文件的命令保持先后顺序
+        join(submitEditCommand(activeEditor.getFilePath(), command));
     }
 
-    public void undo() {
-        if (activeEditor == null) {
-            throw new IllegalStateException("没有活动文件");
+    private static void join(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 把编辑命令投递到指定文件的邮箱。同一文件的命令按提交顺序执行，不同文件之间并行；
+     * 该文件排队的命令达到上限时阻塞调用方。
+     */
+    public CompletableFuture<Void> submitEditCommand(String filePath, ICommand command) {
+        IEditor editor = editors.get(filePath);
+        if (editor == null) {
+            throw new IllegalArgumentException("文件未打开: " + filePath);
+        }
+        // 提交时就确定是否属于事务，排队中的旧命令不会被后来的 begin 收进去
+        Transaction txn = transaction;
+        return mailboxFor(filePath).submit(() -> {
+            if (txn != null) {
+                boolean wasModified = editor.isModified();
+                editor.executeUntracked(command);
+                txn.record(filePath, command, wasModified);
+                return;
+            }
+            editor.executeCommand(command);
+            EventBus.getInstance().publish(new CommandExecutedEvent(filePath, command.getDescription()));
+        });
+    }
+
+    private EditorMailbox mailboxFor(String filePath) {
+        return mailboxes.computeIfAbsent(filePath, path -> new EditorMailbox(path, mailboxCapacity));
+    }
+
+    // *** 跨文件查找 / 替换 ***
+
+    /**
+     * 在所有打开的文件里查找，每个文件在 ForkJoin 公共池上各扫一遍自己的快照
+     * @return 文件路径 (按字典序) -> 该文件里的匹配 (按行、列排序)，没有匹配的文件不出现
+     */
+    public SortedMap<String, List<SearchHit>> findAll(SearchPattern pattern) {
+        awaitAll(); // 排队中的编辑先落地，查到的就是最新内容
+        SortedMap<String, List<SearchHit>> results = forEachEditor(editor -> {
+            List<SearchHit> hits = new ArrayList<>();
+            try (DocumentSnapshot snapshot = editor.snapshot()) {
+                List<String> lines = snapshot.getLines();
+                for (int i = 0; i < lines.size(); i++) {
+                    pattern.findInLine(lines.get(i), i + 1, hits);
+                }
+            }
+            return hits;
+        });
+        results.values().removeIf(List::isEmpty);
+        return results;
+    }
+
+    /**
+     * 在所有打开的文件里替换。替换结果在 ForkJoin 公共池上按文件并行算好，
+     * 再各自投递到文件的邮箱，每个文件的改动是一条可 undo 的命令 (事务中则记进事务)。
+     * dryRun 时只统计处数，不修改任何文件。
+     * @return 文件路径 (按字典序) -> 替换处数，没有匹配的文件不出现
+     */
+    public SortedMap<String, Integer> replaceAllFiles(SearchPattern pattern, String replacement, boolean dryRun) {
+        SortedMap<String, ReplaceAllCommand> plans = forEachEditor(
+                editor -> ReplaceAllCommand.plan(editor, pattern, replacement));
+        plans.values().removeIf(plan -> plan.getCount() == 0);
+
+        if (!dryRun) {
+            Map<String, CompletableFuture<Void>> pending = new LinkedHashMap<>();
+            for (Map.Entry<String, ReplaceAllCommand> entry : plans.entrySet()) {
+                pending.put(entry.getKey(), submitEditCommand(entry.getKey(), entry.getValue()));
+            }
+            // 全部等完再报第一个错，别的文件已经替换的照常生效
+            CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0]))
+                    .handle((ignored, error) -> null).join();
+            for (CompletableFuture<Void> future : pending.values()) {
+                join(future);
+            }
+        }
+
+        SortedMap<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, ReplaceAllCommand> entry : plans.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                counts.put(entry.getKey(), entry.getValue().getCount());
+            }
+        }
+        return counts;
+    }
+
+    // 每个打开的文件提交一个任务，结果按路径排序汇总；任何一个任务失败都会抛出
+    private <T> SortedMap<String, T> forEachEditor(Function<IEditor, T> task) {
+        Map<String, ForkJoinTask<T>> tasks = new TreeMap<>();
+        for (Map.Entry<String, IEditor> entry : copyEditors().entrySet()) {
+            IEditor editor = entry.getValue();
+            tasks.put(entry.getKey(), ForkJoinPool.commonPool().submit(() -> task.apply(editor)));
+        }
+        SortedMap<String, T> results = new TreeMap<>();
+        for (Map.Entry<String, ForkJoinTask<T>> entry : tasks.entrySet()) {
+            results.put(entry.getKey(), entry.getValue().join());
+        }
+        return results;
+    }
+
+    // *** 事务 ***
+
+    public synchronized void beginTransaction() {
+        if (transaction != null) {
+            throw new IllegalStateException("事务已开始，请先 commit 或 rollback");
+        }
+        transaction = new Transaction();
+    }
+
+    public boolean inTransaction() {
+        return transaction != null;
+    }
+
+    /**
+     * 提交事务：每个文件的编辑合成一条 undo 记录，并只发布一条事件 (一行日志)
+     * @return 提交的编辑条数
+     */
+    public synchronized int commitTransaction() {
+        Transaction txn = endTransaction();
+        for (Map.Entry<String, List<ICommand>> entry : txn.getEdits().entrySet()) {
+            IEditor editor = editors.get(entry.getKey());
+            if (editor == null) {
+                continue;
+            }
+            CompositeCommand composite = new CompositeCommand(entry.getValue());
+            editor.recordHistory(composite);
+            EventBus.getInstance().publish(new CommandExecutedEvent(entry.getKey(), composite.getDescription()));
         }
-        activeEditor.undo();
-        EventBus.getInstance().publish(new CommandExecutedEvent(activeEditor.getFilePath(), "undo"));
+        return txn.size();
+    }
+
+    /**
+     * 回滚事务：每个文件的编辑一次性倒序撤销，并恢复事务前的修改标记；
+     * 事务中已经保存过的文件标记为已修改
+     * @return 撤销的编辑条数
+     */
+    public synchronized int rollbackTransaction() {
+        Transaction txn = endTransaction();
+        for (Map.Entry<String, List<ICommand>> entry : txn.getEdits().entrySet()) {
+            IEditor editor = editors.get(entry.getKey());
+            if (editor == null) {
+                continue;
+            }
+            editor.undoUntracked(entry.getValue());
+            // 事务中保存过的文件，磁盘上还是事务的编辑，回滚后必须算作未保存
+            editor.setModified(txn.wasModified(entry.getKey()) || txn.wasSaved(entry.getKey()));
+        }
+        return txn.size();
+    }
+
+    // 先等事务里排队的编辑都执行完，再结束事务
+    private Transaction endTransaction() {
+        Transaction txn = transaction;
+        if (txn == null) {
+            throw new IllegalStateException("没有进行中的事务");
+        }
+        awaitAll();
+        transaction = null;
+        return txn;
+    }
+
+    /**
+     * 等待所有邮箱中已提交的命令执行完 (失败的命令也算结束)
+     */
+    public void awaitAll() {
+        CompletableFuture<?>[] pending = mailboxes.values().stream()
+                .map(EditorMailbox::idle)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(pending).join();
+    }
+
+    /**
+     * 设置每个文件最多排队的命令数，只对之后新建的邮箱生效
+     */
+    public void setMailboxCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("邮箱容量必须大于 0");
+        }
+        this.mailboxCapacity = capacity;
+    }
+
+    public int getMailboxCapacity() {
+        return mailboxCapacity;
+    }
+
+    public void undo() {
+        runHistory("undo", IEditor::undo);
     }
 
     public void redo() {
-        if (activeEditor == null) {
+        runHistory("redo", IEditor::redo);
+    }
+
+    // undo/redo 也排进文件的邮箱，在它之前提交的编辑执行完才会撤销
+    private void runHistory(String name, Consumer<IEditor> action) {
+        IEditor editor = activeEditor;
+        if (editor == null) {
             throw new IllegalStateException("没有活动文件");
         }
-        activeEditor.redo();
-        EventBus.getInstance().publish(new CommandExecutedEvent(activeEditor.getFilePath(), "redo"));
+        checkNoTransaction();
+        String filePath = editor.getFilePath();
+        join(mailboxFor(filePath).submit(() -> {
+            action.accept(editor);
+            EventBus.getInstance().publish(new CommandExecutedEvent(filePath, name));
+        }));
+    }
+
+    private void checkNoTransaction() {
+        if (transaction != null) {
+            throw new IllegalStateException("事务进行中，请先 commit 或 rollback");
+        }
     }
 
     public String showContent(int startLine, int endLine) {
-        if (activeEditor == null) {
+        IEditor editor = activeEditor;
+        if (editor == null) {
             throw new IllegalStateException("没有活动文件");
         }
-        List<String> lines = activeEditor.getLines();
+        try (DocumentSnapshot snapshot = editor.snapshot()) {
+            return showLines(snapshot.getLines(), startLine, endLine);
+        }
+    }
 
+    /**
+     * 显示全文；范围按快照的行数算，不读编辑器当前的行列表
+     */
+    public String showAll() {
+        IEditor editor = activeEditor;
+        if (editor == null) {
+            throw new IllegalStateException("没有活动文件");
+        }
+        try (DocumentSnapshot snapshot = editor.snapshot()) {
+            List<String> lines = snapshot.getLines();
+            return showLines(lines, 1, Math.max(1, lines.size())); // 空文件也显示第 1 行
+        }
+    }
+
+    private String showLines(List<String> lines, int startLine, int endLine) {
         // 确保范围有效
         int actualStart = Math.max(1, startLine);
         int actualEnd = Math.min(lines.size(), endLine);
@@ -228,8 +477,17 @@ public class Workspace {
         return activeEditor;
     }
 
+    /**
+     * 打开的文件 (按打开顺序)，返回的是只读副本
+     */
     public Map<String, IEditor> getOpenEditors() {
-        return editors;
+        return Collections.unmodifiableMap(copyEditors());
+    }
+
+    private Map<String, IEditor> copyEditors() {
+        synchronized (editors) {
+            return new LinkedHashMap<>(editors);
+        }
     }
 
     public LoggingService getLoggingService() {
@@ -237,7 +495,7 @@ public class Workspace {
     }
 
     public List<IEditor> getUnsavedEditors() {
-        return editors.values().stream()
+        return copyEditors().values().stream()
                 .filter(IEditor::isModified)
                 .collect(Collectors.toList());
     }
@@ -248,7 +506,7 @@ public class Workspace {
      * 创建工作区状态快照
      */
     public WorkspaceState createMemento() {
-        List<String> openFiles = new ArrayList<>(editors.keySet());
+        List<String> openFiles = new ArrayList<>(copyEditors().keySet());
         String active = (activeEditor != null) ? activeEditor.getFilePath() : null;
         Set<String> modified = getUnsavedEditors().stream()
                 .map(IEditor::getFilePath)
@@ -3,10 +3,12 @@ package lab1.application.event;
 public class CommandExecutedEvent implements Event {
     private String filePath;
     private String command;
+    private final long timestamp; // 发布时的时间，异步写日志时用它而不是写入时的时间
 
     public CommandExecutedEvent(String filePath, String command) {
         this.filePath = filePath;
         this.command = command;
+        this.timestamp = System.currentTimeMillis();
     }
 
     public String getFilePath() {
@@ -16,4 +18,14 @@ public class CommandExecutedEvent implements Event {
     public String getCommand() {
         return command;
     }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    // 同一文件的命令事件按顺序写日志
+    @Override
+    public String getOrderingKey() {
+        return filePath;
+    }
 }
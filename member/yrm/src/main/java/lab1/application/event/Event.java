@@ -2,4 +2,8 @@ package lab1.application.event;
 
 
 public interface Event {
+    // 异步分发时同一个 key 的事件按发布顺序处理，默认都排在同一队列
+    default String getOrderingKey() {
+        return null;
+    }
 }
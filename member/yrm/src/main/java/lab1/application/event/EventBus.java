@@ -1,33 +1,207 @@
 package lab1.application.event;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class EventBus {
     private static EventBus instance;
-    private Map<Class<? extends Event>, List<EventListener>> listeners;
+    private static final EventListener<?>[] NO_LISTENERS = new EventListener<?>[0];
+    private static final int DEFAULT_STRIPES = 4;
 
-    private EventBus() {
-        this.listeners = new HashMap<>();
+    // 写时复制：订阅/取消订阅时整体换掉数组，publish 只读数组，不加锁也不分配
+    private final ConcurrentMap<Class<? extends Event>, EventListener<?>[]> listeners;
+
+    // 异步模式：按文件路径把事件分到固定的单线程执行器上，同一文件的事件保持顺序
+    private volatile boolean async = false;
+    private volatile ExecutorService[] stripes;
+    private final int stripeCount;
+
+    // 指标
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder dispatchedCount = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    private EventBus(int stripeCount) {
+        this.listeners = new ConcurrentHashMap<>();
+        this.stripeCount = stripeCount;
     }
 
-    public static EventBus getInstance() {
+    public static synchronized EventBus getInstance() {
         if (instance == null) {
-            instance = new EventBus();
+            instance = new EventBus(DEFAULT_STRIPES);
         }
         return instance;
     }
 
     public <T extends Event> void subscribe(Class<T> eventType, EventListener<T> listener) {
-        listeners.computeIfAbsent(eventType, k -> new ArrayList<>()).add(listener);
+        listeners.compute(eventType, (k, old) -> {
+            EventListener<?>[] current = (old == null) ? NO_LISTENERS : old;
+            EventListener<?>[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            return updated;
+        });
+    }
+
+    public <T extends Event> void unsubscribe(Class<T> eventType, EventListener<T> listener) {
+        listeners.computeIfPresent(eventType, (k, old) -> {
+            for (int i = 0; i < old.length; i++) {
+                if (old[i] == listener) {
+                    EventListener<?>[] updated = new EventListener<?>[old.length - 1];
+                    System.arraycopy(old, 0, updated, 0, i);
+                    System.arraycopy(old, i + 1, updated, i, old.length - i - 1);
+                    return updated.length == 0 ? null : updated;
+                }
+            }
+            return old;
+        });
     }
 
+    @SuppressWarnings("unchecked")
     public <T extends Event> void publish(T event) {
-        List<EventListener> eventListeners = listeners.get(event.getClass());
-        if (eventListeners != null) {
-            // 复制列表以避免并发修改
-            for (EventListener listener : new ArrayList<>(eventListeners)) {
-                listener.onEvent(event);
+        EventListener<?>[] eventListeners = listeners.get(event.getClass());
+        if (eventListeners == null) {
+            return;
+        }
+        publishedCount.increment();
+
+        // 切回同步后，条带里还有没处理完的事件时继续入队，否则新事件会排到旧事件前面
+        if (!async && queueDepth.get() == 0) {
+            long start = System.nanoTime();
+            for (EventListener<?> listener : eventListeners) {
+                ((EventListener<T>) listener).onEvent(event);
+            }
+            recordDispatch(start);
+            return;
+        }
+
+        // 异步：命令线程只负责入队，监听器 (如 LoggingService) 在后台线程执行
+        long start = System.nanoTime();
+        recordEnqueue();
+        stripeFor(event.getOrderingKey()).execute(() -> {
+            try {
+                for (EventListener<?> listener : eventListeners) {
+                    try {
+                        ((EventListener<T>) listener).onEvent(event);
+                    } catch (RuntimeException e) {
+                        System.err.println("事件处理失败: " + e.getMessage());
+                    }
+                }
+            } finally {
+                queueDepth.decrementAndGet();
+                recordDispatch(start);
+            }
+        });
+    }
+
+    // *** 异步模式 ***
+
+    /**
+     * 切换分发模式
+     * @return false 如果切回同步时已入队的事件没能在超时前处理完 (它们仍会在后台按顺序处理)
+     */
+    public synchronized boolean setAsync(boolean async) {
+        if (async && stripes == null) {
+            ExecutorService[] created = new ExecutorService[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                final int index = i;
+                created[i] = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "event-bus-" + index);
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            stripes = created;
+        }
+        // 先改标志，之后发布的事件不再进入条带 (队列没清空前仍会排在后面，见 publish)
+        this.async = async;
+        if (!async) {
+            return flush(5, TimeUnit.SECONDS);
+        }
+        return true;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * 等待所有已入队的事件处理完 (退出程序前调用)
+     * @return true 如果在超时前全部处理完
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        ExecutorService[] current = stripes;
+        if (current == null) {
+            return true;
+        }
+        List<Future<?>> barriers = new ArrayList<>();
+        for (ExecutorService stripe : current) {
+            barriers.add(stripe.submit(() -> { }));
+        }
+        return awaitBarriers(barriers, timeout, unit);
+    }
+
+    /**
+     * 只等待某个文件所在条带上已入队的事件 (绕过事件总线直接写同一文件的日志前调用)
+     * @return true 如果在超时前处理完
+     */
+    public boolean flush(String orderingKey, long timeout, TimeUnit unit) {
+        if (stripes == null) {
+            return true;
+        }
+        return awaitBarriers(List.of(stripeFor(orderingKey).submit(() -> { })), timeout, unit);
+    }
+
+    private boolean awaitBarriers(List<Future<?>> barriers, long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (Future<?> barrier : barriers) {
+                barrier.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
             }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
         }
     }
+
+    private ExecutorService stripeFor(String key) {
+        ExecutorService[] current = stripes;
+        int index = (key == null) ? 0 : (key.hashCode() & Integer.MAX_VALUE) % current.length;
+        return current[index];
+    }
+
+    // *** 指标 ***
+
+    private void recordEnqueue() {
+        int depth = queueDepth.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    private void recordDispatch(long startNanos) {
+        long latency = System.nanoTime() - startNanos;
+        dispatchedCount.increment();
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
+
+    public EventBusMetrics getMetrics() {
+        return new EventBusMetrics(publishedCount.sum(), dispatchedCount.sum(), totalLatencyNanos.sum(),
+                maxLatencyNanos.get(), queueDepth.get(), maxQueueDepth.get());
+    }
+
+    public void resetMetrics() {
+        publishedCount.reset();
+        dispatchedCount.reset();
+        totalLatencyNanos.reset();
+        maxLatencyNanos.set(0);
+        maxQueueDepth.set(queueDepth.get());
+    }
 }
@@ -0,0 +1,52 @@
+package lab1.application.event;
+
+// EventBus 指标快照：分发延迟 (异步模式下包含排队时间) 和队列深度
+public class EventBusMetrics {
+    private final long publishedCount;
+    private final long dispatchedCount;
+    private final long totalLatencyNanos;
+    private final long maxLatencyNanos;
+    private final int queueDepth;
+    private final int maxQueueDepth;
+
+    public EventBusMetrics(long publishedCount, long dispatchedCount, long totalLatencyNanos,
+                           long maxLatencyNanos, int queueDepth, int maxQueueDepth) {
+        this.publishedCount = publishedCount;
+        this.dispatchedCount = dispatchedCount;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount;
+    }
+
+    public long getDispatchedCount() {
+        return dispatchedCount;
+    }
+
+    public double getAvgLatencyMicros() {
+        return dispatchedCount == 0 ? 0 : totalLatencyNanos / 1000.0 / dispatchedCount;
+    }
+
+    public double getMaxLatencyMicros() {
+        return maxLatencyNanos / 1000.0;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("已发布: %d, 已分发: %d, 平均延迟: %.1fus, 最大延迟: %.1fus, 队列深度: %d (峰值 %d)",
+                publishedCount, dispatchedCount, getAvgLatencyMicros(), getMaxLatencyMicros(),
+                queueDepth, maxQueueDepth);
+    }
+}
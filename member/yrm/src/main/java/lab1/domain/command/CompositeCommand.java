@@ -0,0 +1,46 @@
+package lab1.domain.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 事务提交后的一组编辑，在历史里只占一条：undo 时倒序撤销，redo 时顺序重做
+public class CompositeCommand implements ICommand {
+    private final List<ICommand> commands;
+
+    public CompositeCommand(List<ICommand> commands) {
+        this.commands = new ArrayList<>(commands);
+    }
+
+    @Override
+    public void execute() {
+        int done = 0;
+        try {
+            for (ICommand command : commands) {
+                command.execute();
+                done++;
+            }
+        } catch (RuntimeException e) {
+            // 中途失败时把已经执行的撤销掉，保持要么全做要么全不做
+            for (int i = done - 1; i >= 0; i--) {
+                commands.get(i).undo();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void undo() {
+        for (int i = commands.size() - 1; i >= 0; i--) {
+            commands.get(i).undo();
+        }
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    @Override
+    public String getDescription() {
+        return "commit " + commands.size() + " edits";
+    }
+}
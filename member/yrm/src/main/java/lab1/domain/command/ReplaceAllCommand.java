@@ -0,0 +1,95 @@
+package lab1.domain.command;
+
+import lab1.domain.editor.DocumentSnapshot;
+import lab1.domain.editor.IEditor;
+import lab1.domain.editor.SearchPattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把一个文件里的所有匹配一次替换掉，在历史里只占一条。
+ * 先用 plan() 在快照上算好要改哪些行 (可以放在别的线程做)，execute 时只是按下标写回；
+ * 如果算完之后文件又被改过 (版本号变了)，第一次 execute 会按当前内容重算。
+ * undo / redo 只动被改的那几行，不保存整份文档。
+ */
+public class ReplaceAllCommand implements ICommand {
+    private final IEditor editor;
+    private final SearchPattern pattern;
+    private final String replacement;
+
+    private long baseVersion;
+    private int[] lineIndexes;
+    private String[] before;
+    private String[] after;
+    private int count;
+    private boolean executed;
+
+    private ReplaceAllCommand(IEditor editor, SearchPattern pattern, String replacement) {
+        this.editor = editor;
+        this.pattern = pattern;
+        this.replacement = replacement;
+    }
+
+    /**
+     * 在编辑器当前版本的快照上计算替换结果，不修改文档
+     */
+    public static ReplaceAllCommand plan(IEditor editor, SearchPattern pattern, String replacement) {
+        ReplaceAllCommand command = new ReplaceAllCommand(editor, pattern, replacement);
+        try (DocumentSnapshot snapshot = editor.snapshot()) {
+            command.baseVersion = snapshot.getVersion();
+            command.scan(snapshot.getLines());
+        }
+        return command;
+    }
+
+    private void scan(List<String> lines) {
+        List<Integer> indexes = new ArrayList<>();
+        List<String> oldLines = new ArrayList<>();
+        List<String> newLines = new ArrayList<>();
+        int[] replaced = new int[1];
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            String result = pattern.replaceInLine(line, replacement, replaced);
+            if (result != line) {
+                indexes.add(i);
+                oldLines.add(line);
+                newLines.add(result);
+            }
+        }
+        lineIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+        before = oldLines.toArray(new String[0]);
+        after = newLines.toArray(new String[0]);
+        count = replaced[0];
+    }
+
+    @Override
+    public void execute() {
+        List<String> lines = editor.getLines();
+        if (!executed && editor.getVersion() != baseVersion) {
+            scan(lines); // 排在前面的编辑改过文件，算好的结果作废
+        }
+        executed = true;
+        for (int i = 0; i < lineIndexes.length; i++) {
+            lines.set(lineIndexes[i], after[i]);
+        }
+    }
+
+    @Override
+    public void undo() {
+        List<String> lines = editor.getLines();
+        for (int i = 0; i < lineIndexes.length; i++) {
+            lines.set(lineIndexes[i], before[i]);
+        }
+    }
+
+    // 替换的处数 (不是行数)
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String getDescription() {
+        return "replace-all-files \"" + pattern.getText() + "\" \"" + replacement + "\"";
+    }
+}
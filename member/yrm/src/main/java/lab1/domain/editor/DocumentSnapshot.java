@@ -0,0 +1,47 @@
+package lab1.domain.editor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文档在某个版本上的只读快照 (show / save 用)
+ *
+ * 快照直接引用编辑器当时的行列表，不做拷贝；之后的写命令会先把列表复制一份再改 (写时复制)，
+ * 所以快照拿到的内容永远停留在 version 那一刻。用完调用 close() 释放，
+ * 没有读者持有的旧版本由编辑器忘掉，交给 GC 回收。
+ */
+public class DocumentSnapshot implements AutoCloseable {
+    private final TextEditor owner;
+    private final long version;
+    private final List<String> lines;
+    private boolean released;
+
+    DocumentSnapshot(TextEditor owner, long version, List<String> lines) {
+        this.owner = owner;
+        this.version = version;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    public String getContent() {
+        return String.join("\n", lines);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (released) {
+                return; // 重复 close 不影响计数
+            }
+            released = true;
+        }
+        owner.release(version);
+    }
+}
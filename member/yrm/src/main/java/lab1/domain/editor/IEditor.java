@@ -14,4 +14,14 @@ public interface IEditor {
     boolean canUndo();
     boolean canRedo();
     String getFilePath();
+
+    // 每次成功的编辑 / undo / redo 都会让版本号 +1
+    long getVersion();
+    DocumentSnapshot snapshot();
+    void markSaved(long version);
+
+    // 事务用：执行/撤销但不进历史，提交时再把整组作为一条记录放进去
+    void executeUntracked(ICommand command);
+    void undoUntracked(List<ICommand> commands);
+    void recordHistory(ICommand command);
 }
@@ -0,0 +1,26 @@
+package lab1.domain.editor;
+
+// 一处匹配：行号、列号都从 1 开始，lineText 是所在行的完整内容
+public class SearchHit {
+    private final int line;
+    private final int column;
+    private final String lineText;
+
+    public SearchHit(int line, int column, String lineText) {
+        this.line = line;
+        this.column = column;
+        this.lineText = lineText;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public String getLineText() {
+        return lineText;
+    }
+}
@@ -0,0 +1,107 @@
+package lab1.domain.editor;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * find-all / replace-all-files 用的查找条件：普通文本或正则，匹配都不跨行。
+ * 对象不可变，可以在多个线程里同时用 (Matcher 每次现建)。
+ */
+public final class SearchPattern {
+    private final String text;
+    private final Pattern regex; // 普通文本时为 null
+
+    private SearchPattern(String text, Pattern regex) {
+        this.text = text;
+        this.regex = regex;
+    }
+
+    public static SearchPattern literal(String text) {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("查找内容不能为空");
+        }
+        return new SearchPattern(text, null);
+    }
+
+    public static SearchPattern regex(String expression) {
+        if (expression == null || expression.isEmpty()) {
+            throw new IllegalArgumentException("查找内容不能为空");
+        }
+        try {
+            return new SearchPattern(expression, Pattern.compile(expression));
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("无效的正则表达式: " + expression);
+        }
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isRegex() {
+        return regex != null;
+    }
+
+    /**
+     * 把一行里所有不重叠的匹配加到 hits；lineNumber 从 1 开始。正则匹配到的空串不算
+     */
+    public void findInLine(String line, int lineNumber, List<SearchHit> hits) {
+        if (regex == null) {
+            for (int i = line.indexOf(text); i >= 0; i = line.indexOf(text, i + text.length())) {
+                hits.add(new SearchHit(lineNumber, i + 1, line));
+            }
+            return;
+        }
+        Matcher m = regex.matcher(line);
+        while (m.find()) {
+            if (m.end() > m.start()) {
+                hits.add(new SearchHit(lineNumber, m.start() + 1, line));
+            }
+        }
+    }
+
+    /**
+     * 替换一行里的所有匹配，替换的处数累加到 count[0]。没有匹配时原样返回同一个字符串。
+     * 正则模式下 replacement 可以用 $1 引用分组
+     */
+    public String replaceInLine(String line, String replacement, int[] count) {
+        if (regex == null) {
+            int i = line.indexOf(text);
+            if (i < 0) {
+                return line;
+            }
+            StringBuilder sb = new StringBuilder(line.length());
+            int from = 0;
+            for (; i >= 0; i = line.indexOf(text, from)) {
+                sb.append(line, from, i).append(replacement);
+                from = i + text.length();
+                count[0]++;
+            }
+            return sb.append(line, from, line.length()).toString();
+        }
+        Matcher m = regex.matcher(line);
+        StringBuilder sb = null;
+        while (m.find()) {
+            if (m.end() == m.start()) {
+                continue; // 和 findInLine 保持一致，空匹配不替换
+            }
+            if (sb == null) {
+                sb = new StringBuilder(line.length());
+            }
+            m.appendReplacement(sb, replacement);
+            count[0]++;
+        }
+        if (sb == null) {
+            return line;
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
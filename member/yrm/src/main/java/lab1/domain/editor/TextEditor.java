@@ -3,12 +3,21 @@ package lab1.domain.editor;
 import lab1.domain.command.*;
 import java.util.*;
 
+/**
+ * 写操作 (execute / undo / redo) 串行执行，每次成功提交版本号 +1。
+ * 读操作通过 snapshot() 拿到某个版本的只读快照，之后不再持有任何锁，
+ * 写命令遇到仍被快照引用的行列表时先复制一份再改 (写时复制)。
+ */
 public class TextEditor implements IEditor {
     private String filePath;
     private List<String> lines;
-    private boolean modified;
+    private volatile boolean modified;
     private CommandHistory history;
 
+    private volatile long version;
+    // 版本号 -> 持有该版本快照的读者数，减到 0 就移除
+    private final Map<Long, Integer> pins = new HashMap<>();
+
     public TextEditor(String filePath) {
         this.filePath = filePath;
         this.lines = new ArrayList<>();
@@ -27,17 +36,95 @@ public class TextEditor implements IEditor {
     }
 
     @Override
-    public void executeCommand(ICommand command) {
+    public synchronized void executeCommand(ICommand command) {
+        detachFromSnapshots();
         command.execute();
         history.push(command);
+        version++;
         setModified(true);
     }
 
+    @Override
+    public synchronized void executeUntracked(ICommand command) {
+        detachFromSnapshots();
+        command.execute();
+        version++;
+        setModified(true);
+    }
+
+    /**
+     * 倒序撤销一组命令，整组只算一个版本，读者看不到撤销到一半的内容
+     */
+    @Override
+    public synchronized void undoUntracked(List<ICommand> commands) {
+        if (commands.isEmpty()) {
+            return;
+        }
+        detachFromSnapshots();
+        for (int i = commands.size() - 1; i >= 0; i--) {
+            commands.get(i).undo();
+        }
+        version++;
+    }
+
+    @Override
+    public synchronized void recordHistory(ICommand command) {
+        history.push(command);
+    }
+
     @Override
     public String getContent() {
-        return String.join("\n", lines);
+        try (DocumentSnapshot snapshot = snapshot()) {
+            return snapshot.getContent();
+        }
+    }
+
+    // *** 版本与快照 ***
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 固定当前版本，返回只读快照。只在加锁时登记一下引用，不复制内容。
+     */
+    @Override
+    public synchronized DocumentSnapshot snapshot() {
+        pins.merge(version, 1, Integer::sum);
+        return new DocumentSnapshot(this, version, lines);
+    }
+
+    synchronized void release(long snapshotVersion) {
+        pins.computeIfPresent(snapshotVersion, (v, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 当前仍被读者持有的版本号 (升序)
+     */
+    public synchronized SortedSet<Long> getPinnedVersions() {
+        return new TreeSet<>(pins.keySet());
+    }
+
+    /**
+     * 保存完成后调用：只有保存的正是最新版本才清除修改标记，
+     * 保存期间又有新的编辑时文件仍然是 "已修改"。
+     */
+    @Override
+    public synchronized void markSaved(long savedVersion) {
+        if (savedVersion == version) {
+            setModified(false);
+        }
+    }
+
+    // 当前行列表被快照引用着就换成一份拷贝，旧列表留给快照
+    private void detachFromSnapshots() {
+        if (pins.containsKey(version)) {
+            lines = new ArrayList<>(lines);
+        }
     }
 
+    // 可变的当前行列表，给命令在 executeCommand / undo / redo 内部修改用；只读请用 snapshot()
     @Override
     public List<String> getLines() {
         return lines;
@@ -54,20 +141,24 @@ public class TextEditor implements IEditor {
     }
 
     @Override
-    public void undo() {
+    public synchronized void undo() {
         if (history.canUndo()) {
+            detachFromSnapshots();
             ICommand command = history.popUndo();
             command.undo();
+            version++;
             history.pushRedo(command);
             setModified(true); // 撤销也是一种修改
         }
     }
 
     @Override
-    public void redo() {
+    public synchronized void redo() {
         if (history.canRedo()) {
+            detachFromSnapshots();
             ICommand command = history.popRedo();
             command.execute();
+            version++;
             history.pushUndo(command);
             setModified(true); // 重做也是一种修改
         }
@@ -0,0 +1,16 @@
+package lab1.domain.filesystem;
+
+/**
+ * 目录子节点的加载方式 (由基础设施层提供，按需读取磁盘)
+ */
+public interface ChildLoader {
+    /**
+     * 按名称排序后的前 limit 个子节点，以及子节点总数
+     */
+    ChildPage load(int limit);
+
+    /**
+     * 只查找一个子节点 (不在已加载的一页里时使用)，不存在返回 null
+     */
+    FileSystemNode find(String name);
+}
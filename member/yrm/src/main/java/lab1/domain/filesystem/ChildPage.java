@@ -0,0 +1,22 @@
+package lab1.domain.filesystem;
+
+import java.util.List;
+
+// 一页子节点：按名称排好序的前若干个，加上目录下的子节点总数
+public class ChildPage {
+    private final List<FileSystemNode> children;
+    private final int total;
+
+    public ChildPage(List<FileSystemNode> children, int total) {
+        this.children = children;
+        this.total = total;
+    }
+
+    public List<FileSystemNode> getChildren() {
+        return children;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+}
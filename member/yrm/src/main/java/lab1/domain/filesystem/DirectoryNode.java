@@ -2,23 +2,174 @@ package lab1.domain.filesystem;
 
 import java.util.*;
 
+/**
+ * 目录节点
+ * 普通构造的节点直接持有全部子节点；带 ChildLoader 的节点第一次访问时才加载，
+ * 可以只加载按名称排序的前一页，超大目录不必全部读进内存。
+ */
 public class DirectoryNode implements FileSystemNode {
     private String name;
-    private List<FileSystemNode> children;
+    private List<FileSystemNode> children; // 已加载的子节点 (按名称排序)，未加载时为 null
+    private int totalChildren;             // 子节点总数，只加载了一页时大于 children.size()
+    private final ChildLoader loader;
 
     public DirectoryNode(String name) {
         this.name = name;
         this.children = new ArrayList<>();
+        this.loader = null;
+    }
+
+    public DirectoryNode(String name, ChildLoader loader) {
+        this.name = name;
+        this.loader = loader;
     }
 
     public void addChild(FileSystemNode node) {
-        children.add(node);
+        children().add(node);
+        totalChildren++;
     }
 
+    /**
+     * 全部子节点 (懒加载的节点会读取整个目录)
+     */
     public List<FileSystemNode> getChildren() {
+        return getChildren(Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按名称排序的前 limit 个子节点，只在已加载的部分不够时才去读取
+     */
+    public List<FileSystemNode> getChildren(int limit) {
+        if (children == null || (children.size() < totalChildren && children.size() < limit)) {
+            ChildPage page = loader.load(limit);
+            children = new ArrayList<>(page.getChildren());
+            totalChildren = page.getTotal();
+        }
+        return children.size() <= limit ? children : children.subList(0, limit);
+    }
+
+    /**
+     * 子节点总数 (未加载时只读取计数和很小的一页)
+     */
+    public int getChildCount() {
+        if (children == null) {
+            getChildren(0);
+        }
+        return totalChildren;
+    }
+
+    /**
+     * 已加载的子节点，不触发加载
+     */
+    public List<FileSystemNode> getLoadedChildren() {
+        return children != null ? children : Collections.emptyList();
+    }
+
+    public boolean isLoaded() {
+        return children != null;
+    }
+
+    // 已加载且没有遗漏的子节点，这时可以直接在内存里增删
+    public boolean isComplete() {
+        return children != null && children.size() == totalChildren;
+    }
+
+    /**
+     * 丢掉已加载的子节点，下次访问时重新加载 (只对懒加载的节点有效)
+     */
+    public void unload() {
+        if (loader != null) {
+            children = null;
+            totalChildren = 0;
+        }
+    }
+
+    /**
+     * 按名称有序插入 (需已完整加载)，同名节点已存在时不插入
+     */
+    public void addChildSorted(FileSystemNode node) {
+        int index = indexOf(node.getName());
+        if (index < 0) {
+            children().add(-index - 1, node);
+            totalChildren++;
+        }
+    }
+
+    /**
+     * 删除指定名称的子节点 (需已完整加载)，返回被删除的节点，没有则返回 null
+     */
+    public FileSystemNode removeChild(String childName) {
+        int index = indexOf(childName);
+        if (index < 0) {
+            return null;
+        }
+        totalChildren--;
+        return children.remove(index);
+    }
+
+    /**
+     * 在已加载的子节点中查找
+     */
+    public FileSystemNode getChild(String childName) {
+        int index = indexOf(childName);
+        return index >= 0 ? children.get(index) : null;
+    }
+
+    /**
+     * 查找子节点，已加载的一页里没有时单独向加载器查询
+     */
+    public FileSystemNode findChild(String childName) {
+        FileSystemNode node = getChild(childName);
+        if (node == null && loader != null && !isComplete()) {
+            node = loader.find(childName);
+        }
+        return node;
+    }
+
+    /**
+     * 换个名字的同一个目录 (显示根目录时用用户输入的路径名)，子节点从原节点读取
+     */
+    public DirectoryNode renamed(String newName) {
+        DirectoryNode target = this;
+        return new DirectoryNode(newName, new ChildLoader() {
+            @Override
+            public ChildPage load(int limit) {
+                return new ChildPage(target.getChildren(limit), target.getChildCount());
+            }
+
+            @Override
+            public FileSystemNode find(String childName) {
+                return target.findChild(childName);
+            }
+        });
+    }
+
+    private List<FileSystemNode> children() {
+        if (children == null) {
+            getChildren();
+        }
         return children;
     }
 
+    // 二分查找，找不到时返回 -(插入位置) - 1
+    private int indexOf(String childName) {
+        List<FileSystemNode> list = getLoadedChildren();
+        int low = 0;
+        int high = list.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = list.get(mid).getName().compareTo(childName);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
     @Override
     public String getName() {
         return name;
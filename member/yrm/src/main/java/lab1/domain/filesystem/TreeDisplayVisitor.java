@@ -1,12 +1,32 @@
 package lab1.domain.filesystem;
 
-import java.util.List;
+import java.util.*;
 
+/**
+ * 把目录树画成文本
+ * 可以限制展开的层数，每个目录最多显示一页子节点，剩下的用 "… 还有 K 项" 表示；
+ * expandPaths 中的目录 (相对根目录，用 / 分隔) 不受层数和分页限制，通往它的各级目录也会展开。
+ */
 public class TreeDisplayVisitor implements TreeVisitor {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
     private StringBuilder output;
+    private final int maxDepth;
+    private final int pageSize;
+    private final Set<String> expandPaths;
+    private int depth;               // 当前目录的深度，根目录为 0
+    private String currentPath = ""; // 当前节点相对根目录的路径
 
     public TreeDisplayVisitor() {
+        this(UNLIMITED, UNLIMITED, Collections.emptySet());
+    }
+
+    public TreeDisplayVisitor(int maxDepth, int pageSize, Set<String> expandPaths) {
         this.output = new StringBuilder();
+        this.maxDepth = maxDepth;
+        this.pageSize = pageSize;
+        this.expandPaths = expandPaths;
     }
 
     @Override
@@ -24,14 +44,63 @@ public class TreeDisplayVisitor implements TreeVisitor {
         output.append(dir.getName());
         output.append("\n");
 
-        List<FileSystemNode> children = dir.getChildren();
+        boolean target = expandPaths.contains(currentPath);
+        Set<String> pinned = pinnedChildren();
+        boolean withinDepth = depth < maxDepth;
+        if (!withinDepth && !target && pinned.isEmpty()) {
+            return;
+        }
+
+        // 超出层数时只显示通往 --expand 目录的那一项
+        List<FileSystemNode> children = new ArrayList<>();
+        if (withinDepth || target) {
+            children.addAll(dir.getChildren(target ? UNLIMITED : pageSize));
+        }
+        boolean added = false;
+        for (String name : pinned) {
+            if (children.stream().noneMatch(c -> c.getName().equals(name))) {
+                FileSystemNode child = dir.findChild(name);
+                if (child != null) {
+                    children.add(child);
+                    added = true;
+                }
+            }
+        }
+        if (added) {
+            children.sort(Comparator.comparing(FileSystemNode::getName));
+        }
+        int hidden = dir.getChildCount() - children.size();
+
         String childPrefix = prefix + (isLast ? "    " : "│   ");
+        String parentPath = currentPath;
+        depth++;
         for (int i = 0; i < children.size(); i++) {
-            children.get(i).accept(this, childPrefix, i == children.size() - 1);
+            FileSystemNode child = children.get(i);
+            currentPath = parentPath.isEmpty() ? child.getName() : parentPath + "/" + child.getName();
+            child.accept(this, childPrefix, i == children.size() - 1 && hidden <= 0);
+        }
+        depth--;
+        currentPath = parentPath;
+
+        if (hidden > 0) {
+            output.append(childPrefix).append("└── … 还有 ").append(hidden).append(" 项\n");
+        }
+    }
+
+    // 当前目录下、位于某个 --expand 路径上的子节点名称
+    private Set<String> pinnedChildren() {
+        Set<String> names = new TreeSet<>();
+        String base = currentPath.isEmpty() ? "" : currentPath + "/";
+        for (String path : expandPaths) {
+            if (path.length() > base.length() && path.startsWith(base)) {
+                int end = path.indexOf('/', base.length());
+                names.add(path.substring(base.length(), end < 0 ? path.length() : end));
+            }
         }
+        return names;
     }
 
     public String getOutput() {
         return output.toString();
     }
-}
\ No newline at end of file
+}
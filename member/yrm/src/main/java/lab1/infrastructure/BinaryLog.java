@@ -0,0 +1,249 @@
+package lab1.infrastructure;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 二进制结构化命令日志 (可选格式，与 Logger 的文本日志并存)
+ *
+ * 日志文件: "CLOG" + 版本号，随后是定长头 + 变长参数的记录:
+ *   int 记录体长度 | long 时间戳(ms) | int 会话号 | byte 操作码 | short 参数个数 | (int 长度 + UTF-8)*
+ * 索引文件 (日志路径 + ".idx"): 每个会话开始以及每隔 INDEX_STRIDE 字节记一条
+ *   long 时间戳 | int 会话号 | long 记录偏移
+ * 查询时先用稀疏索引定位起点，再只读记录头过滤，不匹配的记录直接跳过，不解码参数。
+ */
+public class BinaryLog {
+    private static final byte[] MAGIC = {'C', 'L', 'O', 'G'};
+    private static final byte VERSION = 1;
+    static final int HEADER_LEN = MAGIC.length + 1;
+    // 记录头中 "记录体长度" 之后、参数之前的字节数: ts + session + opcode
+    private static final int RECORD_HEAD_LEN = 8 + 4 + 1;
+    private static final int INDEX_ENTRY_LEN = 8 + 4 + 8;
+    static final long INDEX_STRIDE = 4096;
+
+    // 日志路径 -> {上一次建索引的偏移, 当前会话号}，首次使用时从索引文件尾部恢复
+    private final Map<String, long[]> indexTails = new HashMap<>();
+
+    public static String indexPathOf(String logPath) {
+        return logPath + ".idx";
+    }
+
+    // *** 写入 ***
+
+    public synchronized void appendSessionStart(String logPath, long timestamp) throws IOException {
+        long[] tail = indexTail(logPath);
+        tail[1]++;
+        writeRecord(logPath, timestamp, CommandOpcode.SESSION_START, Collections.emptyList(), true);
+    }
+
+    public synchronized void append(String logPath, long timestamp, String command) throws IOException {
+        String trimmed = command.trim();
+        int space = trimmed.indexOf(' ');
+        String keyword = space < 0 ? trimmed : trimmed.substring(0, space);
+        String rest = space < 0 ? "" : trimmed.substring(space + 1);
+
+        CommandOpcode opcode = CommandOpcode.fromKeyword(keyword);
+        List<String> args;
+        if (opcode == null) {
+            opcode = CommandOpcode.OTHER;
+            args = Collections.singletonList(command);
+        } else {
+            args = splitArgs(rest);
+        }
+        writeRecord(logPath, timestamp, opcode, args, false);
+    }
+
+    private void writeRecord(String logPath, long timestamp, CommandOpcode opcode,
+                             List<String> args, boolean forceIndex) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(body);
+        long[] tail = indexTail(logPath);
+        int session = (int) tail[1];
+
+        out.writeLong(timestamp);
+        out.writeInt(session);
+        out.writeByte(opcode.getCode());
+        out.writeShort(args.size());
+        for (String arg : args) {
+            byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.flush();
+
+        File file = new File(logPath);
+        boolean isNew = !file.exists() || file.length() == 0;
+        long offset = isNew ? HEADER_LEN : file.length();
+
+        try (DataOutputStream fileOut = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            if (isNew) {
+                fileOut.write(MAGIC);
+                fileOut.writeByte(VERSION);
+            }
+            fileOut.writeInt(body.size());
+            body.writeTo(fileOut);
+        }
+
+        if (forceIndex || tail[0] < 0 || offset - tail[0] >= INDEX_STRIDE) {
+            try (DataOutputStream idxOut = new DataOutputStream(
+                    new FileOutputStream(indexPathOf(logPath), true))) {
+                idxOut.writeLong(timestamp);
+                idxOut.writeInt(session);
+                idxOut.writeLong(offset);
+            }
+            tail[0] = offset;
+        }
+    }
+
+    // 按空格切分参数，引号内的空格保留；切分后无法原样拼回时整体作为一个参数
+    static List<String> splitArgs(String rest) {
+        if (rest.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuote = false;
+        for (int i = 0; i < rest.length(); i++) {
+            char c = rest.charAt(i);
+            if (c == '"') {
+                inQuote = !inQuote;
+            }
+            if (c == ' ' && !inQuote) {
+                args.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        args.add(current.toString());
+        if (!String.join(" ", args).equals(rest)) {
+            return Collections.singletonList(rest);
+        }
+        return args;
+    }
+
+    private long[] indexTail(String logPath) throws IOException {
+        long[] tail = indexTails.get(logPath);
+        if (tail == null) {
+            tail = new long[]{-1, 0};
+            List<long[]> entries = readIndex(logPath);
+            if (!entries.isEmpty()) {
+                long[] last = entries.get(entries.size() - 1);
+                tail[0] = last[2];
+                tail[1] = last[1];
+            }
+            indexTails.put(logPath, tail);
+        }
+        return tail;
+    }
+
+    // *** 读取 ***
+
+    /**
+     * 读取稀疏索引，每项为 {时间戳, 会话号, 偏移}
+     */
+    public List<long[]> readIndex(String logPath) throws IOException {
+        File idx = new File(indexPathOf(logPath));
+        List<long[]> entries = new ArrayList<>();
+        if (!idx.exists()) {
+            return entries;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(idx)))) {
+            long count = idx.length() / INDEX_ENTRY_LEN;
+            for (long i = 0; i < count; i++) {
+                entries.add(new long[]{in.readLong(), in.readInt(), in.readLong()});
+            }
+        }
+        return entries;
+    }
+
+    public synchronized List<LogRecord> query(String logPath, LogQuery query) throws IOException {
+        List<LogRecord> result = new ArrayList<>();
+        File file = new File(logPath);
+        if (!file.exists() || file.length() <= HEADER_LEN) {
+            return result;
+        }
+
+        long start = seekOffset(readIndex(logPath), query);
+        try (FileInputStream fis = new FileInputStream(file)) {
+            byte[] magic = new byte[HEADER_LEN];
+            if (fis.read(magic) != HEADER_LEN || !Arrays.equals(Arrays.copyOf(magic, MAGIC.length), MAGIC)) {
+                throw new IOException("不是二进制日志文件: " + logPath);
+            }
+            fis.getChannel().position(start);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fis, 64 * 1024));
+
+            while (true) {
+                int bodyLen;
+                long timestamp;
+                int session;
+                CommandOpcode opcode;
+                try {
+                    bodyLen = in.readInt();
+                    timestamp = in.readLong();
+                    session = in.readInt();
+                    opcode = CommandOpcode.fromCode(in.readByte());
+                } catch (EOFException e) {
+                    break; // 文件末尾 (或最后一条记录未写完整)
+                }
+
+                // 记录按时间和会话顺序追加，超出窗口后不必再往后读
+                if (timestamp > query.getToMillis()
+                        || (query.getSession() != LogQuery.ANY_SESSION && session > query.getSession())) {
+                    break;
+                }
+
+                if (!query.matchesHeader(timestamp, session, opcode)) {
+                    skipFully(in, bodyLen - RECORD_HEAD_LEN);
+                    continue;
+                }
+
+                int argc = in.readUnsignedShort();
+                List<String> args = new ArrayList<>(argc);
+                for (int i = 0; i < argc; i++) {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    args.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+                result.add(new LogRecord(timestamp, session, opcode, args));
+            }
+        }
+        return result;
+    }
+
+    // 用索引找到第一个可能匹配的记录偏移：此前的记录要么早于时间窗口，要么属于更早的会话
+    private long seekOffset(List<long[]> index, LogQuery query) {
+        boolean bySession = query.getSession() != LogQuery.ANY_SESSION;
+        boolean reachedSession = false;
+        long start = HEADER_LEN;
+        for (long[] entry : index) {
+            boolean beforeWindow = entry[0] < query.getFromMillis();
+            boolean beforeSession = bySession && entry[1] < query.getSession();
+            // 会话开始一定有索引项，第一个 >= 目标会话的索引项之前都是更早的会话
+            boolean sessionStart = bySession && entry[1] >= query.getSession() && !reachedSession;
+            if (sessionStart) {
+                reachedSession = true;
+            }
+            if (beforeWindow || beforeSession || sessionStart) {
+                start = entry[2];
+            } else {
+                break;
+            }
+        }
+        return start;
+    }
+
+    private static void skipFully(DataInputStream in, int n) throws IOException {
+        int remaining = n;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package lab1.infrastructure;
+
+// 二进制日志中的命令操作码，每条记录只占 1 个字节
+public enum CommandOpcode {
+    SESSION_START(0, null),
+    LOAD(1, "load"),
+    SAVE(2, "save"),
+    INIT(3, "init"),
+    CLOSE(4, "close"),
+    APPEND(5, "append"),
+    INSERT(6, "insert"),
+    DELETE(7, "delete"),
+    REPLACE(8, "replace"),
+    UNDO(9, "undo"),
+    REDO(10, "redo"),
+    OTHER(127, null); // 未知命令：整条命令文本作为唯一参数保存
+
+    private final byte code;
+    private final String keyword;
+
+    CommandOpcode(int code, String keyword) {
+        this.code = (byte) code;
+        this.keyword = keyword;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public static CommandOpcode fromCode(byte code) {
+        for (CommandOpcode op : values()) {
+            if (op.code == code) {
+                return op;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * 根据关键字查找操作码 (如 "replace")，找不到返回 null
+     */
+    public static CommandOpcode fromKeyword(String keyword) {
+        for (CommandOpcode op : values()) {
+            if (op.keyword != null && op.keyword.equals(keyword)) {
+                return op;
+            }
+        }
+        return null;
+    }
+}
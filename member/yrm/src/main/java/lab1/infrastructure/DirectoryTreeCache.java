@@ -0,0 +1,281 @@
+package lab1.infrastructure;
+
+import lab1.domain.filesystem.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * dir-tree 用的目录树缓存
+ *
+ * 目录节点都是懒加载的：第一次读取某个目录的子节点时才列目录，并给它注册 WatchService。
+ * 之后每次取树前先把积压的事件 (新建 / 删除) 应用到已完整加载的 DirectoryNode 上，
+ * 重复 dir-tree 的开销只和变化量有关；只加载了一页的目录收到事件后直接丢掉，下次访问重新读。
+ * 某个目录的事件溢出 (OVERFLOW) 时只重新扫描那一个目录。
+ * 每个目录全局只有一个节点，不同根目录的树有重叠时共用子树。
+ */
+class DirectoryTreeCache {
+    private final WatchService watcher;
+    private boolean watching; // false 时不再注册监视，每次都重新读取
+    private final Map<Path, DirectoryNode> nodes = new HashMap<>();
+    private final Map<Path, WatchKey> keysByDir = new HashMap<>();
+    private final Map<WatchKey, Path> dirsByKey = new HashMap<>();
+
+    DirectoryTreeCache() {
+        this.watcher = openWatcher();
+        this.watching = watcher != null;
+    }
+
+    // 轮询实现 (如 macOS) 要好几秒才发现变化，用它会看到过期的树，不如不缓存
+    private static WatchService openWatcher() {
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            if (service.getClass().getSimpleName().startsWith("Polling")) {
+                service.close();
+                return null;
+            }
+            return service;
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    synchronized DirectoryNode get(Path root) {
+        Path dir = root.toAbsolutePath().normalize();
+        if (!watching) {
+            return node(dir, false);
+        }
+        processEvents();
+        return node(dir, true);
+    }
+
+    // *** 加载 ***
+
+    private DirectoryNode node(Path dir, boolean cached) {
+        if (cached) {
+            DirectoryNode node = nodes.get(dir);
+            if (node != null) {
+                return node;
+            }
+        }
+        DirectoryNode node = new DirectoryNode(nameOf(dir), new DiskLoader(dir, cached));
+        if (cached) {
+            nodes.put(dir, node);
+        }
+        return node;
+    }
+
+    private FileSystemNode entry(Path child, boolean cached) {
+        if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+            return node(child, cached);
+        }
+        return new FileNode(nameOf(child));
+    }
+
+    private class DiskLoader implements ChildLoader {
+        private final Path dir;
+        private final boolean cached;
+
+        DiskLoader(Path dir, boolean cached) {
+            this.dir = dir;
+            this.cached = cached;
+        }
+
+        @Override
+        public ChildPage load(int limit) {
+            synchronized (DirectoryTreeCache.this) {
+                boolean watch = cached && watching;
+                if (watch) {
+                    watch(dir);
+                    watch = watching; // 注册失败时已经放弃缓存
+                }
+                // 只保留名称最小的 limit 个 (大顶堆)，其余只计数，超大目录也不会全部留在内存里
+                PriorityQueue<String> smallest = new PriorityQueue<>(Comparator.reverseOrder());
+                int total = 0;
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    for (Path child : stream) {
+                        total++;
+                        if (limit > 0) {
+                            smallest.offer(nameOf(child));
+                            if (smallest.size() > limit) {
+                                smallest.poll();
+                            }
+                        }
+                    }
+                } catch (IOException | DirectoryIteratorException e) {
+                    // 无权限等情况，当作空目录
+                }
+                List<String> names = new ArrayList<>(smallest);
+                Collections.sort(names);
+                List<FileSystemNode> children = new ArrayList<>(names.size());
+                for (String name : names) {
+                    children.add(entry(dir.resolve(name), watch));
+                }
+                return new ChildPage(children, total);
+            }
+        }
+
+        @Override
+        public FileSystemNode find(String name) {
+            synchronized (DirectoryTreeCache.this) {
+                Path child = dir.resolve(name);
+                if (!Files.exists(child, LinkOption.NOFOLLOW_LINKS)) {
+                    return null;
+                }
+                return entry(child, cached && watching);
+            }
+        }
+    }
+
+    // 先注册再列目录，列目录期间发生的变化也会收到事件
+    private void watch(Path dir) {
+        if (keysByDir.containsKey(dir)) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE);
+            keysByDir.put(dir, key);
+            dirsByKey.put(key, dir);
+        } catch (IOException e) {
+            // 多半是 inotify 监视数量到上限了，放弃缓存
+            clear();
+            watching = false;
+        }
+    }
+
+    private static List<Path> list(Path dir) {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                children.add(child);
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            return children;
+        }
+        children.sort(Comparator.comparing(DirectoryTreeCache::nameOf));
+        return children;
+    }
+
+    private static String nameOf(Path path) {
+        Path name = path.getFileName();
+        return name != null ? name.toString() : path.toString();
+    }
+
+    // *** 增量更新 ***
+
+    private void processEvents() {
+        WatchKey key;
+        while ((key = watcher.poll()) != null) {
+            Path dir = dirsByKey.get(key);
+            if (dir != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    apply(dir, event);
+                }
+            }
+            // 目录本身被删除或不可访问时 key 失效
+            if (!key.reset() && dir != null) {
+                forget(dir);
+            }
+        }
+    }
+
+    private void apply(Path dir, WatchEvent<?> event) {
+        DirectoryNode node = nodes.get(dir);
+        if (node == null) {
+            return;
+        }
+        if (!node.isComplete()) {
+            node.unload(); // 只有一页，没法判断变化落在哪里
+            return;
+        }
+        if (event.kind() == OVERFLOW) {
+            rescan(dir);
+            return;
+        }
+        Path child = dir.resolve((Path) event.context());
+        if (event.kind() == ENTRY_DELETE) {
+            removeEntry(node, child);
+        } else if (event.kind() == ENTRY_CREATE) {
+            addEntry(node, child);
+        }
+    }
+
+    /**
+     * 重新扫描一个目录的直接子项，和缓存对比后增删 (子目录各有自己的监视，不用递归)
+     */
+    synchronized void rescan(Path dir) {
+        DirectoryNode node = nodes.get(dir);
+        if (node == null) {
+            return;
+        }
+        if (!node.isComplete()) {
+            node.unload();
+            return;
+        }
+        Set<String> present = new HashSet<>();
+        for (Path child : list(dir)) {
+            String name = nameOf(child);
+            present.add(name);
+            FileSystemNode existing = node.getChild(name);
+            if (existing != null && existing.isDirectory() != Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                removeEntry(node, child); // 文件换成了同名目录，或者反过来
+                existing = null;
+            }
+            if (existing == null) {
+                addEntry(node, child);
+            }
+        }
+        for (FileSystemNode existing : new ArrayList<>(node.getLoadedChildren())) {
+            if (!present.contains(existing.getName())) {
+                removeEntry(node, dir.resolve(existing.getName()));
+            }
+        }
+    }
+
+    private void addEntry(DirectoryNode parent, Path child) {
+        if (parent.getChild(nameOf(child)) != null) {
+            return;
+        }
+        // 不存在说明建了又删，删除事件会跟着到
+        if (Files.exists(child, LinkOption.NOFOLLOW_LINKS)) {
+            parent.addChildSorted(entry(child, true));
+        }
+    }
+
+    private void removeEntry(DirectoryNode parent, Path child) {
+        FileSystemNode removed = parent.removeChild(nameOf(child));
+        if (removed != null && removed.isDirectory()) {
+            forget(child);
+        }
+    }
+
+    // 取消一个目录及其所有已加载子目录的监视
+    private void forget(Path dir) {
+        DirectoryNode node = nodes.remove(dir);
+        WatchKey key = keysByDir.remove(dir);
+        if (key != null) {
+            dirsByKey.remove(key);
+            key.cancel();
+        }
+        if (node == null) {
+            return;
+        }
+        for (FileSystemNode child : node.getLoadedChildren()) {
+            if (child.isDirectory()) {
+                forget(dir.resolve(child.getName()));
+            }
+        }
+    }
+
+    private void clear() {
+        for (WatchKey key : dirsByKey.keySet()) {
+            key.cancel();
+        }
+        nodes.clear();
+        keysByDir.clear();
+        dirsByKey.clear();
+    }
+}
@@ -3,10 +3,11 @@ package lab1.infrastructure;
 import lab1.domain.filesystem.*;
 import java.io.*;
 import java.nio.file.*;
-import java.util.*;
 
 // 实现接口，并将方法改为非静态
 public class FileSystem implements IFileSystem {
+    // 第一次 dir-tree 时才创建，避免只读写文件的实例也占用 WatchService
+    private DirectoryTreeCache treeCache;
 
     @Override
     public String readFile(String path) throws IOException {
@@ -29,22 +30,17 @@ public class FileSystem implements IFileSystem {
         if (!file.exists()) {
             throw new IOException("路径不存在: " + path);
         }
-        return buildTreeRecursive(file);
+        if (!file.isDirectory()) {
+            return new FileNode(file.getName());
+        }
+        // 根节点显示用户输入的名字 (如 "."), 子树来自缓存
+        return treeCache().get(file.toPath()).renamed(file.getName());
     }
 
-    private FileSystemNode buildTreeRecursive(File file) {
-        if (file.isDirectory()) {
-            DirectoryNode dirNode = new DirectoryNode(file.getName());
-            File[] children = file.listFiles();
-            if (children != null) {
-                Arrays.sort(children, Comparator.comparing(File::getName));
-                for (File child : children) {
-                    dirNode.addChild(buildTreeRecursive(child));
-                }
-            }
-            return dirNode;
-        } else {
-            return new FileNode(file.getName());
+    synchronized DirectoryTreeCache treeCache() {
+        if (treeCache == null) {
+            treeCache = new DirectoryTreeCache();
         }
+        return treeCache;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package lab1.infrastructure;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// log-query 的过滤条件：命令类型 / 时间窗口 / 会话
+public class LogQuery {
+    public static final int ANY_SESSION = -1;
+
+    private final Set<CommandOpcode> opcodes; // 为空表示不过滤命令类型
+    private final long fromMillis;
+    private final long toMillis;
+    private final int session;
+
+    public LogQuery(Set<CommandOpcode> opcodes, long fromMillis, long toMillis, int session) {
+        this.opcodes = (opcodes == null || opcodes.isEmpty())
+                ? EnumSet.noneOf(CommandOpcode.class) : EnumSet.copyOf(opcodes);
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        this.session = session;
+    }
+
+    public static LogQuery all() {
+        return new LogQuery(null, Long.MIN_VALUE, Long.MAX_VALUE, ANY_SESSION);
+    }
+
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    public long getToMillis() {
+        return toMillis;
+    }
+
+    public int getSession() {
+        return session;
+    }
+
+    // 只看记录头就能判断，不需要解码参数
+    public boolean matchesHeader(long timestamp, int recordSession, CommandOpcode opcode) {
+        if (timestamp < fromMillis || timestamp > toMillis) {
+            return false;
+        }
+        if (session != ANY_SESSION && recordSession != session) {
+            return false;
+        }
+        return opcodes.isEmpty() || opcodes.contains(opcode);
+    }
+}
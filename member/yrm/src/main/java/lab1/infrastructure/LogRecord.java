@@ -0,0 +1,47 @@
+package lab1.infrastructure;
+
+import java.util.List;
+
+// 二进制日志中解码后的一条记录
+public class LogRecord {
+    private final long timestamp; // epoch millis
+    private final int session;
+    private final CommandOpcode opcode;
+    private final List<String> args;
+
+    public LogRecord(long timestamp, int session, CommandOpcode opcode, List<String> args) {
+        this.timestamp = timestamp;
+        this.session = session;
+        this.opcode = opcode;
+        this.args = args;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getSession() {
+        return session;
+    }
+
+    public CommandOpcode getOpcode() {
+        return opcode;
+    }
+
+    public List<String> getArgs() {
+        return args;
+    }
+
+    /**
+     * 还原为写日志时的命令文本，例如: replace 1:1 4 "text"
+     */
+    public String getCommand() {
+        if (opcode == CommandOpcode.OTHER || opcode.getKeyword() == null) {
+            return String.join(" ", args);
+        }
+        if (args.isEmpty()) {
+            return opcode.getKeyword();
+        }
+        return opcode.getKeyword() + " " + String.join(" ", args);
+    }
+}
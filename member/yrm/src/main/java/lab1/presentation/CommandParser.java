@@ -2,20 +2,37 @@ package lab1.presentation;
 
 import lab1.application.Workspace;
 import lab1.application.WorkspaceState;
+import lab1.application.event.EventBus;
 import lab1.domain.command.*;
 import lab1.domain.editor.IEditor;
+import lab1.domain.editor.SearchHit;
+import lab1.domain.editor.SearchPattern;
 import lab1.domain.editor.TextEditor;
 import lab1.domain.filesystem.FileSystemNode;
 import lab1.domain.filesystem.TreeDisplayVisitor;
+import lab1.infrastructure.CommandOpcode;
 import lab1.infrastructure.ConfigManager;
 import lab1.infrastructure.FileSystem;
 import lab1.infrastructure.IFileSystem;
+import lab1.infrastructure.LogQuery;
 
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +47,8 @@ public class CommandParser {
     private static final Pattern INSERT_PATTERN = Pattern.compile("^(\\d+):(\\d+)\\s+\"([^\"]*)\"");
     private static final Pattern REPLACE_PATTERN = Pattern.compile("^(\\d+):(\\d+)\\s+(\\d+)\\s+\"([^\"]*)\"");
     private static final Pattern DELETE_PATTERN = Pattern.compile("^(\\d+):(\\d+)\\s+(\\d+)");
+    private static final DateTimeFormatter QUERY_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter QUERY_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
 
     public CommandParser() {
         this.workspace = Workspace.getInstance();
@@ -91,6 +110,18 @@ public class CommandParser {
                     handleExit();
                     return true;
 
+                // *** 事务命令 ***
+                case "begin":
+                    workspace.beginTransaction();
+                    System.out.println("事务已开始");
+                    break;
+                case "commit":
+                    System.out.println("事务已提交: " + workspace.commitTransaction() + " 条编辑");
+                    break;
+                case "rollback":
+                    System.out.println("事务已回滚: " + workspace.rollbackTransaction() + " 条编辑");
+                    break;
+
                 // *** 文本编辑命令 ***
                 case "append":
                     handleAppend(args);
@@ -108,6 +139,14 @@ public class CommandParser {
                     handleShow(args);
                     break;
 
+                // *** 跨文件查找 / 替换 ***
+                case "find-all":
+                    handleFindAll(args);
+                    break;
+                case "replace-all-files":
+                    handleReplaceAllFiles(args);
+                    break;
+
                 // *** 日志命令 ***
                 case "log-on":
                     workspace.getLoggingService().enableLogging(getFileArg(args));
@@ -118,9 +157,33 @@ public class CommandParser {
                     System.out.println("日志已关闭");
                     break;
                 case "log-show":
+                    flushEvents();
                     String logContent = workspace.getLoggingService().getLogContent(getFileArg(args));
                     System.out.println(logContent);
                     break;
+                case "log-format":
+                    flushEvents(); // 还在排队的事件按原来的格式写完再切换
+                    handleLogFormat(args);
+                    break;
+                case "log-query":
+                    flushEvents();
+                    handleLogQuery(args);
+                    break;
+                case "log-export":
+                    flushEvents();
+                    System.out.println(workspace.getLoggingService().exportTextLog(getFileArg(args)));
+                    break;
+
+                // *** 事件分发 ***
+                case "event-mode":
+                    handleEventMode(args);
+                    break;
+                case "event-stats":
+                    System.out.println(EventBus.getInstance().getMetrics());
+                    break;
+                case "edit-queue":
+                    handleEditQueue(args);
+                    break;
 
                 default:
                     System.err.println("未知命令: " + command);
@@ -184,19 +247,65 @@ public class CommandParser {
         }
     }
 
+    // dir-tree [path] [--depth n] [--expand 子目录]...
+    // 每个目录最多显示一页子节点；--expand 的目录 (相对 path) 完整显示，且不受层数限制
     private void printDirTree(String args) throws IOException {
-        String path = args.isEmpty() ? "." : args; // 默认为当前目录
+        String path = "."; // 默认为当前目录
+        int depth = TreeDisplayVisitor.UNLIMITED;
+        Set<String> expand = new HashSet<>();
+
+        String[] tokens = args.isEmpty() ? new String[0] : args.split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.startsWith("--") && i + 1 >= tokens.length) {
+                throw new IllegalArgumentException("选项 " + token + " 缺少参数");
+            }
+            switch (token) {
+                case "--depth":
+                    depth = Integer.parseInt(tokens[++i]);
+                    if (depth < 1) throw new IllegalArgumentException("--depth 必须大于 0");
+                    break;
+                case "--expand":
+                    expand.add(tokens[++i]);
+                    break;
+                default:
+                    if (token.startsWith("--")) throw new IllegalArgumentException("未知选项: " + token);
+                    path = token;
+            }
+        }
+
         // 从 Workspace 获取 IFileSystem 实例
         IFileSystem fileSystem = workspace.getFileSystem();
 
-        // 在实例上调用非静态方法
+        // 在实例上调用非静态方法，目录节点按需加载
         FileSystemNode root = fileSystem.buildTree(path);
 
-        TreeDisplayVisitor visitor = new TreeDisplayVisitor();
+        TreeDisplayVisitor visitor = new TreeDisplayVisitor(depth, TreeDisplayVisitor.DEFAULT_PAGE_SIZE,
+                normalizeExpandPaths(path, expand));
         root.accept(visitor, "", true); // 使用访问者模式打印
         System.out.print(visitor.getOutput());
     }
 
+    // 统一成相对根目录、用 / 分隔的形式，绝对路径先转成相对路径
+    private Set<String> normalizeExpandPaths(String rootPath, Set<String> paths) {
+        Path root = Paths.get(rootPath).toAbsolutePath().normalize();
+        Set<String> result = new HashSet<>();
+        for (String p : paths) {
+            Path expand = Paths.get(p);
+            Path relative = expand.isAbsolute() ? root.relativize(expand.normalize()) : expand.normalize();
+            if (relative.startsWith("..")) {
+                throw new IllegalArgumentException("--expand 的目录不在 " + rootPath + " 下: " + p);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (Path name : relative) {
+                if (sb.length() > 0) sb.append('/');
+                sb.append(name);
+            }
+            result.add(sb.toString());
+        }
+        return result;
+    }
+
     private void handleAppend(String args) {
         Matcher m = TEXT_ARG_PATTERN.matcher(args);
         if (!m.find()) throw new IllegalArgumentException("无效的 append 格式, 缺少 \"text\"");
@@ -237,23 +346,192 @@ public class CommandParser {
     }
 
     private void handleShow(String args) {
-        if (workspace.getActiveEditor() == null) throw new IllegalStateException("没有活动文件");
+        if (args.isEmpty()) {
+            // 实验要求：不指定参数显示全文 (行数和内容来自同一个快照)
+            System.out.println(workspace.showAll());
+            return;
+        }
+        String[] parts = args.split(":");
+        int start = Integer.parseInt(parts[0]);
+        int end = (parts.length > 1) ? Integer.parseInt(parts[1]) : start;
+        System.out.println(workspace.showContent(start, end));
+    }
 
-        List<String> lines = workspace.getActiveEditor().getLines();
-        int start = 1;
-        int end = lines.size();
+    // find-all "text" [--regex]：在所有打开的文件里查找，按文件分组输出
+    private void handleFindAll(String args) {
+        Matcher m = TEXT_ARG_PATTERN.matcher(args);
+        if (!m.find()) throw new IllegalArgumentException("无效的 find-all 格式。示例: find-all \"text\" [--regex]");
+        String text = m.group(1);
+        boolean regex = false;
+        for (String token : optionTokens(args.substring(m.end()))) {
+            if (!token.equals("--regex")) throw new IllegalArgumentException("未知选项: " + token);
+            regex = true;
+        }
 
-        if (!args.isEmpty()) {
-            String[] parts = args.split(":");
-            start = Integer.parseInt(parts[0]);
-            end = (parts.length > 1) ? Integer.parseInt(parts[1]) : start;
-        } else {
-            // 实验要求：不指定参数显示全文
-            start = 1;
-            end = lines.size();
-            if (end == 0) end = 1; // 处理完全空的文件
+        SearchPattern pattern = regex ? SearchPattern.regex(text) : SearchPattern.literal(text);
+        SortedMap<String, List<SearchHit>> results = workspace.findAll(pattern);
+        int total = 0;
+        for (Map.Entry<String, List<SearchHit>> entry : results.entrySet()) {
+            System.out.println(entry.getKey() + ":");
+            for (SearchHit hit : entry.getValue()) {
+                System.out.println("  " + hit.getLine() + ":" + hit.getColumn() + "  " + hit.getLineText());
+            }
+            total += entry.getValue().size();
+        }
+        System.out.println("共 " + total + " 处匹配, " + results.size() + " 个文件");
+    }
+
+    // replace-all-files "from" "to" [--regex] [--dry-run]：每个文件的替换各占一条 undo 记录
+    private void handleReplaceAllFiles(String args) {
+        Matcher m = TEXT_ARG_PATTERN.matcher(args);
+        if (!m.find()) throw new IllegalArgumentException("无效的 replace-all-files 格式。示例: replace-all-files \"old\" \"new\" [--regex] [--dry-run]");
+        String from = m.group(1);
+        if (!m.find()) throw new IllegalArgumentException("无效的 replace-all-files 格式, 缺少替换文本");
+        String to = m.group(1);
+        boolean regex = false;
+        boolean dryRun = false;
+        for (String token : optionTokens(args.substring(m.end()))) {
+            switch (token) {
+                case "--regex":
+                    regex = true;
+                    break;
+                case "--dry-run":
+                    dryRun = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知选项: " + token);
+            }
+        }
+
+        SearchPattern pattern = regex ? SearchPattern.regex(from) : SearchPattern.literal(from);
+        SortedMap<String, Integer> counts = workspace.replaceAllFiles(pattern, to, dryRun);
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue() + " 处");
+            total += entry.getValue();
+        }
+        System.out.println((dryRun ? "(dry-run) 将替换 " : "共替换 ") + total + " 处, " + counts.size() + " 个文件");
+    }
+
+    private String[] optionTokens(String rest) {
+        rest = rest.trim();
+        return rest.isEmpty() ? new String[0] : rest.split("\\s+");
+    }
+
+    private void handleLogFormat(String args) {
+        if (args.isEmpty()) {
+            System.out.println("当前日志格式: " + (workspace.getLoggingService().isBinaryFormat() ? "binary" : "text"));
+            return;
+        }
+        switch (args.toLowerCase()) {
+            case "text":
+                workspace.getLoggingService().setBinaryFormat(false);
+                break;
+            case "binary":
+                workspace.getLoggingService().setBinaryFormat(true);
+                break;
+            default:
+                throw new IllegalArgumentException("无效的日志格式。示例: log-format binary");
+        }
+        System.out.println("日志格式已切换为: " + args.toLowerCase());
+    }
+
+    private void handleEventMode(String args) {
+        EventBus bus = EventBus.getInstance();
+        if (args.isEmpty()) {
+            System.out.println("当前事件分发模式: " + (bus.isAsync() ? "async" : "sync"));
+            return;
+        }
+        switch (args.toLowerCase()) {
+            case "sync":
+                if (!bus.setAsync(false)) {
+                    System.err.println("等待事件处理超时, 剩余事件仍在后台处理");
+                }
+                break;
+            case "async":
+                bus.setAsync(true);
+                break;
+            default:
+                throw new IllegalArgumentException("无效的分发模式。示例: event-mode async");
+        }
+        System.out.println("事件分发模式已切换为: " + args.toLowerCase());
+    }
+
+    // edit-queue [n]：查看/设置每个文件最多排队的编辑命令数
+    private void handleEditQueue(String args) {
+        if (args.isEmpty()) {
+            System.out.println("每个文件的编辑队列上限: " + workspace.getMailboxCapacity());
+            return;
+        }
+        int capacity;
+        try {
+            capacity = Integer.parseInt(args.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的队列上限。示例: edit-queue 64");
+        }
+        workspace.setMailboxCapacity(capacity);
+        System.out.println("编辑队列上限已设置为: " + capacity);
+    }
+
+    // log-query [--cmd replace,insert] [--from yyyyMMdd[HHmmss]] [--to yyyyMMdd[HHmmss]] [--session n] [file]
+    private void handleLogQuery(String args) throws IOException {
+        Set<CommandOpcode> opcodes = EnumSet.noneOf(CommandOpcode.class);
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        int session = LogQuery.ANY_SESSION;
+        String file = "";
+
+        String[] tokens = args.isEmpty() ? new String[0] : args.split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.startsWith("--") && i + 1 >= tokens.length) {
+                throw new IllegalArgumentException("选项 " + token + " 缺少参数");
+            }
+            switch (token) {
+                case "--cmd":
+                    for (String name : tokens[++i].split(",")) {
+                        CommandOpcode op = CommandOpcode.fromKeyword(name.toLowerCase());
+                        if (op == null) throw new IllegalArgumentException("未知的命令类型: " + name);
+                        opcodes.add(op);
+                    }
+                    break;
+                case "--from":
+                    from = parseQueryTime(tokens[++i], false);
+                    break;
+                case "--to":
+                    to = parseQueryTime(tokens[++i], true);
+                    break;
+                case "--session":
+                    session = Integer.parseInt(tokens[++i]);
+                    break;
+                default:
+                    if (token.startsWith("--")) throw new IllegalArgumentException("未知选项: " + token);
+                    file = token;
+            }
+        }
+
+        LogQuery query = new LogQuery(opcodes, from, to, session);
+        List<String> lines = workspace.getLoggingService().queryLog(getFileArg(file), query);
+        for (String line : lines) {
+            System.out.println(line);
+        }
+        System.out.println("共 " + lines.size() + " 条记录");
+    }
+
+    // 只给日期时，--from 取当天开始，--to 取当天结束
+    private long parseQueryTime(String value, boolean endOfDay) {
+        try {
+            LocalDateTime time;
+            if (value.length() == 8) {
+                LocalDate date = LocalDate.parse(value, QUERY_DATE);
+                time = endOfDay ? date.plusDays(1).atStartOfDay().minusNanos(1) : date.atStartOfDay();
+            } else {
+                time = LocalDateTime.parse(value, QUERY_DATE_TIME);
+            }
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的时间格式: " + value + " (应为 yyyyMMdd 或 yyyyMMddHHmmss)");
         }
-        System.out.println(workspace.showContent(start, end));
     }
 
     private String getFileArg(String args) {
@@ -266,7 +544,11 @@ public class CommandParser {
 
     private void handleExit() {
         System.out.println("正在退出...");
-        // 检查未保存的文件
+        // 先等所有文件排队中的编辑执行完，再检查未保存的文件
+        workspace.awaitAll();
+        if (workspace.inTransaction()) {
+            System.out.println("未提交的事务已回滚: " + workspace.rollbackTransaction() + " 条编辑");
+        }
         try {
             List<IEditor> unsaved = workspace.getUnsavedEditors();
             for (IEditor editor : unsaved) {
@@ -280,10 +562,22 @@ public class CommandParser {
             System.err.println("保存文件时出错: " + e.getMessage());
         }
 
+        // 异步模式下等日志等监听器处理完再退出
+        if (!EventBus.getInstance().flush(5, TimeUnit.SECONDS)) {
+            System.err.println("等待事件处理超时, 部分日志可能未写入");
+        }
+
         // 保存工作区状态
         saveWorkspaceState();
     }
 
+    // 异步模式下先等已入队的日志事件写完，否则读日志时看不到刚执行的命令
+    private void flushEvents() {
+        if (!EventBus.getInstance().flush(5, TimeUnit.SECONDS)) {
+            System.err.println("等待事件处理超时, 日志可能不完整");
+        }
+    }
+
     private void saveWorkspaceState() {
         WorkspaceState state = workspace.createMemento();
         configManager.save(state);
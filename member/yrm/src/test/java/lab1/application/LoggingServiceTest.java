@@ -1,6 +1,11 @@
 package lab1.application;
 
 import lab1.application.event.CommandExecutedEvent;
+import lab1.application.event.EventBus;
+import lab1.infrastructure.BinaryLog;
+import lab1.infrastructure.CommandOpcode;
+import lab1.infrastructure.LogQuery;
+import lab1.infrastructure.LogRecord;
 import lab1.infrastructure.Logger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +14,7 @@ import org.mockito.MockitoAnnotations;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -79,4 +85,60 @@ class LoggingServiceTest {
         // 验证 getLogContent 是否正确调用了 mockLogger.readLog
         verify(mockLogger, times(1)).readLog(eq(".test.txt.log"));
     }
+
+    @Test
+    void testBinaryRecordUsesPublishTime() throws Exception {
+        BinaryLog binaryLog = new BinaryLog();
+        LoggingService service = new LoggingService(mockLogger, binaryLog);
+        String file = "temp_publish_time.txt";
+        String logPath = service.getBinaryLogFilePath(file);
+        try {
+            service.setBinaryFormat(true);
+            service.enableLogging(file);
+            CommandExecutedEvent event = new CommandExecutedEvent(file, "append \"late\"");
+            Thread.sleep(20); // 模拟异步分发的延迟
+
+            service.onEvent(event);
+
+            List<LogRecord> records = binaryLog.query(logPath, LogQuery.all());
+            assertEquals(1, records.size());
+            assertEquals(event.getTimestamp(), records.get(0).getTimestamp());
+        } finally {
+            EventBus.getInstance().unsubscribe(CommandExecutedEvent.class, service);
+            new File(logPath).delete();
+            new File(BinaryLog.indexPathOf(logPath)).delete();
+        }
+    }
+
+    @Test
+    void testSessionStartWaitsForQueuedEvents() throws Exception {
+        BinaryLog binaryLog = new BinaryLog();
+        LoggingService service = new LoggingService(mockLogger, binaryLog);
+        String file = "temp_session_order.txt";
+        String logPath = service.getBinaryLogFilePath(file);
+        EventBus bus = EventBus.getInstance();
+        try {
+            service.setBinaryFormat(true);
+            service.enableLogging(file);
+            bus.setAsync(true);
+            for (int i = 0; i < 500; i++) {
+                bus.publish(new CommandExecutedEvent(file, "append \"line " + i + "\""));
+            }
+
+            // 上一会话还在排队的命令必须写在新会话开始之前
+            service.logSessionStart(file);
+
+            List<LogRecord> records = binaryLog.query(logPath, LogQuery.all());
+            assertEquals(501, records.size());
+            assertEquals(CommandOpcode.SESSION_START, records.get(500).getOpcode());
+            for (int i = 1; i < records.size(); i++) {
+                assertTrue(records.get(i - 1).getTimestamp() <= records.get(i).getTimestamp());
+            }
+        } finally {
+            bus.setAsync(false);
+            bus.unsubscribe(CommandExecutedEvent.class, service);
+            new File(logPath).delete();
+            new File(BinaryLog.indexPathOf(logPath)).delete();
+        }
+    }
 }
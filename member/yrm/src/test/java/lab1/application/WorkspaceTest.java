@@ -1,5 +1,12 @@
 package lab1.application;
 
+import lab1.domain.command.AppendCommand;
+import lab1.domain.command.DeleteCommand;
+import lab1.domain.command.InsertCommand;
+import lab1.domain.editor.IEditor;
+import lab1.domain.editor.SearchHit;
+import lab1.domain.editor.SearchPattern;
+import lab1.domain.editor.TextEditor;
 import lab1.infrastructure.IFileSystem;
 import lab1.infrastructure.Logger;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,7 +15,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -130,6 +141,8 @@ public class WorkspaceTest {
         assertTrue(content.contains("1: Line 1"));
         assertTrue(content.contains("2: Line 2"));
         assertTrue(content.contains("3: Line 3"));
+        // 不带范围的 show 按快照行数显示全文
+        assertEquals(content, workspace.showAll());
     }
 
     @Test
@@ -208,4 +221,159 @@ public class WorkspaceTest {
         assertFalse(closed); // 不能关闭已修改的文件
         assertTrue(workspace.getOpenEditors().containsKey("test.txt"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSubmitEditCommand_PreservesPerFileOrder() throws Exception {
+        workspace.loadFile("a.txt");
+        IEditor a = workspace.getActiveEditor();
+        workspace.loadFile("b.txt");
+        IEditor b = workspace.getActiveEditor();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(workspace.submitEditCommand("a.txt", new AppendCommand((TextEditor) a, "a" + i)));
+            futures.add(workspace.submitEditCommand("b.txt", new AppendCommand((TextEditor) b, "b" + i)));
+        }
+        workspace.awaitAll();
+
+        assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+        List<String> linesA = a.getLines();
+        assertEquals(100, linesA.size()); // 第一次 append 会替换新文件自带的空行
+        for (int i = 0; i < 100; i++) {
+            assertEquals("a" + i, linesA.get(i));
+        }
+        assertEquals("b99", b.getLines().get(99));
+    }
+
+    @Test
+    public void testUndo_RunsAfterQueuedEdits() throws Exception {
+        workspace.loadFile("a.txt");
+        TextEditor a = (TextEditor) workspace.getActiveEditor();
+
+        // 不等异步编辑完成就 undo，撤销的必须是最后一条
+        for (int i = 0; i < 100; i++) {
+            workspace.submitEditCommand("a.txt", new AppendCommand(a, "a" + i));
+        }
+        workspace.undo();
+        assertEquals(99, a.getLines().size());
+        assertEquals("a98", a.getLines().get(98));
+
+        workspace.redo();
+        assertEquals("a99", a.getLines().get(99));
+    }
+
+    @Test
+    public void testExecuteEditCommand_RethrowsCommandError() throws Exception {
+        workspace.loadFile("test.txt");
+        TextEditor editor = (TextEditor) workspace.getActiveEditor();
+
+        // 同步路径上命令本身的异常原样抛给调用方
+        assertThrows(IllegalArgumentException.class,
+                () -> workspace.executeEditCommand(new DeleteCommand(editor, 5, 1, 1)));
+
+        // 之前的失败不影响同一邮箱里后面的命令
+        workspace.executeEditCommand(new AppendCommand(editor, "ok"));
+        assertEquals("ok", editor.getLines().get(0));
+    }
+
+    @Test
+    public void testCommitTransaction_OneUndoEntryAndOneLogLine() throws Exception {
+        workspace.loadFile("test.txt");
+        TextEditor editor = (TextEditor) workspace.getActiveEditor();
+        loggingService.enableLogging("test.txt");
+
+        workspace.beginTransaction();
+        for (int i = 0; i < 100; i++) {
+            workspace.executeEditCommand(new AppendCommand(editor, "line" + i));
+        }
+        // 事务中的编辑立即可见，但还没有写日志
+        assertEquals(100, editor.getLines().size());
+        verify(mockLogger, never()).writeLog(anyString(), anyString());
+
+        assertEquals(100, workspace.commitTransaction());
+        verify(mockLogger, times(1)).writeLog(anyString(), contains("commit 100 edits"));
+
+        // 一次 undo 撤销整个事务
+        workspace.undo();
+        assertEquals("", editor.getContent());
+        assertFalse(editor.canUndo());
+        workspace.redo();
+        assertEquals("line99", editor.getLines().get(99));
+    }
+
+    @Test
+    public void testRollbackTransaction_RestoresContentAndModifiedFlag() throws Exception {
+        when(mockFileSystem.fileExists("test.txt")).thenReturn(true);
+        when(mockFileSystem.readFile("test.txt")).thenReturn("keep");
+        workspace.loadFile("test.txt");
+        TextEditor editor = (TextEditor) workspace.getActiveEditor();
+
+        workspace.beginTransaction();
+        workspace.executeEditCommand(new AppendCommand(editor, "a"));
+        workspace.executeEditCommand(new InsertCommand(editor, 1, 1, "x"));
+        assertThrows(IllegalStateException.class, () -> workspace.undo()); // 事务中不能 undo
+        assertEquals(2, workspace.rollbackTransaction());
+
+        assertEquals("keep", editor.getContent());
+        assertFalse(editor.isModified());
+        assertFalse(editor.canUndo());
+        assertFalse(workspace.inTransaction());
+        assertThrows(IllegalStateException.class, () -> workspace.commitTransaction());
+    }
+
+    @Test
+    public void testRollbackTransaction_AfterSaveKeepsFileModified() throws Exception {
+        when(mockFileSystem.fileExists("test.txt")).thenReturn(true);
+        when(mockFileSystem.readFile("test.txt")).thenReturn("keep");
+        workspace.loadFile("test.txt");
+        TextEditor editor = (TextEditor) workspace.getActiveEditor();
+
+        workspace.beginTransaction();
+        workspace.executeEditCommand(new AppendCommand(editor, "a"));
+        workspace.saveFile("test.txt");
+        verify(mockFileSystem).writeFile("test.txt", "keep\na");
+        assertFalse(editor.isModified());
+        workspace.rollbackTransaction();
+
+        // 磁盘上是事务里的编辑，回滚后的缓冲区与磁盘不同，必须还能被提示保存
+        assertEquals("keep", editor.getContent());
+        assertTrue(editor.isModified());
+        assertFalse(workspace.closeFile("test.txt"));
+    }
+
+    @Test
+    public void testReplaceAllFiles_OneUndoEntryPerFile() throws Exception {
+        when(mockFileSystem.fileExists(anyString())).thenReturn(true);
+        when(mockFileSystem.readFile("b.txt")).thenReturn("foo bar\nbar foo foo");
+        when(mockFileSystem.readFile("a.txt")).thenReturn("no match");
+        when(mockFileSystem.readFile("c.txt")).thenReturn("foo");
+        workspace.loadFile("b.txt");
+        workspace.loadFile("a.txt");
+        workspace.loadFile("c.txt");
+
+        SortedMap<String, List<SearchHit>> hits = workspace.findAll(SearchPattern.literal("foo"));
+        // 按文件名排序，没有匹配的文件不出现
+        assertEquals(List.of("b.txt", "c.txt"), new ArrayList<>(hits.keySet()));
+        assertEquals(3, hits.get("b.txt").size());
+        assertEquals(2, hits.get("b.txt").get(1).getLine());
+        assertEquals(5, hits.get("b.txt").get(1).getColumn());
+
+        // dry-run 只统计，不改内容
+        SortedMap<String, Integer> dry = workspace.replaceAllFiles(SearchPattern.literal("foo"), "baz", true);
+        assertEquals(3, dry.get("b.txt"));
+        assertEquals("foo bar\nbar foo foo", workspace.getOpenEditors().get("b.txt").getContent());
+        assertFalse(workspace.getOpenEditors().get("b.txt").isModified());
+
+        SortedMap<String, Integer> counts = workspace.replaceAllFiles(SearchPattern.literal("foo"), "baz", false);
+        assertEquals(2, counts.size());
+        IEditor b = workspace.getOpenEditors().get("b.txt");
+        assertEquals("baz bar\nbar baz baz", b.getContent());
+        assertEquals("baz", workspace.getOpenEditors().get("c.txt").getContent());
+        assertFalse(workspace.getOpenEditors().get("a.txt").isModified());
+
+        // 每个文件的替换只占一条 undo 记录
+        b.undo();
+        assertEquals("foo bar\nbar foo foo", b.getContent());
+        assertFalse(b.canUndo());
+    }
+}
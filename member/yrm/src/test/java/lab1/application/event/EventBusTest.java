@@ -0,0 +1,116 @@
+package lab1.application.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 目标：测试 EventBus 的订阅/取消订阅以及异步模式下同一文件事件的顺序
+// 使用测试专用的事件类型，避免和 LoggingService 等真实订阅者互相干扰
+class EventBusTest {
+
+    static class TestEvent implements Event {
+        private final String file;
+        private final int seq;
+
+        TestEvent(String file, int seq) {
+            this.file = file;
+            this.seq = seq;
+        }
+
+        @Override
+        public String getOrderingKey() {
+            return file;
+        }
+    }
+
+    private final EventBus bus = EventBus.getInstance();
+    private final List<EventListener<TestEvent>> subscribed = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        bus.setAsync(false);
+        for (EventListener<TestEvent> listener : subscribed) {
+            bus.unsubscribe(TestEvent.class, listener);
+        }
+    }
+
+    private void subscribe(EventListener<TestEvent> listener) {
+        subscribed.add(listener);
+        bus.subscribe(TestEvent.class, listener);
+    }
+
+    @Test
+    void testSubscribeAndUnsubscribe() {
+        List<Integer> received = new ArrayList<>();
+        EventListener<TestEvent> listener = e -> received.add(e.seq);
+        subscribe(listener);
+
+        bus.publish(new TestEvent("a.txt", 1));
+        bus.unsubscribe(TestEvent.class, listener);
+        bus.publish(new TestEvent("a.txt", 2));
+
+        assertEquals(List.of(1), received);
+    }
+
+    @Test
+    void testAsyncKeepsPerFileOrder() {
+        List<Integer> fileA = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> fileB = Collections.synchronizedList(new ArrayList<>());
+        subscribe(e -> {
+            if (e.file.equals("a.txt")) fileA.add(e.seq);
+            else fileB.add(e.seq);
+        });
+
+        bus.setAsync(true);
+        for (int i = 0; i < 200; i++) {
+            bus.publish(new TestEvent("a.txt", i));
+            bus.publish(new TestEvent("b.txt", i));
+        }
+        assertTrue(bus.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(200, fileA.size());
+        assertEquals(200, fileB.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, fileA.get(i).intValue());
+            assertEquals(i, fileB.get(i).intValue());
+        }
+        assertEquals(0, bus.getMetrics().getQueueDepth());
+    }
+
+    @Test
+    void testSwitchBackToSyncKeepsOrder() {
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        subscribe(e -> received.add(e.seq));
+
+        bus.setAsync(true);
+        for (int i = 0; i < 100; i++) {
+            bus.publish(new TestEvent("a.txt", i));
+        }
+        assertTrue(bus.setAsync(false));
+        bus.publish(new TestEvent("a.txt", 100));
+
+        assertEquals(101, received.size());
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(i, received.get(i).intValue());
+        }
+    }
+
+    @Test
+    void testMetricsCountDispatches() {
+        subscribe(e -> { });
+        bus.resetMetrics();
+
+        bus.publish(new TestEvent("a.txt", 1));
+        bus.publish(new TestEvent("a.txt", 2));
+
+        EventBusMetrics metrics = bus.getMetrics();
+        assertEquals(2, metrics.getPublishedCount());
+        assertEquals(2, metrics.getDispatchedCount());
+    }
+}
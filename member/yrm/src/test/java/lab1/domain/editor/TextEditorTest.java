@@ -85,4 +85,91 @@ class TextEditorTest {
         editor.redo();
         assertEquals("Hello World", editor.getLines().get(0)); // 恢复执行
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSnapshotIsolation() {
+        DocumentSnapshot before = editor.snapshot();
+        assertEquals(0, before.getVersion());
+
+        editor.executeCommand(new AppendCommand(editor, "Second"));
+        editor.executeCommand(new InsertCommand(editor, 1, 6, " World"));
+        assertEquals(2, editor.getVersion());
+
+        // 快照停留在拿到它的那一刻
+        assertEquals("Hello", before.getContent());
+        assertEquals("Hello World\nSecond", editor.getContent());
+
+        editor.undo();
+        assertEquals(3, editor.getVersion()); // undo 也是一次提交
+        assertEquals(1, before.getLines().size());
+        before.close();
+    }
+
+    @Test
+    void testReleasedVersionsAreDropped() {
+        DocumentSnapshot s1 = editor.snapshot();
+        DocumentSnapshot s2 = editor.snapshot();
+        editor.executeCommand(new AppendCommand(editor, "x"));
+        DocumentSnapshot s3 = editor.snapshot();
+        assertEquals(2, editor.getPinnedVersions().size());
+
+        s1.close();
+        s1.close(); // 重复 close 不会多减
+        assertTrue(editor.getPinnedVersions().contains(0L));
+        s2.close();
+        s3.close();
+        assertTrue(editor.getPinnedVersions().isEmpty());
+    }
+
+    @Test
+    void testMarkSavedOnlyClearsLatestVersion() {
+        editor.executeCommand(new AppendCommand(editor, "x"));
+        DocumentSnapshot saving = editor.snapshot();
+        // 保存过程中又有新的编辑
+        editor.executeCommand(new AppendCommand(editor, "y"));
+        editor.markSaved(saving.getVersion());
+        saving.close();
+        assertTrue(editor.isModified());
+
+        editor.markSaved(editor.getVersion());
+        assertFalse(editor.isModified());
+    }
+
+    @Test
+    void testReplaceAllCommand_UndoRestoresOnlyChangedLines() {
+        editor.executeCommand(new AppendCommand(editor, "say Hello, Hello"));
+        editor.executeCommand(new AppendCommand(editor, "bye"));
+        ReplaceAllCommand replace = ReplaceAllCommand.plan(editor, SearchPattern.literal("Hello"), "Hi");
+        assertEquals(3, replace.getCount());
+        assertEquals("Hello", editor.getLines().get(0)); // plan 不改文档
+
+        editor.executeCommand(replace);
+        assertEquals("Hi\nsay Hi, Hi\nbye", editor.getContent());
+        editor.undo();
+        assertEquals("Hello\nsay Hello, Hello\nbye", editor.getContent());
+        editor.redo();
+        assertEquals("Hi\nsay Hi, Hi\nbye", editor.getContent());
+    }
+
+    @Test
+    void testReplaceAllCommand_RescansWhenDocumentChanged() {
+        ReplaceAllCommand replace = ReplaceAllCommand.plan(editor, SearchPattern.regex("l+"), "L");
+        assertEquals(1, replace.getCount());
+        // plan 之后又追加了一行，执行时按最新内容重算
+        editor.executeCommand(new AppendCommand(editor, "all"));
+        editor.executeCommand(replace);
+        assertEquals("HeLo\naL", editor.getContent());
+        assertEquals(2, replace.getCount());
+    }
+
+    @Test
+    void testSearchPattern_RegexGroupsAndEmptyMatches() {
+        int[] count = new int[1];
+        assertEquals("b-a", SearchPattern.regex("(a)-(b)").replaceInLine("a-b", "$2-$1", count));
+        // 空匹配既不算命中也不替换
+        assertEquals("xyz", SearchPattern.regex("q*").replaceInLine("xyz", "!", count));
+        assertEquals(1, count[0]);
+        assertThrows(IllegalArgumentException.class, () -> SearchPattern.regex("("));
+        assertThrows(IllegalArgumentException.class, () -> SearchPattern.literal(""));
+    }
+}
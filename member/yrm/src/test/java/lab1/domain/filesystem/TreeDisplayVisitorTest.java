@@ -0,0 +1,91 @@
+package lab1.domain.filesystem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 目标：测试懒加载目录节点的分页、层数限制和 --expand
+class TreeDisplayVisitorTest {
+
+    // 内存里的假目录：名为 dirN 的子节点是目录，其余是文件
+    private static class FakeLoader implements ChildLoader {
+        private final int size;
+        int loads;
+        int largestPage;
+
+        FakeLoader(int size) {
+            this.size = size;
+        }
+
+        private FileSystemNode child(int i) {
+            String name = String.format("f%06d", i);
+            return i == size - 1 ? new DirectoryNode("zzz", new FakeLoader(3)) : new FileNode(name);
+        }
+
+        @Override
+        public ChildPage load(int limit) {
+            loads++;
+            List<FileSystemNode> page = new ArrayList<>();
+            for (int i = 0; i < Math.min(limit, size); i++) {
+                page.add(child(i));
+            }
+            largestPage = Math.max(largestPage, page.size());
+            return new ChildPage(page, size);
+        }
+
+        @Override
+        public FileSystemNode find(String name) {
+            return "zzz".equals(name) ? child(size - 1) : null;
+        }
+    }
+
+    @Test
+    void testPagesLargeDirectory() {
+        FakeLoader loader = new FakeLoader(200_000);
+        DirectoryNode root = new DirectoryNode("big", loader);
+
+        TreeDisplayVisitor visitor = new TreeDisplayVisitor(TreeDisplayVisitor.UNLIMITED, 3, Collections.emptySet());
+        root.accept(visitor, "", true);
+
+        assertEquals("└── big\n"
+                + "    ├── f000000\n"
+                + "    ├── f000001\n"
+                + "    ├── f000002\n"
+                + "    └── … 还有 199997 项\n", visitor.getOutput());
+        // 只取了一页
+        assertEquals(3, loader.largestPage);
+    }
+
+    @Test
+    void testDepthLimitDoesNotLoadDeeperLevels() {
+        FakeLoader inner = new FakeLoader(5);
+        DirectoryNode root = new DirectoryNode("root");
+        root.addChild(new DirectoryNode("sub", inner));
+
+        TreeDisplayVisitor visitor = new TreeDisplayVisitor(1, 100, Collections.emptySet());
+        root.accept(visitor, "", true);
+
+        assertEquals("└── root\n    └── sub\n", visitor.getOutput());
+        assertEquals(0, inner.loads);
+    }
+
+    @Test
+    void testExpandPathBeyondPageAndDepth() {
+        DirectoryNode root = new DirectoryNode("big", new FakeLoader(1000));
+
+        TreeDisplayVisitor visitor = new TreeDisplayVisitor(1, 2, Set.of("zzz"));
+        root.accept(visitor, "", true);
+
+        // zzz 不在第一页，但作为 --expand 目录单独查出来并完整展开
+        assertEquals("└── big\n"
+                + "    ├── f000000\n"
+                + "    ├── f000001\n"
+                + "    ├── zzz\n"
+                + "    │   ├── f000000\n"
+                + "    │   ├── f000001\n"
+                + "    │   └── zzz\n"
+                + "    └── … 还有 997 项\n", visitor.getOutput());
+    }
+}
@@ -0,0 +1,105 @@
+package lab1.infrastructure;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 目标：测试二进制日志的写入、查询和索引 (集成测试，真实读写磁盘)
+class BinaryLogTest {
+
+    private final String LOG_FILE = ".temp_binary_test.txt.blog";
+    private BinaryLog binaryLog;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        new File(LOG_FILE).delete();
+        new File(BinaryLog.indexPathOf(LOG_FILE)).delete();
+        binaryLog = new BinaryLog();
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        binaryLog.appendSessionStart(LOG_FILE, 1000);
+        binaryLog.append(LOG_FILE, 1001, "append \"hello world\"");
+        binaryLog.append(LOG_FILE, 1002, "replace 1:1 4 \"a  b\"");
+        binaryLog.append(LOG_FILE, 1003, "undo");
+
+        List<LogRecord> records = binaryLog.query(LOG_FILE, LogQuery.all());
+        assertEquals(4, records.size());
+        assertEquals(CommandOpcode.SESSION_START, records.get(0).getOpcode());
+        assertEquals("append \"hello world\"", records.get(1).getCommand());
+        // 引号内的多个空格原样保留
+        assertEquals("replace 1:1 4 \"a  b\"", records.get(2).getCommand());
+        assertEquals(3, records.get(2).getArgs().size());
+        assertEquals("undo", records.get(3).getCommand());
+    }
+
+    @Test
+    void testQueryByCommandAndTime() throws IOException {
+        binaryLog.appendSessionStart(LOG_FILE, 0);
+        for (int i = 1; i <= 100; i++) {
+            String cmd = (i % 2 == 0) ? "replace 1:1 1 \"x\"" : "append \"line " + i + "\"";
+            binaryLog.append(LOG_FILE, i * 10L, cmd);
+        }
+
+        LogQuery replaces = new LogQuery(EnumSet.of(CommandOpcode.REPLACE), Long.MIN_VALUE, Long.MAX_VALUE,
+                LogQuery.ANY_SESSION);
+        assertEquals(50, binaryLog.query(LOG_FILE, replaces).size());
+
+        // 时间窗口 [200, 300] 内有 11 条
+        LogQuery window = new LogQuery(null, 200, 300, LogQuery.ANY_SESSION);
+        List<LogRecord> records = binaryLog.query(LOG_FILE, window);
+        assertEquals(11, records.size());
+        assertEquals(200, records.get(0).getTimestamp());
+        assertEquals(300, records.get(10).getTimestamp());
+    }
+
+    @Test
+    void testQueryBySessionAcrossInstances() throws IOException {
+        binaryLog.appendSessionStart(LOG_FILE, 100);
+        binaryLog.append(LOG_FILE, 101, "append \"first\"");
+
+        // 新实例 (模拟重启程序) 应从索引恢复会话号
+        BinaryLog reopened = new BinaryLog();
+        reopened.appendSessionStart(LOG_FILE, 200);
+        reopened.append(LOG_FILE, 201, "append \"second\"");
+        reopened.append(LOG_FILE, 202, "delete 1:1 3");
+
+        List<LogRecord> session2 = reopened.query(LOG_FILE, new LogQuery(null, Long.MIN_VALUE, Long.MAX_VALUE, 2));
+        assertEquals(3, session2.size());
+        assertEquals("append \"second\"", session2.get(1).getCommand());
+
+        List<LogRecord> session1 = reopened.query(LOG_FILE, new LogQuery(null, Long.MIN_VALUE, Long.MAX_VALUE, 1));
+        assertEquals(2, session1.size());
+    }
+
+    @Test
+    void testSparseIndex() throws IOException {
+        binaryLog.appendSessionStart(LOG_FILE, 0);
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longText.append('x');
+        }
+        for (int i = 1; i <= 200; i++) {
+            binaryLog.append(LOG_FILE, i, "append \"" + longText + "\"");
+        }
+
+        List<long[]> index = binaryLog.readIndex(LOG_FILE);
+        // 稀疏：远少于记录数，但不止会话开始那一项
+        assertTrue(index.size() > 1);
+        assertTrue(index.size() < 20);
+
+        // 借助索引跳过前面的记录，结果依然正确
+        List<LogRecord> tail = binaryLog.query(LOG_FILE, new LogQuery(null, 190, Long.MAX_VALUE, LogQuery.ANY_SESSION));
+        assertEquals(11, tail.size());
+        assertEquals(190, tail.get(0).getTimestamp());
+    }
+}
@@ -0,0 +1,108 @@
+package lab1.infrastructure;
+
+import lab1.domain.filesystem.DirectoryNode;
+import lab1.domain.filesystem.FileSystemNode;
+import lab1.domain.filesystem.TreeDisplayVisitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 目标：测试 dir-tree 的目录树缓存能跟上磁盘上的变化 (集成测试，真实读写磁盘)
+class DirectoryTreeCacheTest {
+
+    @TempDir
+    Path root;
+
+    private final FileSystem fileSystem = new FileSystem();
+
+    @Test
+    void testTreeMatchesDisk() throws IOException {
+        Files.createDirectories(root.resolve("src/lab1"));
+        Files.writeString(root.resolve("src/lab1/Main.java"), "");
+        Files.writeString(root.resolve("b.txt"), "");
+        Files.writeString(root.resolve("a.txt"), "");
+
+        String expected = "└── " + root.getFileName() + "\n"
+                + "    ├── a.txt\n"
+                + "    ├── b.txt\n"
+                + "    └── src\n"
+                + "        └── lab1\n"
+                + "            └── Main.java\n";
+        assertEquals(expected, render());
+        // 第二次直接用缓存，结果不变
+        assertEquals(expected, render());
+    }
+
+    @Test
+    void testCreateAndDeleteAreApplied() throws IOException, InterruptedException {
+        Files.writeString(root.resolve("keep.txt"), "");
+        render();
+
+        Files.createDirectories(root.resolve("new/inner"));
+        Files.writeString(root.resolve("new/inner/x.txt"), "");
+        Files.writeString(root.resolve("added.txt"), "");
+        assertTrue(awaitRender("x.txt") && render().contains("added.txt"));
+
+        Files.delete(root.resolve("new/inner/x.txt"));
+        Files.delete(root.resolve("new/inner"));
+        Files.delete(root.resolve("new"));
+        assertTrue(awaitAbsent("inner"));
+        assertTrue(render().contains("keep.txt"));
+    }
+
+    @Test
+    void testRescanReconcilesDirectory() throws IOException {
+        DirectoryTreeCache cache = fileSystem.treeCache();
+        Files.writeString(root.resolve("old.txt"), "");
+        Files.createDirectories(root.resolve("sub"));
+        DirectoryNode node = cache.get(root);
+        node.getChildren(); // 懒加载，先完整加载一次
+        assertNotNull(node.getChild("old.txt"));
+
+        // 模拟事件溢出后丢了事件：直接改磁盘，再对这个目录重新扫描
+        Files.delete(root.resolve("old.txt"));
+        Files.delete(root.resolve("sub"));
+        Files.writeString(root.resolve("sub"), "");
+        Files.writeString(root.resolve("fresh.txt"), "");
+        cache.rescan(root.toAbsolutePath().normalize());
+
+        assertNull(node.getChild("old.txt"));
+        assertNotNull(node.getChild("fresh.txt"));
+        FileSystemNode sub = node.getChild("sub");
+        assertNotNull(sub);
+        assertFalse(sub.isDirectory());
+    }
+
+    private String render() throws IOException {
+        FileSystemNode tree = fileSystem.buildTree(root.toString());
+        TreeDisplayVisitor visitor = new TreeDisplayVisitor();
+        tree.accept(visitor, "", true);
+        return visitor.getOutput();
+    }
+
+    // 事件由后台线程投递，稍等一会儿
+    private boolean awaitRender(String text) throws IOException, InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (render().contains(text)) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    private boolean awaitAbsent(String text) throws IOException, InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (!render().contains(text)) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
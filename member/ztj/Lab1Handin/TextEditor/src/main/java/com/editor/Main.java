@@ -2,15 +2,23 @@ package com.editor;
 
 import com.editor.core.Workspace;
 import com.editor.cli.REPL;
+import com.editor.logging.LogEvent;
+import com.editor.logging.Logger;
+import com.editor.pattern.observer.OverflowPolicy;
 
 /**
  * 程序入口
  */
 public class Main {
+    private static final int LOG_QUEUE_CAPACITY = 1024;
+    
     public static void main(String[] args) {
         try {
             // 创建工作区
             Workspace workspace = new Workspace();
+            // 工作区事件写入日志文件，写文件在观察者自己的线程里进行，不阻塞 load/close
+            workspace.attachQueued(new Logger("editor.log", false, LogEvent.LogLevel.INFO),
+                LOG_QUEUE_CAPACITY, OverflowPolicy.DROP_AND_COUNT);
             
             // 启动REPL
             REPL repl = new REPL(workspace);
@@ -3,16 +3,119 @@ package com.editor.cli;
 import com.editor.command.Command;
 import com.editor.command.CommandHistory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 命令执行器
+ * 默认在调用线程上执行；开启并发模式后 submit 的命令按目标对象分配到若干单线程队列：
+ * 同一文件的命令总在同一个队列里，按提交顺序执行（撤销栈的顺序也因此和执行顺序一致），
+ * 不同文件的命令分散到不同队列并行执行
  */
 public class CommandExecutor {
     private CommandHistory commandHistory;
+    private ExecutorService[] stripes;
+    private int nextStripe; // 没有目标对象的命令轮流分配
     
     public CommandExecutor() {
         this.commandHistory = new CommandHistory();
     }
     
+    /**
+     * 开启并发模式
+     * @param threads 工作线程数（即队列数）
+     */
+    public synchronized void enableConcurrency(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("线程数必须大于0");
+        }
+        shutdown();
+        stripes = new ExecutorService[threads];
+        for (int i = 0; i < threads; i++) {
+            stripes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "command-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+    
+    public synchronized boolean isConcurrent() {
+        return stripes != null;
+    }
+    
+    /**
+     * 提交命令；未开启并发模式时直接在当前线程执行
+     */
+    public synchronized Future<?> submit(Command command) throws Exception {
+        if (stripes == null) {
+            execute(command);
+            return CompletableFuture.completedFuture(null);
+        }
+        return stripeFor(command).submit(() -> {
+            execute(command);
+            return null;
+        });
+    }
+    
+    private ExecutorService stripeFor(Command command) {
+        Object target = command.getTarget();
+        if (target == null) {
+            nextStripe = (nextStripe + 1) % stripes.length;
+            return stripes[nextStripe];
+        }
+        return stripes[(System.identityHashCode(target) & Integer.MAX_VALUE) % stripes.length];
+    }
+    
+    /**
+     * 并发执行一批命令并等待全部完成
+     * @return 执行失败的命令抛出的异常
+     */
+    public List<Exception> executeAll(List<Command> commands) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>();
+        List<Exception> errors = new ArrayList<>();
+        for (Command command : commands) {
+            try {
+                futures.add(submit(command));
+            } catch (Exception e) {
+                errors.add(e);
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                errors.add(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            }
+        }
+        return errors;
+    }
+    
+    /**
+     * 关闭线程池（等待已提交的命令执行完）
+     */
+    public synchronized void shutdown() {
+        if (stripes != null) {
+            for (ExecutorService stripe : stripes) {
+                stripe.shutdown();
+            }
+            try {
+                for (ExecutorService stripe : stripes) {
+                    stripe.awaitTermination(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stripes = null;
+        }
+    }
+    
     /**
      * 执行命令
      */
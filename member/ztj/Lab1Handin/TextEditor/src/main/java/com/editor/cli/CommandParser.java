@@ -7,13 +7,29 @@ import com.editor.command.workspace.*;
 import com.editor.command.text.*;
 import com.editor.exception.InvalidCommandException;
 import com.editor.exception.FileNotOpenException;
+import com.editor.macro.MacroManager;
+import com.editor.macro.MacroOp;
+import com.editor.util.Grep;
+import com.editor.util.TreeBuilder;
+import com.editor.util.TreeStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * 命令解析器
  * 将用户输入的字符串解析为命令对象
+ * 可录制的命令先解析成 操作码 + 行号 + 文本，再交给 create 创建，宏回放时直接调用 create
  */
 public class CommandParser {
     private Workspace workspace;
+    // 最近一次解析出的可录制命令，命令执行成功后由 REPL 交给宏管理器
+    private MacroOp lastOp;
+    private int lastLine;
+    private String lastText;
+    // 最近一次 grep 的命中，grep --open n 按编号打开
+    private final List<Grep.Hit> grepHits = new ArrayList<>();
     
     public CommandParser(Workspace workspace) {
         this.workspace = workspace;
@@ -27,6 +43,7 @@ public class CommandParser {
             throw new InvalidCommandException("空命令");
         }
         
+        lastOp = null;
         String trimmed = input.trim();
         String[] parts = trimmed.split("\\s+", 2);
         String commandName = parts[0].toLowerCase();
@@ -63,6 +80,13 @@ public class CommandParser {
             case "tree":
                 return parseTreeCommand(args);
                 
+            case "grep":
+                // 查找内容里可能有空格，自己处理引号
+                return parseGrepCommand(parts.length > 1 ? parts[1].trim() : "");
+                
+            case "diff":
+                return parseDiffCommand(args);
+                
             case "show":
                 return parseShowCommand();
                 
@@ -118,29 +142,84 @@ public class CommandParser {
         return arg;
     }
     
+    /**
+     * 把最近一次解析出的可录制命令记到宏里（不可录制的命令忽略）
+     */
+    public void recordLastCommand(MacroManager macros) {
+        if (lastOp != null) {
+            macros.record(lastOp, lastLine, lastText);
+        }
+    }
+    
+    /**
+     * 按操作码创建命令，参数已经解析好
+     * @param line 0索引行号，不需要时传 -1
+     * @param text 文本或文件路径，不需要时传 null
+     */
+    public Command create(MacroOp op, int line, String text) throws Exception {
+        lastOp = op;
+        lastLine = line;
+        lastText = text;
+        switch (op) {
+            case LOAD:
+                return new LoadCommand(workspace, text);
+            case CREATE:
+                return new CreateCommand(workspace, text);
+            case SAVE:
+                return new SaveCommand(workspace);
+            case CLOSE:
+                return new CloseCommand(workspace, text);
+            case EDIT:
+                return new EditCommand(workspace, text);
+            case SHOW:
+                return new ShowCommand(activeEditor());
+            case APPEND:
+                return new AppendCommand(activeEditor(), text);
+            case INSERT:
+                return new InsertCommand(activeEditor(), line, text);
+            case DELETE:
+                return new DeleteCommand(activeEditor(), line);
+            case REPLACE:
+                return new ReplaceCommand(activeEditor(), line, text);
+            case UNDO:
+                return createUndoCommand();
+            case REDO:
+                return createRedoCommand();
+            default:
+                throw new InvalidCommandException("不支持的命令: " + op);
+        }
+    }
+    
+    private TextEditor activeEditor() throws FileNotOpenException {
+        if (!workspace.hasActiveEditor()) {
+            throw new FileNotOpenException("没有活动的文件");
+        }
+        return (TextEditor) workspace.getActiveEditor();
+    }
+    
     private Command parseLoadCommand(String args) throws Exception {
         if (args.isEmpty()) {
             throw new InvalidCommandException("load命令需要文件路径参数");
         }
-        return new LoadCommand(workspace, args.trim());
+        return create(MacroOp.LOAD, -1, args.trim());
     }
     
     private Command parseCreateCommand(String args) throws Exception {
         if (args.isEmpty()) {
             throw new InvalidCommandException("create命令需要文件路径参数");
         }
-        return new CreateCommand(workspace, args.trim());
+        return create(MacroOp.CREATE, -1, args.trim());
     }
     
-    private Command parseSaveCommand() {
-        return new SaveCommand(workspace);
+    private Command parseSaveCommand() throws Exception {
+        return create(MacroOp.SAVE, -1, null);
     }
     
     private Command parseCloseCommand(String args) throws Exception {
         if (args.isEmpty()) {
             throw new InvalidCommandException("close命令需要文件路径参数");
         }
-        return new CloseCommand(workspace, args.trim());
+        return create(MacroOp.CLOSE, -1, args.trim());
     }
     
     private Command parseInitCommand() {
@@ -151,24 +230,158 @@ public class CommandParser {
         if (args.isEmpty()) {
             throw new InvalidCommandException("edit命令需要文件路径参数");
         }
-        return new EditCommand(workspace, args.trim());
+        return create(MacroOp.EDIT, -1, args.trim());
     }
     
     private Command parseListCommand() {
         return new EditorListCommand(workspace);
     }
     
-    private Command parseTreeCommand(String args) {
-        String dirpath = args.isEmpty() ? "." : args.trim();
-        return new DirTreeCommand(dirpath, 3);
+    /**
+     * tree [dir] [--depth n] [--limit n] [--ignore glob,glob...] [--all] [--stats]
+     * --all 表示不使用默认忽略规则，--stats 标注每个目录的文件数、大小和行数
+     */
+    private Command parseTreeCommand(String args) throws InvalidCommandException {
+        String dirpath = ".";
+        int depth = DirTreeCommand.DEFAULT_MAX_DEPTH;
+        int limit = DirTreeCommand.DEFAULT_MAX_ENTRIES;
+        boolean useDefaults = true;
+        boolean withStats = false;
+        var ignores = new ArrayList<String>();
+        
+        String[] tokens = args.isEmpty() ? new String[0] : args.trim().split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "--depth":
+                    depth = parsePositive(tokens, ++i, "--depth");
+                    break;
+                case "--limit":
+                    limit = parsePositive(tokens, ++i, "--limit");
+                    break;
+                case "--ignore":
+                    if (++i >= tokens.length) {
+                        throw new InvalidCommandException("--ignore 需要忽略规则");
+                    }
+                    ignores.addAll(Arrays.asList(tokens[i].split(",")));
+                    break;
+                case "--all":
+                    useDefaults = false;
+                    break;
+                case "--stats":
+                    withStats = true;
+                    break;
+                default:
+                    dirpath = tokens[i];
+            }
+        }
+        
+        var builder = new TreeBuilder().maxDepth(depth).maxEntries(limit);
+        if (useDefaults) {
+            builder.ignore(TreeBuilder.DEFAULT_IGNORES);
+        }
+        builder.ignore(ignores.toArray(new String[0]));
+        if (withStats) {
+            builder.stats(TreeStats.shared());
+        }
+        return new DirTreeCommand(dirpath, builder);
     }
     
-    private Command parseShowCommand() throws Exception {
-        if (!workspace.hasActiveEditor()) {
-            throw new FileNotOpenException("没有活动的文件");
+    /**
+     * grep <text> [dir] [--limit n] [--all]，text 含空格时用引号括起来
+     * grep --open <n> 打开上一次 grep 的第 n 条命中
+     */
+    private Command parseGrepCommand(String args) throws InvalidCommandException {
+        if (args.isEmpty()) {
+            throw new InvalidCommandException("grep命令需要查找内容参数");
+        }
+        String[] tokens = args.split("\\s+");
+        if (tokens[0].equals("--open")) {
+            int index = parsePositive(tokens, 1, "--open");
+            if (index > grepHits.size()) {
+                throw new InvalidCommandException("没有第 " + index + " 条命中，上一次 grep 共 " + grepHits.size() + " 条");
+            }
+            var hit = grepHits.get(index - 1);
+            // 在 . 下查找得到的是 ./src/A.java，去掉多余的 ./ 再打开
+            return new OpenHitCommand(workspace, hit.getFile().normalize().toString(), hit.getLine());
+        }
+        
+        String text;
+        String rest;
+        char quote = args.charAt(0);
+        if (quote == '"' || quote == '\'') {
+            int close = args.indexOf(quote, 1);
+            if (close < 0) {
+                throw new InvalidCommandException("grep查找内容缺少结束引号");
+            }
+            text = args.substring(1, close);
+            rest = args.substring(close + 1).trim();
+        } else {
+            String[] split = args.split("\\s+", 2);
+            text = split[0];
+            rest = split.length > 1 ? split[1] : "";
+        }
+        if (text.isEmpty()) {
+            throw new InvalidCommandException("grep查找内容不能为空");
+        }
+        
+        String dirpath = ".";
+        int limit = Grep.DEFAULT_MAX_RESULTS;
+        boolean useDefaults = true;
+        String[] options = rest.isEmpty() ? new String[0] : rest.split("\\s+");
+        for (int i = 0; i < options.length; i++) {
+            switch (options[i]) {
+                case "--limit":
+                    limit = parsePositive(options, ++i, "--limit");
+                    break;
+                case "--all":
+                    useDefaults = false;
+                    break;
+                default:
+                    dirpath = options[i];
+            }
+        }
+        
+        var grep = new Grep().maxResults(limit);
+        if (useDefaults) {
+            grep.ignore(TreeBuilder.DEFAULT_IGNORES);
+        }
+        return new GrepCommand(dirpath, text, grep, grepHits);
+    }
+    
+    private int parsePositive(String[] tokens, int index, String option) throws InvalidCommandException {
+        if (index >= tokens.length) {
+            throw new InvalidCommandException(option + " 需要一个正整数");
+        }
+        try {
+            int value = Integer.parseInt(tokens[index]);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // 下面统一报错
+        }
+        throw new InvalidCommandException(option + " 需要一个正整数: " + tokens[index]);
+    }
+    
+    /**
+     * diff [file] 比较编辑器内容和磁盘文件，diff <a> <b> 比较两个已打开的文件
+     */
+    private Command parseDiffCommand(String args) throws InvalidCommandException {
+        var tokens = args.trim().isEmpty() ? new String[0] : args.trim().split("\\s+");
+        switch (tokens.length) {
+            case 0:
+                return new DiffCommand(workspace, null, null);
+            case 1:
+                return new DiffCommand(workspace, tokens[0], null);
+            case 2:
+                return new DiffCommand(workspace, tokens[0], tokens[1]);
+            default:
+                throw new InvalidCommandException("diff命令最多两个文件路径参数");
         }
-        TextEditor editor = (TextEditor) workspace.getActiveEditor();
-        return new ShowCommand(editor);
+    }
+    
+    private Command parseShowCommand() throws Exception {
+        return create(MacroOp.SHOW, -1, null);
     }
     
     private Command parseAppendCommand(String args) throws Exception {
@@ -178,8 +391,7 @@ public class CommandParser {
         if (args.isEmpty()) {
             throw new InvalidCommandException("append命令需要内容参数");
         }
-        TextEditor editor = (TextEditor) workspace.getActiveEditor();
-        return new AppendCommand(editor, args.trim());
+        return create(MacroOp.APPEND, -1, args.trim());
     }
     
     private Command parseInsertCommand(String args) throws Exception {
@@ -191,8 +403,7 @@ public class CommandParser {
             throw new InvalidCommandException("insert命令需要行号和内容参数");
         }
         int lineNumber = Integer.parseInt(parts[0]) - 1; // 转换为0索引
-        TextEditor editor = (TextEditor) workspace.getActiveEditor();
-        return new InsertCommand(editor, lineNumber, parts[1].trim());
+        return create(MacroOp.INSERT, lineNumber, parts[1].trim());
     }
     
     private Command parseDeleteCommand(String args) throws Exception {
@@ -203,8 +414,7 @@ public class CommandParser {
             throw new InvalidCommandException("delete命令需要行号参数");
         }
         int lineNumber = Integer.parseInt(args.trim()) - 1; // 转换为0索引
-        TextEditor editor = (TextEditor) workspace.getActiveEditor();
-        return new DeleteCommand(editor, lineNumber);
+        return create(MacroOp.DELETE, lineNumber, null);
     }
     
     private Command parseReplaceCommand(String args) throws Exception {
@@ -216,14 +426,15 @@ public class CommandParser {
             throw new InvalidCommandException("replace命令需要行号和内容参数");
         }
         int lineNumber = Integer.parseInt(parts[0]) - 1; // 转换为0索引
-        TextEditor editor = (TextEditor) workspace.getActiveEditor();
-        return new ReplaceCommand(editor, lineNumber, parts[1].trim());
+        return create(MacroOp.REPLACE, lineNumber, parts[1].trim());
     }
     
     private Command parseUndoCommand() throws Exception {
-        if (!workspace.hasActiveEditor()) {
-            throw new FileNotOpenException("没有活动的文件");
-        }
+        return create(MacroOp.UNDO, -1, null);
+    }
+    
+    private Command createUndoCommand() throws Exception {
+        activeEditor();
         // 返回一个Undo命令对象
         return new Command() {
             @Override
@@ -251,9 +462,11 @@ public class CommandParser {
     }
     
     private Command parseRedoCommand() throws Exception {
-        if (!workspace.hasActiveEditor()) {
-            throw new FileNotOpenException("没有活动的文件");
-        }
+        return create(MacroOp.REDO, -1, null);
+    }
+    
+    private Command createRedoCommand() throws Exception {
+        activeEditor();
         return new Command() {
             @Override
             public void execute() throws Exception {
@@ -291,7 +504,11 @@ public class CommandParser {
                 System.out.println("  init - 初始化工作区");
                 System.out.println("  edit <filepath> 或 e <filepath> - 切换到指定文件");
                 System.out.println("  list - 列出所有打开的文件");
-                System.out.println("  tree [dir] - 显示目录树");
+                System.out.println("  tree [dir] [--depth n] [--limit n] [--ignore glob,...] [--all] [--stats] - 显示目录树");
+                System.out.println("  grep <text> [dir] [--limit n] [--all] - 在目录下查找文本");
+                System.out.println("  grep --open <n> - 打开上一次 grep 的第 n 条命中");
+                System.out.println("  diff [file] - 比较编辑器内容和磁盘文件");
+                System.out.println("  diff <a> <b> - 比较两个已打开的文件");
                 System.out.println("  show - 显示当前文件内容");
                 System.out.println("  append <content> 或 a <content> - 追加一行");
                 System.out.println("  insert <line> <content> 或 i <line> <content> - 插入一行");
@@ -299,6 +516,10 @@ public class CommandParser {
                 System.out.println("  replace <line> <content> 或 r <line> <content> - 替换一行");
                 System.out.println("  undo - 撤销");
                 System.out.println("  redo - 重做");
+                System.out.println("  macro record <name> - 开始录制宏");
+                System.out.println("  macro stop - 结束录制并保存");
+                System.out.println("  macro run <name> [times] - 回放宏");
+                System.out.println("  macro list - 列出已保存的宏");
                 System.out.println("  help 或 h - 显示帮助");
                 System.out.println("  quit 或 exit 或 q - 退出");
             }
@@ -3,6 +3,11 @@ package com.editor.cli;
 import com.editor.core.Workspace;
 import com.editor.logging.LogManager;
 import com.editor.exception.InvalidCommandException;
+import com.editor.macro.Macro;
+import com.editor.macro.MacroManager;
+import com.editor.pattern.observer.QueuedObserver;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.util.Scanner;
 
 /**
@@ -13,12 +18,15 @@ public class REPL {
     private CommandParser parser;
     private CommandExecutor executor;
     private Scanner scanner;
+    private MacroManager macros;
     private boolean running;
+    private static final long SHUTDOWN_DRAIN_MILLIS = 3000;
     
     public REPL(Workspace workspace) {
         this.parser = new CommandParser(workspace);
         this.executor = new CommandExecutor();
         this.scanner = new Scanner(System.in);
+        this.macros = new MacroManager();
         this.running = true;
     }
     
@@ -37,6 +45,13 @@ public class REPL {
                 System.out.print("> ");
                 String input = scanner.nextLine();
                 
+                // 宏命令由 REPL 自己处理
+                if (isMacroCommand(input)) {
+                    handleMacro(input.trim().substring("macro".length()).trim());
+                    System.out.println();
+                    continue;
+                }
+                
                 // 解析命令
                 var command = parser.parse(input);
                 
@@ -48,6 +63,9 @@ public class REPL {
                 
                 // 执行命令
                 executor.execute(command);
+                if (macros.isRecording()) {
+                    parser.recordLastCommand(macros);
+                }
                 
             } catch (InvalidCommandException e) {
                 System.err.println("错误: " + e.getMessage());
@@ -63,11 +81,94 @@ public class REPL {
         }
     }
     
+    private static boolean isMacroCommand(String input) {
+        String trimmed = input.trim();
+        return trimmed.equals("macro") || trimmed.startsWith("macro ");
+    }
+    
+    /**
+     * 处理 macro record/stop/run/list
+     */
+    private void handleMacro(String args) throws Exception {
+        String[] parts = args.isEmpty() ? new String[0] : args.split("\\s+");
+        String action = parts.length > 0 ? parts[0].toLowerCase() : "";
+        switch (action) {
+            case "record":
+                if (parts.length < 2) {
+                    throw new InvalidCommandException("用法: macro record <name>");
+                }
+                macros.startRecording(parts[1]);
+                System.out.println("开始录制宏: " + parts[1]);
+                break;
+            case "stop":
+                Macro recorded = macros.stopRecording();
+                System.out.println("宏 " + recorded.getName() + " 已保存，共 " + recorded.size() + " 条命令");
+                break;
+            case "run":
+                if (parts.length < 2) {
+                    throw new InvalidCommandException("用法: macro run <name> [times]");
+                }
+                int times = parts.length > 2 ? Integer.parseInt(parts[2]) : 1;
+                runMacro(parts[1], times);
+                break;
+            case "list":
+                System.out.println(macros.list().isEmpty() ? "没有已保存的宏" : "已保存的宏: " + macros.list());
+                break;
+            default:
+                throw new InvalidCommandException("用法: macro record <name> | stop | run <name> [times] | list");
+        }
+    }
+    
+    /**
+     * 回放宏：直接按操作码创建命令执行，不解析字符串；回放期间屏蔽命令自身的控制台输出
+     */
+    private void runMacro(String name, int times) throws Exception {
+        if (macros.isRecording()) {
+            throw new InvalidCommandException("录制中不能回放宏");
+        }
+        if (times < 1) {
+            throw new InvalidCommandException("回放次数必须大于0");
+        }
+        Macro macro = macros.get(name);
+        if (macro == null) {
+            throw new InvalidCommandException("宏不存在: " + name);
+        }
+        
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        int executed = 0;
+        try {
+            for (int round = 0; round < times; round++) {
+                for (int i = 0; i < macro.size(); i++) {
+                    try {
+                        executor.execute(parser.create(macro.op(i), macro.line(i), macro.text(i)));
+                    } catch (Exception e) {
+                        throw new InvalidCommandException("宏 " + name + " 第 " + (round + 1) + " 遍第 "
+                            + (i + 1) + " 条命令失败: " + e.getMessage());
+                    }
+                    executed++;
+                }
+            }
+        } finally {
+            System.setOut(console);
+            long elapsedNanos = System.nanoTime() - start;
+            System.out.printf("宏 %s 回放 %d 条命令, 耗时 %.1f ms, %.0f 条/秒%n", name, executed,
+                elapsedNanos / 1e6, executed / Math.max(elapsedNanos / 1e9, 1e-9));
+        }
+    }
+    
     /**
      * 关闭REPL
      */
     public void shutdown() {
         running = false;
+        executor.shutdown();
+        // 等异步观察者把队列里的事件处理完，避免日志丢失
+        int pending = QueuedObserver.shutdownAll(SHUTDOWN_DRAIN_MILLIS);
+        if (pending > 0) {
+            System.err.println("警告: " + pending + " 个观察者未能在退出前处理完事件");
+        }
         System.out.println("再见！");
         LogManager.info("程序退出", "REPL");
     }
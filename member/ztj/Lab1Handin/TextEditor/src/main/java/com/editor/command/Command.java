@@ -24,5 +24,13 @@ public interface Command {
      * 获取命令描述
      */
     String getDescription();
+    
+    /**
+     * 命令操作的对象（通常是编辑器），同一对象上的命令按提交顺序串行执行
+     * 不针对具体文件的命令返回 null
+     */
+    default Object getTarget() {
+        return null;
+    }
 }
 
@@ -5,10 +5,14 @@ import java.util.Stack;
 /**
  * 命令历史
  * 维护撤销和重做栈
+ * 命令在其目标对象（编辑器）的锁内执行并入栈，入栈顺序就是同一文件上的执行顺序；
+ * 撤销/重做也先拿目标对象的锁，不同文件的命令仍然可以并行
  */
 public class CommandHistory {
     private Stack<Command> undoStack;
     private Stack<Command> redoStack;
+    // 没有目标对象的命令（工作区命令）共用这把锁
+    private final Object workspaceLock = new Object();
     
     public CommandHistory() {
         this.undoStack = new Stack<>();
@@ -19,11 +23,15 @@ public class CommandHistory {
      * 执行命令并记录历史
      */
     public void execute(Command command) throws Exception {
-        command.execute();
-        if (command.isUndoable()) {
-            undoStack.push(command);
-            // 清空重做栈
-            redoStack.clear();
+        synchronized (lockFor(command)) {
+            command.execute();
+            if (command.isUndoable()) {
+                synchronized (this) {
+                    undoStack.push(command);
+                    // 清空重做栈
+                    redoStack.clear();
+                }
+            }
         }
     }
     
@@ -31,46 +39,80 @@ public class CommandHistory {
      * 撤销
      */
     public void undo() throws Exception {
-        if (undoStack.isEmpty()) {
-            throw new IllegalStateException("没有可撤销的命令");
+        // 加锁顺序和 execute 一致（先目标再历史），拿到锁后栈顶变了就重试
+        while (true) {
+            Command command;
+            synchronized (this) {
+                if (undoStack.isEmpty()) {
+                    throw new IllegalStateException("没有可撤销的命令");
+                }
+                command = undoStack.peek();
+            }
+            synchronized (lockFor(command)) {
+                synchronized (this) {
+                    if (undoStack.isEmpty() || undoStack.peek() != command) {
+                        continue;
+                    }
+                    undoStack.pop();
+                    command.undo();
+                    redoStack.push(command);
+                    return;
+                }
+            }
         }
-        Command command = undoStack.pop();
-        command.undo();
-        redoStack.push(command);
     }
     
     /**
      * 重做
      */
     public void redo() throws Exception {
-        if (redoStack.isEmpty()) {
-            throw new IllegalStateException("没有可重做的命令");
+        while (true) {
+            Command command;
+            synchronized (this) {
+                if (redoStack.isEmpty()) {
+                    throw new IllegalStateException("没有可重做的命令");
+                }
+                command = redoStack.peek();
+            }
+            synchronized (lockFor(command)) {
+                synchronized (this) {
+                    if (redoStack.isEmpty() || redoStack.peek() != command) {
+                        continue;
+                    }
+                    redoStack.pop();
+                    command.execute();
+                    undoStack.push(command);
+                    return;
+                }
+            }
         }
-        Command command = redoStack.pop();
-        command.execute();
-        undoStack.push(command);
     }
     
     /**
      * 是否有可撤销的命令
      */
-    public boolean canUndo() {
+    public synchronized boolean canUndo() {
         return !undoStack.isEmpty();
     }
     
     /**
      * 是否有可重做的命令
      */
-    public boolean canRedo() {
+    public synchronized boolean canRedo() {
         return !redoStack.isEmpty();
     }
     
     /**
      * 清空历史
      */
-    public void clear() {
+    public synchronized void clear() {
         undoStack.clear();
         redoStack.clear();
     }
+    
+    private Object lockFor(Command command) {
+        Object target = command.getTarget();
+        return target != null ? target : workspaceLock;
+    }
 }
 
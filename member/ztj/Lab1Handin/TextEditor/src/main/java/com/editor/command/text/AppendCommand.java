@@ -26,9 +26,15 @@ public class AppendCommand implements Command {
     
     @Override
     public void undo() throws Exception {
-        int lastLine = editor.getLineCount() - 1;
-        if (lastLine >= 0) {
-            editor.deleteLine(lastLine);
+        // 取最后一行和删除要在同一把写锁内
+        editor.getLock().writeLock().lock();
+        try {
+            int lastLine = editor.getLineCount() - 1;
+            if (lastLine >= 0) {
+                editor.deleteLine(lastLine);
+            }
+        } finally {
+            editor.getLock().writeLock().unlock();
         }
     }
     
@@ -41,5 +47,10 @@ public class AppendCommand implements Command {
     public String getDescription() {
         return "追加行: " + content;
     }
+    
+    @Override
+    public Object getTarget() {
+        return editor;
+    }
 }
 
@@ -23,20 +23,31 @@ public class DeleteCommand implements Command {
     
     @Override
     public void execute() throws Exception {
-        if (lineNumber < 0 || lineNumber >= editor.getLineCount()) {
-            throw new InvalidPositionException("无效的行号: " + lineNumber);
+        // 检查和修改在同一把写锁内完成，避免并发时行号失效
+        editor.getLock().writeLock().lock();
+        try {
+            if (lineNumber < 0 || lineNumber >= editor.getLineCount()) {
+                throw new InvalidPositionException("无效的行号: " + lineNumber);
+            }
+            deletedContent = editor.getLine(lineNumber);
+            if (deletedContent == null) {
+                deletedContent = "";
+            }
+            editor.deleteLine(lineNumber);
+        } finally {
+            editor.getLock().writeLock().unlock();
         }
-        deletedContent = editor.getLine(lineNumber);
-        if (deletedContent == null) {
-            deletedContent = "";
-        }
-        editor.deleteLine(lineNumber);
     }
     
     @Override
     public void undo() throws Exception {
-        if (deletedContent != null) {
-            editor.insertLine(lineNumber, deletedContent);
+        editor.getLock().writeLock().lock();
+        try {
+            if (deletedContent != null) {
+                editor.insertLine(lineNumber, deletedContent);
+            }
+        } finally {
+            editor.getLock().writeLock().unlock();
         }
     }
     
@@ -49,5 +60,10 @@ public class DeleteCommand implements Command {
     public String getDescription() {
         return "删除第" + lineNumber + "行";
     }
+    
+    @Override
+    public Object getTarget() {
+        return editor;
+    }
 }
 
@@ -24,16 +24,27 @@ public class InsertCommand implements Command {
     
     @Override
     public void execute() throws Exception {
-        if (lineNumber < 0 || lineNumber > editor.getLineCount()) {
-            throw new InvalidPositionException("无效的行号: " + lineNumber);
+        // 检查和修改在同一把写锁内完成，避免并发时行号失效
+        editor.getLock().writeLock().lock();
+        try {
+            if (lineNumber < 0 || lineNumber > editor.getLineCount()) {
+                throw new InvalidPositionException("无效的行号: " + lineNumber);
+            }
+            editor.insertLine(lineNumber, content);
+        } finally {
+            editor.getLock().writeLock().unlock();
         }
-        editor.insertLine(lineNumber, content);
     }
     
     @Override
     public void undo() throws Exception {
-        if (lineNumber >= 0 && lineNumber < editor.getLineCount()) {
-            editor.deleteLine(lineNumber);
+        editor.getLock().writeLock().lock();
+        try {
+            if (lineNumber >= 0 && lineNumber < editor.getLineCount()) {
+                editor.deleteLine(lineNumber);
+            }
+        } finally {
+            editor.getLock().writeLock().unlock();
         }
     }
     
@@ -46,5 +57,10 @@ public class InsertCommand implements Command {
     public String getDescription() {
         return "在第" + lineNumber + "行插入: " + content;
     }
+    
+    @Override
+    public Object getTarget() {
+        return editor;
+    }
 }
 
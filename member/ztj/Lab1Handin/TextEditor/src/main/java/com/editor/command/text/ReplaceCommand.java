@@ -25,20 +25,31 @@ public class ReplaceCommand implements Command {
     
     @Override
     public void execute() throws Exception {
-        if (lineNumber < 0 || lineNumber >= editor.getLineCount()) {
-            throw new InvalidPositionException("无效的行号: " + lineNumber);
+        // 检查和修改在同一把写锁内完成，避免并发时行号失效
+        editor.getLock().writeLock().lock();
+        try {
+            if (lineNumber < 0 || lineNumber >= editor.getLineCount()) {
+                throw new InvalidPositionException("无效的行号: " + lineNumber);
+            }
+            oldContent = editor.getLine(lineNumber);
+            if (oldContent == null) {
+                oldContent = "";
+            }
+            editor.setLine(lineNumber, newContent);
+        } finally {
+            editor.getLock().writeLock().unlock();
         }
-        oldContent = editor.getLine(lineNumber);
-        if (oldContent == null) {
-            oldContent = "";
-        }
-        editor.setLine(lineNumber, newContent);
     }
     
     @Override
     public void undo() throws Exception {
-        if (oldContent != null) {
-            editor.setLine(lineNumber, oldContent);
+        editor.getLock().writeLock().lock();
+        try {
+            if (oldContent != null) {
+                editor.setLine(lineNumber, oldContent);
+            }
+        } finally {
+            editor.getLock().writeLock().unlock();
         }
     }
     
@@ -51,5 +62,10 @@ public class ReplaceCommand implements Command {
     public String getDescription() {
         return "替换第" + lineNumber + "行: " + newContent;
     }
+    
+    @Override
+    public Object getTarget() {
+        return editor;
+    }
 }
 
@@ -41,5 +41,10 @@ public class ShowCommand implements Command {
     public String getDescription() {
         return "显示文件内容";
     }
+    
+    @Override
+    public Object getTarget() {
+        return editor;
+    }
 }
 
@@ -0,0 +1,103 @@
+package com.editor.command.workspace;
+
+import com.editor.command.Command;
+import com.editor.core.TextEditor;
+import com.editor.core.Workspace;
+import com.editor.exception.EditorException;
+import com.editor.exception.FileNotOpenException;
+import com.editor.util.LineDiff;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 比较文件命令，按 unified diff 格式输出
+ * 只给一个文件（或不给，用活动文件）时比较磁盘上的内容和编辑器里未保存的内容；
+ * 给两个文件时比较两个已打开编辑器的内容
+ */
+public class DiffCommand implements Command {
+    private Workspace workspace;
+    private String oldPath; // 为 null 表示活动文件
+    private String newPath; // 为 null 表示和磁盘比较
+    
+    public DiffCommand(Workspace workspace, String oldPath, String newPath) {
+        this.workspace = workspace;
+        this.oldPath = oldPath;
+        this.newPath = newPath;
+    }
+    
+    @Override
+    public void execute() throws Exception {
+        List<String> oldLines;
+        List<String> newLines;
+        String oldName;
+        String newName;
+        if (newPath == null) {
+            var editor = oldPath == null ? activeEditor() : openEditor(oldPath);
+            var path = Paths.get(editor.getFilepath());
+            try {
+                oldLines = Files.exists(path) ? Files.readAllLines(path) : new ArrayList<>();
+            } catch (IOException e) {
+                throw new EditorException("读取文件失败: " + e.getMessage());
+            }
+            newLines = editor.getLines();
+            oldName = editor.getFilepath() + " (磁盘)";
+            newName = editor.getFilepath() + " (编辑器)";
+        } else {
+            oldLines = openEditor(oldPath).getLines();
+            newLines = openEditor(newPath).getLines();
+            oldName = oldPath;
+            newName = newPath;
+        }
+
+        var result = LineDiff.compare(oldLines, newLines);
+        if (result.isEmpty()) {
+            System.out.println("没有差异");
+            return;
+        }
+        // 大文件的差异可能很长，攒在缓冲里一起输出；System.out 不能关，只 flush
+        var out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        int hunks = result.writeUnified(oldName, newName, LineDiff.DEFAULT_CONTEXT, out);
+        out.flush();
+        System.out.println("共 " + hunks + " 处差异, 删除 " + result.getDeletedCount()
+            + " 行, 新增 " + result.getInsertedCount() + " 行");
+    }
+    
+    private TextEditor activeEditor() throws FileNotOpenException {
+        if (!workspace.hasActiveEditor()) {
+            throw new FileNotOpenException("没有活动的文件");
+        }
+        return (TextEditor) workspace.getActiveEditor();
+    }
+    
+    private TextEditor openEditor(String filepath) throws FileNotOpenException {
+        var editor = workspace.findEditor(filepath);
+        if (editor == null) {
+            throw new FileNotOpenException("文件未打开: " + filepath);
+        }
+        return (TextEditor) editor;
+    }
+    
+    @Override
+    public void undo() throws Exception {
+        // Diff命令不修改内容，不需要撤销
+    }
+    
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+    
+    @Override
+    public String getDescription() {
+        if (newPath != null) {
+            return "比较: " + oldPath + " " + newPath;
+        }
+        return "比较: " + (oldPath == null ? "当前文件" : oldPath) + " 与磁盘";
+    }
+}
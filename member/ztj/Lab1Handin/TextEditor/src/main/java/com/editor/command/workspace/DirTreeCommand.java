@@ -1,28 +1,47 @@
 package com.editor.command.workspace;
 
 import com.editor.command.Command;
+import com.editor.exception.EditorException;
 import com.editor.util.TreeBuilder;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 /**
  * 显示目录树命令
+ * 默认忽略 .git、target、node_modules，最多显示 DEFAULT_MAX_ENTRIES 个条目
  */
 public class DirTreeCommand implements Command {
+    public static final int DEFAULT_MAX_DEPTH = 3;
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    
     private String dirpath;
-    private int maxDepth;
+    private TreeBuilder treeBuilder;
     
     public DirTreeCommand(String dirpath) {
-        this(dirpath, 3);
+        this(dirpath, DEFAULT_MAX_DEPTH);
     }
     
     public DirTreeCommand(String dirpath, int maxDepth) {
+        this(dirpath, new TreeBuilder()
+            .maxDepth(maxDepth)
+            .maxEntries(DEFAULT_MAX_ENTRIES)
+            .ignore(TreeBuilder.DEFAULT_IGNORES));
+    }
+    
+    public DirTreeCommand(String dirpath, TreeBuilder treeBuilder) {
         this.dirpath = dirpath;
-        this.maxDepth = maxDepth;
+        this.treeBuilder = treeBuilder;
     }
     
     @Override
     public void execute() throws Exception {
-        String tree = TreeBuilder.buildSimpleTree(dirpath, maxDepth);
-        System.out.println(tree);
+        var root = Paths.get(dirpath);
+        if (!Files.exists(root)) {
+            throw new EditorException("路径不存在: " + dirpath);
+        }
+        // 直接写到标准输出，大目录也不用等整棵树拼完
+        treeBuilder.render(root, System.out);
     }
     
     @Override
@@ -40,4 +59,3 @@ public class DirTreeCommand implements Command {
         return "显示目录树: " + dirpath;
     }
 }
-
@@ -19,13 +19,7 @@ public class EditCommand implements Command {
     @Override
     public void execute() throws Exception {
         // 检查文件是否已打开
-        boolean alreadyOpen = false;
-        for (var editor : workspace.getEditors()) {
-            if (editor.getFilepath().equals(filepath)) {
-                alreadyOpen = true;
-                break;
-            }
-        }
+        boolean alreadyOpen = workspace.findEditor(filepath) != null;
         
         if (!alreadyOpen) {
             // 文件未打开，使用CreateCommand来创建并打开
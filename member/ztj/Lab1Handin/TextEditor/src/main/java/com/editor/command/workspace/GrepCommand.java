@@ -0,0 +1,60 @@
+package com.editor.command.workspace;
+
+import com.editor.command.Command;
+import com.editor.exception.EditorException;
+import com.editor.util.Grep;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 在目录下查找文本命令
+ * 命中边扫描边输出并编号，编号对应的命中存进 results，供 grep --open 打开
+ */
+public class GrepCommand implements Command {
+    private String dirpath;
+    private String text;
+    private Grep grep;
+    private List<Grep.Hit> results;
+    
+    public GrepCommand(String dirpath, String text, Grep grep, List<Grep.Hit> results) {
+        this.dirpath = dirpath;
+        this.text = text;
+        this.grep = grep;
+        this.results = results;
+    }
+    
+    @Override
+    public void execute() throws Exception {
+        var root = Paths.get(dirpath);
+        if (!Files.exists(root)) {
+            throw new EditorException("路径不存在: " + dirpath);
+        }
+        results.clear();
+        var summary = grep.search(root, text, hit -> {
+            results.add(hit);
+            System.out.println("[" + results.size() + "] " + hit);
+        });
+        if (summary.truncated) {
+            System.out.println("... 已达到 " + summary.hits + " 条上限");
+        }
+        System.out.println("共 " + summary.hits + " 处匹配, 扫描 " + summary.scannedFiles + " 个文件"
+            + (summary.skippedFiles > 0 ? ", 跳过 " + summary.skippedFiles + " 个二进制或无法读取的文件" : ""));
+    }
+    
+    @Override
+    public void undo() throws Exception {
+        // Grep命令不需要撤销
+    }
+    
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "查找: " + text + " (" + dirpath + ")";
+    }
+}
@@ -0,0 +1,55 @@
+package com.editor.command.workspace;
+
+import com.editor.command.Command;
+import com.editor.core.TextEditor;
+import com.editor.core.Workspace;
+import com.editor.exception.InvalidPositionException;
+
+/**
+ * 打开 grep 的某条命中：加载（或切换到）该文件，显示命中行及前后几行
+ * 编辑器没有光标，"定位" 就是把这一段带行号显示出来，命中行用 > 标出
+ */
+public class OpenHitCommand implements Command {
+    static final int CONTEXT_LINES = 3;
+    
+    private Workspace workspace;
+    private String filepath;
+    private int lineNumber; // 1索引
+    
+    public OpenHitCommand(Workspace workspace, String filepath, int lineNumber) {
+        this.workspace = workspace;
+        this.filepath = filepath;
+        this.lineNumber = lineNumber;
+    }
+    
+    @Override
+    public void execute() throws Exception {
+        var editor = (TextEditor) workspace.loadFile(filepath);
+        var lines = editor.getLines();
+        if (lineNumber < 1 || lineNumber > lines.size()) {
+            // 查找之后文件被改短了
+            throw new InvalidPositionException("无效的行号: " + lineNumber);
+        }
+        System.out.println("已打开文件: " + filepath + " (第 " + lineNumber + " 行)");
+        int from = Math.max(1, lineNumber - CONTEXT_LINES);
+        int to = Math.min(lines.size(), lineNumber + CONTEXT_LINES);
+        for (int i = from; i <= to; i++) {
+            System.out.printf("%s%4d: %s%n", i == lineNumber ? ">" : " ", i, lines.get(i - 1));
+        }
+    }
+    
+    @Override
+    public void undo() throws Exception {
+        // 文件可能在打开命中之前就已经加载，不做撤销
+    }
+    
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "打开: " + filepath + ":" + lineNumber;
+    }
+}
@@ -3,15 +3,20 @@ package com.editor.core;
 import com.editor.command.CommandHistory;
 import com.editor.pattern.observer.Subject;
 
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
  * 编辑器抽象基类
  * 继承Subject以支持观察者模式
  */
 public abstract class Editor extends Subject {
     protected String filepath;
-    protected boolean isModified;
-    protected boolean logEnabled;
+    protected volatile boolean isModified;
+    protected volatile boolean logEnabled;
     protected CommandHistory commandHistory;
+    // 读写锁：show 等只读操作可以并发，修改操作独占
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
     
     public Editor(String filepath) {
         this.filepath = filepath;
@@ -24,6 +29,13 @@ public abstract class Editor extends Subject {
     public abstract void save() throws Exception;
     public abstract String getContent();
     
+    /**
+     * 获取编辑器读写锁（命令需要 "检查 + 修改" 原子执行时使用）
+     */
+    public ReadWriteLock getLock() {
+        return lock;
+    }
+    
     // Getters and setters
     public String getFilepath() {
         return filepath;
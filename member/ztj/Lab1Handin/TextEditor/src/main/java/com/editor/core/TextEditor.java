@@ -9,6 +9,7 @@ import java.util.List;
 /**
  * 文本编辑器实现
  * 管理文本内容的加载、保存和基本操作
+ * 所有方法都在编辑器读写锁内执行，可被多个线程同时调用
  */
 public class TextEditor extends Editor {
     private List<String> lines;
@@ -20,6 +21,7 @@ public class TextEditor extends Editor {
     
     @Override
     public void load() throws Exception {
+        lock.writeLock().lock();
         try {
             if (Files.exists(Paths.get(filepath))) {
                 lines = Files.readAllLines(Paths.get(filepath));
@@ -28,56 +30,86 @@ public class TextEditor extends Editor {
             }
         } catch (IOException e) {
             throw new Exception("加载文件失败: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
     
     @Override
     public void save() throws Exception {
+        lock.readLock().lock();
         try {
             Files.write(Paths.get(filepath), lines);
             markSaved();
         } catch (IOException e) {
             throw new Exception("保存文件失败: " + e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
         }
     }
     
     @Override
     public String getContent() {
-        return String.join("\n", lines);
+        lock.readLock().lock();
+        try {
+            return String.join("\n", lines);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
      * 获取行列表
      */
     public List<String> getLines() {
-        return new ArrayList<>(lines);
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(lines);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
      * 设置行列表
      */
     public void setLines(List<String> lines) {
-        this.lines = new ArrayList<>(lines);
-        markModified();
+        lock.writeLock().lock();
+        try {
+            this.lines = new ArrayList<>(lines);
+            markModified();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
     
     /**
      * 获取指定行
      */
     public String getLine(int lineNumber) {
-        if (lineNumber < 0 || lineNumber >= lines.size()) {
-            return null;
+        lock.readLock().lock();
+        try {
+            if (lineNumber < 0 || lineNumber >= lines.size()) {
+                return null;
+            }
+            return lines.get(lineNumber);
+        } finally {
+            lock.readLock().unlock();
         }
-        return lines.get(lineNumber);
     }
     
     /**
      * 设置指定行
      */
     public void setLine(int lineNumber, String content) {
-        if (lineNumber >= 0 && lineNumber < lines.size()) {
-            lines.set(lineNumber, content);
-            markModified();
+        lock.writeLock().lock();
+        try {
+            if (lineNumber >= 0 && lineNumber < lines.size()) {
+                lines.set(lineNumber, content);
+                markModified();
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
     
@@ -85,9 +117,14 @@ public class TextEditor extends Editor {
      * 在指定位置插入行
      */
     public void insertLine(int lineNumber, String content) {
-        if (lineNumber >= 0 && lineNumber <= lines.size()) {
-            lines.add(lineNumber, content);
-            markModified();
+        lock.writeLock().lock();
+        try {
+            if (lineNumber >= 0 && lineNumber <= lines.size()) {
+                lines.add(lineNumber, content);
+                markModified();
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
     
@@ -95,9 +132,14 @@ public class TextEditor extends Editor {
      * 删除指定行
      */
     public void deleteLine(int lineNumber) {
-        if (lineNumber >= 0 && lineNumber < lines.size()) {
-            lines.remove(lineNumber);
-            markModified();
+        lock.writeLock().lock();
+        try {
+            if (lineNumber >= 0 && lineNumber < lines.size()) {
+                lines.remove(lineNumber);
+                markModified();
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
     
@@ -105,15 +147,25 @@ public class TextEditor extends Editor {
      * 追加行
      */
     public void appendLine(String content) {
-        lines.add(content);
-        markModified();
+        lock.writeLock().lock();
+        try {
+            lines.add(content);
+            markModified();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
     
     /**
      * 获取行数
      */
     public int getLineCount() {
-        return lines.size();
+        lock.readLock().lock();
+        try {
+            return lines.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 }
 
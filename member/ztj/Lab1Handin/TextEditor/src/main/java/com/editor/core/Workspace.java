@@ -6,47 +6,65 @@ import com.editor.pattern.memento.WorkspaceMemento;
 import com.editor.pattern.memento.Originator;
 import com.editor.exception.FileNotOpenException;
 
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Deque;
 import java.util.ArrayDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 工作区
  * 管理多个编辑器实例
+ * 编辑器列表写时复制，遍历不加锁；load/close 按文件路径分段加锁，不同文件可以并行加载
  */
 public class Workspace extends Subject implements Originator<WorkspaceMemento> {
-    private List<Editor> editors;
-    private Editor activeEditor;
-    private Deque<String> recentFiles;
+    private static final int STRIPES = 16;
+    
+    private final List<Editor> editors;
+    private volatile Editor activeEditor;
+    private final Deque<String> recentFiles; // 受自身监视器保护
+    private final Object[] pathLocks;
     private static final String STATE_FILE = ".editor_workspace";
     
     public Workspace() {
-        this.editors = new ArrayList<>();
+        this.editors = new CopyOnWriteArrayList<>();
         this.recentFiles = new ArrayDeque<>();
+        this.pathLocks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            pathLocks[i] = new Object();
+        }
     }
     
     /**
      * 加载文件
      */
     public Editor loadFile(String filepath) throws Exception {
-        // 检查是否已打开
-        for (Editor editor : editors) {
-            if (editor.getFilepath().equals(filepath)) {
+        Editor editor;
+        boolean loaded = false;
+        synchronized (lockFor(filepath)) {
+            // 检查是否已打开
+            editor = findEditor(filepath);
+            if (editor == null) {
+                // 创建新编辑器
+                editor = new TextEditor(filepath);
+                editor.load();
+                editors.add(editor);
+                loaded = true;
+            }
+        }
+        // 和 closeFile 在同一把锁里切换活动编辑器：加载完之后文件可能已被其他线程关闭
+        synchronized (this) {
+            if (editors.contains(editor)) {
                 activeEditor = editor;
-                updateRecentFiles(filepath);
-                return editor;
             }
         }
-        
-        // 创建新编辑器
-        Editor editor = new TextEditor(filepath);
-        editor.load();
-        editors.add(editor);
-        activeEditor = editor;
         updateRecentFiles(filepath);
         
-        notifyObservers(new Event("file_loaded", filepath));
+        if (loaded) {
+            notifyObservers(new Event("file_loaded", filepath));
+        }
         return editor;
     }
     
@@ -54,48 +72,73 @@ public class Workspace extends Subject implements Originator<WorkspaceMemento> {
      * 关闭文件
      */
     public void closeFile(String filepath) throws Exception {
-        Editor targetEditor = null;
-        for (Editor editor : editors) {
-            if (editor.getFilepath().equals(filepath)) {
-                targetEditor = editor;
-                break;
+        Editor targetEditor;
+        synchronized (lockFor(filepath)) {
+            targetEditor = findEditor(filepath);
+            if (targetEditor == null) {
+                return;
             }
+            editors.remove(targetEditor);
         }
         
-        if (targetEditor != null) {
-            editors.remove(targetEditor);
+        synchronized (this) {
             if (activeEditor == targetEditor) {
-                if (editors.isEmpty()) {
-                    activeEditor = null;
-                } else {
-                    activeEditor = editors.get(0);
-                }
+                // 其他文件的关闭不持有 this，列表只能读一次，否则判空之后可能被清空
+                var remaining = editors.iterator();
+                activeEditor = remaining.hasNext() ? remaining.next() : null;
             }
-            notifyObservers(new Event("file_closed", filepath));
         }
+        notifyObservers(new Event("file_closed", filepath));
     }
     
     /**
      * 切换活动编辑器
      */
-    public void setActiveEditor(String filepath) {
+    public synchronized void setActiveEditor(String filepath) {
+        Editor editor = findEditor(filepath);
+        if (editor != null) {
+            activeEditor = editor;
+        }
+    }
+    
+    /**
+     * 按路径查找已打开的编辑器，未打开返回 null
+     * 比较规范化后的绝对路径，./src/A.java 和 src/A.java 是同一个文件
+     */
+    public Editor findEditor(String filepath) {
+        var key = normalize(filepath);
         for (Editor editor : editors) {
-            if (editor.getFilepath().equals(filepath)) {
-                activeEditor = editor;
-                break;
+            if (normalize(editor.getFilepath()).equals(key)) {
+                return editor;
             }
         }
+        return null;
+    }
+    
+    static String normalize(String filepath) {
+        try {
+            return Paths.get(filepath).toAbsolutePath().normalize().toString();
+        } catch (InvalidPathException e) {
+            return filepath;
+        }
+    }
+    
+    // 同一个文件的不同写法要拿到同一把锁
+    private Object lockFor(String filepath) {
+        return pathLocks[(normalize(filepath).hashCode() & Integer.MAX_VALUE) % STRIPES];
     }
     
     /**
      * 更新最近文件列表
      */
     private void updateRecentFiles(String filepath) {
-        recentFiles.remove(filepath);
-        recentFiles.addFirst(filepath);
-        // 限制最近文件数量
-        while (recentFiles.size() > 10) {
-            recentFiles.removeLast();
+        synchronized (recentFiles) {
+            recentFiles.remove(filepath);
+            recentFiles.addFirst(filepath);
+            // 限制最近文件数量
+            while (recentFiles.size() > 10) {
+                recentFiles.removeLast();
+            }
         }
     }
     
@@ -105,18 +148,24 @@ public class Workspace extends Subject implements Originator<WorkspaceMemento> {
         for (Editor editor : editors) {
             openFiles.add(editor.getFilepath());
         }
-        String activeFile = activeEditor != null ? activeEditor.getFilepath() : null;
-        return new WorkspaceMemento(openFiles, activeFile, recentFiles);
+        Editor active = activeEditor;
+        String activeFile = active != null ? active.getFilepath() : null;
+        return new WorkspaceMemento(openFiles, activeFile, getRecentFiles());
     }
     
     @Override
     public void restoreFromMemento(WorkspaceMemento memento) {
         // 清空当前状态
-        editors.clear();
-        activeEditor = null;
+        synchronized (this) {
+            editors.clear();
+            activeEditor = null;
+        }
         
         // 恢复最近文件列表
-        recentFiles = new ArrayDeque<>(memento.getRecentFiles());
+        synchronized (recentFiles) {
+            recentFiles.clear();
+            recentFiles.addAll(memento.getRecentFiles());
+        }
         
         // 恢复打开的文件
         // 注意：这里只恢复文件列表，不自动加载内容
@@ -126,10 +175,11 @@ public class Workspace extends Subject implements Originator<WorkspaceMemento> {
     
     // Getters
     public Editor getActiveEditor() throws FileNotOpenException {
-        if (activeEditor == null) {
+        Editor active = activeEditor;
+        if (active == null) {
             throw new FileNotOpenException("没有活动编辑器");
         }
-        return activeEditor;
+        return active;
     }
     
     public List<Editor> getEditors() {
@@ -137,7 +187,9 @@ public class Workspace extends Subject implements Originator<WorkspaceMemento> {
     }
     
     public Deque<String> getRecentFiles() {
-        return new ArrayDeque<>(recentFiles);
+        synchronized (recentFiles) {
+            return new ArrayDeque<>(recentFiles);
+        }
     }
     
     public boolean hasActiveEditor() {
@@ -0,0 +1,109 @@
+package com.editor.macro;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 录制好的宏
+ * 用三个并行数组紧凑保存：操作码、行号（0索引，没有时为 -1）、文本参数（没有时为 null）
+ */
+public class Macro {
+    private final String name;
+    private byte[] ops = new byte[16];
+    private int[] lines = new int[16];
+    private String[] texts = new String[16];
+    private int size;
+    
+    public Macro(String name) {
+        this.name = name;
+    }
+    
+    public void add(MacroOp op, int line, String text) {
+        if (size == ops.length) {
+            int capacity = size * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        ops[size] = op.getCode();
+        lines[size] = line;
+        texts[size] = text;
+        size++;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public MacroOp op(int index) {
+        return MacroOp.fromCode(ops[index]);
+    }
+    
+    public int line(int index) {
+        return lines[index];
+    }
+    
+    public String text(int index) {
+        return texts[index];
+    }
+    
+    /**
+     * 写成二进制：命令条数，然后每条 操作码 | 行号 | 文本长度(-1 表示没有) | UTF-8 文本
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeByte(ops[i]);
+            out.writeInt(lines[i]);
+            if (texts[i] == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = texts[i].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+    
+    /**
+     * 从二进制读回宏
+     * @param remaining 流中剩余的字节数，用来在分配之前校验条数和文本长度，损坏的文件报 IOException
+     */
+    static Macro readFrom(String name, DataInputStream in, long remaining) throws IOException {
+        Macro macro = new Macro(name);
+        int count = in.readInt();
+        remaining -= 4;
+        // 每条命令至少有 操作码 + 行号 + 文本长度 9 个字节
+        if (count < 0 || count > remaining / 9) {
+            throw new IOException("宏文件损坏: 命令条数 " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            MacroOp op = MacroOp.fromCode(in.readByte());
+            if (op == null) {
+                throw new IOException("宏文件损坏: 未知操作码");
+            }
+            int line = in.readInt();
+            int length = in.readInt();
+            remaining -= 9;
+            if (length < -1 || length > remaining) {
+                throw new IOException("宏文件损坏: 文本长度 " + length);
+            }
+            String text = null;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                remaining -= length;
+                text = new String(bytes, StandardCharsets.UTF_8);
+            }
+            macro.add(op, line, text);
+        }
+        return macro;
+    }
+}
@@ -0,0 +1,146 @@
+package com.editor.macro;
+
+import com.editor.exception.InvalidCommandException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 宏管理器
+ * 负责录制状态和宏的持久化，每个宏存为目录下的一个 <name>.macro 文件
+ */
+public class MacroManager {
+    private static final String DEFAULT_DIRECTORY = ".macros";
+    private static final String EXTENSION = ".macro";
+    private static final byte[] MAGIC = {'M', 'C', 'R', 'O'};
+    private static final byte VERSION = 1;
+    
+    private final File directory;
+    private final Map<String, Macro> macros = new HashMap<>();
+    private Macro recording;
+    
+    public MacroManager() {
+        this(new File(DEFAULT_DIRECTORY));
+    }
+    
+    public MacroManager(File directory) {
+        this.directory = directory;
+    }
+    
+    /**
+     * 开始录制
+     */
+    public void startRecording(String name) throws InvalidCommandException {
+        if (recording != null) {
+            throw new InvalidCommandException("正在录制宏: " + recording.getName());
+        }
+        checkName(name);
+        recording = new Macro(name);
+    }
+    
+    public boolean isRecording() {
+        return recording != null;
+    }
+    
+    /**
+     * 录制一条命令（只在录制中有效）
+     */
+    public void record(MacroOp op, int line, String text) {
+        if (recording != null) {
+            recording.add(op, line, text);
+        }
+    }
+    
+    /**
+     * 结束录制并保存到磁盘
+     * @return 录好的宏
+     */
+    public Macro stopRecording() throws InvalidCommandException, IOException {
+        if (recording == null) {
+            throw new InvalidCommandException("当前没有在录制宏");
+        }
+        Macro macro = recording;
+        recording = null;
+        save(macro);
+        macros.put(macro.getName(), macro);
+        return macro;
+    }
+    
+    /**
+     * 按名称查找宏，内存中没有时从磁盘读取
+     * @return 找不到返回 null
+     */
+    public Macro get(String name) throws InvalidCommandException, IOException {
+        // 名称会拼进文件路径，不检查的话 ../x 能读到宏目录以外的文件
+        checkName(name);
+        Macro macro = macros.get(name);
+        if (macro == null) {
+            macro = load(name);
+            if (macro != null) {
+                macros.put(name, macro);
+            }
+        }
+        return macro;
+    }
+    
+    /**
+     * 所有已保存的宏名称（有序）
+     */
+    public TreeSet<String> list() {
+        TreeSet<String> names = new TreeSet<>(macros.keySet());
+        String[] files = directory.list((dir, fileName) -> fileName.endsWith(EXTENSION));
+        if (files != null) {
+            for (String fileName : files) {
+                names.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+            }
+        }
+        return names;
+    }
+    
+    private void save(Macro macro) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建宏目录: " + directory);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(fileOf(macro.getName()))))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            macro.writeTo(out);
+        }
+    }
+    
+    private Macro load(String name) throws IOException {
+        File file = fileOf(name);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readByte() != VERSION) {
+                throw new IOException("不是有效的宏文件: " + file);
+            }
+            return Macro.readFrom(name, in, file.length() - MAGIC.length - 1);
+        }
+    }
+    
+    private static void checkName(String name) throws InvalidCommandException {
+        if (name == null || !name.matches("[A-Za-z0-9_-]+")) {
+            throw new InvalidCommandException("宏名称只能包含字母、数字、下划线和横线");
+        }
+    }
+    
+    private File fileOf(String name) {
+        return new File(directory, name + EXTENSION);
+    }
+}
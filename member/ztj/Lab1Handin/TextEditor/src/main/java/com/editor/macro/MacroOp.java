@@ -0,0 +1,45 @@
+package com.editor.macro;
+
+/**
+ * 宏中可以录制的命令类型
+ * 每条命令存为 操作码 + 行号 + 文本，回放时直接按操作码创建命令，不再解析字符串
+ */
+public enum MacroOp {
+    LOAD(1),
+    CREATE(2),
+    SAVE(3),
+    CLOSE(4),
+    EDIT(5),
+    SHOW(6),
+    APPEND(7),
+    INSERT(8),
+    DELETE(9),
+    REPLACE(10),
+    UNDO(11),
+    REDO(12);
+    
+    private static final MacroOp[] BY_CODE = new MacroOp[16];
+    
+    static {
+        for (MacroOp op : values()) {
+            BY_CODE[op.code] = op;
+        }
+    }
+    
+    private final byte code;
+    
+    MacroOp(int code) {
+        this.code = (byte) code;
+    }
+    
+    public byte getCode() {
+        return code;
+    }
+    
+    /**
+     * 根据操作码查找，未知操作码返回 null
+     */
+    public static MacroOp fromCode(byte code) {
+        return (code > 0 && code < BY_CODE.length) ? BY_CODE[code] : null;
+    }
+}
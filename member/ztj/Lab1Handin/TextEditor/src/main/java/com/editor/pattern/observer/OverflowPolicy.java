@@ -0,0 +1,13 @@
+package com.editor.pattern.observer;
+
+/**
+ * 观察者队列满时的处理策略
+ */
+public enum OverflowPolicy {
+    /** 阻塞发布方，直到队列有空位 */
+    BLOCK,
+    /** 丢弃队列中最旧的事件，放入新事件 */
+    DROP_OLDEST,
+    /** 丢弃新事件并计数 */
+    DROP_AND_COUNT
+}
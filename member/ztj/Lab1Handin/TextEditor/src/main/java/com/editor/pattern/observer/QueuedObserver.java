@@ -0,0 +1,179 @@
+package com.editor.pattern.observer;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带独立队列和工作线程的观察者包装
+ * update() 只负责入队，真正的 update 在工作线程里执行，不阻塞编辑线程
+ */
+public class QueuedObserver implements Observer {
+    // 所有存活的队列观察者，退出时统一排空
+    private static final List<QueuedObserver> ACTIVE = new CopyOnWriteArrayList<>();
+    private static final long BLOCK_RECHECK_MILLIS = 100;
+
+    private final Observer delegate;
+    private final BlockingQueue<Event> queue;
+    private final OverflowPolicy policy;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Object idleLock = new Object();
+    private int pending = 0; // 已入队但未处理完的事件数，受 idleLock 保护
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public QueuedObserver(Observer delegate, int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.worker = new Thread(this::runWorker, "observer-" + delegate.getClass().getSimpleName());
+        this.worker.setDaemon(true);
+        this.worker.setUncaughtExceptionHandler((t, e) ->
+            System.err.println("观察者工作线程异常退出: " + e));
+        this.worker.start();
+        ACTIVE.add(this);
+    }
+
+    @Override
+    public void update(Event event) {
+        if (!running) {
+            return;
+        }
+        synchronized (idleLock) {
+            pending++;
+        }
+        switch (policy) {
+            case BLOCK:
+                // 分段等待：工作线程停止或异常退出后不再有人取队列，不能一直阻塞发布方
+                try {
+                    while (!queue.offer(event, BLOCK_RECHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (!running || !worker.isAlive()) {
+                            droppedCount.incrementAndGet();
+                            markDone(1);
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    markDone(1);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        droppedCount.incrementAndGet();
+                        markDone(1);
+                    }
+                }
+                break;
+            case DROP_AND_COUNT:
+            default:
+                if (!queue.offer(event)) {
+                    droppedCount.incrementAndGet();
+                    markDone(1);
+                }
+                break;
+        }
+    }
+
+    private void runWorker() {
+        while (running || !queue.isEmpty()) {
+            Event event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+                continue;
+            }
+            try {
+                delegate.update(event);
+            } catch (RuntimeException e) {
+                System.err.println("观察者处理事件失败: " + e.getMessage());
+            } finally {
+                markDone(1);
+            }
+        }
+    }
+
+    private void markDone(int n) {
+        synchronized (idleLock) {
+            pending -= n;
+            if (pending <= 0) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 等待队列中的事件全部处理完
+     * @return true 如果在超时前排空
+     */
+    public boolean drain(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (idleLock) {
+            while (pending > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    idleLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 排空后停止工作线程
+     */
+    public boolean shutdown(long timeoutMillis) {
+        boolean drained = drain(timeoutMillis);
+        running = false;
+        worker.interrupt();
+        ACTIVE.remove(this);
+        return drained;
+    }
+
+    /**
+     * 排空并停止所有队列观察者（由 REPL.shutdown 调用）
+     * @return 未能在超时内排空的观察者数
+     */
+    public static int shutdownAll(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        int failed = 0;
+        for (QueuedObserver observer : ACTIVE) {
+            if (!observer.shutdown(Math.max(0, deadline - System.currentTimeMillis()))) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    public Observer getDelegate() {
+        return delegate;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+}
@@ -2,32 +2,68 @@ package com.editor.pattern.observer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 主题类
  * 维护观察者列表并发送通知
+ * 观察者列表写时复制，通知时不加锁；添加/移除之间用 this 加锁，查找和修改是一个整体
+ * 队列观察者在自己的线程里处理事件
  */
 public abstract class Subject {
-    private List<Observer> observers;
+    private final List<Observer> observers;
     
     public Subject() {
-        this.observers = new ArrayList<>();
+        this.observers = new CopyOnWriteArrayList<>();
     }
     
     /**
-     * 添加观察者
+     * 添加观察者（同步通知）
      */
-    public void attach(Observer observer) {
-        if (!observers.contains(observer)) {
+    public synchronized void attach(Observer observer) {
+        if (indexOf(observer) < 0) {
             observers.add(observer);
         }
     }
     
     /**
-     * 移除观察者
+     * 添加观察者（异步通知）：该观察者有自己的有界队列和工作线程
+     * @param capacity 队列容量
+     * @param policy 队列满时的策略
+     * @return 包装后的队列观察者，可用于查询丢弃计数
+     */
+    public QueuedObserver attachQueued(Observer observer, int capacity, OverflowPolicy policy) {
+        QueuedObserver queued = new QueuedObserver(observer, capacity, policy);
+        Observer replaced;
+        synchronized (this) {
+            replaced = removeObserver(observer);
+            observers.add(queued);
+        }
+        stop(replaced);
+        return queued;
+    }
+    
+    /**
+     * 移除观察者（队列观察者会先排空再停止）
      */
     public void detach(Observer observer) {
-        observers.remove(observer);
+        Observer removed;
+        synchronized (this) {
+            removed = removeObserver(observer);
+        }
+        // 排空可能要等一会，放在锁外面
+        stop(removed);
+    }
+    
+    private Observer removeObserver(Observer observer) {
+        int index = indexOf(observer);
+        return index < 0 ? null : observers.remove(index);
+    }
+    
+    private static void stop(Observer removed) {
+        if (removed instanceof QueuedObserver) {
+            ((QueuedObserver) removed).shutdown(1000);
+        }
     }
     
     /**
@@ -42,5 +78,16 @@ public abstract class Subject {
     public List<Observer> getObservers() {
         return new ArrayList<>(observers);
     }
+    
+    // 按原始观察者查找，队列观察者按其包装的对象比较
+    private int indexOf(Observer observer) {
+        for (int i = 0; i < observers.size(); i++) {
+            Observer current = observers.get(i);
+            if (current.equals(observer)
+                    || (current instanceof QueuedObserver && ((QueuedObserver) current).getDelegate().equals(observer))) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
-
@@ -0,0 +1,261 @@
+package com.editor.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 目录下的文本查找（grep 命令使用）
+ * 调用线程遍历目录，每个文件交给 ForkJoin 公共池并行扫描；按 UTF-8 字节直接在缓冲区里找，
+ * 只把命中的那一行解码成字符串。小文件读到堆里，大文件用内存映射（阈值同 TreeStats）。
+ * 开头有 NUL 字节的文件视为二进制跳过。一个文件扫完就把它的命中交给监听器，
+ * 命中数到上限后停止遍历，正在排队的文件也不再扫描。
+ */
+public class Grep {
+    public static final int DEFAULT_MAX_RESULTS = 1000;
+    
+    private int maxResults = DEFAULT_MAX_RESULTS;
+    private final IgnoreRules ignored = new IgnoreRules();
+    
+    public Grep maxResults(int maxResults) {
+        this.maxResults = maxResults;
+        return this;
+    }
+    
+    public Grep ignore(String... patterns) {
+        ignored.add(patterns);
+        return this;
+    }
+    
+    /**
+     * 在 root（目录或单个文件）下查找包含 text 的行，每行只报告一次
+     * @param listener 收到按文件分组的命中，同一时刻只有一个线程调用
+     */
+    public Summary search(Path root, String text, Consumer<Hit> listener) throws IOException {
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("查找内容不能为空");
+        }
+        var run = new Run(text.getBytes(StandardCharsets.UTF_8), listener);
+        var tasks = new ArrayList<ForkJoinTask<?>>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (run.full()) {
+                    return FileVisitResult.TERMINATE;
+                }
+                var name = dir.getFileName();
+                boolean skip = !dir.equals(root) && name != null && ignored.test(name);
+                return skip ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (run.full()) {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (attrs.isRegularFile() && !ignored.test(file.getFileName())) {
+                    tasks.add(ForkJoinPool.commonPool().submit(() -> run.scan(file, attrs.size())));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE; // 无权限等情况，跳过
+            }
+        });
+        for (var task : tasks) {
+            task.join();
+        }
+        return new Summary(run.scanned.get(), run.skipped.get(), run.reported, run.full());
+    }
+    
+    // 一次查找的状态，扫描任务之间共享
+    private final class Run {
+        final byte[] needle;
+        final Consumer<Hit> listener;
+        final AtomicInteger scanned = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        int reported; // 只在 emit 的锁里读写
+        volatile boolean stopped;
+        
+        Run(byte[] needle, Consumer<Hit> listener) {
+            this.needle = needle;
+            this.listener = listener;
+        }
+        
+        boolean full() {
+            return stopped;
+        }
+        
+        void scan(Path file, long size) {
+            if (stopped) {
+                return;
+            }
+            List<Hit> hits;
+            try {
+                var buffer = read(file, size);
+                if (buffer == null || TreeStats.isBinary(buffer)) {
+                    skipped.incrementAndGet();
+                    return;
+                }
+                // 多找一条，用来判断是否真的超出上限
+                hits = find(file, buffer, needle, maxResults == Integer.MAX_VALUE ? maxResults : maxResults + 1);
+            } catch (IOException e) {
+                skipped.incrementAndGet();
+                return;
+            }
+            scanned.incrementAndGet();
+            if (!hits.isEmpty()) {
+                emit(hits);
+            }
+        }
+        
+        // 恰好达到上限时还不算截断，要再看到一条多出来的命中才停止
+        synchronized void emit(List<Hit> hits) {
+            for (var hit : hits) {
+                if (reported >= maxResults) {
+                    stopped = true;
+                    return;
+                }
+                listener.accept(hit);
+                reported++;
+            }
+        }
+    }
+    
+    /**
+     * @return 文件内容；超过 2GB 无法整体映射的返回 null
+     */
+    private static ByteBuffer read(Path file, long size) throws IOException {
+        if (size < TreeStats.MAP_THRESHOLD) {
+            return ByteBuffer.wrap(Files.readAllBytes(file));
+        }
+        if (size > Integer.MAX_VALUE) {
+            return null;
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+    
+    /**
+     * 在缓冲区里找出包含 needle 的行（最多 max 行），行号从上一个命中处往后数，不回头
+     */
+    static List<Hit> find(Path file, ByteBuffer buffer, byte[] needle, int max) {
+        var hits = new ArrayList<Hit>();
+        int limit = buffer.limit();
+        int line = 1;
+        int counted = 0; // [0, counted) 内的换行已经计入 line
+        int from = 0;
+        while (hits.size() < max) {
+            int at = indexOf(buffer, needle, from, limit);
+            if (at < 0) {
+                break;
+            }
+            int start = at;
+            while (start > 0 && buffer.get(start - 1) != '\n') {
+                start--;
+            }
+            int end = at + needle.length;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            line += (int) TreeStats.countNewlines(buffer.duplicate().position(counted).limit(start).slice());
+            counted = start;
+            hits.add(new Hit(file, line, decodeLine(buffer, start, end)));
+            from = end + 1; // 同一行只报告一次
+        }
+        return hits;
+    }
+    
+    // 先找首字节，再比较剩下的字节
+    private static int indexOf(ByteBuffer buffer, byte[] needle, int from, int limit) {
+        byte first = needle[0];
+        int last = limit - needle.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (buffer.get(i) != first) {
+                continue;
+            }
+            for (int j = 1; j < needle.length; j++) {
+                if (buffer.get(i + j) != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+    
+    private static String decodeLine(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        var bytes = new byte[end - start];
+        buffer.duplicate().position(start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 一处命中，line 从 1 开始
+     */
+    public static final class Hit {
+        private final Path file;
+        private final int line;
+        private final String text;
+        
+        Hit(Path file, int line, String text) {
+            this.file = file;
+            this.line = line;
+            this.text = text;
+        }
+        
+        public Path getFile() {
+            return file;
+        }
+        
+        public int getLine() {
+            return line;
+        }
+        
+        public String getText() {
+            return text;
+        }
+        
+        @Override
+        public String toString() {
+            return file + ":" + line + ": " + text;
+        }
+    }
+    
+    /**
+     * 查找结束后的统计
+     */
+    public static final class Summary {
+        public final int scannedFiles;
+        public final int skippedFiles; // 二进制、过大或读不了的文件
+        public final int hits;
+        public final boolean truncated;
+        
+        Summary(int scannedFiles, int skippedFiles, int hits, boolean truncated) {
+            this.scannedFiles = scannedFiles;
+            this.skippedFiles = skippedFiles;
+            this.hits = hits;
+            this.truncated = truncated;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.editor.util;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 按条目名称忽略文件/目录的规则（tree 和 grep 共用）
+ * 不含通配符的规则直接按名称查表，其余编译成 glob
+ */
+public class IgnoreRules implements Predicate<Path> {
+    private final Set<String> names = new HashSet<>();
+    private final List<PathMatcher> globs = new ArrayList<>();
+    
+    /**
+     * 添加规则，如 ".git"、"*.class"，空串忽略
+     */
+    public IgnoreRules add(String... patterns) {
+        for (var pattern : patterns) {
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            if (pattern.chars().anyMatch(c -> "*?[]{}".indexOf(c) >= 0)) {
+                globs.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            } else {
+                names.add(pattern);
+            }
+        }
+        return this;
+    }
+    
+    /**
+     * @param fileName 条目名称（不是完整路径）
+     */
+    @Override
+    public boolean test(Path fileName) {
+        if (names.contains(fileName.toString())) {
+            return true;
+        }
+        for (var matcher : globs) {
+            if (matcher.matches(fileName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,393 @@
+package com.editor.util;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 按行比较两份文本（diff 命令使用）
+ * 先把每一行换成整数编号，相同内容的行编号相同，之后只比较 int；
+ * 只在一边出现的行一定是改动，直接标记并从序列里拿掉，剩下的用线性空间的 Myers 算法
+ * （每次找中间 snake 再分成两半，用显式栈代替递归）。
+ * 某一段的编辑距离太大时不再追求最短，取走得最远的对角线直接切开，保证大文件也能在几秒内比完。
+ */
+public class LineDiff {
+    public static final int DEFAULT_CONTEXT = 3;
+    private static final int MIN_TOO_EXPENSIVE = 256;
+    
+    private final int[] a;
+    private final int[] b;
+    private final int[] aIndex; // 序列位置 -> 原来的行下标
+    private final int[] bIndex;
+    private final boolean[] deleted;
+    private final boolean[] inserted;
+    private final int[] fd;
+    private final int[] bd;
+    private final int offset;
+    private final int tooExpensive;
+    
+    private LineDiff(int[] a, int[] aIndex, int[] b, int[] bIndex, boolean[] deleted, boolean[] inserted) {
+        this.a = a;
+        this.b = b;
+        this.aIndex = aIndex;
+        this.bIndex = bIndex;
+        this.deleted = deleted;
+        this.inserted = inserted;
+        // 对角线 k = x - y 的范围是 [-b.length, a.length]，两头各留一个哨兵
+        this.offset = b.length + 1;
+        this.fd = new int[a.length + b.length + 3];
+        this.bd = new int[a.length + b.length + 3];
+        // 上限取 sqrt(N + M) / 8（至少 256），比 GNU diff 的 4096 小：行内容重复很多、整体打乱的百万行文件也能几秒比完
+        int limit = 1;
+        for (int diags = a.length + b.length + 3; diags != 0; diags >>= 2) {
+            limit <<= 1;
+        }
+        this.tooExpensive = Math.max(MIN_TOO_EXPENSIVE, limit / 8);
+    }
+    
+    /**
+     * 比较 oldLines 和 newLines
+     */
+    public static Result compare(List<String> oldLines, List<String> newLines) {
+        int n = oldLines.size();
+        int m = newLines.size();
+        var ids = new HashMap<String, Integer>(Math.max(16, (n + m) * 4 / 3));
+        int[] aIds = intern(oldLines, ids);
+        int[] bIds = intern(newLines, ids);
+
+        // 记下每个编号在另一边有没有出现
+        var inA = new boolean[ids.size()];
+        var inB = new boolean[ids.size()];
+        for (int id : aIds) {
+            inA[id] = true;
+        }
+        for (int id : bIds) {
+            inB[id] = true;
+        }
+        var deleted = new boolean[n];
+        var inserted = new boolean[m];
+        int[][] aKept = keep(aIds, inB, deleted);
+        int[][] bKept = keep(bIds, inA, inserted);
+
+        new LineDiff(aKept[0], aKept[1], bKept[0], bKept[1], deleted, inserted).run();
+        return new Result(oldLines, newLines, deleted, inserted);
+    }
+    
+    private static int[] intern(List<String> lines, HashMap<String, Integer> ids) {
+        var result = new int[lines.size()];
+        int i = 0;
+        for (var line : lines) {
+            Integer id = ids.get(line);
+            if (id == null) {
+                id = ids.size();
+                ids.put(line, id);
+            }
+            result[i++] = id;
+        }
+        return result;
+    }
+    
+    // 另一边没有的行直接标记为改动，返回 {剩下的编号, 它们原来的下标}
+    private static int[][] keep(int[] ids, boolean[] inOther, boolean[] changed) {
+        int kept = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (inOther[ids[i]]) {
+                kept++;
+            } else {
+                changed[i] = true;
+            }
+        }
+        var values = new int[kept];
+        var index = new int[kept];
+        int k = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (!changed[i]) {
+                values[k] = ids[i];
+                index[k++] = i;
+            }
+        }
+        return new int[][]{values, index};
+    }
+    
+    private void run() {
+        var stack = new ArrayDeque<int[]>();
+        stack.push(new int[]{0, a.length, 0, b.length});
+        var split = new int[2];
+        while (!stack.isEmpty()) {
+            int[] range = stack.pop();
+            int aLo = range[0];
+            int aHi = range[1];
+            int bLo = range[2];
+            int bHi = range[3];
+            // 去掉首尾相同的行
+            while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+                aLo++;
+                bLo++;
+            }
+            while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+                aHi--;
+                bHi--;
+            }
+            if (aLo == aHi) {
+                for (int y = bLo; y < bHi; y++) {
+                    inserted[bIndex[y]] = true;
+                }
+            } else if (bLo == bHi) {
+                for (int x = aLo; x < aHi; x++) {
+                    deleted[aIndex[x]] = true;
+                }
+            } else {
+                middleSnake(aLo, aHi, bLo, bHi, split);
+                stack.push(new int[]{split[0], aHi, split[1], bHi});
+                stack.push(new int[]{aLo, split[0], bLo, split[1]});
+            }
+        }
+    }
+    
+    /**
+     * 从两头同时搜索，找到前后两条路径在同一条对角线上相遇的点，写进 split
+     * 调用前首尾相同的行已经去掉，所以切点不会是 (aLo, bLo) 或 (aHi, bHi)
+     */
+    private void middleSnake(int aLo, int aHi, int bLo, int bHi, int[] split) {
+        int dmin = aLo - bHi;
+        int dmax = aHi - bLo;
+        int fmid = aLo - bLo;
+        int bmid = aHi - bHi;
+        int fmin = fmid;
+        int fmax = fmid;
+        int bmin = bmid;
+        int bmax = bmid;
+        boolean odd = ((fmid - bmid) & 1) != 0;
+        fd[offset + fmid] = aLo;
+        bd[offset + bmid] = aHi;
+
+        for (int c = 1; ; c++) {
+            // 正向多走一步
+            if (fmin > dmin) {
+                fd[offset + --fmin - 1] = -1;
+            } else {
+                ++fmin;
+            }
+            if (fmax < dmax) {
+                fd[offset + ++fmax + 1] = -1;
+            } else {
+                --fmax;
+            }
+            for (int d = fmax; d >= fmin; d -= 2) {
+                int tlo = fd[offset + d - 1];
+                int thi = fd[offset + d + 1];
+                int x = tlo >= thi ? tlo + 1 : thi;
+                int y = x - d;
+                while (x < aHi && y < bHi && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                fd[offset + d] = x;
+                if (odd && bmin <= d && d <= bmax && bd[offset + d] <= x) {
+                    split[0] = x;
+                    split[1] = y;
+                    return;
+                }
+            }
+
+            // 反向多走一步
+            if (bmin > dmin) {
+                bd[offset + --bmin - 1] = Integer.MAX_VALUE;
+            } else {
+                ++bmin;
+            }
+            if (bmax < dmax) {
+                bd[offset + ++bmax + 1] = Integer.MAX_VALUE;
+            } else {
+                --bmax;
+            }
+            for (int d = bmax; d >= bmin; d -= 2) {
+                int tlo = bd[offset + d - 1];
+                int thi = bd[offset + d + 1];
+                int x = tlo < thi ? tlo : thi - 1;
+                int y = x - d;
+                while (x > aLo && y > bLo && a[x - 1] == b[y - 1]) {
+                    x--;
+                    y--;
+                }
+                bd[offset + d] = x;
+                if (!odd && fmin <= d && d <= fmax && x <= fd[offset + d]) {
+                    split[0] = x;
+                    split[1] = y;
+                    return;
+                }
+            }
+
+            if (c >= tooExpensive) {
+                cutAtFurthest(aLo, aHi, bLo, bHi, fmin, fmax, bmin, bmax, split);
+                return;
+            }
+        }
+    }
+    
+    // 代价太大：取正向走得最远或反向走得最远的点切开，结果不一定最短但仍然正确
+    private void cutAtFurthest(int aLo, int aHi, int bLo, int bHi,
+                               int fmin, int fmax, int bmin, int bmax, int[] split) {
+        int fxybest = -1;
+        int fxbest = aLo;
+        for (int d = fmax; d >= fmin; d -= 2) {
+            int x = Math.min(fd[offset + d], aHi);
+            int y = x - d;
+            if (bHi < y) {
+                x = bHi + d;
+                y = bHi;
+            }
+            if (fxybest < x + y) {
+                fxybest = x + y;
+                fxbest = x;
+            }
+        }
+        int bxybest = Integer.MAX_VALUE;
+        int bxbest = aHi;
+        for (int d = bmax; d >= bmin; d -= 2) {
+            int x = Math.max(aLo, bd[offset + d]);
+            int y = x - d;
+            if (y < bLo) {
+                x = bLo + d;
+                y = bLo;
+            }
+            if (x + y < bxybest) {
+                bxybest = x + y;
+                bxbest = x;
+            }
+        }
+        if ((aHi + bHi) - bxybest < fxybest - (aLo + bLo)) {
+            split[0] = fxbest;
+            split[1] = fxybest - fxbest;
+        } else {
+            split[0] = bxbest;
+            split[1] = bxybest - bxbest;
+        }
+    }
+    
+    /**
+     * 比较结果：deleted[i] 表示旧文本第 i 行被删，inserted[j] 表示新文本第 j 行是新增的
+     */
+    public static final class Result {
+        private final List<String> oldLines;
+        private final List<String> newLines;
+        private final boolean[] deleted;
+        private final boolean[] inserted;
+
+        Result(List<String> oldLines, List<String> newLines, boolean[] deleted, boolean[] inserted) {
+            this.oldLines = oldLines;
+            this.newLines = newLines;
+            this.deleted = deleted;
+            this.inserted = inserted;
+        }
+
+        public int getDeletedCount() {
+            return count(deleted);
+        }
+
+        public int getInsertedCount() {
+            return count(inserted);
+        }
+
+        public boolean isEmpty() {
+            return getDeletedCount() == 0 && getInsertedCount() == 0;
+        }
+
+        private static int count(boolean[] flags) {
+            int n = 0;
+            for (boolean flag : flags) {
+                if (flag) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        /**
+         * 按 unified diff 格式输出，两处改动之间相同的行不超过 2 * context 时合并成一个 hunk
+         * @return 输出的 hunk 数，没有差异时不输出任何内容
+         */
+        public int writeUnified(String oldName, String newName, int context, Appendable out) throws IOException {
+            int n = deleted.length;
+            int m = inserted.length;
+            int hunks = 0;
+            int i = 0;
+            int j = 0;
+            while (true) {
+                // 找下一处改动
+                while (i < n && j < m && !deleted[i] && !inserted[j]) {
+                    i++;
+                    j++;
+                }
+                if (i >= n && j >= m) {
+                    break;
+                }
+                if (hunks == 0) {
+                    out.append("--- ").append(oldName).append('\n');
+                    out.append("+++ ").append(newName).append('\n');
+                }
+                int start = Math.max(0, Math.min(context, Math.min(i, j)));
+                int aStart = i - start;
+                int bStart = j - start;
+                // 向后扩展，直到改动之后连续相同的行超过 2 * context 或到达结尾
+                int aEnd = i;
+                int bEnd = j;
+                while (true) {
+                    while ((aEnd < n && deleted[aEnd]) || (bEnd < m && inserted[bEnd])) {
+                        if (aEnd < n && deleted[aEnd]) {
+                            aEnd++;
+                        } else {
+                            bEnd++;
+                        }
+                    }
+                    int same = 0;
+                    while (aEnd + same < n && bEnd + same < m && !deleted[aEnd + same] && !inserted[bEnd + same]
+                           && same <= 2 * context) {
+                        same++;
+                    }
+                    boolean more = aEnd + same < n || bEnd + same < m;
+                    if (more && same <= 2 * context) {
+                        aEnd += same;
+                        bEnd += same;
+                        continue;
+                    }
+                    int tail = Math.min(same, context);
+                    aEnd += tail;
+                    bEnd += tail;
+                    break;
+                }
+                writeHunk(aStart, aEnd, bStart, bEnd, out);
+                hunks++;
+                i = aEnd;
+                j = bEnd;
+            }
+            return hunks;
+        }
+
+        private void writeHunk(int aStart, int aEnd, int bStart, int bEnd, Appendable out) throws IOException {
+            out.append("@@ -").append(range(aStart, aEnd - aStart))
+               .append(" +").append(range(bStart, bEnd - bStart)).append(" @@\n");
+            int i = aStart;
+            int j = bStart;
+            while (i < aEnd || j < bEnd) {
+                if (i < aEnd && deleted[i]) {
+                    out.append('-').append(oldLines.get(i++)).append('\n');
+                } else if (j < bEnd && inserted[j]) {
+                    out.append('+').append(newLines.get(j++)).append('\n');
+                } else {
+                    out.append(' ').append(oldLines.get(i++)).append('\n');
+                    j++;
+                }
+            }
+        }
+
+        // 与 GNU diff 相同：只有一行时省略行数，空范围写成它前面那一行的行号
+        private static String range(int start, int count) {
+            if (count == 1) {
+                return String.valueOf(start + 1);
+            }
+            return (count == 0 ? start : start + 1) + "," + count;
+        }
+    }
+}
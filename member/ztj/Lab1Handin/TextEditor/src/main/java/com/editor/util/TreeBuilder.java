@@ -1,103 +1,171 @@
 package com.editor.util;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * 目录树构建工具
- * 用于构建和显示目录树结构
+ * 边遍历边把条目写到 Appendable，不先拼出整棵树；
+ * 支持忽略规则（名称或 glob）、最大深度和最大条目数，条目数到上限就停止遍历
  */
 public class TreeBuilder {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    public static final String[] DEFAULT_IGNORES = {".git", "target", "node_modules"};
+    
+    private int maxDepth = UNLIMITED;
+    private int maxEntries = UNLIMITED;
+    private final IgnoreRules ignored = new IgnoreRules();
+    private TreeStats stats;
+    
+    public TreeBuilder maxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+    
+    public TreeBuilder maxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        return this;
+    }
     
     /**
-     * 构建目录树
+     * 开启统计，每个条目后面标注文件数、大小和行数
      */
-    public static String buildTree(String rootPath) {
-        return buildTree(rootPath, "", new StringBuilder()).toString();
+    public TreeBuilder stats(TreeStats stats) {
+        this.stats = stats;
+        return this;
+    }
+    
+    /**
+     * 添加忽略规则，按条目名称匹配，如 ".git"、"*.class"
+     */
+    public TreeBuilder ignore(String... patterns) {
+        ignored.add(patterns);
+        return this;
     }
     
-    private static StringBuilder buildTree(String path, String prefix, StringBuilder builder) {
-        File file = new File(path);
-        String name = file.getName();
+    /**
+     * 把目录树写到 out，第一行是根目录名
+     * @return 写出的条目数（不含根目录）
+     */
+    public int render(Path root, Appendable out) throws IOException {
+        var name = root.getFileName();
+        var start = root.toAbsolutePath().normalize();
+        // 统计要先于输出完成，因为目录这一行就要写出汇总
+        var totals = stats != null ? stats.compute(start, ignored) : null;
         
-        if (name.isEmpty()) {
-            name = file.getPath();
+        out.append(name != null ? name.toString() : root.toString());
+        if (totals != null) {
+            out.append("  ").append(totals.annotate(start, Files.isDirectory(start)));
         }
+        out.append('\n');
         
-        builder.append(prefix);
-        builder.append(name);
-        builder.append("\n");
-        
-        if (file.isDirectory()) {
-            File[] children = file.listFiles();
-            if (children != null && children.length > 0) {
-                List<File> dirs = new ArrayList<>();
-                List<File> files = new ArrayList<>();
-                
-                for (File child : children) {
-                    if (child.isDirectory()) {
-                        dirs.add(child);
-                    } else {
-                        files.add(child);
-                    }
+        var state = new int[]{0};
+        if (Files.isDirectory(start) && maxDepth > 0) {
+            if (!renderChildren(start, "", 1, out, state, totals)) {
+                out.append("... 已达到 ").append(String.valueOf(maxEntries)).append(" 条上限\n");
+            }
+        }
+        if (totals != null) {
+            out.append("(本次重新读取 ").append(String.valueOf(totals.getRescanned())).append(" 个文件，其余来自缓存)\n");
+        }
+        return state[0];
+    }
+    
+    /**
+     * @return false 表示达到条目上限，调用方不再继续
+     */
+    private boolean renderChildren(Path dir, String prefix, int depth, Appendable out, int[] written,
+                                   TreeStats.Result totals) throws IOException {
+        var entries = list(dir);
+        for (int i = 0; i < entries.size(); i++) {
+            if (written[0] >= maxEntries) {
+                return false;
+            }
+            var entry = entries.get(i);
+            boolean isLast = i == entries.size() - 1;
+            out.append(prefix).append(isLast ? "└── " : "├── ").append(entry.name);
+            if (totals != null) {
+                out.append("  ").append(totals.annotate(entry.path, entry.directory));
+            }
+            out.append('\n');
+            written[0]++;
+            
+            if (entry.directory && depth < maxDepth) {
+                var childPrefix = prefix + (isLast ? "    " : "│   ");
+                if (!renderChildren(entry.path, childPrefix, depth + 1, out, written, totals)) {
+                    return false;
                 }
-                
-                List<File> all = new ArrayList<>(dirs);
-                all.addAll(files);
-                
-                for (int i = 0; i < all.size(); i++) {
-                    boolean isLast = (i == all.size() - 1);
-                    String childPrefix = prefix + (isLast ? "└── " : "├── ");
-                    buildTree(all.get(i).getAbsolutePath(), childPrefix, builder);
-                    
-                    if (!isLast && i < all.size() - 1) {
-                        String nextPrefix = prefix + "│   ";
-                        buildTree("", nextPrefix, new StringBuilder());
-                    }
+            }
+        }
+        return true;
+    }
+    
+    // 列出一个目录的条目，每个条目只读一次属性；目录在前，各自按名称排序
+    private List<Entry> list(Path dir) {
+        var entries = new ArrayList<Entry>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (var child : stream) {
+                var fileName = child.getFileName();
+                if (ignored.test(fileName)) {
+                    continue;
+                }
+                try {
+                    var attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    entries.add(new Entry(fileName.toString(), child, attrs.isDirectory()));
+                } catch (IOException e) {
+                    // 遍历期间被删除，跳过
                 }
             }
+        } catch (IOException | DirectoryIteratorException e) {
+            return entries; // 无权限等情况，当作空目录
         }
+        entries.sort(Comparator.comparing((Entry e) -> !e.directory).thenComparing(e -> e.name));
+        return entries;
+    }
+    
+    private static final class Entry {
+        final String name;
+        final Path path;
+        final boolean directory;
         
-        return builder;
+        Entry(String name, Path path, boolean directory) {
+            this.name = name;
+            this.path = path;
+            this.directory = directory;
+        }
+    }
+    
+    /**
+     * 构建目录树
+     */
+    public static String buildTree(String rootPath) {
+        return renderToString(new TreeBuilder(), rootPath);
     }
     
     /**
-     * 递归构建目录树（简化版本）
+     * 构建目录树（限制深度）
      */
     public static String buildSimpleTree(String rootPath, int maxDepth) {
-        return buildSimpleTree(rootPath, "", 0, maxDepth);
+        return renderToString(new TreeBuilder().maxDepth(maxDepth), rootPath);
     }
     
-    private static String buildSimpleTree(String path, String prefix, int depth, int maxDepth) {
-        if (depth > maxDepth) {
-            return "";
+    private static String renderToString(TreeBuilder builder, String rootPath) {
+        var sb = new StringBuilder();
+        try {
+            builder.render(Paths.get(rootPath), sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder 不会抛
         }
-        
-        StringBuilder builder = new StringBuilder();
-        File file = new File(path);
-        
-        builder.append(prefix);
-        builder.append(file.getName());
-        builder.append("\n");
-        
-        if (file.isDirectory() && depth < maxDepth) {
-            File[] children = file.listFiles();
-            if (children != null) {
-                for (int i = 0; i < children.length; i++) {
-                    boolean isLast = (i == children.length - 1);
-                    String childPrefix = prefix + (isLast ? "└── " : "├── ");
-                    builder.append(buildSimpleTree(
-                        children[i].getAbsolutePath(),
-                        childPrefix,
-                        depth + 1,
-                        maxDepth
-                    ));
-                }
-            }
-        }
-        
-        return builder.toString();
+        return sb.toString();
     }
 }
-
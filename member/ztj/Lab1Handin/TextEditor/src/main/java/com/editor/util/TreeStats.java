@@ -0,0 +1,288 @@
+package com.editor.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 目录统计（tree --stats 使用）
+ * 用 ForkJoin 并行统计每个目录下的文件数、字节数和文本行数；
+ * 每个文件的结果按 (路径, 修改时间, 大小) 缓存，再次统计时只读取变化过的文件
+ */
+public class TreeStats {
+    // 小文件直接读到堆里，大文件用内存映射
+    static final int MAP_THRESHOLD = 256 * 1024;
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+    private static final int BINARY_SNIFF = 8000;
+    private static final int MAX_CACHED_FILES = 200_000;
+    
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH = 0x8080808080808080L;
+    private static final long NEWLINES = ONES * '\n';
+    
+    private static final TreeStats SHARED = new TreeStats();
+    
+    private final Map<Path, FileStat> cache = new ConcurrentHashMap<>();
+    
+    /**
+     * 进程内共用的实例，多次 tree --stats 共享缓存
+     */
+    public static TreeStats shared() {
+        return SHARED;
+    }
+    
+    /**
+     * 统计 root 下（被 ignored 过滤掉的名称不计）的所有目录
+     */
+    public Result compute(Path root, Predicate<Path> ignored) {
+        if (cache.size() > MAX_CACHED_FILES) {
+            cache.clear();
+        }
+        var result = new Result(cache);
+        var start = root.toAbsolutePath().normalize();
+        if (Files.isDirectory(start)) {
+            ForkJoinPool.commonPool().invoke(new DirTask(start, ignored, result));
+        }
+        return result;
+    }
+    
+    private final class DirTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+        
+        private final Path dir;
+        private final Predicate<Path> ignored;
+        private final Result result;
+        
+        DirTask(Path dir, Predicate<Path> ignored, Result result) {
+            this.dir = dir;
+            this.ignored = ignored;
+            this.result = result;
+        }
+        
+        @Override
+        protected Totals compute() {
+            var subtasks = new ArrayList<DirTask>();
+            long files = 0;
+            long bytes = 0;
+            long lines = 0;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (var child : stream) {
+                    if (ignored.test(child.getFileName())) {
+                        continue;
+                    }
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        var task = new DirTask(child, ignored, result);
+                        task.fork();
+                        subtasks.add(task);
+                    } else if (attrs.isRegularFile()) {
+                        var stat = statFile(child, attrs, result);
+                        files++;
+                        bytes += stat.size;
+                        lines += Math.max(stat.lines, 0);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // 无权限等情况，只统计已经读到的部分
+            }
+            for (var task : subtasks) {
+                var sub = task.join();
+                files += sub.files;
+                bytes += sub.bytes;
+                lines += sub.lines;
+            }
+            var totals = new Totals(files, bytes, lines);
+            result.directories.put(dir, totals);
+            return totals;
+        }
+    }
+    
+    private FileStat statFile(Path file, BasicFileAttributes attrs, Result result) {
+        long mtime = attrs.lastModifiedTime().toMillis();
+        long size = attrs.size();
+        var cached = cache.get(file);
+        if (cached != null && cached.mtime == mtime && cached.size == size) {
+            return cached;
+        }
+        long lines;
+        try {
+            lines = countLines(file, size);
+        } catch (IOException e) {
+            lines = -1; // 读不了的文件当作二进制，不计行数
+        }
+        var stat = new FileStat(mtime, size, lines);
+        cache.put(file, stat);
+        result.rescanned.incrementAndGet();
+        return stat;
+    }
+    
+    /**
+     * 统计文本行数（最后一行没有换行符也算一行），开头有 NUL 字节的视为二进制文件，返回 -1
+     */
+    static long countLines(Path file, long size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        // 文件可能在 stat 之后被改短甚至清空，以实际读到的长度为准
+        if (size < MAP_THRESHOLD) {
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.limit() == 0) {
+                return 0;
+            }
+            if (isBinary(buffer)) {
+                return -1;
+            }
+            return countNewlines(buffer) + (buffer.get(buffer.limit() - 1) == '\n' ? 0 : 1);
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = Math.min(size, channel.size()); // 映射超出文件末尾的部分，读取时会出错
+            if (size == 0) {
+                return 0;
+            }
+            long lines = 0;
+            byte last = '\n';
+            for (long pos = 0; pos < size; pos += MAP_CHUNK) {
+                long len = Math.min(MAP_CHUNK, size - pos);
+                var buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                if (pos == 0 && isBinary(buffer)) {
+                    return -1;
+                }
+                lines += countNewlines(buffer);
+                last = buffer.get((int) len - 1);
+            }
+            return lines + (last == '\n' ? 0 : 1);
+        }
+    }
+    
+    static boolean isBinary(ByteBuffer buffer) {
+        int end = Math.min(buffer.limit(), BINARY_SNIFF);
+        for (int i = 0; i < end; i++) {
+            if (buffer.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 统计 '\n' 的个数：每次取 8 个字节，用位运算找出等于 '\n' 的字节再数 1 的个数
+     */
+    static long countNewlines(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int i = 0;
+        long count = 0;
+        for (; i + 8 <= limit; i += 8) {
+            long x = buffer.getLong(i) ^ NEWLINES;
+            // 某个字节为 0（即原来是 '\n'）时该字节最高位为 1，字节之间不会进位
+            long zeros = ~(((x & LOW7) + LOW7) | x) & HIGH;
+            count += Long.bitCount(zeros);
+        }
+        for (; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private static final class FileStat {
+        final long mtime;
+        final long size;
+        final long lines; // -1 表示二进制
+        
+        FileStat(long mtime, long size, long lines) {
+            this.mtime = mtime;
+            this.size = size;
+            this.lines = lines;
+        }
+    }
+    
+    /**
+     * 一个目录（含所有子目录）的汇总
+     */
+    public static final class Totals {
+        public final long files;
+        public final long bytes;
+        public final long lines;
+        
+        Totals(long files, long bytes, long lines) {
+            this.files = files;
+            this.bytes = bytes;
+            this.lines = lines;
+        }
+        
+        String format() {
+            return "(" + files + " 个文件, " + formatBytes(bytes) + ", " + lines + " 行)";
+        }
+    }
+    
+    /**
+     * 一次统计的结果，路径均为绝对规范路径
+     */
+    public static final class Result {
+        private final Map<Path, Totals> directories = new ConcurrentHashMap<>();
+        private final Map<Path, FileStat> files;
+        private final AtomicInteger rescanned = new AtomicInteger();
+        
+        Result(Map<Path, FileStat> files) {
+            this.files = files;
+        }
+        
+        public Totals forDirectory(Path dir) {
+            return directories.get(dir);
+        }
+        
+        /**
+         * 本次统计中实际读取内容的文件数（其余命中缓存）
+         */
+        public int getRescanned() {
+            return rescanned.get();
+        }
+        
+        String annotate(Path path, boolean directory) {
+            if (directory) {
+                var totals = directories.get(path);
+                return totals != null ? totals.format() : "";
+            }
+            var stat = files.get(path);
+            if (stat == null) {
+                return "";
+            }
+            return "(" + formatBytes(stat.size) + ", " + (stat.lines < 0 ? "二进制" : stat.lines + " 行") + ")";
+        }
+    }
+    
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format("%.1f %s", value, units[unit]);
+    }
+}
@@ -0,0 +1,192 @@
+package com.editor.core;
+
+import com.editor.cli.CommandExecutor;
+import com.editor.command.Command;
+import com.editor.command.text.AppendCommand;
+import com.editor.command.text.InsertCommand;
+import com.editor.command.text.ReplaceCommand;
+import com.editor.command.text.ShowCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentWorkspaceTest {
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 500;
+
+    @Test
+    void mixedCommandsLoseNoUpdates(@TempDir Path tempDir) throws Exception {
+        Workspace workspace = new Workspace();
+        String[] files = {
+            tempDir.resolve("a.txt").toString(),
+            tempDir.resolve("b.txt").toString(),
+            tempDir.resolve("c.txt").toString()
+        };
+        for (String file : files) {
+            workspace.loadFile(file);
+        }
+
+        CommandExecutor executor = new CommandExecutor();
+        executor.enableConcurrency(THREADS);
+        List<Command> commands = new ArrayList<>();
+        int[] expectedLines = new int[files.length];
+        for (int i = 0; i < THREADS * OPS_PER_THREAD; i++) {
+            int f = i % files.length;
+            TextEditor editor = (TextEditor) workspace.findEditor(files[f]);
+            switch (i % 4) {
+                case 0:
+                case 1:
+                    commands.add(new AppendCommand(editor, "line-" + i));
+                    expectedLines[f]++;
+                    break;
+                case 2:
+                    commands.add(new InsertCommand(editor, 0, "head-" + i));
+                    expectedLines[f]++;
+                    break;
+                default:
+                    commands.add(new ShowCommand(editor));
+                    break;
+            }
+        }
+
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        List<Exception> errors;
+        try {
+            errors = executor.executeAll(commands);
+        } finally {
+            System.setOut(originalOut);
+            executor.shutdown();
+        }
+
+        assertTrue(errors.isEmpty(), "执行出错: " + errors);
+        for (int f = 0; f < files.length; f++) {
+            TextEditor editor = (TextEditor) workspace.findEditor(files[f]);
+            assertEquals(expectedLines[f], editor.getLineCount());
+        }
+    }
+
+    @Test
+    void replaceUnderContentionKeepsLineCount() throws Exception {
+        TextEditor editor = new TextEditor("dummy");
+        for (int i = 0; i < 10; i++) {
+            editor.appendLine("x");
+        }
+        CommandExecutor executor = new CommandExecutor();
+        executor.enableConcurrency(THREADS);
+        List<Command> commands = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            commands.add(new ReplaceCommand(editor, i % 10, "r" + i));
+            commands.add(new AppendCommand(editor, "a" + i));
+        }
+        List<Exception> errors = executor.executeAll(commands);
+        executor.shutdown();
+
+        assertTrue(errors.isEmpty());
+        assertEquals(10 + 2000, editor.getLineCount());
+    }
+
+    @Test
+    void sameFileCommandsRunInOrderAndUndoRestoresContent() throws Exception {
+        TextEditor editor = new TextEditor("dummy");
+        for (int i = 0; i < 10; i++) {
+            editor.appendLine("x" + i);
+        }
+        String original = editor.getContent();
+        CommandExecutor executor = new CommandExecutor();
+        executor.enableConcurrency(THREADS);
+        List<Command> commands = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            commands.add(new ReplaceCommand(editor, 0, "r" + i));
+            commands.add(new InsertCommand(editor, 1, "i" + i));
+        }
+        List<Exception> errors = executor.executeAll(commands);
+        executor.shutdown();
+
+        assertTrue(errors.isEmpty(), "执行出错: " + errors);
+        // 按提交顺序执行：第 0 行是最后一次替换，第 1 行是最后一次插入
+        assertEquals("r999", editor.getLine(0));
+        assertEquals("i999", editor.getLine(1));
+        for (int i = 0; i < commands.size(); i++) {
+            executor.getCommandHistory().undo();
+        }
+        assertEquals(original, editor.getContent());
+        assertFalse(executor.getCommandHistory().canUndo());
+    }
+
+    @Test
+    void concurrentLoadOfSameFileCreatesOneEditor(@TempDir Path tempDir) throws Exception {
+        Workspace workspace = new Workspace();
+        String file = tempDir.resolve("same.txt").toString();
+        // 同一个文件的另一种写法（如 grep 在 . 下得到的 ./same.txt）
+        String alias = tempDir.resolve(".").resolve("same.txt").toString();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Editor>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String path = i % 2 == 0 ? file : alias;
+            results.add(pool.submit(() -> {
+                start.await();
+                return workspace.loadFile(path);
+            }));
+        }
+        start.countDown();
+
+        Editor first = results.get(0).get();
+        for (Future<Editor> result : results) {
+            assertSame(first, result.get());
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, workspace.getEditors().size());
+        assertSame(first, workspace.findEditor(alias));
+    }
+
+    @Test
+    void activeEditorIsNeverAClosedFile(@TempDir Path tempDir) throws Exception {
+        Workspace workspace = new Workspace();
+        String file = tempDir.resolve("race.txt").toString();
+        String other = tempDir.resolve("other.txt").toString();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        for (int round = 0; round < 200; round++) {
+            // 同时关闭另一个文件：列表可能在切换活动编辑器时被清空
+            workspace.loadFile(other);
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> loader = pool.submit(() -> {
+                start.await();
+                return workspace.loadFile(file);
+            });
+            Future<?> closer = pool.submit(() -> {
+                start.await();
+                workspace.closeFile(file);
+                return null;
+            });
+            Future<?> otherCloser = pool.submit(() -> {
+                start.await();
+                workspace.closeFile(other);
+                return null;
+            });
+            start.countDown();
+            loader.get();
+            closer.get();
+            otherCloser.get();
+            if (workspace.hasActiveEditor()) {
+                assertTrue(workspace.getEditors().contains(workspace.getActiveEditor()));
+            }
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,112 @@
+package com.editor.macro;
+
+import com.editor.cli.CommandParser;
+import com.editor.core.TextEditor;
+import com.editor.core.Workspace;
+import com.editor.exception.InvalidCommandException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MacroTest {
+    @Test
+    void recordSaveAndReload(@TempDir Path tempDir) throws Exception {
+        MacroManager manager = new MacroManager(tempDir.toFile());
+        manager.startRecording("bulk");
+        manager.record(MacroOp.APPEND, -1, "hello 世界");
+        manager.record(MacroOp.DELETE, 0, null);
+        manager.stopRecording();
+        assertFalse(manager.isRecording());
+
+        // 新实例从磁盘读取
+        Macro loaded = new MacroManager(tempDir.toFile()).get("bulk");
+        assertEquals(2, loaded.size());
+        assertEquals(MacroOp.APPEND, loaded.op(0));
+        assertEquals("hello 世界", loaded.text(0));
+        assertEquals(MacroOp.DELETE, loaded.op(1));
+        assertEquals(0, loaded.line(1));
+        assertNull(loaded.text(1));
+        assertNull(manager.get("missing"));
+    }
+
+    @Test
+    void invalidNameRejected(@TempDir Path tempDir) {
+        MacroManager manager = new MacroManager(tempDir.toFile());
+        assertThrows(Exception.class, () -> manager.startRecording("../evil"));
+        assertThrows(Exception.class, manager::stopRecording);
+    }
+
+    @Test
+    void getRejectsNamesOutsideMacroDirectory(@TempDir Path tempDir) throws Exception {
+        MacroManager manager = new MacroManager(tempDir.resolve("macros").toFile());
+        manager.startRecording("outside");
+        manager.stopRecording();
+        Files.move(tempDir.resolve("macros").resolve("outside.macro"), tempDir.resolve("outside.macro"));
+
+        MacroManager fresh = new MacroManager(tempDir.resolve("macros").toFile());
+        assertThrows(InvalidCommandException.class, () -> fresh.get("../outside"));
+    }
+
+    @Test
+    void corruptLengthsFailWithIOException(@TempDir Path tempDir) throws Exception {
+        // 条数过大、文本长度过大、文本长度超过剩余字节、负的长度
+        int[][] cases = {
+            {Integer.MAX_VALUE},
+            {1, Integer.MAX_VALUE},
+            {1, 100},
+            {1, -5},
+            {-1},
+        };
+        for (int c = 0; c < cases.length; c++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.write(new byte[] {'M', 'C', 'R', 'O'});
+            out.writeByte(1);
+            out.writeInt(cases[c][0]);
+            if (cases[c].length > 1) {
+                out.writeByte(MacroOp.APPEND.getCode());
+                out.writeInt(-1);
+                out.writeInt(cases[c][1]);
+                out.write(new byte[] {'a', 'b'});
+            }
+            out.flush();
+            Files.write(tempDir.resolve("bad" + c + ".macro"), bytes.toByteArray());
+
+            MacroManager manager = new MacroManager(tempDir.toFile());
+            String name = "bad" + c;
+            assertThrows(IOException.class, () -> manager.get(name));
+        }
+    }
+
+    @Test
+    void parsedCommandsAreRecordedAndReplayed(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("m.txt");
+        Files.write(file, Arrays.asList("first"));
+        Workspace workspace = new Workspace();
+        workspace.loadFile(file.toString());
+        CommandParser parser = new CommandParser(workspace);
+        MacroManager manager = new MacroManager(tempDir.resolve("macros").toFile());
+
+        manager.startRecording("edit");
+        parser.parse("append \"x\"").execute();
+        parser.recordLastCommand(manager);
+        parser.parse("replace 1 top").execute();
+        parser.recordLastCommand(manager);
+        Macro macro = manager.stopRecording();
+
+        // 回放：不经过字符串解析
+        for (int i = 0; i < macro.size(); i++) {
+            parser.create(macro.op(i), macro.line(i), macro.text(i)).execute();
+        }
+        TextEditor editor = (TextEditor) workspace.getActiveEditor();
+        assertEquals(Arrays.asList("top", "x", "x"), editor.getLines());
+    }
+}
@@ -0,0 +1,133 @@
+package com.editor.pattern.observer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueuedObserverTest {
+    // 第一个事件卡在 update 里，直到 release；之后的事件只记录
+    static class GateObserver implements Observer {
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void update(Event event) {
+            if (event.getType().equals("boom")) {
+                throw new AssertionError("boom");
+            }
+            if (started.getCount() > 0) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            received.add(event.getType());
+        }
+    }
+
+    private static void publish(QueuedObserver queued, String... types) {
+        for (String type : types) {
+            queued.update(new Event(type));
+        }
+    }
+
+    @Test
+    void dropOldestKeepsNewestEvents() throws Exception {
+        var gate = new GateObserver();
+        var queued = new QueuedObserver(gate, 2, OverflowPolicy.DROP_OLDEST);
+        publish(queued, "e1");
+        assertTrue(gate.started.await(5, TimeUnit.SECONDS));
+        publish(queued, "e2", "e3", "e4");
+        assertEquals(1, queued.getDroppedCount());
+        gate.release.countDown();
+        assertTrue(queued.shutdown(5000));
+        assertEquals(List.of("e1", "e3", "e4"), gate.received);
+    }
+
+    @Test
+    void dropAndCountDiscardsNewEvents() throws Exception {
+        var gate = new GateObserver();
+        var queued = new QueuedObserver(gate, 2, OverflowPolicy.DROP_AND_COUNT);
+        publish(queued, "e1");
+        assertTrue(gate.started.await(5, TimeUnit.SECONDS));
+        publish(queued, "e2", "e3", "e4", "e5");
+        assertEquals(2, queued.getDroppedCount());
+        gate.release.countDown();
+        assertTrue(queued.shutdown(5000));
+        assertEquals(List.of("e1", "e2", "e3"), gate.received);
+    }
+
+    @Test
+    void blockWaitsForSpaceAndLosesNothing() throws Exception {
+        var gate = new GateObserver();
+        var queued = new QueuedObserver(gate, 1, OverflowPolicy.BLOCK);
+        publish(queued, "e1");
+        assertTrue(gate.started.await(5, TimeUnit.SECONDS));
+        publish(queued, "e2");
+        var publisher = new Thread(() -> publish(queued, "e3"));
+        publisher.start();
+        publisher.join(300);
+        assertTrue(publisher.isAlive(), "队列满时发布方应当等待");
+
+        gate.release.countDown();
+        publisher.join(5000);
+        assertFalse(publisher.isAlive());
+        assertTrue(queued.shutdown(5000));
+        assertEquals(List.of("e1", "e2", "e3"), gate.received);
+        assertEquals(0, queued.getDroppedCount());
+    }
+
+    @Test
+    void blockGivesUpWhenWorkerHasDied() throws Exception {
+        var gate = new GateObserver();
+        var queued = new QueuedObserver(gate, 1, OverflowPolicy.BLOCK);
+        publish(queued, "boom", "e1");
+        var publisher = new Thread(() -> publish(queued, "e2"));
+        publisher.start();
+        publisher.join(5000);
+        assertFalse(publisher.isAlive(), "工作线程退出后发布方不能一直阻塞");
+        assertEquals(1, queued.getDroppedCount());
+        queued.shutdown(0);
+    }
+
+    @Test
+    void shutdownDrainsThenIgnoresNewEvents() {
+        var gate = new GateObserver();
+        gate.release.countDown();
+        var queued = new QueuedObserver(gate, 100, OverflowPolicy.BLOCK);
+        for (int i = 0; i < 50; i++) {
+            queued.update(new Event("e" + i));
+        }
+        assertTrue(queued.shutdown(5000));
+        assertEquals(50, gate.received.size());
+        assertEquals("e49", gate.received.get(49));
+
+        publish(queued, "late");
+        assertEquals(50, gate.received.size());
+        assertEquals(0, queued.getQueueSize());
+    }
+
+    @Test
+    void subjectReplacesAndDetachesQueuedObserver() {
+        var subject = new Subject() { };
+        var gate = new GateObserver();
+        gate.release.countDown();
+        subject.attach(gate);
+        var queued = subject.attachQueued(gate, 10, OverflowPolicy.BLOCK);
+        assertEquals(List.of(queued), subject.getObservers());
+
+        subject.notifyObservers(new Event("e1"));
+        subject.detach(gate);
+        assertTrue(subject.getObservers().isEmpty());
+        assertEquals(List.of("e1"), gate.received);
+    }
+}
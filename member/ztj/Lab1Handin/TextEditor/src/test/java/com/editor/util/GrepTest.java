@@ -0,0 +1,73 @@
+package com.editor.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GrepTest {
+    @Test
+    void findsLinesAndSkipsBinaryAndIgnored(@TempDir Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve("src"));
+        Files.createDirectories(tempDir.resolve("target"));
+        Files.writeString(tempDir.resolve("src/A.java"), "class A {\r\n  // TODO 中文 todo\n}\nTODO TODO");
+        Files.writeString(tempDir.resolve("target/B.java"), "TODO");
+        Files.write(tempDir.resolve("src/a.bin"), new byte[]{'T', 'O', 'D', 'O', 0});
+
+        var hits = new ArrayList<Grep.Hit>();
+        var summary = new Grep().ignore(TreeBuilder.DEFAULT_IGNORES).search(tempDir, "TODO", hits::add);
+        assertEquals(2, summary.hits);
+        assertEquals(1, summary.scannedFiles);
+        assertEquals(1, summary.skippedFiles);
+        assertFalse(summary.truncated);
+        assertEquals(2, hits.get(0).getLine());
+        assertEquals("  // TODO 中文 todo", hits.get(0).getText());
+        // 同一行出现两次只报告一次
+        assertEquals(4, hits.get(1).getLine());
+        assertEquals("TODO TODO", hits.get(1).getText());
+
+        hits.clear();
+        new Grep().search(tempDir, "中文", hits::add);
+        assertEquals(tempDir.resolve("src/A.java"), hits.get(0).getFile());
+    }
+
+    @Test
+    void countsLinesInMappedFileAndStopsAtLimit(@TempDir Path tempDir) throws Exception {
+        var sb = new StringBuilder();
+        int n = 0;
+        while (sb.length() <= TreeStats.MAP_THRESHOLD) {
+            sb.append(n % 1000 == 999 ? "needle " : "hay ").append(n++).append('\n');
+        }
+        for (int i = 0; i < 8; i++) {
+            Files.writeString(tempDir.resolve("big" + i + ".txt"), sb);
+        }
+
+        var hits = new ArrayList<Grep.Hit>();
+        var summary = new Grep().search(tempDir.resolve("big0.txt"), "needle", hits::add);
+        assertEquals(n / 1000, summary.hits);
+        assertEquals(1000, hits.get(0).getLine());
+        assertEquals("needle 1999", hits.get(1).getText());
+        assertEquals(2000, hits.get(1).getLine());
+
+        // 命中数恰好等于上限不算截断
+        hits.clear();
+        summary = new Grep().maxResults(n / 1000).search(tempDir.resolve("big0.txt"), "needle", hits::add);
+        assertEquals(n / 1000, hits.size());
+        assertFalse(summary.truncated);
+
+        hits.clear();
+        summary = new Grep().maxResults(5).search(tempDir, "needle", hits::add);
+        assertEquals(5, hits.size());
+        assertTrue(summary.truncated);
+        // 同一个文件的命中连续且按行号排列
+        var first = hits.get(0).getFile();
+        assertTrue(hits.stream().allMatch(h -> h.getFile().equals(first)));
+        assertEquals(hits, hits.stream().sorted(Comparator.comparingInt(Grep.Hit::getLine)).collect(Collectors.toList()));
+    }
+}
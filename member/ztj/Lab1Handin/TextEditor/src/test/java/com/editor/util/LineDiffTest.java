@@ -0,0 +1,120 @@
+package com.editor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LineDiffTest {
+    @Test
+    void writesUnifiedHunks() throws Exception {
+        var oldLines = new ArrayList<String>();
+        for (int i = 1; i <= 20; i++) {
+            oldLines.add("line " + i);
+        }
+        var newLines = new ArrayList<>(oldLines);
+        newLines.set(1, "changed 2");
+        newLines.remove(17);
+        newLines.add("tail");
+
+        var result = LineDiff.compare(oldLines, newLines);
+        assertEquals(2, result.getDeletedCount());
+        assertEquals(2, result.getInsertedCount());
+        var out = new StringBuilder();
+        assertEquals(2, result.writeUnified("a.txt", "b.txt", 3, out));
+        assertEquals("--- a.txt\n+++ b.txt\n"
+            + "@@ -1,5 +1,5 @@\n line 1\n-line 2\n+changed 2\n line 3\n line 4\n line 5\n"
+            + "@@ -15,6 +15,6 @@\n line 15\n line 16\n line 17\n-line 18\n line 19\n line 20\n+tail\n",
+            out.toString());
+
+        // 只有新增、内容相同
+        out.setLength(0);
+        LineDiff.compare(List.of(), List.of("x")).writeUnified("a", "b", 3, out);
+        assertEquals("--- a\n+++ b\n@@ -0,0 +1 @@\n+x\n", out.toString());
+        assertTrue(LineDiff.compare(oldLines, new ArrayList<>(oldLines)).isEmpty());
+    }
+
+    @Test
+    void randomEditsAreMinimalAndReversible() throws Exception {
+        var random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            var oldLines = randomLines(random, random.nextInt(40));
+            var newLines = randomLines(random, random.nextInt(40));
+            var result = LineDiff.compare(oldLines, newLines);
+            int lcs = lcs(oldLines, newLines);
+            assertEquals(oldLines.size() - lcs, result.getDeletedCount());
+            assertEquals(newLines.size() - lcs, result.getInsertedCount());
+
+            // 上下文足够大时只有一个 hunk，去掉 + 行得到旧文本，去掉 - 行得到新文本
+            var out = new StringBuilder();
+            result.writeUnified("a", "b", 100, out);
+            var rebuiltOld = new ArrayList<String>();
+            var rebuiltNew = new ArrayList<String>();
+            for (var line : out.toString().split("\n")) {
+                if (line.startsWith("---") || line.startsWith("+++") || line.startsWith("@@") || line.isEmpty()) {
+                    continue;
+                }
+                if (line.charAt(0) != '+') {
+                    rebuiltOld.add(line.substring(1));
+                }
+                if (line.charAt(0) != '-') {
+                    rebuiltNew.add(line.substring(1));
+                }
+            }
+            if (!result.isEmpty()) {
+                assertEquals(oldLines, rebuiltOld);
+                assertEquals(newLines, rebuiltNew);
+            }
+        }
+    }
+
+    @Test
+    void diffsLargeInputs() throws Exception {
+        // 默认规模跑得快；-Dlinediff.lines=1000000 可以在本地试完整规模
+        int lineCount = Integer.getInteger("linediff.lines", 20_000);
+        var oldLines = new ArrayList<String>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            oldLines.add("line " + i + " the quick brown fox");
+        }
+        var newLines = new ArrayList<>(oldLines);
+        var random = new Random(1);
+        int edits = lineCount / 1000;
+        for (int i = 0; i < edits; i++) {
+            newLines.set(random.nextInt(newLines.size()), "edited " + i);
+            newLines.add(random.nextInt(newLines.size()), "line " + random.nextInt(lineCount) + " the quick brown fox");
+        }
+
+        var result = LineDiff.compare(oldLines, newLines);
+        assertTrue(result.getInsertedCount() >= edits);
+        assertEquals(lineCount - (newLines.size() - result.getInsertedCount()), result.getDeletedCount());
+
+        // 两边完全不同
+        var other = new ArrayList<String>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            other.add("other " + i);
+        }
+        assertEquals(lineCount, LineDiff.compare(oldLines, other).getDeletedCount());
+    }
+
+    private static List<String> randomLines(Random random, int count) {
+        var lines = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            lines.add(String.valueOf((char) ('a' + random.nextInt(5))));
+        }
+        return lines;
+    }
+
+    private static int lcs(List<String> a, List<String> b) {
+        var dp = new int[a.size() + 1][b.size() + 1];
+        for (int i = a.size() - 1; i >= 0; i--) {
+            for (int j = b.size() - 1; j >= 0; j--) {
+                dp[i][j] = a.get(i).equals(b.get(j)) ? dp[i + 1][j + 1] + 1 : Math.max(dp[i + 1][j], dp[i][j + 1]);
+            }
+        }
+        return dp[0][0];
+    }
+}
@@ -0,0 +1,67 @@
+package com.editor.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeBuilderTest {
+    @Test
+    void rendersDirectoriesFirstWithConnectors(@TempDir Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve("src/main"));
+        Files.writeString(tempDir.resolve("src/main/App.java"), "");
+        Files.writeString(tempDir.resolve("src/pom.xml"), "");
+        Files.writeString(tempDir.resolve("README.md"), "");
+
+        var out = new StringBuilder();
+        new TreeBuilder().render(tempDir, out);
+        assertEquals(tempDir.getFileName() + "\n"
+                + "├── src\n"
+                + "│   ├── main\n"
+                + "│   │   └── App.java\n"
+                + "│   └── pom.xml\n"
+                + "└── README.md\n", out.toString());
+    }
+
+    @Test
+    void ignoresNamesAndGlobs(@TempDir Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve(".git/objects"));
+        Files.createDirectories(tempDir.resolve("target/classes"));
+        Files.writeString(tempDir.resolve("Main.class"), "");
+        Files.writeString(tempDir.resolve("Main.java"), "");
+
+        var out = new StringBuilder();
+        new TreeBuilder().ignore(TreeBuilder.DEFAULT_IGNORES).ignore("*.class").render(tempDir, out);
+        assertEquals(tempDir.getFileName() + "\n└── Main.java\n", out.toString());
+    }
+
+    @Test
+    void stopsAtEntryLimit(@TempDir Path tempDir) throws Exception {
+        for (int d = 0; d < 50; d++) {
+            var dir = Files.createDirectories(tempDir.resolve("d" + d));
+            for (int f = 0; f < 50; f++) {
+                Files.writeString(dir.resolve("f" + f), "");
+            }
+        }
+
+        var out = new StringBuilder();
+        int written = new TreeBuilder().maxEntries(5).render(tempDir, out);
+        assertEquals(5, written);
+        var lines = out.toString().split("\n");
+        // 根目录 + 5 个条目 + 上限提示
+        assertEquals(7, lines.length);
+        assertTrue(lines[6].contains("5 条上限"));
+    }
+
+    @Test
+    void respectsMaxDepth(@TempDir Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve("a/b/c"));
+
+        var out = new StringBuilder();
+        new TreeBuilder().maxDepth(2).render(tempDir, out);
+        assertEquals(tempDir.getFileName() + "\n└── a\n    └── b\n", out.toString());
+    }
+}
@@ -0,0 +1,89 @@
+package com.editor.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeStatsTest {
+    @Test
+    void countsNewlinesInEveryBytePosition() {
+        for (int offset = 0; offset < 20; offset++) {
+            var bytes = new byte[37];
+            bytes[offset] = '\n';
+            bytes[36] = '\n';
+            bytes[offset + 1] = 0x0B; // 紧挨着换行的字节不应被误判
+            assertEquals(2, TreeStats.countNewlines(ByteBuffer.wrap(bytes)));
+        }
+    }
+
+    @Test
+    void countsLinesSmallMappedAndBinary(@TempDir Path tempDir) throws Exception {
+        var small = tempDir.resolve("small.txt");
+        Files.writeString(small, "a\nb\nc");
+        assertEquals(3, TreeStats.countLines(small, Files.size(small)));
+
+        var big = tempDir.resolve("big.txt");
+        var sb = new StringBuilder();
+        int n = 0;
+        while (sb.length() <= TreeStats.MAP_THRESHOLD) {
+            sb.append("line ").append(n++).append('\n');
+        }
+        Files.writeString(big, sb);
+        assertEquals(n, TreeStats.countLines(big, Files.size(big)));
+
+        var binary = tempDir.resolve("a.bin");
+        Files.write(binary, new byte[]{1, 0, '\n', 2});
+        assertEquals(-1, TreeStats.countLines(binary, 4));
+
+        // stat 之后文件被清空：按实际内容统计，不越界
+        Files.write(small, new byte[0]);
+        assertEquals(0, TreeStats.countLines(small, 5));
+        Files.write(big, new byte[0]);
+        assertEquals(0, TreeStats.countLines(big, TreeStats.MAP_THRESHOLD + 1));
+    }
+
+    @Test
+    void aggregatesDirectoriesAndReusesCache(@TempDir Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve("src/deep"));
+        Files.writeString(tempDir.resolve("src/A.java"), "1\n2\n");
+        Files.writeString(tempDir.resolve("src/deep/B.java"), "1\n2\n3\n");
+        Files.createDirectories(tempDir.resolve("target"));
+        Files.writeString(tempDir.resolve("target/ignored.txt"), "x\n");
+
+        var stats = new TreeStats();
+        var builder = new TreeBuilder().ignore(TreeBuilder.DEFAULT_IGNORES).stats(stats);
+        var root = tempDir.toAbsolutePath().normalize();
+
+        var first = stats.compute(root, p -> p.toString().equals("target"));
+        var totals = first.forDirectory(root);
+        assertEquals(2, totals.files);
+        assertEquals(5, totals.lines);
+        assertEquals(2, first.getRescanned());
+        assertEquals(1, first.forDirectory(root.resolve("src/deep")).files);
+
+        // 没变化的文件直接用缓存，不再忽略 target 后只有 target/ignored.txt 需要读取
+        assertEquals(1, stats.compute(root, p -> false).getRescanned());
+        Files.writeString(tempDir.resolve("src/A.java"), "1\n2\n3\n4\n");
+        var third = stats.compute(root, p -> p.toString().equals("target"));
+        assertEquals(1, third.getRescanned());
+        assertEquals(7, third.forDirectory(root).lines);
+
+        var out = new StringBuilder();
+        builder.render(tempDir, out);
+        var text = out.toString();
+        assertTrue(text.contains("src  (2 个文件, "), text);
+        assertTrue(text.contains("A.java  (8 B, 4 行)"), text);
+        assertTrue(text.contains("本次重新读取 0 个文件"), text);
+    }
+
+    @Test
+    void formatsBytes() {
+        assertEquals("512 B", TreeStats.formatBytes(512));
+        assertEquals(String.format("%.1f KB", 1.5), TreeStats.formatBytes(1536));
+    }
+}
@@ -0,0 +1,39 @@
+package com.editor.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口（benchmarks.jar 的 Main-Class）
+ * 参数与 JMH 自带的命令行相同；没有指定时默认加上 GC 分析器（-prof gc），
+ * 结果以 JSON 写到 target/jmh-result.json，换存储实现前后各跑一次，用 -rff 存成不同文件再对比
+ */
+public class BenchmarkRunner {
+    static final String DEFAULT_RESULT = "target/jmh-result.json";
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListProfilers()
+                || cli.shouldListResultFormats()) {
+            // 帮助和列表类参数交给 JMH 自己处理
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cli);
+        if (cli.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!cli.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT);
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.editor.bench;
+
+import com.editor.core.editor.EditorException;
+import com.editor.core.editor.TextEditor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 与编辑位置无关的操作：在末尾追加（连同撤销）、显示全文、撤销/重做
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class DocumentBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int lines;
+    
+    private TextEditor appending; // 每次追加后在同一个操作里撤销，大小不变
+    private TextEditor history;   // 中间一行被替换过一次，撤销/重做在两个版本之间切换
+    
+    @Setup(Level.Trial)
+    public void setUp() throws EditorException {
+        List<String> content = Documents.lines(lines);
+        appending = new TextEditor("append.txt", content);
+        history = new TextEditor("history.txt", content);
+        history.replace(Documents.lineAt("middle", lines), 1, 4, "LINE");
+    }
+    
+    @Benchmark
+    public int appendUndo() {
+        appending.append("appended line");
+        appending.undo();
+        return appending.getLineCount();
+    }
+    
+    @Benchmark
+    public List<String> showAll() {
+        return history.show();
+    }
+    
+    @Benchmark
+    public int undoRedo() {
+        history.undo();
+        history.redo();
+        return history.getLineCount();
+    }
+}
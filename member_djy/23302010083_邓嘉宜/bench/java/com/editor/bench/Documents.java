@@ -0,0 +1,39 @@
+package com.editor.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试用的文档内容和编辑位置
+ */
+final class Documents {
+    private Documents() {
+    }
+    
+    /**
+     * 生成 lineCount 行文本，每行长度相近，和单元测试里的大文档一致
+     */
+    static List<String> lines(int lineCount) {
+        List<String> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add("line " + i + " the quick brown fox jumps over the lazy dog");
+        }
+        return lines;
+    }
+    
+    /**
+     * head / middle / tail 对应的行号（1开始）
+     */
+    static int lineAt(String position, int lineCount) {
+        switch (position) {
+            case "head":
+                return 1;
+            case "middle":
+                return lineCount / 2 + 1;
+            case "tail":
+                return lineCount;
+            default:
+                throw new IllegalArgumentException("未知的位置: " + position);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.editor.bench;
+
+import com.editor.core.editor.EditorException;
+import com.editor.core.editor.TextEditor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在文档开头、中间、结尾处编辑的耗时
+ * 每个操作是 "编辑 + 撤销"，文档大小和 undo 栈深度在整个测试中保持不变。
+ * 微秒级的操作不能用 Level.Invocation 的 TearDown 撤销（每次调用的计时开销比操作本身还大），
+ * 所以撤销也计入时间；单独的撤销/重做成本见 DocumentBenchmark.undoRedo
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class EditBenchmark {
+    private static final int SHOW_WINDOW = 50;
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int lines;
+    
+    @Param({"head", "middle", "tail"})
+    public String position;
+    
+    private TextEditor editor;
+    private int line;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> content = Documents.lines(lines);
+        editor = new TextEditor("bench.txt", content);
+        line = Documents.lineAt(position, lines);
+    }
+    
+    @Benchmark
+    public int insertUndo() throws EditorException {
+        editor.insert(line, 1, "x");
+        editor.undo();
+        return editor.getLineCount();
+    }
+    
+    @Benchmark
+    public int deleteUndo() throws EditorException {
+        editor.delete(line, 1, 1);
+        editor.undo();
+        return editor.getLineCount();
+    }
+    
+    @Benchmark
+    public int replaceUndo() throws EditorException {
+        editor.replace(line, 1, 4, "LINE");
+        editor.undo();
+        return editor.getLineCount();
+    }
+    
+    @Benchmark
+    public List<String> show() {
+        int start = Math.min(line, lines - SHOW_WINDOW + 1);
+        return editor.show(start, start + SHOW_WINDOW - 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.editor.bench;
+
+import com.editor.ui.cli.CommandParser;
+import com.editor.ui.cli.CommandTokens;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 命令分词的耗时：每个操作把整份语料解析一遍（时间除以 CORPUS.length 即每条命令的成本）
+ * legacyRegex 是改写之前的正则分词，作为对照；parse 是界面实际走的路径（含参数的类型解析）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    /** 真实命令语料，覆盖引号、转义、位置、文件参数（与 CommandParserTest 相同） */
+    static final String[] CORPUS = {
+        "load notes.txt",
+        "init draft.txt with-log",
+        "append \"Hello World\"",
+        "append \"第二行 中文\" notes.txt",
+        "insert 1:5 \"inserted text\"",
+        "insert 12:1 \"tab\\there\" draft.txt",
+        "delete 3:2 10",
+        "replace 1:5 3 \"new text\"",
+        "show 1:10",
+        "show",
+        "  save   all  ",
+        "dir-tree src",
+        "undo",
+        "log-show notes.txt",
+    };
+    
+    private final CommandParser parser = new CommandParser();
+    private final CommandTokens tokens = new CommandTokens();
+    
+    @Benchmark
+    public int legacyRegex() {
+        int count = 0;
+        for (String line : CORPUS) {
+            count += legacySplit(line.trim()).size();
+        }
+        return count;
+    }
+    
+    @Benchmark
+    public int tokenize() {
+        int count = 0;
+        for (String line : CORPUS) {
+            count += parser.tokenize(line, tokens).size();
+        }
+        return count;
+    }
+    
+    @Benchmark
+    public int parse() {
+        int count = 0;
+        for (String line : CORPUS) {
+            CommandParser.ParsedCommand command = parser.parse(line);
+            count += command.getArgCount();
+            int[] position = command.getArgCount() > 0 ? command.getPositionArg(0) : null;
+            if (position != null) {
+                count += position[0];
+            }
+        }
+        return count;
+    }
+    
+    /** 原来的正则分词实现（每行编译一次正则） */
+    private static List<String> legacySplit(String input) {
+        List<String> parts = new ArrayList<>();
+        Matcher matcher =
+            Pattern.compile("([^\"\\s]+|\".+?\")\\s*").matcher(input);
+        while (matcher.find()) {
+            String part = matcher.group(1);
+            if (part.startsWith("\"") && part.endsWith("\"")) {
+                part = part.substring(1, part.length() - 1);
+            }
+            parts.add(part);
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,64 @@
+package com.editor.bench;
+
+import com.editor.core.persistence.FilePersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件读写的耗时，loadFile 和 saveFile 都包括更新元数据缓存
+ * 临时文件在系统临时目录中，结果受磁盘和页缓存影响，比较时应在同一台机器上运行
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class PersistenceBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int lines;
+    
+    private FilePersistence persistence;
+    private List<String> content;
+    private Path file;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        persistence = new FilePersistence();
+        content = Documents.lines(lines);
+        file = Files.createTempFile("editor-bench", ".txt");
+        persistence.saveFile(file.toString(), content);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public List<String> loadFile() throws IOException {
+        return persistence.loadFile(file.toString());
+    }
+    
+    @Benchmark
+    public void saveFile() throws IOException {
+        persistence.saveFile(file.toString(), content);
+    }
+}
@@ -0,0 +1,67 @@
+package com.editor.bench;
+
+import com.editor.core.editor.EditorException;
+import com.editor.core.editor.TextEditor;
+import com.editor.core.search.SearchEngine;
+import com.editor.core.search.SearchPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * replace-all 与逐处 replace 的对比：每 10 行一个 "token"
+ * replaceAllUndo 一次替换全部匹配；replaceOneUndo 只替换一处，乘以匹配数就是逐处替换的总成本。
+ * 两者都在同一个操作里撤销，文档保持不变
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ReplaceAllBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int lines;
+    
+    private TextEditor editor;
+    private SearchPattern token;
+    private int middle;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> content = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            content.add(i % 10 == 0 ? "value token " + i : "value " + i);
+        }
+        editor = new TextEditor("replace.txt", content);
+        token = new SearchEngine().compile("token", false);
+        middle = lines / 20 * 10 + 1; // 中间附近包含 token 的一行
+    }
+    
+    @Benchmark
+    public int replaceAllUndo() throws EditorException {
+        int count = editor.replaceAll(token, "TOKEN", 1, Integer.MAX_VALUE);
+        editor.undo();
+        return count;
+    }
+    
+    @Benchmark
+    public int replaceOneUndo() throws EditorException {
+        editor.replace(middle, 7, 5, "TOKEN");
+        editor.undo();
+        return editor.getLineCount();
+    }
+}
@@ -0,0 +1,96 @@
+package com.editor.bench;
+
+import com.editor.core.Application;
+import com.editor.core.command.CommandManager;
+import com.editor.core.command.workspace.UnsavedFileHandler;
+import com.editor.core.logging.LoggingService;
+import com.editor.core.persistence.FilePersistence;
+import com.editor.core.persistence.WorkspacePersistence;
+import com.editor.core.workspace.Workspace;
+import com.editor.ui.cli.CommandLineInterface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 批处理模式的吞吐量：每个操作用新的工作区执行一遍整个脚本（append 和 show 交替）
+ * 和 Main 一样把输出写进 64KB 缓冲区，缓冲区后面直接丢弃，测的是解析和执行命令本身
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ScriptBenchmark {
+    @Param({"1000", "20000"})
+    public int commands;
+    
+    private Path dir;
+    private String script;
+    private PrintStream originalOut;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("editor-bench");
+        StringBuilder sb = new StringBuilder(commands * 16);
+        sb.append("init ").append(dir.resolve("big.txt")).append('\n');
+        for (int i = 1; i < commands; i++) {
+            sb.append(i % 2 == 1 ? "append \"line " + i + "\"\n" : "show 1:1\n");
+        }
+        script = sb.toString();
+        
+        originalOut = System.out;
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+            
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        System.setOut(new PrintStream(new BufferedOutputStream(discard, 64 * 1024), false));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public int runScript() throws IOException {
+        FilePersistence filePersistence = new FilePersistence();
+        LoggingService loggingService = new LoggingService(filePersistence);
+        CommandLineInterface cli = new CommandLineInterface(
+            new Workspace(loggingService), new CommandManager(), filePersistence,
+            new WorkspacePersistence(dir.resolve(".editor_workspace")), loggingService,
+            new Application(), UnsavedFileHandler.always(UnsavedFileHandler.Decision.DISCARD));
+        return cli.runScript(new BufferedReader(new StringReader(script)), "bench", false);
+    }
+}
@@ -0,0 +1,79 @@
+package com.editor.bench;
+
+import com.editor.core.editor.TextEditor;
+import com.editor.core.search.SearchEngine;
+import com.editor.core.search.SearchPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查找的耗时：只有最后一行包含 "needle"，每次都要看完整个文档
+ * indexOf 是不经过编辑器、直接逐行查找的对照；indexed 用开启了三元组索引的编辑器
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class SearchBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int lines;
+    
+    private List<String> content;
+    private TextEditor plain;
+    private TextEditor indexed;
+    private SearchPattern literal;
+    private SearchPattern regex;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        content = Documents.lines(lines - 1);
+        content.add("the needle is here");
+        plain = new TextEditor("plain.txt", content);
+        indexed = new TextEditor("indexed.txt", content);
+        indexed.setIndexed(true);
+        SearchEngine engine = new SearchEngine();
+        literal = engine.compile("needle", false);
+        regex = engine.compile("ne+dle", true);
+    }
+    
+    @Benchmark
+    public int findLiteral() {
+        return plain.find(literal, (line, col, length) -> true);
+    }
+    
+    @Benchmark
+    public int findRegex() {
+        return plain.find(regex, (line, col, length) -> true);
+    }
+    
+    @Benchmark
+    public int indexOf() {
+        int hits = 0;
+        for (String line : content) {
+            if (line.indexOf("needle") >= 0) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+    
+    @Benchmark
+    public int findIndexed() {
+        return indexed.find(literal, (line, col, length) -> true);
+    }
+}
@@ -1,7 +1,9 @@
 package com.editor;
 
 import com.editor.core.Application;
+import com.editor.core.command.CommandException;
 import com.editor.core.command.CommandManager;
+import com.editor.core.command.workspace.UnsavedFileHandler;
 import com.editor.core.editor.Editor;
 import com.editor.core.editor.TextEditor;
 import com.editor.core.logging.LoggingService;
@@ -10,15 +12,84 @@ import com.editor.core.persistence.WorkspacePersistence;
 import com.editor.core.workspace.Workspace;
 import com.editor.core.workspace.WorkspaceMemento;
 import com.editor.ui.cli.CommandLineInterface;
+import com.editor.ui.server.EditorServer;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
  * 程序入口类
  */
 public class Main {
+    /** 批处理参数错误或脚本无法读取 */
+    private static final int EXIT_USAGE = 2;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+    
     public static void main(String[] args) {
+        // 批处理模式: --script <file>，<file> 为 "-" 时读取标准输入（管道/重定向）
+        String scriptFile = null;
+        boolean serverMode = false;
+        int port = EditorServer.DEFAULT_PORT;
+        boolean failFast = false;
+        UnsavedFileHandler unsavedFileHandler = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--script":
+                    if (i + 1 >= args.length) {
+                        usageError("--script 需要脚本文件路径（\"-\" 表示标准输入）");
+                    }
+                    scriptFile = args[++i];
+                    break;
+                case "--server":
+                    serverMode = true;
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        try {
+                            port = Integer.parseInt(args[++i]);
+                        } catch (NumberFormatException e) {
+                            usageError("无效的端口号: " + args[i]);
+                        }
+                    }
+                    break;
+                case "--save-unsaved":
+                    unsavedFileHandler = UnsavedFileHandler.always(UnsavedFileHandler.Decision.SAVE);
+                    break;
+                case "--discard-unsaved":
+                    unsavedFileHandler = UnsavedFileHandler.always(UnsavedFileHandler.Decision.DISCARD);
+                    break;
+                case "--fail-fast":
+                    failFast = true;
+                    break;
+                default:
+                    usageError("未知参数: " + args[i]);
+            }
+        }
+        if (serverMode && scriptFile != null) {
+            usageError("--server 和 --script 不能同时使用");
+        }
+        // 只看参数，不再用 System.console() 猜：它在 IDE 里或只重定向 stdout 时也是 null
+        boolean batchMode = scriptFile != null;
+        
+        if (batchMode) {
+            // 输出先攒在大缓冲区里，结束时统一 flush，不再每行都刷一次
+            System.setOut(new PrintStream(new BufferedOutputStream(
+                new FileOutputStream(FileDescriptor.out), IO_BUFFER_SIZE), false));
+            if (unsavedFileHandler == null) {
+                unsavedFileHandler = (filePath, prompt) -> {
+                    throw new CommandException("文件 " + filePath
+                        + " 未保存，批处理模式请指定 --save-unsaved 或 --discard-unsaved");
+                };
+            }
+        }
+        
         try {
             // 初始化各个模块
             Application application = new Application();
@@ -79,14 +150,33 @@ public class Main {
                 }
                 
             } catch (IOException e) {
-                // 首次运行，忽略错误
-                System.out.println("提示: 未找到工作区状态文件，将创建新的工作区");
+                // 首次运行，忽略错误（批处理模式不输出提示，避免混进脚本输出）
+                if (!batchMode) {
+                    System.out.println("提示: 未找到工作区状态文件，将创建新的工作区");
+                }
+            }
+            
+            // 服务器模式: --server [port]
+            if (serverMode) {
+                runServer(port, workspace, filePersistence, workspacePersistence, loggingService);
+                return;
             }
             
             // 创建命令行界面
             CommandLineInterface cli = new CommandLineInterface(
                 workspace, commandManager, filePersistence, 
-                workspacePersistence, loggingService, application);
+                workspacePersistence, loggingService, application, unsavedFileHandler);
+            
+            if (batchMode) {
+                int exitCode = runBatch(cli, scriptFile, failFast);
+                try {
+                    workspacePersistence.save(workspace.saveState());
+                } catch (IOException e) {
+                    System.err.println("警告: 保存工作区状态失败: " + e.getMessage());
+                }
+                System.out.flush();
+                System.exit(exitCode);
+            }
             
             // 启动命令行界面
             cli.start();
@@ -101,9 +191,61 @@ public class Main {
             cli.close();
             
         } catch (Exception e) {
+            System.out.flush();
             System.err.println("程序启动失败: " + e.getMessage());
             e.printStackTrace();
             System.exit(1);
         }
     }
+    
+    /**
+     * 批处理模式：执行脚本文件或标准输入，返回退出码
+     */
+    private static int runBatch(CommandLineInterface cli, String scriptFile, boolean failFast) {
+        boolean fromStdin = "-".equals(scriptFile);
+        String sourceName = fromStdin ? "stdin" : scriptFile;
+        try {
+            InputStream in = fromStdin ? System.in : new FileInputStream(scriptFile);
+            try (BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(in, StandardCharsets.UTF_8), IO_BUFFER_SIZE)) {
+                return cli.runScript(reader, sourceName, failFast);
+            }
+        } catch (IOException e) {
+            System.err.println("错误: 无法读取脚本 " + sourceName + ": " + e.getMessage());
+            return EXIT_USAGE;
+        }
+    }
+    
+    /**
+     * 命令行参数错误：打印用法并退出
+     */
+    private static void usageError(String message) {
+        System.err.println("错误: " + message);
+        System.err.println("用法: Main [--script <file>|-] [--save-unsaved|--discard-unsaved] [--fail-fast]");
+        System.err.println("      Main --server [port]");
+        System.exit(EXIT_USAGE);
+    }
+    
+    /**
+     * 以服务器模式运行，直到进程被终止；退出时保存工作区状态
+     */
+    private static void runServer(int port, Workspace workspace, FilePersistence filePersistence,
+                                  WorkspacePersistence workspacePersistence,
+                                  LoggingService loggingService) throws IOException {
+        EditorServer server = new EditorServer(
+            workspace, filePersistence, workspacePersistence, loggingService, port);
+        
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                server.saveWorkspaceState();
+            } catch (IOException e) {
+                System.err.println("警告: 保存工作区状态失败: " + e.getMessage());
+            }
+        }));
+        
+        int boundPort = server.bind();
+        System.out.println("编辑器服务器已启动，监听 127.0.0.1:" + boundPort);
+        server.serve();
+    }
 }
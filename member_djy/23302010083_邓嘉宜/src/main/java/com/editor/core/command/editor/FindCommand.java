@@ -0,0 +1,84 @@
+package com.editor.core.command.editor;
+
+import com.editor.core.command.Command;
+import com.editor.core.command.CommandException;
+import com.editor.core.editor.Editor;
+import com.editor.core.search.SearchEngine;
+import com.editor.core.search.SearchPattern;
+import com.editor.core.workspace.Workspace;
+
+/**
+ * find命令：在文本中查找
+ * 格式: find "text" [--regex] [--all] [file]
+ * 默认只报告第一处匹配，--all 报告全部；每处匹配输出一行 line:col
+ */
+public class FindCommand implements Command {
+    private Workspace workspace;
+    private SearchEngine searchEngine;
+    private String text;
+    private boolean regex;
+    private boolean all;
+    private String filePath;
+    private StringBuilder output;
+    
+    public FindCommand(Workspace workspace, SearchEngine searchEngine, String text,
+                       boolean regex, boolean all, String filePath) {
+        this.workspace = workspace;
+        this.searchEngine = searchEngine;
+        this.text = text;
+        this.regex = regex;
+        this.all = all;
+        this.filePath = filePath;
+        this.output = new StringBuilder();
+    }
+    
+    @Override
+    public void execute() throws CommandException {
+        String targetFile = filePath != null ? filePath : workspace.getActiveFile();
+        if (targetFile == null) {
+            throw new CommandException("没有活动文件");
+        }
+        
+        SearchPattern pattern;
+        try {
+            pattern = searchEngine.compile(text, regex);
+        } catch (IllegalArgumentException e) {
+            throw new CommandException(e.getMessage(), e);
+        }
+        
+        try {
+            Editor editor = workspace.getEditor(targetFile);
+            // 找到一处输出一处，不先收集全部结果
+            int count = editor.find(pattern, (line, col, length) -> {
+                output.append(line).append(':').append(col).append('\n');
+                return all;
+            });
+            
+            if (count == 0) {
+                output.append("未找到: ").append(text).append('\n');
+            } else if (all) {
+                output.append("共 ").append(count).append(" 处匹配\n");
+            }
+            
+            // 通知命令执行（显示类命令不改变状态）
+            workspace.notifyCommandExecuted("find", text, targetFile);
+            
+        } catch (IllegalStateException e) {
+            throw new CommandException(e.getMessage(), e);
+        }
+    }
+    
+    public String getOutput() {
+        return output.toString();
+    }
+    
+    @Override
+    public String getCommandName() {
+        return "find";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "查找文本";
+    }
+}
@@ -0,0 +1,72 @@
+package com.editor.core.command.editor;
+
+import com.editor.core.command.Command;
+import com.editor.core.command.CommandException;
+import com.editor.core.editor.Editor;
+import com.editor.core.search.TrigramIndex;
+import com.editor.core.workspace.Workspace;
+
+/**
+ * index命令：开启/关闭文件的三元组索引，或查看索引占用的内存
+ * 格式: index on|off|stats [file]
+ */
+public class IndexCommand implements Command {
+    private Workspace workspace;
+    private String action;
+    private String filePath;
+    private StringBuilder output;
+    
+    public IndexCommand(Workspace workspace, String action, String filePath) {
+        this.workspace = workspace;
+        this.action = action;
+        this.filePath = filePath;
+        this.output = new StringBuilder();
+    }
+    
+    @Override
+    public void execute() throws CommandException {
+        String targetFile = filePath != null ? filePath : workspace.getActiveFile();
+        if (targetFile == null) {
+            throw new CommandException("没有活动文件");
+        }
+        
+        try {
+            Editor editor = workspace.getEditor(targetFile);
+            switch (action) {
+                case "on":
+                    editor.setIndexed(true);
+                    output.append("已开启索引: ").append(editor.getIndexStats()).append('\n');
+                    break;
+                case "off":
+                    editor.setIndexed(false);
+                    output.append("已关闭索引\n");
+                    break;
+                case "stats":
+                    TrigramIndex.Stats stats = editor.getIndexStats();
+                    output.append(stats != null ? "索引: " + stats : "未开启索引").append('\n');
+                    break;
+                default:
+                    throw new CommandException("未知的 index 操作: " + action + "，应为 on、off 或 stats");
+            }
+            
+            workspace.notifyCommandExecuted("index", action, targetFile);
+            
+        } catch (IllegalStateException e) {
+            throw new CommandException(e.getMessage(), e);
+        }
+    }
+    
+    public String getOutput() {
+        return output.toString();
+    }
+    
+    @Override
+    public String getCommandName() {
+        return "index";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "管理查找索引";
+    }
+}
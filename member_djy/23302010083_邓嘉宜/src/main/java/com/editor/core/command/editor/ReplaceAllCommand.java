@@ -0,0 +1,115 @@
+package com.editor.core.command.editor;
+
+import com.editor.core.command.CommandException;
+import com.editor.core.command.UndoableCommand;
+import com.editor.core.editor.Editor;
+import com.editor.core.editor.EditorException;
+import com.editor.core.search.SearchEngine;
+import com.editor.core.search.SearchPattern;
+import com.editor.core.workspace.Workspace;
+
+/**
+ * replace-all命令：替换所有匹配
+ * 格式: replace-all "from" "to" [--regex] [startLine:endLine] [file]
+ * 一次遍历完成全部替换，只产生一条撤销记录和一个事件
+ */
+public class ReplaceAllCommand implements UndoableCommand {
+    private Workspace workspace;
+    private SearchEngine searchEngine;
+    private String from;
+    private String to;
+    private boolean regex;
+    private Integer startLine;
+    private Integer endLine;
+    private String filePath;
+    private int replaced;
+    
+    public ReplaceAllCommand(Workspace workspace, SearchEngine searchEngine, String from, String to,
+                             boolean regex, Integer startLine, Integer endLine, String filePath) {
+        this.workspace = workspace;
+        this.searchEngine = searchEngine;
+        this.from = from;
+        this.to = to;
+        this.regex = regex;
+        this.startLine = startLine;
+        this.endLine = endLine;
+        this.filePath = filePath;
+    }
+    
+    @Override
+    public void execute() throws CommandException {
+        String targetFile = filePath != null ? filePath : workspace.getActiveFile();
+        if (targetFile == null) {
+            throw new CommandException("没有活动文件");
+        }
+        
+        SearchPattern pattern;
+        try {
+            pattern = searchEngine.compile(from, regex);
+        } catch (IllegalArgumentException e) {
+            throw new CommandException(e.getMessage(), e);
+        }
+        
+        try {
+            Editor editor = workspace.getEditor(targetFile);
+            int start = startLine != null ? startLine : 1;
+            int end = endLine != null ? endLine : Integer.MAX_VALUE;
+            replaced = editor.replaceAll(pattern, to, start, end);
+            if (replaced == 0) {
+                return; // 文档没变，也不进入撤销栈
+            }
+            workspace.updateModifiedStatus(targetFile, true);
+            
+            // 通知命令执行，参数中带上替换处数
+            workspace.notifyCommandExecuted("replace-all",
+                String.format("\"%s\" \"%s\" (%d)", from, to, replaced), targetFile);
+            
+        } catch (EditorException e) {
+            throw new CommandException(e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new CommandException(e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void undo() throws CommandException {
+        String targetFile = filePath != null ? filePath : workspace.getActiveFile();
+        if (targetFile == null) {
+            return;
+        }
+        
+        try {
+            Editor editor = workspace.getEditor(targetFile);
+            editor.undo();
+            workspace.updateModifiedStatus(targetFile, editor.isModified());
+        } catch (IllegalStateException e) {
+            throw new CommandException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 替换的处数
+     */
+    public int getReplacedCount() {
+        return replaced;
+    }
+    
+    public String getOutput() {
+        return replaced == 0 ? "未找到: " + from + "\n" : "已替换 " + replaced + " 处\n";
+    }
+    
+    @Override
+    public boolean isUndoable() {
+        return replaced > 0;
+    }
+    
+    @Override
+    public String getCommandName() {
+        return "replace-all";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "替换所有匹配";
+    }
+}
@@ -8,23 +8,24 @@ import com.editor.core.persistence.FilePersistence;
 import com.editor.core.workspace.Workspace;
 
 import java.io.IOException;
-import java.util.Scanner;
 
 /**
  * close命令：关闭文件
- * 如果文件已修改，会提示用户是否保存
+ * 如果文件已修改，由 UnsavedFileHandler 决定是否保存
  */
 public class CloseCommand implements Command {
     private Workspace workspace;
     private FilePersistence filePersistence;
     private String filePath;
-    private Scanner scanner;
+    private UnsavedFileHandler unsavedFileHandler;
+    private String output = "";
     
-    public CloseCommand(Workspace workspace, FilePersistence filePersistence, String filePath, Scanner scanner) {
+    public CloseCommand(Workspace workspace, FilePersistence filePersistence, String filePath,
+                        UnsavedFileHandler unsavedFileHandler) {
         this.workspace = workspace;
         this.filePersistence = filePersistence;
         this.filePath = filePath;
-        this.scanner = scanner;
+        this.unsavedFileHandler = unsavedFileHandler;
     }
     
     @Override
@@ -43,11 +44,10 @@ public class CloseCommand implements Command {
         
         // 检查文件是否已修改
         if (workspace.isFileModified(filePath)) {
-            // 提示用户是否保存
-            System.out.print("文件已修改，是否保存? (y/n): ");
-            String response = scanner.nextLine().trim().toLowerCase();
+            UnsavedFileHandler.Decision decision =
+                unsavedFileHandler.decide(filePath, "文件已修改，是否保存? (y/n): ");
             
-            if (response.equals("y") || response.equals("yes")) {
+            if (decision == UnsavedFileHandler.Decision.SAVE) {
                 // 保存文件
                 try {
                     Editor editor = workspace.getEditor(filePath);
@@ -61,9 +61,9 @@ public class CloseCommand implements Command {
                 } catch (IOException e) {
                     throw new CommandException("保存文件失败: " + e.getMessage(), e);
                 }
-            } else if (!response.equals("n") && !response.equals("no")) {
-                // 无效输入，取消关闭操作
-                System.out.println("操作已取消");
+            } else if (decision == UnsavedFileHandler.Decision.CANCEL) {
+                // 无效输入，取消关闭操作（提示由调用方输出，服务器模式下发回给客户端）
+                output = "操作已取消\n";
                 return;
             }
             // 如果用户选择 'n'，直接关闭不保存
@@ -76,6 +76,13 @@ public class CloseCommand implements Command {
         workspace.notifyCommandExecuted("close", filePath, filePath);
     }
     
+    /**
+     * 获取命令输出（取消关闭时的提示）
+     */
+    public String getOutput() {
+        return output;
+    }
+    
     @Override
     public String getCommandName() {
         return "close";
@@ -2,25 +2,38 @@ package com.editor.core.command.workspace;
 
 import com.editor.core.command.Command;
 import com.editor.core.command.CommandException;
+import com.editor.core.persistence.DirectoryTreeWalker;
 import com.editor.core.workspace.Workspace;
 
 import java.io.File;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 
 /**
  * dir-tree命令：显示目录树
+ * 支持限制显示深度和输出条目数。调用 streamTo 后边遍历边写出，
+ * 否则攒在 output 里由 getOutput 取走（服务器模式要先知道响应长度）。
  */
 public class DirTreeCommand implements Command {
     private Workspace workspace;
     private String rootPath;
+    private int maxDepth;
+    private int maxEntries;
     private StringBuilder output;
+    private Appendable stream;
     
     public DirTreeCommand(Workspace workspace, String rootPath) {
+        this(workspace, rootPath, DirectoryTreeWalker.UNLIMITED, DirectoryTreeWalker.UNLIMITED);
+    }
+    
+    /**
+     * @param maxDepth 最多显示几层，DirectoryTreeWalker.UNLIMITED 表示不限
+     * @param maxEntries 最多输出多少个条目，DirectoryTreeWalker.UNLIMITED 表示不限
+     */
+    public DirTreeCommand(Workspace workspace, String rootPath, int maxDepth, int maxEntries) {
         this.workspace = workspace;
         this.rootPath = rootPath != null ? rootPath : ".";
+        this.maxDepth = maxDepth;
+        this.maxEntries = maxEntries;
         this.output = new StringBuilder();
     }
     
@@ -35,54 +48,24 @@ public class DirTreeCommand implements Command {
             throw new CommandException("不是目录: " + rootPath);
         }
         
-        output.append(rootPath).append("\n");
-        printDirectoryTree(root, "", true);
+        Appendable out = stream != null ? stream : output;
+        try {
+            out.append(rootPath).append("\n");
+            new DirectoryTreeWalker(maxDepth, maxEntries, workspace.getOpenFiles())
+                .walk(root.toPath(), out);
+        } catch (IOException e) {
+            throw new CommandException("读取目录失败: " + e.getMessage(), e);
+        }
         
         // 通知命令执行（显示类命令不改变状态）
         workspace.notifyCommandExecuted("dir-tree", rootPath, null);
     }
     
-    private void printDirectoryTree(File dir, String prefix, boolean isLast) {
-        File[] files = dir.listFiles();
-        if (files == null) {
-            return;
-        }
-        
-        // 排序：目录在前，文件在后
-        List<File> dirs = new ArrayList<>();
-        List<File> fileList = new ArrayList<>();
-        for (File file : files) {
-            if (file.isDirectory()) {
-                dirs.add(file);
-            } else {
-                fileList.add(file);
-            }
-        }
-        
-        List<File> allFiles = new ArrayList<>();
-        allFiles.addAll(dirs);
-        allFiles.addAll(fileList);
-        
-        for (int i = 0; i < allFiles.size(); i++) {
-            File file = allFiles.get(i);
-            boolean isLastItem = (i == allFiles.size() - 1);
-            
-            String connector = isLastItem ? "└── " : "├── ";
-            output.append(prefix).append(connector).append(file.getName());
-            
-            // 标记是否已打开
-            if (workspace.isFileOpen(file.getPath())) {
-                output.append(" [已打开]");
-            }
-            
-            output.append("\n");
-            
-            // 如果是目录，递归打印
-            if (file.isDirectory()) {
-                String newPrefix = prefix + (isLastItem ? "    " : "│   ");
-                printDirectoryTree(file, newPrefix, isLastItem);
-            }
-        }
+    /**
+     * 目录树直接写到 out，不在内存里攒整棵树；之后 getOutput 返回空字符串
+     */
+    public void streamTo(Appendable out) {
+        this.stream = out;
     }
     
     public String getOutput() {
@@ -9,7 +9,6 @@ import com.editor.core.workspace.Workspace;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Scanner;
 
 /**
  * exit命令：退出程序
@@ -19,13 +18,16 @@ public class ExitCommand implements Command {
     private WorkspacePersistence workspacePersistence;
     private FilePersistence filePersistence;
     private Application application;
+    private UnsavedFileHandler unsavedFileHandler;
     
     public ExitCommand(Workspace workspace, WorkspacePersistence workspacePersistence, 
-                      FilePersistence filePersistence, Application application) {
+                      FilePersistence filePersistence, Application application,
+                      UnsavedFileHandler unsavedFileHandler) {
         this.workspace = workspace;
         this.workspacePersistence = workspacePersistence;
         this.filePersistence = filePersistence;
         this.application = application;
+        this.unsavedFileHandler = unsavedFileHandler;
     }
     
     @Override
@@ -34,12 +36,11 @@ public class ExitCommand implements Command {
         if (workspace.hasUnsavedFiles()) {
             List<String> unsavedFiles = workspace.getUnsavedFiles();
             
-            Scanner scanner = new Scanner(System.in);
             for (String filePath : unsavedFiles) {
-                System.out.print("文件 " + filePath + " 已修改，是否保存？(y/n): ");
-                String answer = scanner.nextLine().trim().toLowerCase();
+                UnsavedFileHandler.Decision decision = unsavedFileHandler.decide(
+                    filePath, "文件 " + filePath + " 已修改，是否保存？(y/n): ");
                 
-                if (answer.equals("y") || answer.equals("yes")) {
+                if (decision == UnsavedFileHandler.Decision.SAVE) {
                     // 保存文件
                     try {
                         SaveCommand saveCommand = new SaveCommand(workspace, filePersistence, filePath);
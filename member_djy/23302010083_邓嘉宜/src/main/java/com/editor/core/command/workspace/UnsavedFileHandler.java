@@ -0,0 +1,35 @@
+package com.editor.core.command.workspace;
+
+import com.editor.core.command.CommandException;
+
+/**
+ * 关闭/退出时遇到已修改文件的处理策略
+ * 交互模式下询问用户，批处理模式和服务器模式下不能询问，由启动参数决定
+ */
+public interface UnsavedFileHandler {
+    
+    /**
+     * 对已修改文件的处理结果
+     */
+    enum Decision {
+        SAVE,
+        DISCARD,
+        CANCEL   // 取消本次操作（exit 时等同于不保存）
+    }
+    
+    /**
+     * 决定如何处理一个已修改的文件
+     * @param filePath 文件路径
+     * @param prompt 交互模式下显示给用户的提示
+     * @return 处理结果
+     * @throws CommandException 无法做出决定时（如批处理模式未指定策略）
+     */
+    Decision decide(String filePath, String prompt) throws CommandException;
+    
+    /**
+     * 总是返回同一个结果的策略
+     */
+    static UnsavedFileHandler always(Decision decision) {
+        return (filePath, prompt) -> decision;
+    }
+}
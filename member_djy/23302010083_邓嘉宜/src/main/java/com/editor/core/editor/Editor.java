@@ -1,5 +1,9 @@
 package com.editor.core.editor;
 
+import com.editor.core.search.HitListener;
+import com.editor.core.search.SearchPattern;
+import com.editor.core.search.TrigramIndex;
+
 import java.util.List;
 
 /**
@@ -55,6 +59,37 @@ public interface Editor {
      */
     List<String> show(int startLine, int endLine);
     
+    /**
+     * 在文档中查找，匹配按行、列顺序交给 listener（不复制文档）
+     * @param pattern 编译好的查找模式
+     * @param listener 结果回调，返回 false 时停止查找
+     * @return 找到的匹配数
+     */
+    int find(SearchPattern pattern, HitListener listener);
+    
+    /**
+     * 把指定行范围内的所有匹配替换为 replacement，整个替换只占一条撤销记录
+     * @param pattern 编译好的查找模式
+     * @param replacement 替换文本（正则模式下可以用 $1 引用分组）
+     * @param startLine 起始行号（从1开始）
+     * @param endLine 结束行号（包含）
+     * @return 替换的处数，为0时文档不变
+     * @throws EditorException 如果替换文本有错误
+     */
+    int replaceAll(SearchPattern pattern, String replacement, int startLine, int endLine) throws EditorException;
+    
+    /**
+     * 开启或关闭三元组索引；开启时按当前内容建立一次，之后随编辑增量更新，find 借助它跳过不可能匹配的行
+     * @param indexed true表示开启
+     */
+    void setIndexed(boolean indexed);
+    
+    /**
+     * 索引的统计信息（行数、三元组数、估算内存）
+     * @return 未开启索引时返回 null
+     */
+    TrigramIndex.Stats getIndexStats();
+    
     /**
      * 检查文件是否被修改
      * @return true表示已修改
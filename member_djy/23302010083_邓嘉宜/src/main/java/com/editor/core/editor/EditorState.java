@@ -1,21 +1,78 @@
 package com.editor.core.editor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * 编辑器状态（用于Memento模式和undo/redo）
+ * 一般保存全部行；只改了部分行、行数不变的操作（如 replace-all）可以只保存被改的那些行
  */
 public class EditorState {
     private List<String> lines;
+    private int[] lineIndexes; // 行级快照时记录的行下标（从0开始），完整快照为 null
     
     public EditorState(List<String> lines) {
         // 深拷贝，如果传入null则创建空列表
         this.lines = lines != null ? new ArrayList<>(lines) : new ArrayList<>();
     }
     
+    private EditorState(int[] lineIndexes, List<String> lines) {
+        this.lineIndexes = lineIndexes;
+        this.lines = lines;
+    }
+    
+    /**
+     * 创建行级快照
+     * @param lineIndexes 被修改的行下标（从0开始）
+     * @param oldLines 这些行修改前的内容，与 lineIndexes 一一对应
+     */
+    public static EditorState ofLines(int[] lineIndexes, List<String> oldLines) {
+        if (lineIndexes.length != oldLines.size()) {
+            throw new IllegalArgumentException("行下标和行内容数量不一致");
+        }
+        return new EditorState(Arrays.copyOf(lineIndexes, lineIndexes.length), new ArrayList<>(oldLines));
+    }
+    
+    /**
+     * 是否只保存了部分行
+     */
+    public boolean isPartial() {
+        return lineIndexes != null;
+    }
+    
+    /**
+     * 完整快照返回全部行，行级快照返回记录的那些行
+     */
     public List<String> getLines() {
         // 返回副本，避免外部修改
         return new ArrayList<>(lines);
     }
+    
+    /**
+     * 按本状态的形式记录当前内容（undo 时放进 redo 栈，反之亦然）
+     */
+    EditorState capture(List<String> current) {
+        if (lineIndexes == null) {
+            return new EditorState(current);
+        }
+        List<String> currentLines = new ArrayList<>(lineIndexes.length);
+        for (int index : lineIndexes) {
+            currentLines.add(current.get(index));
+        }
+        return new EditorState(lineIndexes, currentLines);
+    }
+    
+    /**
+     * 把本状态恢复到 current 上，返回恢复后的行列表（行级快照直接在 current 上修改）
+     */
+    List<String> restore(List<String> current) {
+        if (lineIndexes == null) {
+            return getLines();
+        }
+        for (int i = 0; i < lineIndexes.length; i++) {
+            current.set(lineIndexes[i], lines.get(i));
+        }
+        return current;
+    }
 }
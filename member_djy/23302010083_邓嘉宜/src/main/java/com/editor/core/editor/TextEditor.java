@@ -1,6 +1,12 @@
 package com.editor.core.editor;
 
+import com.editor.core.search.HitListener;
+import com.editor.core.search.SearchEngine;
+import com.editor.core.search.SearchPattern;
+import com.editor.core.search.TrigramIndex;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Stack;
@@ -15,6 +21,7 @@ public class TextEditor implements Editor {
     private boolean modified;
     private Stack<EditorState> undoStack;
     private Stack<EditorState> redoStack;
+    private TrigramIndex index; // 未开启时为 null
     
     public TextEditor(String filePath) {
         this.filePath = filePath;
@@ -34,6 +41,7 @@ public class TextEditor implements Editor {
     @Override
     public void append(String text) {
         saveState();
+        int oldSize = lines.size();
         
         String[] textLines = text.split("\n", -1);
         if (textLines.length == 0) {
@@ -43,6 +51,7 @@ public class TextEditor implements Editor {
                 lines.add(lineText);
             }
         }
+        indexLines(oldSize, 0, lines.size() - oldSize);
         
         setModified(true);
         redoStack.clear(); // 新的操作清除redo栈
@@ -57,6 +66,7 @@ public class TextEditor implements Editor {
             throw new EditorException("空文件只能在1:1位置插入");
         }
         
+        int oldSize = lines.size();
         // 如果行号超出当前行数，先添加空行
         while (lines.size() < line) {
             lines.add("");
@@ -100,6 +110,9 @@ public class TextEditor implements Editor {
                 lines.add(line - 1 + textLines.length - 1, textLines[textLines.length - 1] + after);
             }
         }
+        // 补的空行和插入的行都算新增
+        int changed = line - 1 < oldSize ? 1 : 0;
+        indexLines(Math.min(line - 1, oldSize), changed, lines.size() - oldSize + changed);
         
         setModified(true);
         redoStack.clear();
@@ -138,6 +151,7 @@ public class TextEditor implements Editor {
         String before = currentLine.substring(0, col - 1);
         String after = currentLine.substring(col - 1 + len);
         lines.set(line - 1, before + after);
+        indexLines(line - 1, 1, 1);
         
         setModified(true);
         redoStack.clear();
@@ -189,6 +203,7 @@ public class TextEditor implements Editor {
                 lines.add(line - 1 + textLines.length - 1, textLines[textLines.length - 1] + after);
             }
         }
+        indexLines(line - 1, 1, textLines.length);
         
         setModified(true);
         redoStack.clear();
@@ -216,6 +231,104 @@ public class TextEditor implements Editor {
         return new ArrayList<>(lines.subList(startLine - 1, endLine));
     }
     
+    @Override
+    public int find(SearchPattern pattern, HitListener listener) {
+        if (index != null) {
+            return index.search(lines, pattern, listener);
+        }
+        return SearchEngine.search(lines, pattern, listener);
+    }
+    
+    @Override
+    public int replaceAll(SearchPattern pattern, String replacement, int startLine, int endLine)
+            throws EditorException {
+        int from = Math.max(startLine, 1) - 1;
+        int to = Math.min(endLine, lines.size());
+        
+        // 先算出所有新行再统一修改，替换文本有错时文档保持不变
+        int[] changed = new int[16];
+        List<String> oldLines = new ArrayList<>();
+        List<String> newLines = new ArrayList<>();
+        int[] count = {0};
+        boolean splitsLines = false;
+        for (int i = from; i < to; i++) {
+            String line = lines.get(i);
+            String replaced;
+            try {
+                replaced = pattern.replaceInLine(line, replacement, count);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new EditorException("替换文本错误: " + e.getMessage());
+            }
+            if (replaced != line) {
+                if (oldLines.size() == changed.length) {
+                    changed = Arrays.copyOf(changed, changed.length * 2);
+                }
+                changed[oldLines.size()] = i;
+                oldLines.add(line);
+                newLines.add(replaced);
+                splitsLines |= replaced.indexOf('\n') >= 0;
+            }
+        }
+        if (count[0] == 0) {
+            return 0;
+        }
+        
+        if (splitsLines) {
+            // 替换后出现换行，行数会变，只能保存完整快照
+            saveState();
+            List<String> result = new ArrayList<>(lines.size() + newLines.size());
+            int next = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                if (next < newLines.size() && changed[next] == i) {
+                    result.addAll(Arrays.asList(newLines.get(next++).split("\n", -1)));
+                } else {
+                    result.add(lines.get(i));
+                }
+            }
+            lines = result;
+            syncIndex();
+        } else {
+            // 只记录被改的行，撤销时放回去
+            pushUndo(EditorState.ofLines(Arrays.copyOf(changed, oldLines.size()), oldLines));
+            for (int k = 0; k < newLines.size(); k++) {
+                lines.set(changed[k], newLines.get(k));
+                indexLines(changed[k], 1, 1);
+            }
+        }
+        
+        setModified(true);
+        redoStack.clear();
+        return count[0];
+    }
+    
+    @Override
+    public void setIndexed(boolean indexed) {
+        if (!indexed) {
+            index = null;
+        } else if (index == null) {
+            index = new TrigramIndex(lines);
+        }
+    }
+    
+    @Override
+    public TrigramIndex.Stats getIndexStats() {
+        return index != null ? index.getStats() : null;
+    }
+    
+    // 编辑后把 [from, from + removed) 换成了 [from, from + added)
+    private void indexLines(int from, int removed, int added) {
+        if (index != null) {
+            index.replaceLines(from, removed, lines, added);
+        }
+    }
+    
+    // 行列表被整体换掉（或者部分行被恢复）之后，由索引自己比较出变化的范围
+    private void syncIndex() {
+        if (index != null) {
+            index.sync(lines);
+        }
+    }
+    
     @Override
     public boolean isModified() {
         return modified;
@@ -249,11 +362,10 @@ public class TextEditor implements Editor {
             return;
         }
         
-        EditorState currentState = new EditorState(this.lines);
-        redoStack.push(currentState);
-        
         EditorState previousState = undoStack.pop();
-        this.lines = previousState.getLines();
+        redoStack.push(previousState.capture(this.lines));
+        this.lines = previousState.restore(this.lines);
+        syncIndex();
     }
     
     @Override
@@ -262,11 +374,10 @@ public class TextEditor implements Editor {
             return;
         }
         
-        EditorState currentState = new EditorState(this.lines);
-        undoStack.push(currentState);
-        
         EditorState nextState = redoStack.pop();
-        this.lines = nextState.getLines();
+        undoStack.push(nextState.capture(this.lines));
+        this.lines = nextState.restore(this.lines);
+        syncIndex();
     }
     
     /**
@@ -286,6 +397,7 @@ public class TextEditor implements Editor {
         this.modified = false;
         this.undoStack.clear();
         this.redoStack.clear();
+        syncIndex();
     }
     
     /**
@@ -318,7 +430,10 @@ public class TextEditor implements Editor {
      * 保存当前状态到undo栈
      */
     private void saveState() {
-        EditorState state = new EditorState(this.lines);
+        pushUndo(new EditorState(this.lines));
+    }
+    
+    private void pushUndo(EditorState state) {
         undoStack.push(state);
         // 限制undo栈大小，避免内存溢出
         if (undoStack.size() > 100) {
@@ -0,0 +1,15 @@
+package com.editor.core.logging;
+
+import java.util.List;
+
+/**
+ * 批量事件监听器接口
+ * 一条命令内产生的事件先缓冲，同一文件重复的 FILE_MODIFIED 合并为一条，命令结束后一次性交付
+ */
+public interface BatchEventListener {
+    /**
+     * 处理一批事件
+     * @param events 按发生顺序排列的事件（只读）
+     */
+    void onEvents(List<EditorEvent> events);
+}
@@ -11,13 +11,15 @@ import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 日志服务类
  * 负责记录命令执行日志
  */
-public class LoggingService implements EventListener {
+public class LoggingService implements EventListener, BatchEventListener {
     private Map<String, Boolean> loggingEnabled; // 文件路径 -> 是否启用日志
     private Map<String, Session> sessions; // 文件路径 -> 会话
     private FilePersistence filePersistence;
@@ -44,6 +46,28 @@ public class LoggingService implements EventListener {
         }
     }
     
+    /**
+     * 批量处理事件：同一文件的多条日志合并后只追加一次
+     */
+    @Override
+    public void onEvents(List<EditorEvent> events) {
+        Map<String, StringBuilder> entries = new LinkedHashMap<>();
+        for (EditorEvent event : events) {
+            String filePath = event.getFilePath();
+            if (filePath != null && isLoggingEnabled(filePath)) {
+                entries.computeIfAbsent(filePath, k -> new StringBuilder()).append(formatEntry(event));
+            }
+        }
+        
+        for (Map.Entry<String, StringBuilder> entry : entries.entrySet()) {
+            try {
+                appendToLogFile(getLogFilePath(entry.getKey()), entry.getValue().toString());
+            } catch (IOException e) {
+                System.err.println("警告: 日志写入失败: " + e.getMessage());
+            }
+        }
+    }
+    
     /**
      * 启用文件的日志记录
      * @param filePath 文件路径
@@ -86,7 +110,7 @@ public class LoggingService implements EventListener {
             return enabled;
         }
         
-        // 检查文件首行是否为 "# log"
+        // 检查文件首行是否为 "# log"（走元数据缓存，文件未变化时只做一次 stat）
         if (filePersistence.isLogEnabled(filePath)) {
             enableLogging(filePath);
             return true;
@@ -100,19 +124,23 @@ public class LoggingService implements EventListener {
      */
     private void logEvent(String filePath, EditorEvent event) throws IOException {
         String logPath = getLogFilePath(filePath);
+        appendToLogFile(logPath, formatEntry(event));
+    }
+    
+    /**
+     * 格式化一条日志
+     */
+    private String formatEntry(EditorEvent event) {
         String timestamp = LocalDateTime.now().format(FORMATTER);
-        String logEntry;
         
         if (event.getEventType() == EditorEvent.EventType.COMMAND_EXECUTED) {
-            logEntry = String.format("[%s] %s %s\n", 
+            return String.format("[%s] %s %s\n", 
                 timestamp, 
                 event.getCommandName(),
                 event.getCommandArgs() != null ? event.getCommandArgs() : "");
         } else {
-            logEntry = String.format("[%s] %s\n", timestamp, event.getEventType().name());
+            return String.format("[%s] %s\n", timestamp, event.getEventType().name());
         }
-        
-        appendToLogFile(logPath, logEntry);
     }
     
     /**
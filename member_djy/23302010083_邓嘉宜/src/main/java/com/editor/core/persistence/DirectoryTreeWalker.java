@@ -0,0 +1,151 @@
+package com.editor.core.persistence;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 目录树遍历器（dir-tree 使用）
+ * 每个条目只读一次 BasicFileAttributes（不跟随符号链接）；读完一个目录后，
+ * 它的子目录交给 ForkJoin 线程池并行预读，输出按 "目录在前、名称升序" 的固定顺序
+ * 在调用线程上边遍历边写出，所以结果与并行度无关。
+ */
+public class DirectoryTreeWalker {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    
+    private static final ForkJoinPool POOL =
+        new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        if (a.directory != b.directory) {
+            return a.directory ? -1 : 1;
+        }
+        return a.name.compareTo(b.name);
+    };
+    
+    private final int maxDepth;
+    private final int maxEntries;
+    private final Set<Path> openFiles;
+    // 已经读到的条目数，超过 maxEntries 后不再预读
+    private final AtomicInteger scanned = new AtomicInteger();
+    
+    /**
+     * @param maxDepth 最多显示几层（根目录下的条目为第 1 层）
+     * @param maxEntries 最多输出多少个条目
+     * @param openFilePaths 已打开文件的路径，这些文件在输出中标记 [已打开]
+     */
+    public DirectoryTreeWalker(int maxDepth, int maxEntries, Collection<String> openFilePaths) {
+        if (maxDepth < 1 || maxEntries < 1) {
+            throw new IllegalArgumentException("深度和条目上限必须大于0");
+        }
+        this.maxDepth = maxDepth;
+        this.maxEntries = maxEntries;
+        this.openFiles = new HashSet<>();
+        for (String filePath : openFilePaths) {
+            openFiles.add(Paths.get(filePath).toAbsolutePath().normalize());
+        }
+    }
+    
+    /**
+     * 把 root 下的目录树写到 out（不含根目录本身那一行）
+     * @return 是否因为达到条目上限而截断
+     */
+    public boolean walk(Path root, Appendable out) throws IOException {
+        Path start = root.toAbsolutePath().normalize();
+        List<Entry> top = readDirectory(start, 1);
+        int[] written = {0};
+        boolean complete = render(top, "", 1, out, written);
+        if (!complete) {
+            out.append("... 已达到条目上限 (").append(String.valueOf(maxEntries)).append(")\n");
+        }
+        return !complete;
+    }
+    
+    private boolean render(List<Entry> entries, String prefix, int depth, Appendable out, int[] written)
+            throws IOException {
+        for (int i = 0; i < entries.size(); i++) {
+            if (written[0] >= maxEntries) {
+                return false;
+            }
+            Entry entry = entries.get(i);
+            boolean last = i == entries.size() - 1;
+            
+            out.append(prefix).append(last ? "└── " : "├── ").append(entry.name);
+            if (!entry.directory && openFiles.contains(entry.path)) {
+                out.append(" [已打开]");
+            }
+            out.append('\n');
+            written[0]++;
+            
+            if (entry.directory && depth < maxDepth) {
+                List<Entry> children = entry.children != null
+                    ? entry.children.join()
+                    : readDirectory(entry.path, depth + 1);
+                entry.children = null; // 写完就释放
+                if (!render(children, prefix + (last ? "    " : "│   "), depth + 1, out, written)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 读取一个目录的条目（第 depth 层）并排序，同时把下一层子目录提交到线程池预读
+     */
+    private List<Entry> readDirectory(Path dir, int depth) {
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    continue; // 遍历期间被删除
+                }
+                entries.add(new Entry(child.getFileName().toString(), child, attrs.isDirectory()));
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            return entries; // 无权限等情况，当作空目录
+        }
+        entries.sort(ORDER);
+        
+        scanned.addAndGet(entries.size());
+        if (depth < maxDepth) {
+            for (Entry entry : entries) {
+                if (entry.directory && scanned.get() < maxEntries) {
+                    entry.children = CompletableFuture.supplyAsync(
+                        () -> readDirectory(entry.path, depth + 1), POOL);
+                }
+            }
+        }
+        return entries;
+    }
+    
+    private static final class Entry {
+        final String name;
+        final Path path;
+        final boolean directory;
+        volatile CompletableFuture<List<Entry>> children; // 预读的子目录内容
+        
+        Entry(String name, Path path, boolean directory) {
+            this.name = name;
+            this.path = path;
+            this.directory = directory;
+        }
+    }
+}
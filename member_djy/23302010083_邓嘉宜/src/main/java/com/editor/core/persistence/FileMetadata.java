@@ -0,0 +1,77 @@
+package com.editor.core.persistence;
+
+/**
+ * 文件元数据（不可变）
+ * 记录文件是否存在、是否为目录、大小、修改时间、首行是否为 "# log" 以及行数
+ */
+public class FileMetadata {
+    /** 行数未知（尚未读取过文件内容） */
+    public static final int UNKNOWN_LINE_COUNT = -1;
+
+    private final boolean exists;
+    private final boolean directory;
+    private final long size;
+    private final long lastModified;
+    private final Boolean logHeader; // null 表示尚未检测
+    private final int lineCount;
+
+    public FileMetadata(boolean exists, boolean directory, long size, long lastModified,
+                        Boolean logHeader, int lineCount) {
+        this.exists = exists;
+        this.directory = directory;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.logHeader = logHeader;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * 不存在的文件
+     */
+    public static FileMetadata missing() {
+        return new FileMetadata(false, false, 0, 0, false, 0);
+    }
+
+    public boolean exists() {
+        return exists;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isLogHeaderKnown() {
+        return logHeader != null;
+    }
+
+    public boolean hasLogHeader() {
+        return logHeader != null && logHeader;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * 判断磁盘上的文件是否与缓存时一致（大小和修改时间都相同）
+     */
+    public boolean matches(boolean exists, long size, long lastModified) {
+        return this.exists == exists && this.size == size && this.lastModified == lastModified;
+    }
+
+    public FileMetadata withLogHeader(boolean logHeader) {
+        return new FileMetadata(exists, directory, size, lastModified, logHeader, lineCount);
+    }
+
+    public FileMetadata withLineCount(int lineCount) {
+        return new FileMetadata(exists, directory, size, lastModified, logHeader, lineCount);
+    }
+}
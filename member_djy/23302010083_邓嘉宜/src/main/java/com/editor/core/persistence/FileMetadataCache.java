@@ -0,0 +1,212 @@
+package com.editor.core.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件元数据缓存
+ * 按路径缓存 "# log" 首行标记、大小、修改时间和行数，日志、load、dir-tree 共用一份。
+ * 每次查询只做一次 stat，大小或修改时间变化（外部修改）时自动失效；
+ * 首行检测只读取文件开头的一小块，不再为了看第一行读入整个文件。
+ */
+public class FileMetadataCache {
+    /** 首行检测最多读取的字节数 */
+    static final int HEADER_PROBE_BYTES = 256;
+    private static final String LOG_HEADER = "# log";
+    private static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final Map<String, FileMetadata> cache;
+
+    public FileMetadataCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public FileMetadataCache(final int maxEntries) {
+        // 访问顺序的 LinkedHashMap 做 LRU，避免 dir-tree 大目录把缓存撑爆
+        this.cache = new LinkedHashMap<String, FileMetadata>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FileMetadata> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 获取文件元数据（不检测首行）
+     * @param filePath 文件路径
+     * @return 元数据，文件不存在时 exists() 为 false
+     */
+    public synchronized FileMetadata getMetadata(String filePath) {
+        String key = keyOf(filePath);
+        Path path = Paths.get(filePath);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            FileMetadata missing = FileMetadata.missing();
+            cache.put(key, missing);
+            return missing;
+        }
+
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        FileMetadata cached = cache.get(key);
+        if (cached != null && cached.matches(true, size, lastModified)) {
+            return cached;
+        }
+
+        FileMetadata fresh = new FileMetadata(true, attrs.isDirectory(), size, lastModified,
+            attrs.isDirectory() ? Boolean.FALSE : null, FileMetadata.UNKNOWN_LINE_COUNT);
+        cache.put(key, fresh);
+        return fresh;
+    }
+
+    /**
+     * 检查文件首行是否为 "# log"，结果（包括否定结果）会被缓存
+     * @param filePath 文件路径
+     * @return true表示首行是 "# log"
+     */
+    public synchronized boolean hasLogHeader(String filePath) {
+        FileMetadata metadata = getMetadata(filePath);
+        if (!metadata.exists()) {
+            return false;
+        }
+        if (!metadata.isLogHeaderKnown()) {
+            metadata = metadata.withLogHeader(probeLogHeader(Paths.get(filePath)));
+            cache.put(keyOf(filePath), metadata);
+        }
+        return metadata.hasLogHeader();
+    }
+
+    /**
+     * 获取文件行数，未知时流式统计一次并缓存
+     * @param filePath 文件路径
+     * @return 行数，文件不存在时为 0
+     */
+    public synchronized int getLineCount(String filePath) {
+        FileMetadata metadata = getMetadata(filePath);
+        if (!metadata.exists() || metadata.isDirectory()) {
+            return 0;
+        }
+        if (metadata.getLineCount() == FileMetadata.UNKNOWN_LINE_COUNT) {
+            metadata = metadata.withLineCount(countLines(Paths.get(filePath)));
+            cache.put(keyOf(filePath), metadata);
+        }
+        return metadata.getLineCount();
+    }
+
+    /**
+     * 已经读入（或刚写出）整个文件时，顺便记下首行标记和行数，省去之后的读取
+     * @param filePath 文件路径
+     * @param lines 文件内容
+     */
+    public synchronized void record(String filePath, List<String> lines) {
+        FileMetadata metadata = getMetadata(filePath);
+        if (!metadata.exists()) {
+            return;
+        }
+        boolean logHeader = !lines.isEmpty() && lines.get(0).trim().equals(LOG_HEADER);
+        cache.put(keyOf(filePath), metadata.withLogHeader(logHeader).withLineCount(lines.size()));
+    }
+
+    /**
+     * 使某个文件的缓存失效（保存文件时调用）
+     * @param filePath 文件路径
+     */
+    public synchronized void invalidate(String filePath) {
+        cache.remove(keyOf(filePath));
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * 当前缓存条目数
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private String keyOf(String filePath) {
+        return Paths.get(filePath).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * 只读取开头 HEADER_PROBE_BYTES 字节判断首行；首行更长时肯定不是 "# log"
+     */
+    private boolean probeLogHeader(Path path) {
+        byte[] buffer = new byte[HEADER_PROBE_BYTES];
+        int length = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while (length < buffer.length && (n = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += n;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        int lineEnd = -1;
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == '\n' || buffer[i] == '\r') {
+                lineEnd = i;
+                break;
+            }
+        }
+        if (lineEnd < 0) {
+            if (length == buffer.length) {
+                return false;
+            }
+            lineEnd = length;
+        }
+        String firstLine = new String(buffer, 0, lineEnd, StandardCharsets.UTF_8);
+        return firstLine.trim().equals(LOG_HEADER);
+    }
+
+    /**
+     * 按字节流统计行数，与 Files.readAllLines 的结果一致（\n、\r、\r\n 均视为换行，末尾换行不产生空行）
+     */
+    private int countLines(Path path) {
+        byte[] buffer = new byte[8192];
+        int lines = 0;
+        boolean pendingLine = false;
+        boolean lastWasCr = false;
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        if (!lastWasCr) {
+                            lines++;
+                        }
+                        pendingLine = false;
+                        lastWasCr = false;
+                    } else if (b == '\r') {
+                        lines++;
+                        pendingLine = false;
+                        lastWasCr = true;
+                    } else {
+                        pendingLine = true;
+                        lastWasCr = false;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            return FileMetadata.UNKNOWN_LINE_COUNT;
+        }
+        return pendingLine ? lines + 1 : lines;
+    }
+}
@@ -13,6 +13,15 @@ import java.util.List;
  * 负责文件的保存和加载（UTF-8编码）
  */
 public class FilePersistence {
+    private final FileMetadataCache metadataCache;
+    
+    public FilePersistence() {
+        this(new FileMetadataCache());
+    }
+    
+    public FilePersistence(FileMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
     
     /**
      * 读取文件内容
@@ -25,7 +34,10 @@ public class FilePersistence {
         if (!Files.exists(path)) {
             return new ArrayList<>();
         }
-        return Files.readAllLines(path, StandardCharsets.UTF_8);
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        // 已经读入全文，顺便缓存首行标记和行数
+        metadataCache.record(filePath, lines);
+        return lines;
     }
     
     /**
@@ -44,6 +56,10 @@ public class FilePersistence {
         
         // 写入文件（UTF-8编码）
         Files.write(path, lines, StandardCharsets.UTF_8);
+        
+        // 文件内容变了，旧的元数据作废，再按刚写出的内容重新记录
+        metadataCache.invalidate(filePath);
+        metadataCache.record(filePath, lines);
     }
     
     /**
@@ -61,11 +77,16 @@ public class FilePersistence {
      * @return true表示首行是 "# log"
      */
     public boolean isLogEnabled(String filePath) {
-        try {
-            List<String> lines = loadFile(filePath);
-            return !lines.isEmpty() && lines.get(0).trim().equals("# log");
-        } catch (IOException e) {
-            return false;
-        }
+        // 只读取文件开头一小块，结果按 (大小, 修改时间) 缓存
+        return metadataCache.hasLogHeader(filePath);
+    }
+    
+    /**
+     * 获取文件元数据（大小、修改时间等），文件外部修改后自动刷新
+     * @param filePath 文件路径
+     * @return 文件元数据
+     */
+    public FileMetadata getMetadata(String filePath) {
+        return metadataCache.getMetadata(filePath);
     }
 }
@@ -0,0 +1,14 @@
+package com.editor.core.search;
+
+/**
+ * 查找结果回调，每找到一处匹配调用一次（按行、列顺序）
+ */
+public interface HitListener {
+    /**
+     * @param line 行号（从1开始）
+     * @param col 列号（从1开始）
+     * @param length 匹配的字符数
+     * @return true 继续查找，false 停止
+     */
+    boolean onHit(int line, int col, int length);
+}
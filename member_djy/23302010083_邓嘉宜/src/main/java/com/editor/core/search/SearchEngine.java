@@ -0,0 +1,83 @@
+package com.editor.core.search;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 文档查找引擎
+ * 直接在编辑器的行列表上查找，不复制文档；结果通过 HitListener 边找边交给调用方。
+ * 正则表达式编译一次后放进 LRU 缓存，重复查找同一个表达式时不再编译。
+ */
+public class SearchEngine {
+    private static final int DEFAULT_REGEX_CACHE_SIZE = 64;
+
+    private final Map<String, Pattern> regexCache;
+
+    public SearchEngine() {
+        this(DEFAULT_REGEX_CACHE_SIZE);
+    }
+
+    public SearchEngine(final int regexCacheSize) {
+        this.regexCache = new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                return size() > regexCacheSize;
+            }
+        };
+    }
+
+    /**
+     * 编译查找模式
+     * @throws IllegalArgumentException 正则表达式语法错误或模式为空
+     */
+    public SearchPattern compile(String text, boolean regex) {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("查找内容不能为空");
+        }
+        if (!regex) {
+            return SearchPattern.literal(text);
+        }
+        synchronized (regexCache) {
+            Pattern pattern = regexCache.get(text);
+            if (pattern == null) {
+                try {
+                    pattern = Pattern.compile(text);
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("正则表达式错误: " + e.getDescription(), e);
+                }
+                regexCache.put(text, pattern);
+            }
+            return SearchPattern.regex(pattern);
+        }
+    }
+
+    /**
+     * 从第一行开始查找
+     * @return 找到的匹配数
+     */
+    public static int search(List<String> lines, SearchPattern pattern, HitListener listener) {
+        Matcher matcher = pattern.newMatcher();
+        final int[] count = {0};
+        HitListener counting = (line, col, length) -> {
+            count[0]++;
+            return listener.onHit(line, col, length);
+        };
+        int lineNumber = 1;
+        for (String line : lines) {
+            if (!pattern.searchLine(line, lineNumber++, matcher, counting)) {
+                break;
+            }
+        }
+        return count[0];
+    }
+
+    int getCachedRegexCount() {
+        synchronized (regexCache) {
+            return regexCache.size();
+        }
+    }
+}
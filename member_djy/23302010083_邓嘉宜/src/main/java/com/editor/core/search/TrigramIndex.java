@@ -0,0 +1,535 @@
+package com.editor.core.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 一个文档的三元组索引
+ * 每个连续的 3 个字符（三元组）对应一个倒排表，记录包含它的行 ID；倒排表是按 ID 升序的 int 数组。
+ * 行 ID 只增不减：一行内容变了就作废旧 ID、分配新 ID，新 ID 总是追加在倒排表末尾，所以不用排序；
+ * 作废的 ID 攒到和行数一样多时统一从倒排表里清掉。
+ * 查找时取出查找内容必定包含的三元组，求倒排表交集得到候选行，只在候选行上真正匹配。
+ * 由 TextEditor 在每次编辑后按改动的行范围增量维护，不需要重建。
+ */
+public class TrigramIndex {
+    private static final long EMPTY = -1L; // 三元组编码最多 48 位，不会等于 -1
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_POSTING = 4;
+    private static final int PURGE_MIN_STALE = 1024;
+    // 正则里不带操作数的字母转义：字符类、边界和单个控制字符
+    private static final String SIMPLE_ESCAPES = "dDwWsSbBhHvVRXAGZzntrfae";
+
+    // 三元组 -> 倒排表，开放寻址哈希表
+    private long[] keys;
+    private int[][] postings;
+    private int[] sizes;
+    private int used;
+
+    // 按行顺序记录每一行的 ID 和建索引时的内容（与编辑器共享同一批 String 对象）
+    private int[] lineIds;
+    private final List<String> lines;
+    private int nextId;
+    private int staleLines; // 上次清理之后被删掉、ID 还留在倒排表里的行数
+
+    /**
+     * 按 lines 的当前内容建索引
+     */
+    public TrigramIndex(List<String> lines) {
+        this.keys = new long[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+        this.postings = new int[INITIAL_CAPACITY][];
+        this.sizes = new int[INITIAL_CAPACITY];
+        this.lineIds = new int[Math.max(16, lines.size())];
+        this.lines = new ArrayList<>(lines.size());
+        replaceLines(0, 0, lines, lines.size());
+    }
+
+    /**
+     * 编辑后更新：原来 [from, from + removed) 的行被 current 中 [from, from + added) 的行取代
+     * @param current 编辑器修改后的行列表
+     */
+    public void replaceLines(int from, int removed, List<String> current, int added) {
+        int size = lines.size();
+        int delta = added - removed;
+        if (delta != 0) {
+            if (size + delta > lineIds.length) {
+                lineIds = Arrays.copyOf(lineIds, Math.max(size + delta, lineIds.length * 2));
+            }
+            System.arraycopy(lineIds, from + removed, lineIds, from + added, size - from - removed);
+        }
+        // 行内容列表同步：先删再插，subList 上的批量操作只移动一次后面的元素
+        lines.subList(from, from + removed).clear();
+        lines.addAll(from, current.subList(from, from + added));
+        for (int i = from; i < from + added; i++) {
+            int id = nextId++;
+            lineIds[i] = id;
+            addLine(id, lines.get(i));
+        }
+        staleLines += removed;
+        if (staleLines > Math.max(PURGE_MIN_STALE, lines.size())) {
+            purge();
+        }
+    }
+
+    /**
+     * 行列表被整体替换后（undo/redo）更新，按引用比较找出变化的行：
+     * 行数不变时逐行比较，只处理变了的行；否则去掉首尾没变的行，只处理中间一段
+     */
+    public void sync(List<String> current) {
+        int oldSize = lines.size();
+        int newSize = current.size();
+        if (oldSize == newSize) {
+            for (int i = 0; i < newSize; i++) {
+                if (lines.get(i) != current.get(i)) {
+                    replaceLines(i, 1, current, 1);
+                }
+            }
+            return;
+        }
+        int prefix = 0;
+        int max = Math.min(oldSize, newSize);
+        while (prefix < max && lines.get(prefix) == current.get(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && lines.get(oldSize - 1 - suffix) == current.get(newSize - 1 - suffix)) {
+            suffix++;
+        }
+        replaceLines(prefix, oldSize - prefix - suffix, current, newSize - prefix - suffix);
+    }
+
+    /**
+     * 借助索引查找，结果与 SearchEngine.search 相同（按行、列顺序）
+     * @param current 编辑器当前的行列表，必须与索引同步
+     * @return 找到的匹配数
+     */
+    public int search(List<String> current, SearchPattern pattern, HitListener listener) {
+        long[] required = requiredTrigrams(pattern);
+        if (required == null) {
+            return SearchEngine.search(current, pattern, listener); // 取不出三元组，只能全文扫描
+        }
+        BitSet candidates = candidates(required);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        Matcher matcher = pattern.newMatcher();
+        final int[] count = {0};
+        HitListener counting = (line, col, length) -> {
+            count[0]++;
+            return listener.onHit(line, col, length);
+        };
+        for (int i = 0; i < current.size(); i++) {
+            if (candidates.get(lineIds[i])
+                    && !pattern.searchLine(current.get(i), i + 1, matcher, counting)) {
+                break;
+            }
+        }
+        return count[0];
+    }
+
+    /**
+     * 候选行数（测试和统计用），取不出三元组时返回 -1
+     */
+    public int countCandidates(SearchPattern pattern) {
+        long[] required = requiredTrigrams(pattern);
+        if (required == null) {
+            return -1;
+        }
+        BitSet ids = candidates(required);
+        int count = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (ids.get(lineIds[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 求交集：从最短的倒排表开始，逐个和其余的做有序归并
+    private BitSet candidates(long[] required) {
+        int[][] lists = new int[required.length][];
+        int[] lengths = new int[required.length];
+        for (int i = 0; i < required.length; i++) {
+            int slot = find(required[i]);
+            if (slot < 0 || sizes[slot] == 0) {
+                return new BitSet();
+            }
+            lists[i] = postings[slot];
+            lengths[i] = sizes[slot];
+        }
+        int shortest = 0;
+        for (int i = 1; i < lists.length; i++) {
+            if (lengths[i] < lengths[shortest]) {
+                shortest = i;
+            }
+        }
+        int[] result = Arrays.copyOf(lists[shortest], lengths[shortest]);
+        int n = result.length;
+        for (int i = 0; i < lists.length && n > 0; i++) {
+            if (i != shortest) {
+                n = intersect(result, n, lists[i], lengths[i]);
+            }
+        }
+        BitSet ids = new BitSet(nextId);
+        for (int i = 0; i < n; i++) {
+            ids.set(result[i]);
+        }
+        return ids;
+    }
+
+    // 把 a 和 b 的交集写回 a 的前面，返回交集大小
+    private static int intersect(int[] a, int aLen, int[] b, int bLen) {
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < aLen && j < bLen) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                a[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+
+    private void addLine(int id, String line) {
+        for (int i = 0; i + 3 <= line.length(); i++) {
+            int slot = slotFor(trigram(line, i));
+            int size = sizes[slot];
+            int[] list = postings[slot];
+            if (size > 0 && list[size - 1] == id) {
+                continue; // 同一行里重复出现的三元组只记一次
+            }
+            if (list == null) {
+                list = postings[slot] = new int[INITIAL_POSTING];
+            } else if (size == list.length) {
+                list = postings[slot] = Arrays.copyOf(list, size * 2);
+            }
+            list[size] = id;
+            sizes[slot] = size + 1;
+        }
+    }
+
+    // 删掉的行只是不再出现在 lineIds 里，倒排表中的旧 ID 留到下次清理：
+    // 常见的三元组（比如连续空格）几乎每行都有，逐个从长倒排表里删太慢
+    private void purge() {
+        BitSet live = new BitSet(nextId);
+        for (int i = 0; i < lines.size(); i++) {
+            live.set(lineIds[i]);
+        }
+        for (int slot = 0; slot < postings.length; slot++) {
+            int[] list = postings[slot];
+            if (list == null) {
+                continue;
+            }
+            int n = 0;
+            for (int i = 0; i < sizes[slot]; i++) {
+                if (live.get(list[i])) {
+                    list[n++] = list[i];
+                }
+            }
+            sizes[slot] = n;
+            if (n == 0) {
+                postings[slot] = null; // 槽位留着，扩容时再丢掉
+            } else if (list.length > INITIAL_POSTING && n < list.length / 4) {
+                postings[slot] = Arrays.copyOf(list, Math.max(INITIAL_POSTING, n * 2));
+            }
+        }
+        staleLines = 0;
+    }
+
+    private static long trigram(CharSequence s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private int slotFor(long key) {
+        if ((used + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            used++;
+        }
+        return slot;
+    }
+
+    // 负载超过一半时扩容，顺便丢掉已经没有行的三元组
+    private void grow() {
+        long[] oldKeys = keys;
+        int[][] oldPostings = postings;
+        int[] oldSizes = sizes;
+        int live = 0;
+        for (int size : oldSizes) {
+            if (size > 0) {
+                live++;
+            }
+        }
+        int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, live * 4) - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        postings = new int[capacity][];
+        sizes = new int[capacity];
+        used = 0;
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSizes[i] == 0) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            postings[slot] = oldPostings[i];
+            sizes[slot] = oldSizes[i];
+            used++;
+        }
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * 查找内容必定包含的三元组；取不出来（太短、含分支或忽略大小写等）时返回 null
+     */
+    static long[] requiredTrigrams(SearchPattern pattern) {
+        List<String> literals = pattern.isRegex()
+                ? requiredLiterals(pattern.getPattern())
+                : Arrays.asList(pattern.getText());
+        if (literals == null) {
+            return null;
+        }
+        long[] result = new long[16];
+        int n = 0;
+        for (String literal : literals) {
+            for (int i = 0; i + 3 <= literal.length(); i++) {
+                if (n == result.length) {
+                    result = Arrays.copyOf(result, n * 2);
+                }
+                result[n++] = trigram(literal, i);
+            }
+        }
+        if (n == 0) {
+            return null;
+        }
+        long[] unique = Arrays.copyOf(result, n);
+        Arrays.sort(unique);
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || unique[i] != unique[i - 1]) {
+                unique[k++] = unique[i];
+            }
+        }
+        return Arrays.copyOf(unique, k);
+    }
+
+    /**
+     * 从简单的正则表达式里取出每次匹配都必须出现的字面量片段
+     * 只处理普通字符、转义的标点、. ^ $、字符类和量词；有分组、分支或匹配标志时放弃（返回 null）
+     */
+    static List<String> requiredLiterals(Pattern regex) {
+        if (regex.flags() != 0) {
+            return null;
+        }
+        String p = regex.pattern();
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        for (int i = 0; i < p.length(); i++) {
+            char c = p.charAt(i);
+            switch (c) {
+                case '(':
+                case ')':
+                case '|':
+                    return null;
+                case '*':
+                case '?':
+                case '{':
+                    // * ? {0,n} 时前一个字符可以不出现；{n,m} 时它必须出现，但后面的字符不能接着拼
+                    if ((c != '{' || p.startsWith("{0", i)) && run.length() > 0) {
+                        run.setLength(run.length() - 1);
+                    }
+                    flush(run, literals);
+                    if (c == '{') {
+                        int close = p.indexOf('}', i);
+                        if (close < 0) {
+                            return null;
+                        }
+                        i = close;
+                    }
+                    if (i + 1 < p.length() && (p.charAt(i + 1) == '?' || p.charAt(i + 1) == '+')) {
+                        i++; // 懒惰/占有量词
+                    }
+                    break;
+                case '+':
+                    flush(run, literals); // 至少出现一次，前一个字符保留
+                    if (i + 1 < p.length() && (p.charAt(i + 1) == '?' || p.charAt(i + 1) == '+')) {
+                        i++;
+                    }
+                    break;
+                case '[':
+                    flush(run, literals);
+                    i = skipClass(p, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    break;
+                case '.':
+                case '^':
+                case '$':
+                    flush(run, literals);
+                    break;
+                case '\\':
+                    if (i + 1 >= p.length()) {
+                        return null;
+                    }
+                    char next = p.charAt(++i);
+                    if (Character.isLetterOrDigit(next)) {
+                        // 只认不带操作数的 \d \w \b \n 等；\x41 \u0041 \0101 \cA \p{L} \1 \Q 这类
+                        // 后面的字符是转义的一部分，不能当成字面量，直接放弃
+                        if (SIMPLE_ESCAPES.indexOf(next) < 0) {
+                            return null;
+                        }
+                        flush(run, literals);
+                    } else {
+                        run.append(next);
+                    }
+                    break;
+                default:
+                    run.append(c);
+            }
+        }
+        flush(run, literals);
+        return literals;
+    }
+
+    // 字符类后面如果跟着量词，由上面的分支在下一轮处理（此时 run 已清空，不会误删字符）
+    private static int skipClass(String p, int start) {
+        int i = start + 1;
+        if (i < p.length() && p.charAt(i) == '^') {
+            i++;
+        }
+        if (i < p.length() && p.charAt(i) == ']') {
+            i++; // 开头的 ] 是普通字符
+        }
+        for (; i < p.length(); i++) {
+            char c = p.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                return -1; // 嵌套的字符类不处理
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void flush(StringBuilder run, List<String> literals) {
+        if (run.length() > 0) {
+            literals.add(run.toString());
+            run.setLength(0);
+        }
+    }
+
+    /**
+     * 索引占用的内存估算（按 64 位 JVM、压缩指针计：数组头 16 字节，引用 4 字节）
+     */
+    public Stats getStats() {
+        long bytes = 16L + keys.length * 8L      // keys
+                + 16L + postings.length * 4L      // postings 引用
+                + 16L + sizes.length * 4L         // sizes
+                + 16L + lineIds.length * 4L       // lineIds
+                + 16L + lines.size() * 4L;        // lines 引用（String 与编辑器共享，不重复计算）
+        int trigrams = 0;
+        long entries = 0;
+        for (int i = 0; i < postings.length; i++) {
+            if (postings[i] != null) {
+                trigrams++;
+                entries += sizes[i];
+                bytes += 16L + postings[i].length * 4L;
+            }
+        }
+        long textChars = 0;
+        for (String line : lines) {
+            textChars += line.length();
+        }
+        return new Stats(lines.size(), trigrams, entries, bytes, textChars);
+    }
+
+    /**
+     * 索引统计
+     */
+    public static class Stats {
+        private final int lines;
+        private final int trigrams;
+        private final long postingEntries;
+        private final long bytes;
+        private final long textChars;
+
+        Stats(int lines, int trigrams, long postingEntries, long bytes, long textChars) {
+            this.lines = lines;
+            this.trigrams = trigrams;
+            this.postingEntries = postingEntries;
+            this.bytes = bytes;
+            this.textChars = textChars;
+        }
+
+        public int getLines() {
+            return lines;
+        }
+
+        public int getTrigrams() {
+            return trigrams;
+        }
+
+        public long getPostingEntries() {
+            return postingEntries;
+        }
+
+        /**
+         * 索引本身估算占用的字节数
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getTextChars() {
+            return textChars;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d 行, %d 个三元组, %d 个倒排项, 约 %.1f KB (文本 %d 个字符)",
+                    lines, trigrams, postingEntries, bytes / 1024.0, textChars);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.editor.core.workspace;
 
 import com.editor.core.editor.Editor;
+import com.editor.core.logging.BatchEventListener;
 import com.editor.core.logging.EditorEvent;
 import com.editor.core.logging.EventListener;
 import com.editor.core.logging.LoggingService;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 工作区类
@@ -20,6 +24,10 @@ public class Workspace {
     private Map<String, Boolean> modifiedStatus; // 文件路径 -> 是否已修改
     private Map<String, Boolean> loggingEnabled; // 文件路径 -> 是否启用日志
     private List<EventListener> eventListeners; // 事件监听器列表（观察者模式）
+    private List<BatchEventListener> batchListeners; // 批量监听器，按命令合并后交付
+    private List<EditorEvent> pendingEvents;     // 当前批次缓冲的事件
+    private Set<String> pendingModified;         // 当前批次中已有 FILE_MODIFIED 的文件
+    private int batchDepth;                      // 批次嵌套层数，0 表示不在批次中
     private LoggingService loggingService;
     private java.util.LinkedList<String> fileAccessOrder; // 文件访问顺序（最近使用的在前）
     
@@ -29,11 +37,15 @@ public class Workspace {
         this.modifiedStatus = new HashMap<>();
         this.loggingEnabled = new HashMap<>();
         this.eventListeners = new ArrayList<>();
+        this.batchListeners = new ArrayList<>();
+        this.pendingEvents = new ArrayList<>();
+        this.pendingModified = new HashSet<>();
+        this.batchDepth = 0;
         this.loggingService = loggingService;
         this.fileAccessOrder = new java.util.LinkedList<>();
         
-        // 注册日志服务为观察者
-        addListener(loggingService);
+        // 注册日志服务为观察者（批量模式：一条命令只写一次日志文件）
+        addBatchListener(loggingService);
     }
     
     /**
@@ -52,13 +64,99 @@ public class Workspace {
         eventListeners.remove(listener);
     }
     
+    /**
+     * 添加批量事件监听器
+     */
+    public void addBatchListener(BatchEventListener listener) {
+        if (!batchListeners.contains(listener)) {
+            batchListeners.add(listener);
+        }
+    }
+    
+    /**
+     * 移除批量事件监听器
+     */
+    public void removeBatchListener(BatchEventListener listener) {
+        batchListeners.remove(listener);
+    }
+    
+    /**
+     * 开始一个事件批次（通常包住一条命令的执行），可嵌套
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+    
+    /**
+     * 结束事件批次，最外层结束时把缓冲的事件交付给批量监听器
+     */
+    public void endBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("没有进行中的事件批次");
+        }
+        batchDepth--;
+        if (batchDepth == 0) {
+            flushBatch();
+        }
+    }
+    
+    /**
+     * 立即交付当前缓冲的事件（按 tick 批量时由调用方定期调用）
+     */
+    public void flushBatch() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        List<EditorEvent> batch = Collections.unmodifiableList(pendingEvents);
+        pendingEvents = new ArrayList<>();
+        pendingModified.clear();
+        for (BatchEventListener listener : batchListeners) {
+            listener.onEvents(batch);
+        }
+    }
+    
     /**
      * 通知所有监听器（观察者模式）
+     * 逐条监听器立即收到每个事件；批量监听器在批次中收到合并后的事件，不在批次中时立即收到单条
      */
     private void notifyListeners(EditorEvent event) {
         for (EventListener listener : eventListeners) {
             listener.onEvent(event);
         }
+        
+        if (batchListeners.isEmpty()) {
+            return;
+        }
+        if (batchDepth == 0) {
+            List<EditorEvent> single = Collections.singletonList(event);
+            for (BatchEventListener listener : batchListeners) {
+                listener.onEvents(single);
+            }
+            return;
+        }
+        bufferEvent(event);
+    }
+    
+    /**
+     * 把事件放入当前批次，同一文件重复的 FILE_MODIFIED 只保留第一条
+     */
+    private void bufferEvent(EditorEvent event) {
+        String filePath = event.getFilePath();
+        switch (event.getEventType()) {
+            case FILE_MODIFIED:
+                if (!pendingModified.add(filePath)) {
+                    return;
+                }
+                break;
+            case FILE_SAVED:
+            case FILE_CLOSED:
+                // 保存/关闭之后的修改是新的修改，不能再合并到之前那条
+                pendingModified.remove(filePath);
+                break;
+            default:
+                break;
+        }
+        pendingEvents.add(event);
     }
     
     /**
@@ -201,6 +299,11 @@ public class Workspace {
     public void updateModifiedStatus(String filePath, boolean modified) {
         modifiedStatus.put(filePath, modified);
         
+        // 批次中已有该文件的 FILE_MODIFIED 且没有逐条监听器时，不必再创建事件
+        if (modified && eventListeners.isEmpty() && batchDepth > 0 && pendingModified.contains(filePath)) {
+            return;
+        }
+        
         if (modified) {
             // 发布文件修改事件
             EditorEvent event = new EditorEvent(
@@ -4,13 +4,13 @@ import com.editor.core.Application;
 import com.editor.core.command.Command;
 import com.editor.core.command.CommandException;
 import com.editor.core.command.CommandManager;
+import com.editor.core.command.workspace.UnsavedFileHandler;
 import com.editor.core.logging.LoggingService;
 import com.editor.core.persistence.FilePersistence;
 import com.editor.core.persistence.WorkspacePersistence;
+import com.editor.core.search.SearchEngine;
 import com.editor.core.workspace.Workspace;
 
-import java.util.List;
-
 /**
  * 命令工厂类
  * 根据解析的命令创建对应的Command实例
@@ -22,8 +22,8 @@ public class CommandFactory {
     private WorkspacePersistence workspacePersistence;
     private LoggingService loggingService;
     private Application application;
-    private CommandParser parser;
-    private java.util.Scanner scanner;
+    private UnsavedFileHandler unsavedFileHandler;
+    private SearchEngine searchEngine;
     
     public CommandFactory(Workspace workspace, 
                          CommandManager commandManager,
@@ -32,73 +32,86 @@ public class CommandFactory {
                          LoggingService loggingService,
                          Application application,
                          java.util.Scanner scanner) {
+        this(workspace, commandManager, filePersistence, workspacePersistence,
+             loggingService, application, new ConsoleUnsavedFileHandler(scanner));
+    }
+    
+    public CommandFactory(Workspace workspace, 
+                         CommandManager commandManager,
+                         FilePersistence filePersistence,
+                         WorkspacePersistence workspacePersistence,
+                         LoggingService loggingService,
+                         Application application,
+                         UnsavedFileHandler unsavedFileHandler) {
         this.workspace = workspace;
         this.commandManager = commandManager;
         this.filePersistence = filePersistence;
         this.workspacePersistence = workspacePersistence;
         this.loggingService = loggingService;
         this.application = application;
-        this.parser = new CommandParser();
-        this.scanner = scanner;
+        this.unsavedFileHandler = unsavedFileHandler;
+        this.searchEngine = new SearchEngine();
     }
     
-    /**
-     * 获取Scanner实例（用于用户交互）
-     */
-    private java.util.Scanner getScanner() {
-        return scanner;
-    }
+    /** 支持的命令名，分派时在分词偏移上逐个比较，不截取命令名 */
+    private static final String[] COMMAND_NAMES = {
+        "load", "save", "init", "close", "edit", "editor-list", "dir-tree", "undo", "redo", "exit",
+        "append", "insert", "delete", "replace", "show", "find", "replace-all", "index",
+        "log-on", "log-off", "log-show"
+    };
     
     /**
      * 创建命令实例
+     * 位置、长度和选项直接在分词偏移上解析，只有文本和文件参数会截取成字符串
      */
     public Command createCommand(CommandParser.ParsedCommand parsedCommand) throws CommandException {
-        String commandName = parsedCommand.getCommandName();
-        List<String> args = parsedCommand.getArgs();
+        String commandName = parsedCommand.matchCommandName(COMMAND_NAMES);
+        if (commandName == null) {
+            throw new CommandException("未知命令: " + parsedCommand.getCommandName());
+        }
+        int argCount = parsedCommand.getArgCount();
         
         try {
             switch (commandName) {
                 // 工作区命令
                 case "load":
-                    if (args.isEmpty()) {
+                    if (argCount == 0) {
                         throw new CommandException("load命令需要文件路径参数");
                     }
                     return new com.editor.core.command.workspace.LoadCommand(
-                        workspace, filePersistence, args.get(0));
+                        workspace, filePersistence, parsedCommand.getArg(0));
                 
                 case "save":
-                    String saveFile = args.isEmpty() ? null : args.get(0);
+                    String saveFile = parsedCommand.getArg(0);
                     return new com.editor.core.command.workspace.SaveCommand(
                         workspace, filePersistence, saveFile);
                 
                 case "init":
-                    if (args.isEmpty()) {
+                    if (argCount == 0) {
                         throw new CommandException("init命令需要文件路径参数");
                     }
-                    String initFile = args.get(0);
-                    boolean withLog = args.size() > 1 && "with-log".equals(args.get(1));
+                    String initFile = parsedCommand.getArg(0);
+                    boolean withLog = argCount > 1 && parsedCommand.argEquals(1, "with-log");
                     return new com.editor.core.command.workspace.InitCommand(
                         workspace, initFile, withLog);
                 
                 case "close":
-                    String closeFile = args.isEmpty() ? null : args.get(0);
+                    String closeFile = parsedCommand.getArg(0);
                     return new com.editor.core.command.workspace.CloseCommand(
-                        workspace, filePersistence, closeFile, getScanner());
+                        workspace, filePersistence, closeFile, unsavedFileHandler);
                 
                 case "edit":
-                    if (args.isEmpty()) {
+                    if (argCount == 0) {
                         throw new CommandException("edit命令需要文件路径参数");
                     }
                     return new com.editor.core.command.workspace.EditCommand(
-                        workspace, args.get(0));
+                        workspace, parsedCommand.getArg(0));
                 
                 case "editor-list":
                     return new com.editor.core.command.workspace.EditorListCommand(workspace);
                 
                 case "dir-tree":
-                    String dirPath = args.isEmpty() ? "." : args.get(0);
-                    return new com.editor.core.command.workspace.DirTreeCommand(
-                        workspace, dirPath);
+                    return createDirTreeCommand(parsedCommand);
                 
                 case "undo":
                     return new com.editor.core.command.workspace.UndoCommand(
@@ -110,61 +123,61 @@ public class CommandFactory {
                 
                 case "exit":
                     return new com.editor.core.command.workspace.ExitCommand(
-                        workspace, workspacePersistence, filePersistence, application);
+                        workspace, workspacePersistence, filePersistence, application, unsavedFileHandler);
                 
                 // 文本编辑命令
                 case "append":
-                    if (args.isEmpty()) {
+                    if (argCount == 0) {
                         throw new CommandException("append命令需要文本参数");
                     }
-                    String appendText = parser.unescape(args.get(0));
-                    String appendFile = args.size() > 1 ? args.get(1) : null;
+                    String appendText = parsedCommand.getUnescapedArg(0);
+                    String appendFile = parsedCommand.getArg(1);
                     return new com.editor.core.command.editor.AppendCommand(
                         workspace, appendText, appendFile);
                 
                 case "insert":
-                    if (args.size() < 2) {
+                    if (argCount < 2) {
                         throw new CommandException("insert命令需要位置和文本参数: insert <line:col> \"text\"");
                     }
-                    int[] insertPos = parser.parsePosition(args.get(0));
+                    int[] insertPos = parsedCommand.getPositionArg(0);
                     if (insertPos == null) {
                         throw new CommandException("位置格式错误，应为 line:col");
                     }
-                    String insertText = parser.unescape(args.get(1));
-                    String insertFile = args.size() > 2 ? args.get(2) : null;
+                    String insertText = parsedCommand.getUnescapedArg(1);
+                    String insertFile = parsedCommand.getArg(2);
                     return new com.editor.core.command.editor.InsertCommand(
                         workspace, insertPos[0], insertPos[1], insertText, insertFile);
                 
                 case "delete":
-                    if (args.size() < 2) {
+                    if (argCount < 2) {
                         throw new CommandException("delete命令需要位置和长度参数: delete <line:col> <len>");
                     }
-                    int[] deletePos = parser.parsePosition(args.get(0));
+                    int[] deletePos = parsedCommand.getPositionArg(0);
                     if (deletePos == null) {
                         throw new CommandException("位置格式错误，应为 line:col");
                     }
-                    Integer deleteLen = parser.parseInteger(args.get(1));
+                    Integer deleteLen = parsedCommand.getIntArg(1);
                     if (deleteLen == null) {
                         throw new CommandException("长度必须是数字");
                     }
-                    String deleteFile = args.size() > 2 ? args.get(2) : null;
+                    String deleteFile = parsedCommand.getArg(2);
                     return new com.editor.core.command.editor.DeleteCommand(
                         workspace, deletePos[0], deletePos[1], deleteLen, deleteFile);
                 
                 case "replace":
-                    if (args.size() < 3) {
+                    if (argCount < 3) {
                         throw new CommandException("replace命令需要位置、长度和文本参数: replace <line:col> <len> \"text\"");
                     }
-                    int[] replacePos = parser.parsePosition(args.get(0));
+                    int[] replacePos = parsedCommand.getPositionArg(0);
                     if (replacePos == null) {
                         throw new CommandException("位置格式错误，应为 line:col");
                     }
-                    Integer replaceLen = parser.parseInteger(args.get(1));
+                    Integer replaceLen = parsedCommand.getIntArg(1);
                     if (replaceLen == null) {
                         throw new CommandException("长度必须是数字");
                     }
-                    String replaceText = parser.unescape(args.get(2));
-                    String replaceFile = args.size() > 3 ? args.get(3) : null;
+                    String replaceText = parsedCommand.getUnescapedArg(2);
+                    String replaceFile = parsedCommand.getArg(3);
                     return new com.editor.core.command.editor.ReplaceCommand(
                         workspace, replacePos[0], replacePos[1], replaceLen, replaceText, replaceFile);
                 
@@ -172,30 +185,85 @@ public class CommandFactory {
                     Integer startLine = null;
                     Integer endLine = null;
                     String showFile = null;
-                    if (!args.isEmpty()) {
-                        int[] range = parser.parseRange(args.get(0));
+                    if (argCount > 0) {
+                        int[] range = parsedCommand.getPositionArg(0);
                         if (range != null) {
                             startLine = range[0];
                             endLine = range[1];
-                            showFile = args.size() > 1 ? args.get(1) : null;
+                            showFile = parsedCommand.getArg(1);
                         } else {
-                            showFile = args.get(0);
+                            showFile = parsedCommand.getArg(0);
                         }
                     }
                     return new com.editor.core.command.editor.ShowCommand(
                         workspace, startLine, endLine, showFile);
                 
+                case "find":
+                    if (argCount == 0) {
+                        throw new CommandException("find命令需要查找内容: find \"text\" [--regex] [--all] [file]");
+                    }
+                    String findText = parsedCommand.getUnescapedArg(0);
+                    boolean findRegex = false;
+                    boolean findAll = false;
+                    String findFile = null;
+                    for (int i = 1; i < argCount; i++) {
+                        if (parsedCommand.argEquals(i, "--regex")) {
+                            findRegex = true;
+                        } else if (parsedCommand.argEquals(i, "--all")) {
+                            findAll = true;
+                        } else {
+                            findFile = parsedCommand.getArg(i);
+                        }
+                    }
+                    return new com.editor.core.command.editor.FindCommand(
+                        workspace, searchEngine, findText, findRegex, findAll, findFile);
+                
+                case "replace-all":
+                    if (argCount < 2) {
+                        throw new CommandException("replace-all命令需要查找和替换文本: replace-all \"from\" \"to\" [--regex] [startLine:endLine] [file]");
+                    }
+                    String replaceFrom = parsedCommand.getUnescapedArg(0);
+                    String replaceTo = parsedCommand.getUnescapedArg(1);
+                    boolean replaceRegex = false;
+                    Integer replaceStart = null;
+                    Integer replaceEnd = null;
+                    String replaceAllFile = null;
+                    for (int i = 2; i < argCount; i++) {
+                        if (parsedCommand.argEquals(i, "--regex")) {
+                            replaceRegex = true;
+                            continue;
+                        }
+                        int[] range = parsedCommand.getPositionArg(i);
+                        if (range != null) {
+                            replaceStart = range[0];
+                            replaceEnd = range[1];
+                        } else {
+                            replaceAllFile = parsedCommand.getArg(i);
+                        }
+                    }
+                    return new com.editor.core.command.editor.ReplaceAllCommand(
+                        workspace, searchEngine, replaceFrom, replaceTo, replaceRegex,
+                        replaceStart, replaceEnd, replaceAllFile);
+                
+                case "index":
+                    if (argCount == 0) {
+                        throw new CommandException("index命令需要操作: index on|off|stats [file]");
+                    }
+                    String indexFile = parsedCommand.getArg(1);
+                    return new com.editor.core.command.editor.IndexCommand(
+                        workspace, parsedCommand.getArg(0).toLowerCase(), indexFile);
+                
                 // 日志命令
                 case "log-on":
-                    String logOnFile = args.isEmpty() ? null : args.get(0);
+                    String logOnFile = parsedCommand.getArg(0);
                     return new com.editor.core.command.logging.LogOnCommand(workspace, logOnFile);
                 
                 case "log-off":
-                    String logOffFile = args.isEmpty() ? null : args.get(0);
+                    String logOffFile = parsedCommand.getArg(0);
                     return new com.editor.core.command.logging.LogOffCommand(workspace, logOffFile);
                 
                 case "log-show":
-                    String logShowFile = args.isEmpty() ? null : args.get(0);
+                    String logShowFile = parsedCommand.getArg(0);
                     return new com.editor.core.command.logging.LogShowCommand(
                         workspace, loggingService, logShowFile);
                 
@@ -208,4 +276,32 @@ public class CommandFactory {
             throw new CommandException("创建命令失败: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * dir-tree [path] [--depth n] [--max-entries n]
+     */
+    private Command createDirTreeCommand(CommandParser.ParsedCommand parsedCommand) throws CommandException {
+        String dirPath = ".";
+        int maxDepth = com.editor.core.persistence.DirectoryTreeWalker.UNLIMITED;
+        int maxEntries = com.editor.core.persistence.DirectoryTreeWalker.UNLIMITED;
+        int argCount = parsedCommand.getArgCount();
+        for (int i = 0; i < argCount; i++) {
+            boolean depth = parsedCommand.argEquals(i, "--depth");
+            if (depth || parsedCommand.argEquals(i, "--max-entries")) {
+                Integer value = i + 1 < argCount ? parsedCommand.getIntArg(i + 1) : null;
+                if (value == null || value < 1) {
+                    throw new CommandException(parsedCommand.getArg(i) + " 需要一个正整数参数");
+                }
+                if (depth) {
+                    maxDepth = value;
+                } else {
+                    maxEntries = value;
+                }
+                i++;
+            } else {
+                dirPath = parsedCommand.getArg(i);
+            }
+        }
+        return new com.editor.core.command.workspace.DirTreeCommand(workspace, dirPath, maxDepth, maxEntries);
+    }
 }
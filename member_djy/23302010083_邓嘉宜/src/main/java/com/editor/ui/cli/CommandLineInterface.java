@@ -4,21 +4,27 @@ import com.editor.core.Application;
 import com.editor.core.command.Command;
 import com.editor.core.command.CommandException;
 import com.editor.core.command.CommandManager;
+import com.editor.core.command.editor.FindCommand;
+import com.editor.core.command.editor.IndexCommand;
+import com.editor.core.command.editor.ReplaceAllCommand;
 import com.editor.core.command.editor.ShowCommand;
 import com.editor.core.command.logging.LogShowCommand;
+import com.editor.core.command.workspace.CloseCommand;
 import com.editor.core.command.workspace.DirTreeCommand;
 import com.editor.core.command.workspace.EditorListCommand;
+import com.editor.core.command.workspace.UnsavedFileHandler;
 import com.editor.core.logging.LoggingService;
 import com.editor.core.persistence.FilePersistence;
 import com.editor.core.persistence.WorkspacePersistence;
 import com.editor.core.workspace.Workspace;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.Scanner;
 
 /**
  * 命令行界面类
- * 负责用户交互
+ * 负责用户交互；也可以不带提示地批量执行脚本 (runScript)
  */
 public class CommandLineInterface {
     private Scanner scanner;
@@ -29,20 +35,38 @@ public class CommandLineInterface {
     private Application application;
     private static final String PROMPT = "> ";
     
+    /** 批处理退出码：全部成功 / 有命令失败 */
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_COMMAND_FAILED = 1;
+    
     public CommandLineInterface(Workspace workspace,
                                CommandManager commandManager,
                                FilePersistence filePersistence,
                                WorkspacePersistence workspacePersistence,
                                LoggingService loggingService,
                                Application application) {
+        this(workspace, commandManager, filePersistence, workspacePersistence,
+             loggingService, application, null);
+    }
+    
+    /**
+     * @param unsavedFileHandler 已修改文件的处理策略，为 null 时在控制台询问用户
+     */
+    public CommandLineInterface(Workspace workspace,
+                               CommandManager commandManager,
+                               FilePersistence filePersistence,
+                               WorkspacePersistence workspacePersistence,
+                               LoggingService loggingService,
+                               Application application,
+                               UnsavedFileHandler unsavedFileHandler) {
         this.scanner = new Scanner(System.in);
         this.commandParser = new CommandParser();
         this.commandManager = commandManager;
         this.workspace = workspace;
         this.application = application;
         this.commandFactory = new CommandFactory(
-            workspace, commandManager, filePersistence, 
-            workspacePersistence, loggingService, application, scanner);
+            workspace, commandManager, filePersistence, workspacePersistence, loggingService, application,
+            unsavedFileHandler != null ? unsavedFileHandler : new ConsoleUnsavedFileHandler(scanner));
     }
     
     /**
@@ -56,6 +80,11 @@ public class CommandLineInterface {
         while (application.isRunning()) {
             try {
                 System.out.print(PROMPT);
+                if (!scanner.hasNextLine()) {
+                    // 输入已结束（Ctrl+D 或管道读完），不再空转
+                    System.out.println();
+                    break;
+                }
                 String input = scanner.nextLine();
                 
                 if (input == null || input.trim().isEmpty()) {
@@ -68,18 +97,7 @@ public class CommandLineInterface {
                     continue;
                 }
                 
-                // 解析命令
-                CommandParser.ParsedCommand parsedCommand = commandParser.parse(input);
-                if (parsedCommand == null) {
-                    continue;
-                }
-                
-                // 创建并执行命令
-                Command command = commandFactory.createCommand(parsedCommand);
-                commandManager.executeCommand(command);
-                
-                // 处理输出命令
-                handleOutputCommand(command);
+                executeLine(input);
                 
             } catch (CommandException e) {
                 System.err.println("错误: " + e.getMessage());
@@ -90,24 +108,111 @@ public class CommandLineInterface {
         }
     }
     
+    /**
+     * 批处理模式：逐行执行脚本，不显示提示符和欢迎信息
+     * 空行和 # 开头的行跳过；出错时报告行号后继续（failFast 时停止）。
+     * 脚本读完还没有 exit 时补一次 exit，让已修改文件按策略处理。
+     * @param reader 脚本输入
+     * @param sourceName 报错时显示的来源名（文件名或 stdin）
+     * @param failFast 遇到第一个错误就停止
+     * @return 退出码
+     */
+    public int runScript(BufferedReader reader, String sourceName, boolean failFast) throws IOException {
+        int lineNumber = 0;
+        int failures = 0;
+        String line;
+        
+        while (application.isRunning() && (line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            
+            try {
+                executeLine(line);
+            } catch (CommandException | RuntimeException e) {
+                failures++;
+                System.err.println(sourceName + ":" + lineNumber + ": 错误: " + e.getMessage());
+                if (failFast) {
+                    break;
+                }
+            }
+        }
+        
+        if (application.isRunning() && !(failFast && failures > 0)) {
+            try {
+                executeLine("exit");
+            } catch (CommandException | RuntimeException e) {
+                failures++;
+                System.err.println(sourceName + ": 退出时出错: " + e.getMessage());
+            }
+        }
+        
+        System.out.flush();
+        return failures == 0 ? EXIT_OK : EXIT_COMMAND_FAILED;
+    }
+    
+    /**
+     * 解析并执行一行命令，输出类命令的结果写到 System.out
+     */
+    private void executeLine(String input) throws CommandException {
+        // 解析命令
+        CommandParser.ParsedCommand parsedCommand = commandParser.parse(input);
+        if (parsedCommand == null) {
+            return;
+        }
+        
+        // 创建并执行命令
+        Command command = commandFactory.createCommand(parsedCommand);
+        if (command instanceof DirTreeCommand) {
+            // 目录树可能很大，边遍历边写到控制台
+            ((DirTreeCommand) command).streamTo(System.out);
+        }
+        // 一条命令产生的事件合并成一批交付给批量监听器
+        workspace.beginBatch();
+        try {
+            commandManager.executeCommand(command);
+        } finally {
+            workspace.endBatch();
+        }
+        
+        // 处理输出命令
+        handleOutputCommand(command);
+    }
+    
     /**
      * 处理需要输出的命令
-     * @param command 命令  editorListCommand, ShowCommand, DirTreeCommand, LogShowCommand
+     * @param command 命令  editorListCommand, ShowCommand, FindCommand, ReplaceAllCommand, IndexCommand, DirTreeCommand, LogShowCommand
      */
     private void handleOutputCommand(Command command) {
+        System.out.print(getCommandOutput(command));
+    }
+    
+    /**
+     * 获取输出类命令的输出（服务器模式也用它组装响应）
+     * @param command 命令
+     * @return 命令输出，非输出类命令返回空字符串
+     */
+    public static String getCommandOutput(Command command) {
         if (command instanceof EditorListCommand) {
-            EditorListCommand editorListCommand = (EditorListCommand) command;
-            System.out.print(editorListCommand.getOutput());
+            return ((EditorListCommand) command).getOutput();
         } else if (command instanceof ShowCommand) {
-            ShowCommand showCommand = (ShowCommand) command;
-            System.out.print(showCommand.getOutput());
+            return ((ShowCommand) command).getOutput();
+        } else if (command instanceof FindCommand) {
+            return ((FindCommand) command).getOutput();
+        } else if (command instanceof ReplaceAllCommand) {
+            return ((ReplaceAllCommand) command).getOutput();
+        } else if (command instanceof IndexCommand) {
+            return ((IndexCommand) command).getOutput();
         } else if (command instanceof DirTreeCommand) {
-            DirTreeCommand dirTreeCommand = (DirTreeCommand) command;
-            System.out.print(dirTreeCommand.getOutput());
+            return ((DirTreeCommand) command).getOutput();
         } else if (command instanceof LogShowCommand) {
-            LogShowCommand logShowCommand = (LogShowCommand) command;
-            System.out.print(logShowCommand.getOutput());
+            return ((LogShowCommand) command).getOutput();
+        } else if (command instanceof CloseCommand) {
+            return ((CloseCommand) command).getOutput();
         }
+        return "";
     }
     
     /**
@@ -123,7 +228,7 @@ public class CommandLineInterface {
         System.out.println("  close [file]          - 关闭文件");
         System.out.println("  edit <file>           - 切换到指定文件");
         System.out.println("  editor-list           - 列出所有打开的文件");
-        System.out.println("  dir-tree [path]       - 显示目录树");
+        System.out.println("  dir-tree [path] [--depth n] [--max-entries n] - 显示目录树");
         System.out.println("  undo                  - 撤销");
         System.out.println("  redo                  - 重做");
         System.out.println("  exit                  - 退出程序");
@@ -134,6 +239,9 @@ public class CommandLineInterface {
         System.out.println("  delete <line:col> <len> [file] - 删除字符");
         System.out.println("  replace <line:col> <len> \"text\" [file] - 替换字符");
         System.out.println("  show [startLine:endLine] [file] - 显示文本");
+        System.out.println("  find \"text\" [--regex] [--all] [file] - 查找文本");
+        System.out.println("  replace-all \"from\" \"to\" [--regex] [startLine:endLine] [file] - 替换所有匹配");
+        System.out.println("  index on|off|stats [file] - 开启/关闭查找索引，查看索引内存");
         System.out.println();
         System.out.println("日志命令:");
         System.out.println("  log-on [file]         - 启用日志");
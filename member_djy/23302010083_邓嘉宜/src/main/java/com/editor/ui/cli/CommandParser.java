@@ -1,15 +1,16 @@
 package com.editor.ui.cli;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 命令解析器
- * 解析用户输入的命令和参数
+ * 解析用户输入的命令和参数。parse 的结果直接引用原始输入上的分词偏移，
+ * 位置、数字和选项都在偏移上解析，只有真正用到的文本参数才截取成字符串。
  */
 public class CommandParser {
+    static final long INVALID_NUMBER = Long.MIN_VALUE;
     
     /**
      * 解析命令
@@ -17,44 +18,52 @@ public class CommandParser {
      * @return 解析结果
      */
     public ParsedCommand parse(String input) {
-        if (input == null || input.trim().isEmpty()) {
+        if (input == null) {
             return null;
         }
         
-        input = input.trim();
-        String[] parts = splitCommand(input);
-        
-        if (parts.length == 0) {
+        // 每条命令一个分词结果，ParsedCommand 被保留下来也不会被下一行覆盖
+        CommandTokens parts = tokenize(input, new CommandTokens());
+        if (parts.size() == 0) {
             return null;
         }
-        
-        String commandName = parts[0];
-        List<String> args = new ArrayList<>();
-        for (int i = 1; i < parts.length; i++) {
-            args.add(parts[i]);
-        }
-        
-        return new ParsedCommand(commandName, args);
+        return new ParsedCommand(parts);
     }
     
     /**
-     * 分割命令，支持引号内的字符串
+     * 单遍分词，结果写入 into（会先清空）并返回它
+     * 空白分隔；双引号括起的部分是一个词（去掉引号），引号内的 \" 不会结束引号，
+     * 转义序列原样保留，由 unescape 处理；缺少右引号时到行尾为止。
      */
-    private String[] splitCommand(String input) {
-        List<String> parts = new ArrayList<>();
-        Pattern pattern = Pattern.compile("([^\"\\s]+|\".+?\")\\s*");
-        Matcher matcher = pattern.matcher(input);
+    public CommandTokens tokenize(String input, CommandTokens into) {
+        into.reset(input == null ? "" : input);
+        if (input == null) {
+            return into;
+        }
         
-        while (matcher.find()) {
-            String part = matcher.group(1);
-            // 移除引号
-            if (part.startsWith("\"") && part.endsWith("\"")) {
-                part = part.substring(1, part.length() - 1);
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int start = ++i;
+                while (i < length && input.charAt(i) != '"') {
+                    // 跳过转义字符，包括 \"
+                    i += (input.charAt(i) == '\\' && i + 1 < length) ? 2 : 1;
+                }
+                into.add(start, Math.min(i, length));
+                i++; // 右引号
+            } else {
+                int start = i;
+                while (i < length && input.charAt(i) != '"' && !Character.isWhitespace(input.charAt(i))) {
+                    i++;
+                }
+                into.add(start, i);
             }
-            parts.add(part);
         }
-        
-        return parts.toArray(new String[0]);
+        return into;
     }
     
     /**
@@ -63,22 +72,60 @@ public class CommandParser {
      * @return [line, col]，如果解析失败返回null
      */
     public int[] parsePosition(String arg) {
-        if (arg == null || !arg.contains(":")) {
+        if (arg == null) {
             return null;
         }
-        
-        try {
-            String[] parts = arg.split(":");
-            if (parts.length != 2) {
-                return null;
+        int[] position = new int[2];
+        return parsePosition(arg, 0, arg.length(), position) ? position : null;
+    }
+    
+    /**
+     * 解析 s 中 [from, to) 的 line:col，不分配字符串
+     */
+    static boolean parsePosition(String s, int from, int to, int[] out) {
+        int colon = s.indexOf(':', from);
+        if (colon < 0 || colon >= to) {
+            return false;
+        }
+        // 多余的冒号会让后半段解析失败
+        long line = parseInt(s, from, colon);
+        long col = parseInt(s, colon + 1, to);
+        if (line == INVALID_NUMBER || col == INVALID_NUMBER) {
+            return false;
+        }
+        out[0] = (int) line;
+        out[1] = (int) col;
+        return true;
+    }
+    
+    /**
+     * 解析 s 中 [from, to) 的十进制整数（可带正负号），格式错误或超出 int 范围返回 INVALID_NUMBER
+     */
+    static long parseInt(String s, int from, int to) {
+        if (from >= to) {
+            return INVALID_NUMBER;
+        }
+        boolean negative = false;
+        char first = s.charAt(from);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++from == to) {
+                return INVALID_NUMBER;
             }
-            
-            int line = Integer.parseInt(parts[0]);
-            int col = Integer.parseInt(parts[1]);
-            return new int[]{line, col};
-        } catch (NumberFormatException e) {
-            return null;
         }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_NUMBER;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                return INVALID_NUMBER;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? INVALID_NUMBER : value;
     }
     
     /**
@@ -94,23 +141,33 @@ public class CommandParser {
      * 解析整数参数
      */
     public Integer parseInteger(String arg) {
-        try {
-            return Integer.parseInt(arg);
-        } catch (NumberFormatException e) {
+        if (arg == null) {
             return null;
         }
+        long value = parseInt(arg, 0, arg.length());
+        return value == INVALID_NUMBER ? null : Integer.valueOf((int) value);
     }
     
     /**
      * 解析字符串中的转义字符（如 \n、\t、\\、\" 等）
      */
     public String unescape(String input) {
-        if (input == null || input.isEmpty()) {
-            return input;
+        return input == null ? null : unescape(input, 0, input.length());
+    }
+    
+    /**
+     * 解析 s 中 [from, to) 的转义字符；没有反斜杠时只截取，不逐字复制
+     */
+    static String unescape(String s, int from, int to) {
+        int backslash = s.indexOf('\\', from);
+        if (backslash < 0 || backslash >= to) {
+            return s.substring(from, to);
         }
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(to - from);
+        sb.append(s, from, backslash);
         boolean escaping = false;
-        for (char c : input.toCharArray()) {
+        for (int i = backslash; i < to; i++) {
+            char c = s.charAt(i);
             if (!escaping) {
                 if (c == '\\') {
                     escaping = true;
@@ -149,33 +206,87 @@ public class CommandParser {
     
     /**
      * 解析的命令结果
+     * 参数按序号访问（0 是命令名后的第一个参数），getArg/getArgs 才会截取字符串
      */
     public static class ParsedCommand {
+        private final CommandTokens tokens;
         private String commandName;
         private List<String> args;
         
-        public ParsedCommand(String commandName, List<String> args) {
-            this.commandName = commandName;
-            this.args = args;
+        ParsedCommand(CommandTokens tokens) {
+            this.tokens = tokens;
         }
         
         public String getCommandName() {
+            if (commandName == null) {
+                commandName = tokens.text(0);
+            }
             return commandName;
         }
         
+        /**
+         * 命令名是 names 中的哪一个，返回 names 里的那个字符串，都不是返回 null
+         * 用于分派命令，不截取命令名
+         */
+        public String matchCommandName(String[] names) {
+            for (String name : names) {
+                if (tokens.textEquals(0, name)) {
+                    return name;
+                }
+            }
+            return null;
+        }
+        
         public List<String> getArgs() {
+            if (args == null) {
+                List<String> list = new ArrayList<>(getArgCount());
+                for (int i = 1; i < tokens.size(); i++) {
+                    list.add(tokens.text(i));
+                }
+                args = Collections.unmodifiableList(list);
+            }
             return args;
         }
         
         public String getArg(int index) {
-            if (index >= 0 && index < args.size()) {
-                return args.get(index);
+            if (index >= 0 && index < getArgCount()) {
+                return tokens.text(index + 1);
             }
             return null;
         }
         
         public int getArgCount() {
-            return args.size();
+            return tokens.size() - 1;
+        }
+        
+        /**
+         * 第 index 个参数是否等于 expected（用于 --regex 之类的选项）
+         */
+        public boolean argEquals(int index, String expected) {
+            return tokens.textEquals(index + 1, expected);
+        }
+        
+        /**
+         * 第 index 个参数去掉转义后的文本
+         */
+        public String getUnescapedArg(int index) {
+            return tokens.unescapedText(index + 1);
+        }
+        
+        /**
+         * 按 line:col（或 start:end）解析第 index 个参数
+         * @return [line, col]，格式错误返回 null
+         */
+        public int[] getPositionArg(int index) {
+            int[] position = new int[2];
+            return tokens.position(index + 1, position) ? position : null;
+        }
+        
+        /**
+         * 按整数解析第 index 个参数，格式错误返回 null
+         */
+        public Integer getIntArg(int index) {
+            return tokens.integer(index + 1);
         }
     }
 }
@@ -0,0 +1,102 @@
+package com.editor.ui.cli;
+
+import java.util.Arrays;
+
+/**
+ * 一行命令的分词结果
+ * 只记录每个词在原始输入中的起止位置（引号已去掉），需要字符串时再截取，
+ * 同一个实例可以反复用于解析下一行，不会重新分配数组。
+ */
+public class CommandTokens {
+    private String input = "";
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int count;
+    
+    void reset(String input) {
+        this.input = input;
+        this.count = 0;
+    }
+    
+    void add(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+    
+    /**
+     * @return 词的个数（包括命令名）
+     */
+    public int size() {
+        return count;
+    }
+    
+    public String getInput() {
+        return input;
+    }
+    
+    public int start(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+    
+    public int end(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+    
+    /**
+     * 截取第 index 个词（转义序列保持原样）
+     */
+    public String text(int index) {
+        checkIndex(index);
+        return input.substring(starts[index], ends[index]);
+    }
+    
+    /**
+     * 不截取字符串，直接比较第 index 个词
+     */
+    public boolean textEquals(int index, String expected) {
+        checkIndex(index);
+        int length = ends[index] - starts[index];
+        return expected.length() == length && input.regionMatches(starts[index], expected, 0, length);
+    }
+    
+    /**
+     * 截取第 index 个词并处理转义序列，没有反斜杠时只截取一次
+     */
+    public String unescapedText(int index) {
+        checkIndex(index);
+        return CommandParser.unescape(input, starts[index], ends[index]);
+    }
+    
+    /**
+     * 按 line:col 格式解析第 index 个词
+     * @param out 长度至少为 2，成功时写入 [line, col]
+     * @return 格式正确返回 true
+     */
+    public boolean position(int index, int[] out) {
+        checkIndex(index);
+        return CommandParser.parsePosition(input, starts[index], ends[index], out);
+    }
+    
+    /**
+     * 按十进制整数解析第 index 个词
+     * @return 格式错误或超出 int 范围返回 null
+     */
+    public Integer integer(int index) {
+        checkIndex(index);
+        long value = CommandParser.parseInt(input, starts[index], ends[index]);
+        return value == CommandParser.INVALID_NUMBER ? null : Integer.valueOf((int) value);
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("词序号越界: " + index);
+        }
+    }
+}
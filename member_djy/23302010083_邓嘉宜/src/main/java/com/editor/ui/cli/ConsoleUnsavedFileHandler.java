@@ -0,0 +1,35 @@
+package com.editor.ui.cli;
+
+import com.editor.core.command.workspace.UnsavedFileHandler;
+
+import java.util.Scanner;
+
+/**
+ * 交互模式：在控制台询问用户是否保存
+ * y/yes 保存，n/no 不保存，其他输入取消
+ */
+public class ConsoleUnsavedFileHandler implements UnsavedFileHandler {
+    private final Scanner scanner;
+    
+    public ConsoleUnsavedFileHandler(Scanner scanner) {
+        this.scanner = scanner;
+    }
+    
+    @Override
+    public Decision decide(String filePath, String prompt) {
+        System.out.print(prompt);
+        System.out.flush();
+        if (!scanner.hasNextLine()) {
+            return Decision.CANCEL;
+        }
+        String answer = scanner.nextLine().trim().toLowerCase();
+        
+        if (answer.equals("y") || answer.equals("yes")) {
+            return Decision.SAVE;
+        }
+        if (answer.equals("n") || answer.equals("no")) {
+            return Decision.DISCARD;
+        }
+        return Decision.CANCEL;
+    }
+}
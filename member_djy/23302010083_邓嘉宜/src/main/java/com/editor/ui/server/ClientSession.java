@@ -0,0 +1,138 @@
+package com.editor.ui.server;
+
+import com.editor.core.Application;
+import com.editor.core.command.Command;
+import com.editor.core.command.CommandException;
+import com.editor.core.command.CommandManager;
+import com.editor.core.workspace.Workspace;
+import com.editor.ui.cli.CommandFactory;
+import com.editor.ui.cli.CommandLineInterface;
+import com.editor.ui.cli.CommandParser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 服务器会话：一个客户端连接
+ * 请求：每行一条命令，语法与命令行相同
+ * 响应：首行 "OK <字节数>" 或 "ERR <字节数>"，随后是该长度的 UTF-8 内容
+ */
+public class ClientSession implements Runnable {
+    private final int id;
+    private final Socket socket;
+    private final EditorServer server;
+    private final Workspace workspace;
+    private final CommandManager commandManager; // 每个会话独立的 undo/redo 栈
+    private final CommandParser commandParser;
+    private final CommandFactory commandFactory;
+    private String activeFile;                   // 每个会话独立的活动文件
+    
+    public ClientSession(int id, Socket socket, EditorServer server) {
+        this.id = id;
+        this.socket = socket;
+        this.server = server;
+        this.workspace = server.getWorkspace();
+        this.commandManager = new CommandManager();
+        this.commandParser = new CommandParser();
+        // 服务器没有交互输入，需要确认的命令（如关闭已修改的文件）会直接报错
+        this.commandFactory = new CommandFactory(
+            workspace, commandManager, server.getFilePersistence(),
+            server.getWorkspacePersistence(), server.getLoggingService(),
+            new Application(), (filePath, prompt) -> {
+                throw new CommandException("服务器模式不支持交互确认，请先保存文件");
+            });
+        this.activeFile = null;
+    }
+    
+    @Override
+    public void run() {
+        try (BufferedReader in = new BufferedReader(
+                 new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                 new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (trimmed.equals("exit") || trimmed.equals("quit")) {
+                    writeFrame(out, "OK", "再见\n");
+                    break;
+                }
+                
+                try {
+                    writeFrame(out, "OK", execute(trimmed));
+                } catch (CommandException | RuntimeException e) {
+                    writeFrame(out, "ERR", e.getMessage() + "\n");
+                }
+            }
+        } catch (IOException e) {
+            // 客户端断开
+        } finally {
+            close();
+            server.removeSession(this);
+        }
+    }
+    
+    /**
+     * 在工作区锁内执行一条命令，执行前后切换本会话的活动文件
+     * @return 命令输出
+     */
+    String execute(String input) throws CommandException {
+        CommandParser.ParsedCommand parsed = commandParser.parse(input);
+        if (parsed == null) {
+            return "";
+        }
+        
+        synchronized (server.getWorkspaceLock()) {
+            // 本会话的活动文件可能已被其他会话关闭
+            if (activeFile != null && !workspace.isFileOpen(activeFile)) {
+                activeFile = null;
+            }
+            workspace.setActiveFile(activeFile);
+            
+            Command command = commandFactory.createCommand(parsed);
+            workspace.beginBatch();
+            try {
+                commandManager.executeCommand(command);
+            } finally {
+                workspace.endBatch();
+                activeFile = workspace.getActiveFile();
+            }
+            return CommandLineInterface.getCommandOutput(command);
+        }
+    }
+    
+    private void writeFrame(Writer out, String status, String payload) throws IOException {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        out.write(status + " " + bytes.length + "\n");
+        out.write(payload);
+        out.flush();
+    }
+    
+    /**
+     * 关闭连接
+     */
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public String getActiveFile() {
+        return activeFile;
+    }
+}
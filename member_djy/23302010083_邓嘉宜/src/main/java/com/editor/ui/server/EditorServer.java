@@ -0,0 +1,151 @@
+package com.editor.ui.server;
+
+import com.editor.core.logging.LoggingService;
+import com.editor.core.persistence.FilePersistence;
+import com.editor.core.persistence.WorkspacePersistence;
+import com.editor.core.workspace.Workspace;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 编辑器服务器
+ * 监听本机 TCP 端口，每个连接一个线程、一个会话（独立的 CommandManager 和活动文件），
+ * 所有会话共享同一个 Workspace，命令在 workspaceLock 上串行执行
+ */
+public class EditorServer {
+    public static final int DEFAULT_PORT = 7070;
+    
+    private final Workspace workspace;
+    private final FilePersistence filePersistence;
+    private final WorkspacePersistence workspacePersistence;
+    private final LoggingService loggingService;
+    private final int port;
+    private final Object workspaceLock = new Object();
+    private final ExecutorService connectionPool;
+    private final Set<ClientSession> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessionCounter = new AtomicInteger();
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+    
+    public EditorServer(Workspace workspace,
+                        FilePersistence filePersistence,
+                        WorkspacePersistence workspacePersistence,
+                        LoggingService loggingService,
+                        int port) {
+        this.workspace = workspace;
+        this.filePersistence = filePersistence;
+        this.workspacePersistence = workspacePersistence;
+        this.loggingService = loggingService;
+        this.port = port;
+        this.connectionPool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "editor-session");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+    
+    /**
+     * 绑定端口（只监听本机回环地址）
+     * @return 实际监听的端口（port 为 0 时由系统分配）
+     */
+    public int bind() throws IOException {
+        serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        running = true;
+        return serverSocket.getLocalPort();
+    }
+    
+    /**
+     * 接受连接，直到 stop() 被调用（阻塞）
+     */
+    public void serve() throws IOException {
+        if (serverSocket == null) {
+            bind();
+        }
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (!running) {
+                    break; // stop() 关闭了 serverSocket
+                }
+                throw e;
+            }
+            socket.setTcpNoDelay(true);
+            ClientSession session = new ClientSession(
+                sessionCounter.incrementAndGet(), socket, this);
+            sessions.add(session);
+            connectionPool.execute(session);
+        }
+    }
+    
+    /**
+     * 停止服务器，关闭所有连接
+     */
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            System.err.println("警告: 关闭服务器失败: " + e.getMessage());
+        }
+        for (ClientSession session : sessions) {
+            session.close();
+        }
+        connectionPool.shutdown();
+        try {
+            connectionPool.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * 在工作区锁内保存工作区状态
+     */
+    public void saveWorkspaceState() throws IOException {
+        synchronized (workspaceLock) {
+            workspacePersistence.save(workspace.saveState());
+        }
+    }
+    
+    void removeSession(ClientSession session) {
+        sessions.remove(session);
+    }
+    
+    public int getSessionCount() {
+        return sessions.size();
+    }
+    
+    Workspace getWorkspace() {
+        return workspace;
+    }
+    
+    FilePersistence getFilePersistence() {
+        return filePersistence;
+    }
+    
+    WorkspacePersistence getWorkspacePersistence() {
+        return workspacePersistence;
+    }
+    
+    LoggingService getLoggingService() {
+        return loggingService;
+    }
+    
+    Object getWorkspaceLock() {
+        return workspaceLock;
+    }
+}
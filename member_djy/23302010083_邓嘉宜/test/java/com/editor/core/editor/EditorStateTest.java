@@ -98,4 +98,23 @@ public class EditorStateTest {
         // 应该返回空列表或处理null
         assertNotNull(retrievedLines);
     }
+    
+    /**
+     * 测试行级快照的记录和恢复。
+     * 测试数据：文档 ["a", "b", "c"]，记录第 2 行修改前为 "old"。
+     * 预期：capture 取出当前第 2 行 "b"；restore 把第 2 行改回 "old"，其他行不变。
+     */
+    @Test
+    void testPartialStateRestore() {
+        EditorState state = EditorState.ofLines(new int[]{1}, Arrays.asList("old"));
+        List<String> current = new java.util.ArrayList<>(Arrays.asList("a", "b", "c"));
+        
+        assertTrue(state.isPartial());
+        EditorState redo = state.capture(current);
+        assertEquals(Arrays.asList("b"), redo.getLines());
+        
+        List<String> restored = state.restore(current);
+        assertEquals(Arrays.asList("a", "old", "c"), restored);
+        assertEquals(Arrays.asList("a", "b", "c"), redo.restore(restored));
+    }
 }
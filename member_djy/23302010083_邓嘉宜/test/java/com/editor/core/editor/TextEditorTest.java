@@ -1,9 +1,11 @@
 package com.editor.core.editor;
 
+import com.editor.core.search.SearchEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -13,6 +15,7 @@ import java.util.List;
  */
 public class TextEditorTest {
     private TextEditor editor;
+    private final SearchEngine engine = new SearchEngine();
     
     @BeforeEach
     void setUp() {
@@ -535,6 +538,101 @@ public class TextEditorTest {
         editor.redo(); // 应该不抛出异常
     }
     
+    // ========== ReplaceAll 测试 ==========
+    
+    /**
+     * 测试 replaceAll 替换全部匹配并只占一条撤销记录。
+     * 测试数据：三行文本，其中两行共包含 3 个 "foo"，替换为 "bar"。
+     * 预期：返回 3，内容正确；一次 undo 恢复原文，redo 再次得到替换结果。
+     */
+    @Test
+    void testReplaceAllSingleUndo() throws EditorException {
+        TextEditor editor2 = new TextEditor("test.txt", Arrays.asList("foo foo", "none", "a foo"));
+        int count = editor2.replaceAll(engine.compile("foo", false), "bar", 1, Integer.MAX_VALUE);
+        
+        assertEquals(3, count);
+        assertEquals(Arrays.asList("bar bar", "none", "a bar"), editor2.show());
+        assertTrue(editor2.isModified());
+        
+        editor2.undo();
+        assertEquals(Arrays.asList("foo foo", "none", "a foo"), editor2.show());
+        assertFalse(editor2.canUndo());
+        editor2.redo();
+        assertEquals(Arrays.asList("bar bar", "none", "a bar"), editor2.show());
+    }
+    
+    /**
+     * 测试 replaceAll 的行范围和正则分组。
+     * 测试数据：三行 "k=1"，只替换第 2~3 行，正则 "(\\w)=(\\d)" 替换为 "$2=$1"。
+     * 预期：第 1 行不变，第 2、3 行变为 "1=k"，返回 2。
+     */
+    @Test
+    void testReplaceAllRangeAndRegex() throws EditorException {
+        TextEditor editor2 = new TextEditor("test.txt", Arrays.asList("k=1", "k=1", "k=1"));
+        int count = editor2.replaceAll(engine.compile("(\\w)=(\\d)", true), "$2=$1", 2, 3);
+        
+        assertEquals(2, count);
+        assertEquals(Arrays.asList("k=1", "1=k", "1=k"), editor2.show());
+    }
+    
+    /**
+     * 测试替换文本含换行时行数变化。
+     * 测试数据：两行 "a,b" 和 "c"，把 "," 替换为 "\n"。
+     * 预期：变为三行 "a"、"b"、"c"；undo 后恢复为两行。
+     */
+    @Test
+    void testReplaceAllWithNewline() throws EditorException {
+        TextEditor editor2 = new TextEditor("test.txt", Arrays.asList("a,b", "c"));
+        editor2.replaceAll(engine.compile(",", false), "\n", 1, Integer.MAX_VALUE);
+        
+        assertEquals(Arrays.asList("a", "b", "c"), editor2.show());
+        editor2.undo();
+        assertEquals(Arrays.asList("a,b", "c"), editor2.show());
+    }
+    
+    /**
+     * 测试没有匹配或替换文本有误时文档不变。
+     * 测试数据：查找不存在的 "zzz"；正则替换文本引用不存在的分组 "$9"。
+     * 预期：前者返回 0 且不产生撤销记录、不标记修改；后者抛出 EditorException，内容不变。
+     */
+    @Test
+    void testReplaceAllNoChange() {
+        TextEditor editor2 = new TextEditor("test.txt", Arrays.asList("abc"));
+        assertDoesNotThrow(() -> assertEquals(0,
+            editor2.replaceAll(engine.compile("zzz", false), "x", 1, Integer.MAX_VALUE)));
+        assertFalse(editor2.canUndo());
+        assertFalse(editor2.isModified());
+        
+        assertThrows(EditorException.class,
+            () -> editor2.replaceAll(engine.compile("b", true), "$9", 1, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList("abc"), editor2.show());
+    }
+    
+    /**
+     * 测试多行文档的 replaceAll 与逐行 String.replace 结果一致。
+     * 测试数据：5000 行、每 10 行一个 "token"。
+     * 预期：替换 500 处，其余行不变；一次 undo 恢复原文，redo 再次替换。
+     */
+    @Test
+    void testReplaceAllManyLines() throws EditorException {
+        int lineCount = 5000;
+        List<String> lines = new ArrayList<>(lineCount);
+        List<String> expected = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(i % 10 == 0 ? "value token " + i : "value " + i);
+            expected.add(lines.get(i).replace("token", "TOKEN"));
+        }
+        TextEditor big = new TextEditor("big.txt", lines);
+        
+        assertEquals(lineCount / 10, big.replaceAll(engine.compile("token", false), "TOKEN", 1, Integer.MAX_VALUE));
+        assertEquals(expected, big.show());
+        big.undo();
+        assertEquals(lines, big.show());
+        assertFalse(big.canUndo());
+        big.redo();
+        assertEquals(expected, big.show());
+    }
+    
     // ========== Modified 状态测试 ==========
     
     /**
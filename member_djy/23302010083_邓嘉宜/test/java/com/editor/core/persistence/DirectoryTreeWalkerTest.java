@@ -0,0 +1,124 @@
+package com.editor.core.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+/**
+ * DirectoryTreeWalker 单元测试
+ * 测试输出顺序、已打开标记、深度和条目数限制
+ */
+public class DirectoryTreeWalkerTest {
+    @TempDir
+    Path tempDir;
+    
+    // ========== 输出格式 ==========
+    
+    /**
+     * 测试目录在前、按名称排序的树形输出。
+     * 测试数据：根目录下有文件 b.txt、a.txt 和目录 src（含 Main.java）、docs。
+     * 预期：先输出 docs、src（及其子项），再输出 a.txt、b.txt，连接符正确。
+     */
+    @Test
+    void testSortedTreeOutput() throws IOException {
+        Files.createDirectories(tempDir.resolve("src"));
+        Files.createDirectories(tempDir.resolve("docs"));
+        Files.write(tempDir.resolve("src/Main.java"), new byte[0]);
+        Files.write(tempDir.resolve("b.txt"), new byte[0]);
+        Files.write(tempDir.resolve("a.txt"), new byte[0]);
+        
+        String expected =
+            "├── docs\n" +
+            "├── src\n" +
+            "│   └── Main.java\n" +
+            "├── a.txt\n" +
+            "└── b.txt\n";
+        assertEquals(expected, walk(DirectoryTreeWalker.UNLIMITED, DirectoryTreeWalker.UNLIMITED));
+    }
+    
+    /**
+     * 测试已打开文件的标记。
+     * 测试数据：打开文件以带 "." 的相对形式传入，树以绝对路径遍历。
+     * 预期：路径规范化后匹配，该文件带 [已打开] 标记，其他文件不带。
+     */
+    @Test
+    void testOpenFileMarker() throws IOException {
+        Files.write(tempDir.resolve("open.txt"), new byte[0]);
+        Files.write(tempDir.resolve("other.txt"), new byte[0]);
+        String openPath = tempDir.resolve(".").resolve("open.txt").toString();
+        
+        StringBuilder out = new StringBuilder();
+        new DirectoryTreeWalker(DirectoryTreeWalker.UNLIMITED, DirectoryTreeWalker.UNLIMITED,
+            Collections.singletonList(openPath)).walk(tempDir, out);
+        
+        assertEquals("├── open.txt [已打开]\n└── other.txt\n", out.toString());
+    }
+    
+    // ========== 深度和条目限制 ==========
+    
+    /**
+     * 测试 --depth 限制。
+     * 测试数据：a/b/c/deep.txt 的嵌套目录，深度限制为 2。
+     * 预期：只输出 a 和 a/b，不再展开更深的层级。
+     */
+    @Test
+    void testDepthLimit() throws IOException {
+        Files.createDirectories(tempDir.resolve("a/b/c"));
+        Files.write(tempDir.resolve("a/b/c/deep.txt"), new byte[0]);
+        
+        assertEquals("└── a\n    └── b\n", walk(2, DirectoryTreeWalker.UNLIMITED));
+    }
+    
+    /**
+     * 测试 --max-entries 截断。
+     * 测试数据：10 个文件，条目上限为 3。
+     * 预期：输出排序后的前 3 个文件，末尾提示已达到上限，返回值为 true。
+     */
+    @Test
+    void testMaxEntriesTruncates() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            Files.write(tempDir.resolve("f" + i + ".txt"), new byte[0]);
+        }
+        
+        StringBuilder out = new StringBuilder();
+        boolean truncated = new DirectoryTreeWalker(DirectoryTreeWalker.UNLIMITED, 3,
+            Collections.<String>emptyList()).walk(tempDir, out);
+        
+        assertTrue(truncated);
+        assertEquals("├── f0.txt\n├── f1.txt\n├── f2.txt\n... 已达到条目上限 (3)\n", out.toString());
+    }
+    
+    // ========== 并行遍历 ==========
+    
+    /**
+     * 测试大目录树的并行预读不影响输出顺序。
+     * 测试数据：20 个目录，每个目录下 50 个文件，连续遍历 3 次。
+     * 预期：每次输出完全相同，条目总数为 20 + 20*50。
+     */
+    @Test
+    void testParallelWalkIsDeterministic() throws IOException {
+        for (int d = 0; d < 20; d++) {
+            Path dir = Files.createDirectories(tempDir.resolve("dir" + d));
+            for (int f = 0; f < 50; f++) {
+                Files.write(dir.resolve("file" + f + ".txt"), new byte[0]);
+            }
+        }
+        
+        String first = walk(DirectoryTreeWalker.UNLIMITED, DirectoryTreeWalker.UNLIMITED);
+        assertEquals(20 + 20 * 50, first.split("\n").length);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(first, walk(DirectoryTreeWalker.UNLIMITED, DirectoryTreeWalker.UNLIMITED));
+        }
+    }
+    
+    private String walk(int maxDepth, int maxEntries) throws IOException {
+        StringBuilder out = new StringBuilder();
+        new DirectoryTreeWalker(maxDepth, maxEntries, Collections.<String>emptyList()).walk(tempDir, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,162 @@
+package com.editor.core.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * FileMetadataCache 单元测试
+ * 测试首行 "# log" 检测、行数统计、保存和外部修改后的失效
+ */
+public class FileMetadataCacheTest {
+    @TempDir
+    Path tempDir;
+    
+    private FileMetadataCache cache;
+    private FilePersistence filePersistence;
+    
+    @BeforeEach
+    void setUp() {
+        cache = new FileMetadataCache();
+        filePersistence = new FilePersistence(cache);
+    }
+    
+    // ========== 首行检测 ==========
+    
+    /**
+     * 测试检测 "# log" 首行。
+     * 测试数据：首行为 "# log" 的文件和首行为普通文本的文件。
+     * 预期：前者返回 true，后者返回 false。
+     */
+    @Test
+    void testHasLogHeader() throws IOException {
+        Path logged = write("logged.txt", "# log\nline1\n");
+        Path plain = write("plain.txt", "hello\n# log\n");
+        
+        assertTrue(cache.hasLogHeader(logged.toString()));
+        assertFalse(cache.hasLogHeader(plain.toString()));
+    }
+    
+    /**
+     * 测试首行超过探测长度的文件。
+     * 测试数据：首行长度超过 HEADER_PROBE_BYTES 的文件。
+     * 预期：返回 false。
+     */
+    @Test
+    void testLongFirstLineIsNotLogHeader() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < FileMetadataCache.HEADER_PROBE_BYTES * 2; i++) {
+            sb.append('x');
+        }
+        Path file = write("long.txt", sb + "\n");
+        
+        assertFalse(cache.hasLogHeader(file.toString()));
+    }
+    
+    /**
+     * 测试不存在的文件。
+     * 测试数据：临时目录下不存在的路径。
+     * 预期：hasLogHeader 返回 false，元数据 exists() 为 false。
+     */
+    @Test
+    void testMissingFile() {
+        String missing = tempDir.resolve("missing.txt").toString();
+        
+        assertFalse(cache.hasLogHeader(missing));
+        assertFalse(cache.getMetadata(missing).exists());
+    }
+    
+    // ========== 失效 ==========
+    
+    /**
+     * 测试外部修改后缓存失效。
+     * 测试数据：先缓存无 "# log" 的文件，再从外部写入 "# log" 首行并修改 mtime。
+     * 预期：再次查询返回 true。
+     */
+    @Test
+    void testExternalChangeInvalidates() throws IOException {
+        Path file = write("ext.txt", "plain\n");
+        assertFalse(cache.hasLogHeader(file.toString()));
+        
+        Files.write(file, "# log\nplain\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        
+        assertTrue(cache.hasLogHeader(file.toString()));
+    }
+    
+    /**
+     * 测试保存文件后元数据更新。
+     * 测试数据：通过 FilePersistence 保存带 "# log" 首行的 3 行内容。
+     * 预期：首行标记为 true，行数为 3。
+     */
+    @Test
+    void testSaveUpdatesMetadata() throws IOException {
+        String file = tempDir.resolve("saved.txt").toString();
+        filePersistence.saveFile(file, Arrays.asList("plain", "b"));
+        assertFalse(filePersistence.isLogEnabled(file));
+        
+        filePersistence.saveFile(file, Arrays.asList("# log", "a", "b"));
+        
+        assertTrue(filePersistence.isLogEnabled(file));
+        assertEquals(3, cache.getLineCount(file));
+    }
+    
+    // ========== 行数 ==========
+    
+    /**
+     * 测试加载文件时记录行数。
+     * 测试数据：3 行文件，通过 FilePersistence.loadFile 读取。
+     * 预期：缓存中的行数与 loadFile 返回的行数一致，元数据中行数已知。
+     */
+    @Test
+    void testLoadRecordsLineCount() throws IOException {
+        Path file = write("load.txt", "a\nb\nc\n");
+        List<String> lines = filePersistence.loadFile(file.toString());
+        
+        assertEquals(3, filePersistence.getMetadata(file.toString()).getLineCount());
+        assertEquals(lines.size(), cache.getLineCount(file.toString()));
+    }
+    
+    /**
+     * 测试流式行数统计与 Files.readAllLines 一致。
+     * 测试数据：包含 \r\n、末尾无换行和空行的文件。
+     * 预期：getLineCount 与 readAllLines 的行数相同。
+     */
+    @Test
+    void testCountLinesMatchesReadAllLines() throws IOException {
+        Path file = write("mixed.txt", "a\r\nb\n\nc");
+        
+        int expected = Files.readAllLines(file, StandardCharsets.UTF_8).size();
+        assertEquals(expected, cache.getLineCount(file.toString()));
+    }
+    
+    /**
+     * 测试缓存容量上限。
+     * 测试数据：容量为 2 的缓存，依次查询 3 个文件。
+     * 预期：缓存条目数不超过 2。
+     */
+    @Test
+    void testMaxEntries() throws IOException {
+        FileMetadataCache small = new FileMetadataCache(2);
+        for (int i = 0; i < 3; i++) {
+            small.getMetadata(write("f" + i + ".txt", "x\n").toString());
+        }
+        
+        assertEquals(2, small.size());
+    }
+    
+    private Path write(String name, String content) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,163 @@
+package com.editor.core.search;
+
+import com.editor.core.editor.TextEditor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SearchEngine 单元测试
+ * 测试普通文本和正则查找、结果顺序、提前停止、正则缓存以及大文档查找耗时
+ */
+public class SearchEngineTest {
+    private SearchEngine engine;
+    
+    @BeforeEach
+    void setUp() {
+        engine = new SearchEngine();
+    }
+    
+    // ========== 普通文本查找 ==========
+    
+    /**
+     * 测试普通文本查找的行列位置。
+     * 测试数据：三行文本，"ab" 出现在第1行第1、4列和第3行第3列。
+     * 预期：按行、列顺序返回 1:1、1:4、3:3，长度均为 2。
+     */
+    @Test
+    void testLiteralHits() {
+        List<String> lines = Arrays.asList("abcab", "xyz", "xxab");
+        List<String> hits = collect(lines, engine.compile("ab", false));
+        assertEquals(Arrays.asList("1:1+2", "1:4+2", "3:3+2"), hits);
+    }
+    
+    /**
+     * 测试与 String.indexOf 逐一对照。
+     * 测试数据：由少量字符随机组成的行（含中文字符和低 8 位相同的字符），多个模式。
+     * 预期：找到的位置互不重叠，与用 indexOf 逐个查找的结果完全一致。
+     */
+    @Test
+    void testLiteralMatchesIndexOf() {
+        String alphabet = "aabšɡ中文";
+        java.util.Random random = new java.util.Random(42);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(40);
+            for (int j = 0; j < len; j++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            lines.add(sb.toString());
+        }
+        for (String needle : new String[]{"a", "ab", "aab", "ša", "中文", "bɡa"}) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                int from = 0;
+                int at;
+                while ((at = lines.get(i).indexOf(needle, from)) >= 0) {
+                    expected.add((i + 1) + ":" + (at + 1) + "+" + needle.length());
+                    from = at + needle.length();
+                }
+            }
+            assertEquals(expected, collect(lines, engine.compile(needle, false)), needle);
+        }
+    }
+    
+    /**
+     * 测试 listener 返回 false 时停止查找。
+     * 测试数据：每行都包含 "x" 的 100 行文本。
+     * 预期：只回调一次，返回的匹配数为 1。
+     */
+    @Test
+    void testStopAfterFirstHit() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add("x");
+        }
+        int count = SearchEngine.search(lines, engine.compile("x", false), (line, col, length) -> false);
+        assertEquals(1, count);
+    }
+    
+    // ========== 正则查找 ==========
+    
+    /**
+     * 测试正则查找和匹配长度。
+     * 测试数据：包含数字的两行文本，正则 "[0-9]+"。
+     * 预期：返回 1:4+3 和 2:1+2。
+     */
+    @Test
+    void testRegexHits() {
+        List<String> lines = Arrays.asList("id=123;", "42");
+        assertEquals(Arrays.asList("1:4+3", "2:1+2"), collect(lines, engine.compile("[0-9]+", true)));
+    }
+    
+    /**
+     * 测试正则表达式的 LRU 缓存。
+     * 测试数据：容量为 2 的引擎，依次编译 a、b、a、c。
+     * 预期：缓存中最多保留 2 个表达式；语法错误抛出 IllegalArgumentException。
+     */
+    @Test
+    void testRegexCache() {
+        SearchEngine small = new SearchEngine(2);
+        small.compile("a+", true);
+        small.compile("b+", true);
+        small.compile("a+", true);
+        small.compile("c+", true);
+        assertEquals(2, small.getCachedRegexCount());
+        
+        assertThrows(IllegalArgumentException.class, () -> engine.compile("(", true));
+        assertThrows(IllegalArgumentException.class, () -> engine.compile("", false));
+    }
+    
+    // ========== 编辑器集成 ==========
+    
+    /**
+     * 测试在 TextEditor 上查找。
+     * 测试数据：2000 行文本，第 1000 行和最后一行包含 "needle"。
+     * 预期：普通文本和正则都只找到这两处，行列与逐行 indexOf 一致；回调返回 false 时在第一处停止。
+     */
+    @Test
+    void testSearchEditorDocument() {
+        int lineCount = 2000;
+        List<String> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount - 1; i++) {
+            lines.add(i == 999 ? "a needle in line 1000" : "line " + i + " the quick brown fox jumps over the lazy dog");
+        }
+        lines.add("the needle is here");
+        TextEditor editor = new TextEditor("big.txt", lines);
+        
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            int col = lines.get(i).indexOf("needle");
+            if (col >= 0) {
+                expected.add((i + 1) + ":" + (col + 1));
+            }
+        }
+        assertEquals(2, expected.size());
+        
+        for (SearchPattern pattern : new SearchPattern[] {
+                engine.compile("needle", false), engine.compile("ne+dle", true)}) {
+            List<String> hits = new ArrayList<>();
+            int count = editor.find(pattern, (line, col, length) -> {
+                hits.add(line + ":" + col);
+                return true;
+            });
+            assertEquals(2, count);
+            assertEquals(expected, hits);
+            assertEquals(1, editor.find(pattern, (line, col, length) -> false));
+        }
+    }
+    
+    private List<String> collect(List<String> lines, SearchPattern pattern) {
+        List<String> hits = new ArrayList<>();
+        SearchEngine.search(lines, pattern, (line, col, length) -> {
+            hits.add(line + ":" + col + "+" + length);
+            return true;
+        });
+        return hits;
+    }
+}
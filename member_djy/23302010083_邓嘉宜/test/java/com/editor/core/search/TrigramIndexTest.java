@@ -0,0 +1,214 @@
+package com.editor.core.search;
+
+import com.editor.core.editor.EditorException;
+import com.editor.core.editor.TextEditor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * TrigramIndex 单元测试
+ * 测试候选行筛选、简单正则的字面量提取、随编辑增量更新后与全文扫描结果一致、内存统计以及大文档查找耗时
+ */
+public class TrigramIndexTest {
+    private SearchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new SearchEngine();
+    }
+
+    // ========== 候选行 ==========
+
+    /**
+     * 测试索引筛出的候选行。
+     * 测试数据：四行文本，"hello" 在第1、3行，"help" 在第2行。
+     * 预期："hello" 的候选行为 2 行；"zzz" 没有候选行；不足 3 个字符的 "he" 无法使用索引，返回 -1。
+     */
+    @Test
+    void testCandidates() {
+        TrigramIndex index = new TrigramIndex(Arrays.asList("hello world", "help", "say hello", "bye"));
+        assertEquals(2, index.countCandidates(engine.compile("hello", false)));
+        assertEquals(0, index.countCandidates(engine.compile("zzz", false)));
+        assertEquals(-1, index.countCandidates(engine.compile("he", false)));
+    }
+
+    /**
+     * 测试从简单正则中提取必须出现的字面量。
+     * 测试数据：含量词、字符类、转义和锚点的正则，以及含分组、分支、标志、带操作数转义（\x41 等）的正则。
+     * 预期：可选字符被去掉、其余字符按片段切开；含分组/分支/标志/带操作数转义时返回 null（不使用索引）。
+     */
+    @Test
+    void testRequiredLiterals() {
+        assertEquals(Arrays.asList("abc", "def"), TrigramIndex.requiredLiterals(Pattern.compile("^abc.*def$")));
+        assertEquals(Arrays.asList("colo", "r"), TrigramIndex.requiredLiterals(Pattern.compile("colou?r")));
+        assertEquals(Arrays.asList("ab", "c"), TrigramIndex.requiredLiterals(Pattern.compile("ab+c")));
+        assertEquals(Arrays.asList("foo", "bar."), TrigramIndex.requiredLiterals(Pattern.compile("foo[0-9]{2}bar\\.")));
+        assertEquals(Arrays.asList("x", "yz"), TrigramIndex.requiredLiterals(Pattern.compile("xa{0,3}yz\\d")));
+        assertNull(TrigramIndex.requiredLiterals(Pattern.compile("a(bc)")));
+        assertNull(TrigramIndex.requiredLiterals(Pattern.compile("abc|def")));
+        assertNull(TrigramIndex.requiredLiterals(Pattern.compile("abc", Pattern.CASE_INSENSITIVE)));
+        // 带操作数的转义，操作数不是字面量
+        assertNull(TrigramIndex.requiredLiterals(Pattern.compile("\\x41BC")));
+        assertNull(TrigramIndex.requiredLiterals(Pattern.compile("\\u0041BC")));
+        assertNull(TrigramIndex.requiredLiterals(Pattern.compile("\\0101BC")));
+        assertNull(TrigramIndex.requiredLiterals(Pattern.compile("\\cAxyz")));
+        assertNull(TrigramIndex.requiredLiterals(Pattern.compile("\\p{Lu}abc")));
+        assertEquals(Arrays.asList("ab", "cd"), TrigramIndex.requiredLiterals(Pattern.compile("ab\\tcd")));
+    }
+
+    // ========== 增量更新 ==========
+
+    /**
+     * 测试开启索引的编辑器在各种编辑后查找结果与未开启索引的编辑器一致。
+     * 测试数据：两个内容相同的编辑器，随机执行 2000 次 append/insert/delete/replace/replace-all/undo/redo（含换行文本）。
+     * 预期：每次编辑后，普通文本和简单正则的查找结果都与全文扫描完全相同。
+     */
+    @Test
+    void testIncrementalUpdatesMatchScan() throws EditorException {
+        List<String> initial = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            initial.add("line " + i + " abc");
+        }
+        TextEditor indexed = new TextEditor("a.txt", initial);
+        TextEditor plain = new TextEditor("b.txt", initial);
+        indexed.setIndexed(true);
+
+        SearchPattern[] patterns = {
+            engine.compile("abc", false),
+            engine.compile("xyz", false),
+            engine.compile("ne 1", false),
+            engine.compile("ab+c\\d*", true),
+            engine.compile("x.z", true)
+        };
+        String[] texts = {"abc", "xyz", "a\nxyz\nb", "", "abxyzc"};
+        Random random = new Random(7);
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(7);
+            int lineCount = plain.getLineCount();
+            int line = lineCount == 0 ? 1 : random.nextInt(lineCount) + 1;
+            String lineText = lineCount == 0 ? "" : plain.getLines().get(line - 1);
+            int col = random.nextInt(lineText.length() + 1) + 1;
+            String text = texts[random.nextInt(texts.length)];
+            switch (op) {
+                case 0:
+                    indexed.append(text);
+                    plain.append(text);
+                    break;
+                case 1:
+                    if (lineCount > 0) {
+                        indexed.insert(line, col, text);
+                        plain.insert(line, col, text);
+                    }
+                    break;
+                case 2:
+                case 3:
+                    if (col <= lineText.length()) {
+                        int len = random.nextInt(lineText.length() - col + 2);
+                        if (op == 2) {
+                            indexed.delete(line, col, len);
+                            plain.delete(line, col, len);
+                        } else {
+                            indexed.replace(line, col, len, text);
+                            plain.replace(line, col, len, text);
+                        }
+                    }
+                    break;
+                case 4:
+                    SearchPattern from = patterns[random.nextInt(2)];
+                    indexed.replaceAll(from, text, 1, Integer.MAX_VALUE);
+                    plain.replaceAll(from, text, 1, Integer.MAX_VALUE);
+                    break;
+                case 5:
+                    indexed.undo();
+                    plain.undo();
+                    break;
+                default:
+                    indexed.redo();
+                    plain.redo();
+            }
+            assertEquals(plain.getLines(), indexed.getLines());
+            for (SearchPattern pattern : patterns) {
+                assertEquals(collect(plain, pattern), collect(indexed, pattern), "第 " + step + " 步: " + pattern.getText());
+            }
+        }
+    }
+
+    /**
+     * 测试删除的行 ID 攒多后会从倒排表中清掉。
+     * 测试数据：3000 行文本，反复修改第 1 行 5000 次。
+     * 预期：倒排项数不会随修改次数一直增长（小于行数的 3 倍 × 每行三元组数）；查找结果正确。
+     */
+    @Test
+    void testStaleIdsArePurged() throws EditorException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            lines.add("abcd");
+        }
+        TextEditor editor = new TextEditor("a.txt", lines);
+        editor.setIndexed(true);
+        for (int i = 0; i < 5000; i++) {
+            editor.replace(1, 1, 1, i % 2 == 0 ? "x" : "a");
+        }
+        TrigramIndex.Stats stats = editor.getIndexStats();
+        assertEquals(3000, stats.getLines());
+        assertTrue(stats.getPostingEntries() < 3000L * 2 * 3, "倒排项: " + stats.getPostingEntries());
+        assertEquals(3000, editor.find(engine.compile("bcd", false), (line, col, length) -> true));
+    }
+
+    // ========== 内存统计和转义 ==========
+
+    /**
+     * 测试索引统计和关闭索引。
+     * 测试数据：两行文本 "abcd"、"abce"，共 3 个不同的三元组、4 个倒排项。
+     * 预期：统计的行数、三元组数、倒排项数正确，内存估算大于 0；关闭后统计为 null。
+     */
+    @Test
+    void testStats() {
+        TextEditor editor = new TextEditor("a.txt", Arrays.asList("abcd", "abce"));
+        assertNull(editor.getIndexStats());
+        editor.setIndexed(true);
+        TrigramIndex.Stats stats = editor.getIndexStats();
+        assertEquals(2, stats.getLines());
+        assertEquals(3, stats.getTrigrams());
+        assertEquals(4, stats.getPostingEntries());
+        assertEquals(8, stats.getTextChars());
+        assertTrue(stats.getBytes() > 0);
+        editor.setIndexed(false);
+        assertNull(editor.getIndexStats());
+    }
+
+    /**
+     * 测试带操作数转义的正则在有索引时也能找到。
+     * 测试数据：含 "ABC"、"41BC"、控制字符 U+0001 加 "xyz" 的行；用十六进制、Unicode、八进制、控制字符转义写的正则。
+     * 预期：有索引和没有索引的编辑器查找结果相同，且都能找到。
+     */
+    @Test
+    void testIndexedRegexWithOperandEscapes() {
+        List<String> lines = Arrays.asList("ABC", "41BC", "0041BC x", "\u0001xyz", "Axyz");
+        TextEditor indexed = new TextEditor("a.txt", lines);
+        TextEditor plain = new TextEditor("b.txt", lines);
+        indexed.setIndexed(true);
+        for (String regex : new String[] {"\\x41BC", "\\u0041BC", "\\0101BC", "\\cAxyz"}) {
+            SearchPattern pattern = engine.compile(regex, true);
+            List<String> expected = collect(plain, pattern);
+            assertFalse(expected.isEmpty(), regex);
+            assertEquals(expected, collect(indexed, pattern), regex);
+        }
+    }
+
+    private List<String> collect(TextEditor editor, SearchPattern pattern) {
+        List<String> hits = new ArrayList<>();
+        editor.find(pattern, (line, col, length) -> {
+            hits.add(line + ":" + col + "+" + length);
+            return true;
+        });
+        return hits;
+    }
+}
@@ -2,6 +2,7 @@ package com.editor.core.workspace;
 
 import com.editor.core.editor.Editor;
 import com.editor.core.editor.TextEditor;
+import com.editor.core.logging.BatchEventListener;
 import com.editor.core.logging.EditorEvent;
 import com.editor.core.logging.EventListener;
 import com.editor.core.logging.LoggingService;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -440,6 +442,104 @@ public class WorkspaceTest {
         assertEquals(0, listener.receivedEvents);
     }
     
+    // ========== 批量事件测试 ==========
+    
+    /**
+     * 测试批次中同一文件的 FILE_MODIFIED 被合并。
+     * 测试数据：注册批量监听器，在一个批次中对 "test.txt" 调用 3 次 updateModifiedStatus(true) 并发布一条命令事件。
+     * 预期：批次结束时只交付一次，包含 1 条 FILE_MODIFIED 和 1 条 COMMAND_EXECUTED。
+     */
+    @Test
+    void testBatchCoalescesFileModified() {
+        workspace.openFile("test.txt", new TextEditor("test.txt"));
+        TestBatchListener listener = new TestBatchListener();
+        workspace.addBatchListener(listener);
+        
+        workspace.beginBatch();
+        workspace.updateModifiedStatus("test.txt", true);
+        workspace.updateModifiedStatus("test.txt", true);
+        workspace.updateModifiedStatus("test.txt", true);
+        workspace.notifyCommandExecuted("append", "\"a\"", "test.txt");
+        assertEquals(0, listener.batches.size());
+        workspace.endBatch();
+        
+        assertEquals(1, listener.batches.size());
+        List<EditorEvent> batch = listener.batches.get(0);
+        assertEquals(2, batch.size());
+        assertEquals(EditorEvent.EventType.FILE_MODIFIED, batch.get(0).getEventType());
+        assertEquals(EditorEvent.EventType.COMMAND_EXECUTED, batch.get(1).getEventType());
+    }
+    
+    /**
+     * 测试逐条监听器在批次中仍收到每个事件。
+     * 测试数据：同时注册逐条监听器和批量监听器，在批次中对同一文件标记 3 次修改。
+     * 预期：逐条监听器立即收到 3 个事件，批量监听器只收到 1 个。
+     */
+    @Test
+    void testPerEventListenerUnaffectedByBatch() {
+        workspace.openFile("test.txt", new TextEditor("test.txt"));
+        TestEventListener perEvent = new TestEventListener();
+        TestBatchListener batched = new TestBatchListener();
+        workspace.addListener(perEvent);
+        workspace.addBatchListener(batched);
+        
+        workspace.beginBatch();
+        for (int i = 0; i < 3; i++) {
+            workspace.updateModifiedStatus("test.txt", true);
+        }
+        assertEquals(3, perEvent.receivedEvents);
+        workspace.endBatch();
+        
+        assertEquals(1, batched.batches.get(0).size());
+    }
+    
+    /**
+     * 测试保存后的修改不会与之前的修改合并。
+     * 测试数据：批次中依次 修改、保存、修改 "test.txt"。
+     * 预期：批次包含 FILE_MODIFIED、FILE_SAVED、FILE_MODIFIED 三个事件。
+     */
+    @Test
+    void testBatchKeepsModifiedAfterSave() {
+        workspace.openFile("test.txt", new TextEditor("test.txt"));
+        TestBatchListener listener = new TestBatchListener();
+        workspace.addBatchListener(listener);
+        
+        workspace.beginBatch();
+        workspace.updateModifiedStatus("test.txt", true);
+        workspace.notifyFileSaved("test.txt");
+        workspace.updateModifiedStatus("test.txt", true);
+        workspace.endBatch();
+        
+        List<EditorEvent> batch = listener.batches.get(0);
+        assertEquals(3, batch.size());
+        assertEquals(EditorEvent.EventType.FILE_SAVED, batch.get(1).getEventType());
+        assertEquals(EditorEvent.EventType.FILE_MODIFIED, batch.get(2).getEventType());
+    }
+    
+    /**
+     * 测试嵌套批次只在最外层结束时交付，不在批次中时立即交付。
+     * 测试数据：嵌套两层 beginBatch；批次外再发布一个事件。
+     * 预期：内层 endBatch 后未交付，外层 endBatch 后交付 1 批；批次外的事件单独交付 1 批。
+     */
+    @Test
+    void testNestedBatchAndImmediateDelivery() {
+        workspace.openFile("test.txt", new TextEditor("test.txt"));
+        TestBatchListener listener = new TestBatchListener();
+        workspace.addBatchListener(listener);
+        
+        workspace.beginBatch();
+        workspace.beginBatch();
+        workspace.updateModifiedStatus("test.txt", true);
+        workspace.endBatch();
+        assertEquals(0, listener.batches.size());
+        workspace.endBatch();
+        assertEquals(1, listener.batches.size());
+        
+        workspace.notifyCommandExecuted("show", "", "test.txt");
+        assertEquals(2, listener.batches.size());
+        assertThrows(IllegalStateException.class, () -> workspace.endBatch());
+    }
+    
     // ========== 辅助类 ==========
     
     static class TestEventListener implements EventListener {
@@ -450,4 +550,13 @@ public class WorkspaceTest {
             receivedEvents++;
         }
     }
+    
+    static class TestBatchListener implements BatchEventListener {
+        List<List<EditorEvent>> batches = new ArrayList<>();
+        
+        @Override
+        public void onEvents(List<EditorEvent> events) {
+            batches.add(new ArrayList<>(events));
+        }
+    }
 }
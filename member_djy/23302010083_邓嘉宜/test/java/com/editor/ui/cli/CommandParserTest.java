@@ -4,6 +4,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * CommandParser 单元测试
  * 测试命令解析器的所有功能
@@ -420,4 +426,149 @@ public class CommandParserTest {
         assertEquals(1, cmd.getArgs().size());
         assertEquals("test.txt", cmd.getArgs().get(0));
     }
+    
+    // ========== 分词器测试 ==========
+    
+    /** 真实命令语料，覆盖引号、转义、位置、文件参数 */
+    private static final String[] CORPUS = {
+        "load notes.txt",
+        "init draft.txt with-log",
+        "append \"Hello World\"",
+        "append \"第二行 中文\" notes.txt",
+        "insert 1:5 \"inserted text\"",
+        "insert 12:1 \"tab\\there\" draft.txt",
+        "delete 3:2 10",
+        "replace 1:5 3 \"new text\"",
+        "show 1:10",
+        "show",
+        "  save   all  ",
+        "dir-tree src",
+        "undo",
+        "log-show notes.txt",
+    };
+    
+    /**
+     * 测试新分词器与原正则实现对普通命令的结果一致。
+     * 测试数据：CORPUS 中的每一条命令。
+     * 预期：命令名和参数逐个相同。
+     */
+    @Test
+    void testTokenizerMatchesLegacyRegex() {
+        for (String line : CORPUS) {
+            CommandParser.ParsedCommand cmd = parser.parse(line);
+            List<String> legacy = legacySplit(line.trim());
+            assertEquals(legacy.get(0), cmd.getCommandName(), line);
+            assertEquals(legacy.subList(1, legacy.size()), cmd.getArgs(), line);
+        }
+    }
+    
+    /**
+     * 测试引号内的转义引号不会结束引号。
+     * 测试数据：append "say \"hi\" now" file.txt。
+     * 预期：两个参数，第一个保留转义序列，unescape 后为 say "hi" now。
+     */
+    @Test
+    void testTokenizeEscapedQuote() {
+        CommandParser.ParsedCommand cmd = parser.parse("append \"say \\\"hi\\\" now\" file.txt");
+        assertEquals(2, cmd.getArgCount());
+        assertEquals("say \\\"hi\\\" now", cmd.getArg(0));
+        assertEquals("say \"hi\" now", parser.unescape(cmd.getArg(0)));
+        assertEquals("file.txt", cmd.getArg(1));
+    }
+    
+    /**
+     * 测试空引号和缺少右引号。
+     * 测试数据：append "" x；append "unterminated text。
+     * 预期：空引号得到空字符串参数；缺少右引号时取到行尾。
+     */
+    @Test
+    void testTokenizeEmptyAndUnterminatedQuotes() {
+        CommandParser.ParsedCommand empty = parser.parse("append \"\" x");
+        assertEquals(2, empty.getArgCount());
+        assertEquals("", empty.getArg(0));
+        
+        CommandParser.ParsedCommand open = parser.parse("append \"unterminated text");
+        assertEquals(1, open.getArgCount());
+        assertEquals("unterminated text", open.getArg(0));
+    }
+    
+    /**
+     * 测试分词结果是原始输入上的偏移，并且可以复用。
+     * 测试数据：同一个 CommandTokens 先后解析两行命令。
+     * 预期：偏移指向原字符串，第二次解析覆盖第一次的结果；position 不截取字符串也能解析 line:col。
+     */
+    @Test
+    void testReusableTokenView() {
+        CommandTokens tokens = new CommandTokens();
+        String line = "replace 10:3 2 \"ab\"";
+        parser.tokenize(line, tokens);
+        assertEquals(4, tokens.size());
+        assertEquals(16, tokens.start(3));
+        assertEquals(18, tokens.end(3));
+        assertTrue(tokens.textEquals(0, "replace"));
+        int[] pos = new int[2];
+        assertTrue(tokens.position(1, pos));
+        assertEquals(10, pos[0]);
+        assertEquals(3, pos[1]);
+        assertFalse(tokens.position(2, pos));
+        
+        parser.tokenize("undo", tokens);
+        assertEquals(1, tokens.size());
+        assertEquals("undo", tokens.text(0));
+    }
+    
+    /**
+     * 测试超出 int 范围的数字。
+     * 测试数据："2147483648"、"-2147483648"、"1:99999999999"、"+7"。
+     * 预期：溢出返回 null，最小值和带正号的数字正常解析（与 Integer.parseInt 一致）。
+     */
+    @Test
+    void testParseNumberBounds() {
+        assertNull(parser.parseInteger("2147483648"));
+        assertEquals(Integer.MIN_VALUE, parser.parseInteger("-2147483648").intValue());
+        assertNull(parser.parsePosition("1:99999999999"));
+        assertEquals(7, parser.parseInteger("+7").intValue());
+        assertNull(parser.parseInteger("-"));
+    }
+    
+    /**
+     * 测试 ParsedCommand 按序号在分词偏移上解析参数。
+     * 测试数据：replace 3:4 5 "a\tb" f.txt；之后再解析另一行。
+     * 预期：位置、长度、转义文本和选项比较都正确；格式错误返回 null；
+     * 之前的解析结果不会被下一次 parse 覆盖。
+     */
+    @Test
+    void testParsedCommandTypedArgs() {
+        CommandParser.ParsedCommand cmd = parser.parse("replace 3:4 5 \"a\\tb\" f.txt");
+        assertEquals("replace", cmd.matchCommandName(new String[] {"rep", "replace-all", "replace"}));
+        assertNull(cmd.matchCommandName(new String[] {"insert"}));
+        int[] pos = cmd.getPositionArg(0);
+        assertEquals(3, pos[0]);
+        assertEquals(4, pos[1]);
+        assertEquals(5, cmd.getIntArg(1).intValue());
+        assertEquals("a\tb", cmd.getUnescapedArg(2));
+        assertTrue(cmd.argEquals(3, "f.txt"));
+        assertFalse(cmd.argEquals(3, "f.tx"));
+        assertNull(cmd.getPositionArg(1));
+        assertNull(cmd.getIntArg(0));
+        
+        parser.parse("undo");
+        assertEquals("f.txt", cmd.getArg(3));
+        assertEquals(Arrays.asList("3:4", "5", "a\\tb", "f.txt"), cmd.getArgs());
+    }
+    
+    /** 原来的正则分词实现，作为对照 */
+    private static List<String> legacySplit(String input) {
+        List<String> parts = new ArrayList<>();
+        Matcher matcher =
+            Pattern.compile("([^\"\\s]+|\".+?\")\\s*").matcher(input);
+        while (matcher.find()) {
+            String part = matcher.group(1);
+            if (part.startsWith("\"") && part.endsWith("\"")) {
+                part = part.substring(1, part.length() - 1);
+            }
+            parts.add(part);
+        }
+        return parts;
+    }
 }
@@ -0,0 +1,247 @@
+package com.editor.ui.cli;
+
+import com.editor.core.Application;
+import com.editor.core.command.CommandException;
+import com.editor.core.command.CommandManager;
+import com.editor.core.command.workspace.UnsavedFileHandler;
+import com.editor.core.logging.LoggingService;
+import com.editor.core.persistence.FilePersistence;
+import com.editor.core.persistence.WorkspacePersistence;
+import com.editor.core.workspace.Workspace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 批处理模式测试
+ * 通过 CommandLineInterface.runScript 执行脚本，检查输出、行号报错、退出码和未保存文件策略
+ */
+public class ScriptModeTest {
+    @TempDir
+    Path tempDir;
+    
+    private PrintStream originalOut;
+    private PrintStream originalErr;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+    private Application application;
+    
+    @BeforeEach
+    void setUp() {
+        originalOut = System.out;
+        originalErr = System.err;
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true));
+        System.setErr(new PrintStream(err, true));
+        application = new Application();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+    
+    // ========== 输出与报错 ==========
+    
+    /**
+     * 测试脚本执行和按行号报错。
+     * 测试数据：脚本包含注释、空行、一个未知命令和一个越界的 insert。
+     * 预期：其余命令照常执行，stderr 报告第 3、6 行出错，退出码为 1，不输出提示符。
+     */
+    @Test
+    void testErrorsReportedWithLineNumbers() throws IOException {
+        String script = "init " + file("a.txt") + "\n"
+            + "append \"hello\"\n"
+            + "bogus\n"
+            + "# 注释\n"
+            + "\n"
+            + "insert 9:9 \"x\"\n"
+            + "show\n";
+        
+        int code = run(script, UnsavedFileHandler.always(UnsavedFileHandler.Decision.DISCARD), false);
+        
+        assertEquals(CommandLineInterface.EXIT_COMMAND_FAILED, code);
+        String errors = err.toString("UTF-8");
+        assertTrue(errors.contains("script:3: 错误: 未知命令"));
+        assertTrue(errors.contains("script:6: 错误:"));
+        String output = out.toString("UTF-8");
+        assertTrue(output.contains("hello"));
+        assertFalse(output.contains("> "));
+        assertFalse(application.isRunning());
+    }
+    
+    /**
+     * 测试 failFast。
+     * 测试数据：第 2 行出错，第 3 行是 append。
+     * 预期：执行到第 2 行就停止，第 3 行没有执行，也不会补 exit。
+     */
+    @Test
+    void testFailFastStopsAtFirstError() throws IOException {
+        String script = "init " + file("a.txt") + "\n"
+            + "delete 5:1 1\n"
+            + "append \"never\"\n";
+        
+        int code = run(script, UnsavedFileHandler.always(UnsavedFileHandler.Decision.SAVE), true);
+        
+        assertEquals(CommandLineInterface.EXIT_COMMAND_FAILED, code);
+        assertTrue(err.toString("UTF-8").contains("script:2:"));
+        assertTrue(application.isRunning());
+        assertFalse(Files.exists(tempDir.resolve("a.txt")));
+    }
+    
+    /**
+     * 测试 dir-tree 直接写到标准输出。
+     * 测试数据：临时目录下有子目录 sub（内含 deep.txt）和文件 x.txt，--depth 1。
+     * 预期：按目录在前的顺序输出一层，不显示 deep.txt。
+     */
+    @Test
+    void testDirTreeWritesToOutput() throws IOException {
+        Files.createDirectories(tempDir.resolve("sub"));
+        Files.write(tempDir.resolve("sub").resolve("deep.txt"), "d".getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("x.txt"), "x".getBytes(StandardCharsets.UTF_8));
+        
+        int code = run("dir-tree " + tempDir + " --depth 1\n",
+            UnsavedFileHandler.always(UnsavedFileHandler.Decision.DISCARD), false);
+        
+        assertEquals(CommandLineInterface.EXIT_OK, code);
+        assertEquals(tempDir + "\n├── sub\n└── x.txt\n", out.toString("UTF-8"));
+    }
+    
+    /**
+     * 测试全部成功时的退出码。
+     * 预期：退出码 0，stderr 为空。
+     */
+    @Test
+    void testSuccessfulScript() throws IOException {
+        String script = "init " + file("a.txt") + "\nappend \"x\"\nsave\nexit\n";
+        
+        assertEquals(CommandLineInterface.EXIT_OK,
+            run(script, UnsavedFileHandler.always(UnsavedFileHandler.Decision.DISCARD), false));
+        assertEquals("", err.toString("UTF-8"));
+    }
+    
+    // ========== 未保存文件策略 ==========
+    
+    /**
+     * 测试脚本结束时按策略保存。
+     * 测试数据：init 并 append 后脚本结束（没有 exit），策略为 SAVE。
+     * 预期：自动执行 exit 并保存文件。
+     */
+    @Test
+    void testSaveUnsavedAtEndOfScript() throws IOException {
+        String script = "init " + file("a.txt") + "\nappend \"kept\"\n";
+        
+        assertEquals(CommandLineInterface.EXIT_OK,
+            run(script, UnsavedFileHandler.always(UnsavedFileHandler.Decision.SAVE), false));
+        List<String> lines = Files.readAllLines(tempDir.resolve("a.txt"), StandardCharsets.UTF_8);
+        assertTrue(lines.contains("kept"));
+    }
+    
+    /**
+     * 测试 DISCARD 策略，以及 close 命令同样走策略而不是读取 stdin。
+     * 预期：close 直接关闭不保存，文件不存在。
+     */
+    @Test
+    void testDiscardUnsaved() throws IOException {
+        String script = "init " + file("a.txt") + "\nappend \"dropped\"\nclose\n";
+        
+        assertEquals(CommandLineInterface.EXIT_OK,
+            run(script, UnsavedFileHandler.always(UnsavedFileHandler.Decision.DISCARD), false));
+        assertFalse(Files.exists(tempDir.resolve("a.txt")));
+    }
+    
+    /**
+     * 测试取消关闭时的提示走命令输出（服务器模式靠它把提示发回客户端）。
+     * 测试数据：策略总是返回 CANCEL，脚本 close 一个已修改的文件。
+     * 预期：输出中包含 "操作已取消"，文件没有被保存。
+     */
+    @Test
+    void testCancelCloseGoesToCommandOutput() throws IOException {
+        String script = "init " + file("a.txt") + "\nappend \"x\"\nclose\n";
+        
+        assertEquals(CommandLineInterface.EXIT_OK,
+            run(script, UnsavedFileHandler.always(UnsavedFileHandler.Decision.CANCEL), false));
+        assertTrue(out.toString("UTF-8").contains("操作已取消"));
+        assertFalse(Files.exists(tempDir.resolve("a.txt")));
+    }
+    
+    /**
+     * 测试未指定策略时退出。
+     * 测试数据：策略直接抛出 CommandException（与 Main 中批处理默认策略相同）。
+     * 预期：报告退出错误，退出码为 1。
+     */
+    @Test
+    void testNoPolicyFailsOnExit() throws IOException {
+        String script = "init " + file("a.txt") + "\nappend \"x\"\n";
+        UnsavedFileHandler refuse = (filePath, prompt) -> {
+            throw new CommandException("文件 " + filePath + " 未保存");
+        };
+        
+        assertEquals(CommandLineInterface.EXIT_COMMAND_FAILED, run(script, refuse, false));
+        assertTrue(err.toString("UTF-8").contains("退出时出错"));
+    }
+    
+    // ========== 大脚本 ==========
+    
+    /**
+     * 较大的脚本全部按顺序执行。
+     * 测试数据：2000 条命令（append 和 show 交替），结尾 save。
+     * 预期：全部成功，文件里 1000 行顺序正确，每条 show 都有输出。
+     */
+    @Test
+    void testLargeScriptRunsEveryCommand() throws IOException {
+        int commands = 2000;
+        Path target = tempDir.resolve("big.txt");
+        StringBuilder script = new StringBuilder(commands * 16);
+        script.append("init ").append(target).append('\n');
+        for (int i = 1; i <= commands; i++) {
+            script.append(i % 2 == 1 ? "append \"line " + i + "\"\n" : "show 1:1\n");
+        }
+        script.append("save\n");
+        
+        // 和 Main 批处理模式一样，把输出写到缓冲区里
+        PrintStream buffered = new PrintStream(new BufferedOutputStream(out, 64 * 1024), false);
+        System.setOut(buffered);
+        int code = run(script.toString(), UnsavedFileHandler.always(UnsavedFileHandler.Decision.DISCARD), false);
+        buffered.flush();
+        
+        assertEquals(CommandLineInterface.EXIT_OK, code);
+        assertEquals("", err.toString("UTF-8"));
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        assertEquals(commands / 2, lines.size());
+        assertEquals("line 1", lines.get(0));
+        assertEquals("line " + (commands - 1), lines.get(lines.size() - 1));
+        String output = out.toString("UTF-8");
+        assertEquals(commands / 2, output.split("\n", -1).length - 1);
+    }
+    
+    private int run(String script, UnsavedFileHandler handler, boolean failFast) throws IOException {
+        FilePersistence filePersistence = new FilePersistence();
+        LoggingService loggingService = new LoggingService(filePersistence);
+        Workspace workspace = new Workspace(loggingService);
+        CommandLineInterface cli = new CommandLineInterface(
+            workspace, new CommandManager(), filePersistence,
+            new WorkspacePersistence(tempDir.resolve(".editor_workspace")), loggingService,
+            application, handler);
+        return cli.runScript(new BufferedReader(new StringReader(script)), "script", failFast);
+    }
+    
+    private String file(String name) {
+        return tempDir.resolve(name).toString();
+    }
+}
@@ -0,0 +1,197 @@
+package com.editor.ui.server;
+
+import com.editor.core.logging.LoggingService;
+import com.editor.core.persistence.FilePersistence;
+import com.editor.core.persistence.WorkspacePersistence;
+import com.editor.core.workspace.Workspace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * EditorServer 集成测试
+ * 通过真实的本机 TCP 连接测试会话隔离和响应帧格式
+ */
+public class EditorServerTest {
+    @TempDir
+    Path tempDir;
+    
+    private EditorServer server;
+    private Workspace workspace;
+    private int port;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        FilePersistence filePersistence = new FilePersistence();
+        LoggingService loggingService = new LoggingService(filePersistence);
+        workspace = new Workspace(loggingService);
+        server = new EditorServer(workspace, filePersistence,
+            new WorkspacePersistence(tempDir.resolve(".editor_workspace")), loggingService, 0);
+        port = server.bind();
+        Thread acceptor = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                // 测试结束时关闭
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+    
+    // ========== 响应帧 ==========
+    
+    /**
+     * 测试成功和失败命令的响应帧。
+     * 测试数据：init 一个文件后 append 并 show；再发送未知命令。
+     * 预期：成功命令返回 "OK"，show 的内容包含追加的文本；未知命令返回 "ERR" 及错误信息。
+     */
+    @Test
+    void testFramedResponses() throws IOException {
+        try (Client client = new Client(port)) {
+            assertEquals("OK", client.send("init " + file("a.txt")).status);
+            assertEquals("OK", client.send("append \"hello 世界\"").status);
+            
+            Response show = client.send("show");
+            assertEquals("OK", show.status);
+            assertTrue(show.payload.contains("hello 世界"));
+            
+            Response unknown = client.send("no-such-command");
+            assertEquals("ERR", unknown.status);
+            assertTrue(unknown.payload.contains("未知命令"));
+        }
+    }
+    
+    // ========== 会话隔离 ==========
+    
+    /**
+     * 测试每个连接有自己的活动文件。
+     * 测试数据：客户端 1 init a.txt，客户端 2 init b.txt，然后两者都不带文件参数 append。
+     * 预期：各自的文本进入各自的活动文件，共享的工作区中两个文件都已打开。
+     */
+    @Test
+    void testSessionsHaveOwnActiveFile() throws IOException {
+        try (Client c1 = new Client(port); Client c2 = new Client(port)) {
+            c1.send("init " + file("a.txt"));
+            c2.send("init " + file("b.txt"));
+            c1.send("append \"from-1\"");
+            c2.send("append \"from-2\"");
+            
+            String a = c1.send("show").payload;
+            String b = c2.send("show").payload;
+            assertTrue(a.contains("from-1") && !a.contains("from-2"));
+            assertTrue(b.contains("from-2") && !b.contains("from-1"));
+            assertTrue(workspace.isFileOpen(file("a.txt")));
+            assertTrue(workspace.isFileOpen(file("b.txt")));
+        }
+    }
+    
+    /**
+     * 测试每个连接有自己的 undo 栈。
+     * 测试数据：客户端 1 在 a.txt 追加文本，客户端 2 执行 undo。
+     * 预期：客户端 2 的 undo 失败（没有可撤销的操作），a.txt 内容不变。
+     */
+    @Test
+    void testSessionsHaveOwnUndoStack() throws IOException {
+        try (Client c1 = new Client(port); Client c2 = new Client(port)) {
+            c1.send("init " + file("a.txt"));
+            c1.send("append \"keep\"");
+            
+            assertEquals("ERR", c2.send("undo").status);
+            assertTrue(c1.send("show").payload.contains("keep"));
+        }
+    }
+    
+    /**
+     * 测试连续发送大量命令。
+     * 测试数据：单个连接连续发送 2000 条 append。
+     * 预期：全部返回 OK，文件行数正确。
+     */
+    @Test
+    void testManyCommands() throws IOException {
+        try (Client client = new Client(port)) {
+            client.send("init " + file("bulk.txt"));
+            for (int i = 0; i < 2000; i++) {
+                assertEquals("OK", client.send("append \"line" + i + "\"").status);
+            }
+            String shown = client.send("show 2000:2000").payload;
+            assertTrue(shown.contains("line1999"));
+        }
+    }
+    
+    // ========== 辅助类 ==========
+    
+    private String file(String name) {
+        return tempDir.resolve(name).toString();
+    }
+    
+    static class Response {
+        final String status;
+        final String payload;
+        
+        Response(String status, String payload) {
+            this.status = status;
+            this.payload = payload;
+        }
+    }
+    
+    static class Client implements AutoCloseable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final InputStream in;
+        
+        Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream());
+        }
+        
+        Response send(String command) throws IOException {
+            out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            
+            String header = readLine();
+            String[] parts = header.split(" ");
+            byte[] payload = new byte[Integer.parseInt(parts[1])];
+            int read = 0;
+            while (read < payload.length) {
+                int n = in.read(payload, read, payload.length - read);
+                if (n < 0) {
+                    throw new IOException("连接已关闭");
+                }
+                read += n;
+            }
+            return new Response(parts[0], new String(payload, StandardCharsets.UTF_8));
+        }
+        
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') {
+                sb.append((char) c);
+            }
+            return sb.toString();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}